@@ -0,0 +1,440 @@
+/*
+ * PhotoBatchRenderer.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import com.eteks.sweethome3d.io.DefaultUserPreferences;
+import com.eteks.sweethome3d.io.HomeFileRecorder;
+import com.eteks.sweethome3d.j3d.PhotoRenderer;
+import com.eteks.sweethome3d.model.Camera;
+import com.eteks.sweethome3d.model.CatalogLight;
+import com.eteks.sweethome3d.model.CatalogPieceOfFurniture;
+import com.eteks.sweethome3d.model.FurnitureCatalog;
+import com.eteks.sweethome3d.model.FurnitureCategory;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomeLight;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.RecorderException;
+import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.Selectable;
+import com.eteks.sweethome3d.model.Wall;
+
+/**
+ * A command line tool able to render the photos of the cameras stored in homes without any display.
+ * Its syntax is:
+ * <pre>java -classpath ... com.eteks.sweethome3d.PhotoBatchRenderer [options] file.sh3d ...
+ * Options:
+ *   -width pixels      width of the photos (default 800)
+ *   -height pixels     height of the photos (default 600)
+ *   -quality low|high  quality of the photos (default high)
+ *   -format png|jpg    format of the photo files (default png)
+ *   -camera name       name of a stored camera to render (all the stored cameras by default)
+ *   -output directory  directory where photos are saved (default: directory of each home)
+ *   -threads count     count of threads used to render each photo (default: available processors)
+ *   -lowPriority true|false  whether rendering threads run with a low priority (default true)
+ *   -bucketSize pixels size of the buckets computed by each thread (default 64)
+ *   -bucketOrder order order of computed buckets: spiral, hilbert, column, row, diagonal or random (default spiral)
+ *   -maxDuration s     maximum duration in seconds of each photo rendering (default: no limit)
+ *   -homes count       count of homes rendered at the same time (default 1)
+ *   -benchmark         renders a built-in scene instead of home files</pre>
+ * Photos are saved in files named <code>home-camera.png</code>, suffixed by the index of the camera 
+ * if other cameras have the same name. If a home doesn't contain any stored camera,
+ * the photo is computed at the location of its current camera.
+ * While a photo is computed, its rendered parts are saved in a file named <code>home-camera.png.checkpoint</code>,
+ * to be able to resume the rendering if the program is stopped before the end, or if the rendering 
+ * lasts more than the maximum duration, in which case the photo isn't saved. 
+ * The benchmark option renders a small scene built with the default furniture catalog, 
+ * to compare the duration of renderings computed with different options.
+ * Headless rendering requires Java 3D 1.6 or higher, in which case <code>j3d.rend</code>
+ * System property is set to <code>noop</code> if it's not set.
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class PhotoBatchRenderer {
+  private int                   width = 800;
+  private int                   height = 600;
+  private PhotoRenderer.Quality quality = PhotoRenderer.Quality.HIGH;
+  private String                format = "png";
+  private List<String>          cameraNames = new ArrayList<String>();
+  private File                  outputDirectory;
+  private int                   threadCount;
+  private Boolean               lowPriorityThreads;
+  private Integer               bucketSize;
+  private String                bucketOrder;
+  private long                  maximumDuration;
+  private boolean               benchmark;
+  private int                   parallelHomesCount = 1;
+  private List<String>          homeNames = new ArrayList<String>();
+
+  private PhotoBatchRenderer() {
+  }
+
+  public static void main(String [] args) {
+    if (System.getProperty("java.awt.headless") == null) {
+      System.setProperty("java.awt.headless", "true");
+    }
+    if (System.getProperty("j3d.rend") == null) {
+      // Use Java 3D pipeline that doesn't require a display
+      System.setProperty("j3d.rend", "noop");
+    }
+    PhotoBatchRenderer renderer = new PhotoBatchRenderer();
+    try {
+      renderer.parseArguments(args);
+    } catch (IllegalArgumentException ex) {
+      System.err.println(ex.getMessage());
+      System.err.println("Usage: java " + PhotoBatchRenderer.class.getName()
+          + " [-width pixels] [-height pixels] [-quality low|high] [-format png|jpg]"
+          + " [-camera name]... [-output directory] [-threads count] [-lowPriority true|false]"
+          + " [-bucketSize pixels] [-bucketOrder order] [-maxDuration s] [-homes count] [-benchmark | file.sh3d...]");
+      System.exit(2);
+    }
+    System.exit((renderer.benchmark ? renderer.renderBenchmark() : renderer.renderHomes()) ? 0 : 1);
+  }
+
+  /**
+   * Reads command line arguments.
+   */
+  private void parseArguments(String [] args) {
+    for (int i = 0; i < args.length; i++) {
+      String arg = args [i];
+      if ("-benchmark".equals(arg)) {
+        this.benchmark = true;
+      } else if (arg.startsWith("-")) {
+        if (i == args.length - 1) {
+          throw new IllegalArgumentException("Missing value for option " + arg);
+        }
+        String value = args [++i];
+        if ("-width".equals(arg)) {
+          this.width = parsePositiveInteger(arg, value);
+        } else if ("-height".equals(arg)) {
+          this.height = parsePositiveInteger(arg, value);
+        } else if ("-quality".equals(arg)) {
+          try {
+            this.quality = PhotoRenderer.Quality.valueOf(value.toUpperCase(Locale.ENGLISH));
+          } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown quality " + value);
+          }
+        } else if ("-format".equals(arg)) {
+          this.format = value.toLowerCase(Locale.ENGLISH);
+          if ("jpeg".equals(this.format)) {
+            this.format = "jpg";
+          } else if (!"png".equals(this.format) && !"jpg".equals(this.format)) {
+            throw new IllegalArgumentException("Unknown format " + value);
+          }
+        } else if ("-camera".equals(arg)) {
+          this.cameraNames.add(value);
+        } else if ("-output".equals(arg)) {
+          this.outputDirectory = new File(value);
+          if (!this.outputDirectory.isDirectory()) {
+            throw new IllegalArgumentException("Output directory " + value + " doesn't exist");
+          }
+        } else if ("-threads".equals(arg)) {
+          this.threadCount = parsePositiveInteger(arg, value);
+        } else if ("-lowPriority".equals(arg)) {
+          this.lowPriorityThreads = Boolean.valueOf(value);
+        } else if ("-bucketSize".equals(arg)) {
+          this.bucketSize = parsePositiveInteger(arg, value);
+          if (this.bucketSize < 16 || this.bucketSize > 512) {
+            throw new IllegalArgumentException("Bucket size must be between 16 and 512");
+          }
+        } else if ("-bucketOrder".equals(arg)) {
+          if (!Arrays.asList("spiral", "hilbert", "column", "row", "diagonal", "random").contains(value)) {
+            throw new IllegalArgumentException("Unknown bucket order " + value);
+          }
+          this.bucketOrder = value;
+        } else if ("-maxDuration".equals(arg)) {
+          this.maximumDuration = parsePositiveInteger(arg, value) * 1000L;
+        } else if ("-homes".equals(arg)) {
+          this.parallelHomesCount = parsePositiveInteger(arg, value);
+        } else {
+          throw new IllegalArgumentException("Unknown option " + arg);
+        }
+      } else {
+        this.homeNames.add(arg);
+      }
+    }
+    if (this.homeNames.isEmpty() && !this.benchmark) {
+      throw new IllegalArgumentException("No home file");
+    }
+  }
+
+  private int parsePositiveInteger(String option, String value) {
+    try {
+      int integer = Integer.parseInt(value);
+      if (integer > 0) {
+        return integer;
+      }
+    } catch (NumberFormatException ex) {
+    }
+    throw new IllegalArgumentException("Invalid value " + value + " for option " + option);
+  }
+
+  /**
+   * Renders the photos of each home, and returns <code>true</code> if all photos were saved.
+   */
+  private boolean renderHomes() {
+    ExecutorService homesExecutor = Executors.newFixedThreadPool(this.parallelHomesCount);
+    List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+    for (final String homeName : this.homeNames) {
+      results.add(homesExecutor.submit(new Callable<Boolean>() {
+          public Boolean call() {
+            return renderHome(homeName);
+          }
+        }));
+    }
+    boolean success = true;
+    for (int i = 0; i < results.size(); i++) {
+      try {
+        success &= results.get(i).get();
+      } catch (InterruptedException ex) {
+        success = false;
+        break;
+      } catch (ExecutionException ex) {
+        System.err.println("Couldn't render " + this.homeNames.get(i) + ": " + ex.getCause());
+        success = false;
+      }
+    }
+    homesExecutor.shutdownNow();
+    return success;
+  }
+
+  /**
+   * Renders the photos of the home stored in the given file.
+   */
+  private boolean renderHome(String homeName) {
+    Home home;
+    try {
+      home = new HomeFileRecorder().readHome(homeName);
+    } catch (RecorderException ex) {
+      System.err.println("Couldn't read " + homeName + ": " + ex.getMessage());
+      return false;
+    }
+
+    boolean success = true;
+    List<Camera> cameras = new ArrayList<Camera>();
+    if (this.cameraNames.isEmpty()) {
+      cameras.addAll(home.getStoredCameras());
+      if (cameras.isEmpty()) {
+        cameras.add(home.getCamera());
+      }
+    } else {
+      for (String cameraName : this.cameraNames) {
+        Camera camera = getStoredCamera(home, cameraName);
+        if (camera != null) {
+          cameras.add(camera);
+        } else {
+          System.err.println("No camera " + cameraName + " in " + homeName);
+          success = false;
+        }
+      }
+    }
+    home.setSelectedItems(Collections.<Selectable>emptyList());
+
+    File homeFile = new File(homeName);
+    File directory = this.outputDirectory != null
+        ? this.outputDirectory
+        : homeFile.getAbsoluteFile().getParentFile();
+    String baseName = homeFile.getName().replaceFirst("\\.[^.]*$", "");
+    List<String> cameraNames = new ArrayList<String>(cameras.size());
+    for (int i = 0; i < cameras.size(); i++) {
+      String cameraName = cameras.get(i).getName();
+      cameraNames.add(cameraName != null 
+          ? cameraName
+          : String.valueOf(i + 1));
+    }
+    PhotoRenderer photoRenderer = null;
+    try {
+      for (int i = 0; i < cameras.size(); i++) {
+        Camera camera = cameras.get(i);
+        if (photoRenderer == null
+            || !photoRenderer.isCameraCompatible(camera)) {
+          if (photoRenderer != null) {
+            photoRenderer.dispose();
+          }
+          // Camera type changes the scene exported by renderer
+          home.setCamera(camera);
+          photoRenderer = createPhotoRenderer(home);
+        }
+        int imageHeight;
+        // Update ratio if lens is fisheye or spherical
+        if (camera.getLens() == Camera.Lens.FISHEYE) {
+          imageHeight = this.width;
+        } else if (camera.getLens() == Camera.Lens.SPHERICAL) {
+          imageHeight = this.width / 2;
+        } else {
+          imageHeight = this.height;
+        }
+        String cameraName = cameraNames.get(i);
+        if (Collections.frequency(cameraNames, cameraName) > 1) {
+          // Avoid to overwrite the photo of an other camera with the same name
+          cameraName += "-" + (i + 1);
+        }
+        File photoFile = new File(directory, baseName + "-" + cameraName.replaceAll("[\\\\/:*?\"<>|]", "_") + "." + this.format);
+        BufferedImage image = new BufferedImage(this.width, imageHeight, BufferedImage.TYPE_INT_RGB);
+        long start = System.currentTimeMillis();
+        // Resume rendering from the checkpoint file saved by a previous interrupted rendering if it exists
+        File checkpointFile = new File(photoFile.getPath() + ".checkpoint");
+        photoRenderer.render(image, camera, null, checkpointFile, null);
+        if (photoRenderer.isStopped()) {
+          // Keep checkpoint file to be able to resume rendering later
+          System.err.println("Rendering of " + photoFile + " stopped after " + this.maximumDuration / 1000 
+              + " s, rendered parts saved in " + checkpointFile);
+          success = false;
+        } else {
+          if (!ImageIO.write(image, "jpg".equals(this.format) ? "JPEG" : "PNG", photoFile)) {
+            throw new IOException("No writer for format " + this.format);
+          }
+          System.out.println(photoFile + " rendered in " + (System.currentTimeMillis() - start) / 1000f + " s");
+        }
+      }
+    } catch (IOException ex) {
+      System.err.println("Couldn't render " + homeName + ": " + ex.getMessage());
+      success = false;
+    } finally {
+      if (photoRenderer != null) {
+        photoRenderer.dispose();
+      }
+    }
+    return success;
+  }
+
+  /**
+   * Returns a renderer for the given <code>home</code> configured with the options of this tool.
+   */
+  private PhotoRenderer createPhotoRenderer(Home home) throws IOException {
+    PhotoRenderer photoRenderer = new PhotoRenderer(home, this.quality);
+    photoRenderer.setThreadCount(this.threadCount);
+    photoRenderer.setMaximumDuration(this.maximumDuration);
+    if (this.lowPriorityThreads != null) {
+      photoRenderer.setLowPriorityThreads(this.lowPriorityThreads);
+    }
+    if (this.bucketSize != null) {
+      photoRenderer.setBucketSize(this.bucketSize);
+    }
+    if (this.bucketOrder != null) {
+      photoRenderer.setBucketOrder(this.bucketOrder);
+    }
+    return photoRenderer;
+  }
+
+  /**
+   * Renders a scene built with default furniture and prints the duration of its rendering.
+   */
+  private boolean renderBenchmark() {
+    Home home = new Home();
+    FurnitureCatalog catalog = new DefaultUserPreferences().getFurnitureCatalog();
+    // Build a room of 6 x 5 m surrounded by walls
+    float [][] points = {{0, 0}, {600, 0}, {600, 500}, {0, 500}};
+    Wall [] walls = new Wall [points.length];
+    for (int i = 0; i < points.length; i++) {
+      float [] start = points [i];
+      float [] end = points [(i + 1) % points.length];
+      walls [i] = new Wall(start [0], start [1], end [0], end [1], 10, 250);
+      home.addWall(walls [i]);
+    }
+    for (int i = 0; i < walls.length; i++) {
+      walls [i].setWallAtEnd(walls [(i + 1) % walls.length]);
+      walls [(i + 1) % walls.length].setWallAtStart(walls [i]);
+    }
+    home.addRoom(new Room(points));
+    // Place in the room the first pieces of each category and the first light of the catalog
+    boolean lightAdded = false;
+    int pieceIndex = 0;
+    for (FurnitureCategory category : catalog.getCategories()) {
+      for (CatalogPieceOfFurniture piece : category.getFurniture()) {
+        if (piece instanceof CatalogLight) {
+          if (!lightAdded) {
+            HomeLight light = new HomeLight((CatalogLight)piece);
+            light.setX(300);
+            light.setY(250);
+            light.setElevation(250 - light.getHeight());
+            home.addPieceOfFurniture(light);
+            lightAdded = true;
+          }
+        } else if (!piece.isDoorOrWindow() && pieceIndex < 12) {
+          HomePieceOfFurniture homePiece = new HomePieceOfFurniture(piece);
+          homePiece.setX(100 + (pieceIndex % 4) * 130);
+          homePiece.setY(100 + (pieceIndex / 4) * 150);
+          homePiece.setAngle((float)Math.PI / 8 * pieceIndex);
+          home.addPieceOfFurniture(homePiece);
+          pieceIndex++;
+          break;
+        }
+      }
+    }
+    Camera camera = home.getCamera();
+    camera.setX(300);
+    camera.setY(1000);
+    camera.setZ(700);
+    camera.setYaw((float)Math.PI);
+    camera.setPitch((float)Math.PI / 5);
+    home.setSelectedItems(Collections.<Selectable>emptyList());
+    
+    PhotoRenderer photoRenderer = null;
+    try {
+      photoRenderer = createPhotoRenderer(home);
+      BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+      long start = System.currentTimeMillis();
+      photoRenderer.render(image, camera, null);
+      System.out.println("Benchmark rendered in " + (System.currentTimeMillis() - start) / 1000f + " s with " 
+          + (photoRenderer.getThreadCount() > 0 ? photoRenderer.getThreadCount() : Runtime.getRuntime().availableProcessors()) + " threads, " 
+          + photoRenderer.getBucketSize() + " pixels " + photoRenderer.getBucketOrder() + " buckets");
+      if (this.outputDirectory != null) {
+        File photoFile = new File(this.outputDirectory, "benchmark." + this.format);
+        ImageIO.write(image, "jpg".equals(this.format) ? "JPEG" : "PNG", photoFile);
+      }
+      return true;
+    } catch (IOException ex) {
+      System.err.println("Couldn't render benchmark: " + ex.getMessage());
+      return false;
+    } finally {
+      if (photoRenderer != null) {
+        photoRenderer.dispose();
+      }
+    }
+  }
+
+  /**
+   * Returns the stored camera of <code>home</code> with the given name.
+   */
+  private Camera getStoredCamera(Home home, String name) {
+    for (Camera camera : home.getStoredCameras()) {
+      if (name.equals(camera.getName())) {
+        return camera;
+      }
+    }
+    return null;
+  }
+}
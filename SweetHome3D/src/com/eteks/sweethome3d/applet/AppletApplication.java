@@ -82,6 +82,7 @@ import com.eteks.sweethome3d.swing.IconManager;
 import com.eteks.sweethome3d.swing.ResourceAction;
 import com.eteks.sweethome3d.swing.SwingTools;
 import com.eteks.sweethome3d.swing.SwingViewFactory;
+import com.eteks.sweethome3d.tools.ImageManager;
 import com.eteks.sweethome3d.tools.OperatingSystem;
 import com.eteks.sweethome3d.tools.URLContent;
 import com.eteks.sweethome3d.viewcontroller.ContentManager;
@@ -245,6 +246,7 @@ public class AppletApplication extends HomeApplication {
         ModelManager.getInstance().clear();
       }
       IconManager.getInstance().clear();
+      ImageManager.getInstance().clear();
     } catch (AccessControlException ex) {
       // If com.eteks.sweethome3d.no3D property can't be read, 
       // security manager won't allow to access to Java 3D DLLs required by previous classes too
@@ -104,6 +104,11 @@ public class DefaultUserPreferences extends UserPreferences {
     setNewFloorThickness(Float.parseFloat(getOptionalLocalizedString(localizedPreferences, "newFloorThickness", "12")));
     setCheckUpdatesEnabled(Boolean.parseBoolean(getOptionalLocalizedString(localizedPreferences, "checkUpdatesEnabled", "false")));
     setAutoSaveDelayForRecovery(Integer.parseInt(getOptionalLocalizedString(localizedPreferences, "autoSaveDelayForRecovery", "0")));
+    setPhotoRenderingThreadCount(Integer.parseInt(getOptionalLocalizedString(localizedPreferences, "photoRenderingThreadCount", "0")));
+    setProgressivePhotoRenderingEnabled(Boolean.parseBoolean(getOptionalLocalizedString(localizedPreferences, "progressivePhotoRenderingEnabled", "false")));
+    setPhotoRenderingMaximumDuration(Integer.parseInt(getOptionalLocalizedString(localizedPreferences, "photoRenderingMaximumDuration", "0")));
+    setPlanMinimumTextSize(Float.parseFloat(getOptionalLocalizedString(localizedPreferences, "planMinimumTextSize", "0")));
+    setPlanMinimumDetailedPieceSize(Float.parseFloat(getOptionalLocalizedString(localizedPreferences, "planMinimumDetailedPieceSize", "0")));
     setCurrency(getOptionalLocalizedString(localizedPreferences, "currency", null)); 
     for (String property : new String [] {"LevelName", "HomePieceOfFurnitureName", "RoomName", "LabelText"}) {
       String autoCompletionStringsList = getOptionalLocalizedString(localizedPreferences, "autoCompletionStrings#" + property, null);
@@ -104,6 +104,11 @@ public class FileUserPreferences extends UserPreferences {
   private static final String CHECK_UPDATES_ENABLED                     = "checkUpdatesEnabled";
   private static final String UPDATES_MINIMUM_DATE                      = "updatesMinimumDate";
   private static final String AUTO_SAVE_DELAY_FOR_RECOVERY              = "autoSaveDelayForRecovery";
+  private static final String PHOTO_RENDERING_THREAD_COUNT              = "photoRenderingThreadCount";
+  private static final String PROGRESSIVE_PHOTO_RENDERING_ENABLED       = "progressivePhotoRenderingEnabled";
+  private static final String PHOTO_RENDERING_MAXIMUM_DURATION          = "photoRenderingMaximumDuration";
+  private static final String PLAN_MINIMUM_TEXT_SIZE                    = "planMinimumTextSize";
+  private static final String PLAN_MINIMUM_DETAILED_PIECE_SIZE          = "planMinimumDetailedPieceSize";
   private static final String AUTO_COMPLETION_PROPERTY                  = "autoCompletionProperty#";
   private static final String AUTO_COMPLETION_STRINGS                   = "autoCompletionStrings#";
   private static final String RECENT_COLORS                             = "recentColors";
@@ -314,6 +319,16 @@ public class FileUserPreferences extends UserPreferences {
     }
     setAutoSaveDelayForRecovery(preferences.getInt(AUTO_SAVE_DELAY_FOR_RECOVERY,
         defaultPreferences.getAutoSaveDelayForRecovery()));
+    setPhotoRenderingThreadCount(preferences.getInt(PHOTO_RENDERING_THREAD_COUNT,
+        defaultPreferences.getPhotoRenderingThreadCount()));
+    setProgressivePhotoRenderingEnabled(preferences.getBoolean(PROGRESSIVE_PHOTO_RENDERING_ENABLED,
+        defaultPreferences.isProgressivePhotoRenderingEnabled()));
+    setPhotoRenderingMaximumDuration(preferences.getInt(PHOTO_RENDERING_MAXIMUM_DURATION,
+        defaultPreferences.getPhotoRenderingMaximumDuration()));
+    setPlanMinimumTextSize(preferences.getFloat(PLAN_MINIMUM_TEXT_SIZE,
+        defaultPreferences.getPlanMinimumTextSize()));
+    setPlanMinimumDetailedPieceSize(preferences.getFloat(PLAN_MINIMUM_DETAILED_PIECE_SIZE,
+        defaultPreferences.getPlanMinimumDetailedPieceSize()));
     setCurrency(defaultPreferences.getCurrency());    
     // Read recent colors list
     String [] recentColors = preferences.get(RECENT_COLORS, "").split(",");
@@ -875,6 +890,11 @@ public class FileUserPreferences extends UserPreferences {
       preferences.putLong(UPDATES_MINIMUM_DATE, updatesMinimumDate);
     }
     preferences.putInt(AUTO_SAVE_DELAY_FOR_RECOVERY, getAutoSaveDelayForRecovery());
+    preferences.putInt(PHOTO_RENDERING_THREAD_COUNT, getPhotoRenderingThreadCount());
+    preferences.putBoolean(PROGRESSIVE_PHOTO_RENDERING_ENABLED, isProgressivePhotoRenderingEnabled());
+    preferences.putInt(PHOTO_RENDERING_MAXIMUM_DURATION, getPhotoRenderingMaximumDuration());
+    preferences.putFloat(PLAN_MINIMUM_TEXT_SIZE, getPlanMinimumTextSize());
+    preferences.putFloat(PLAN_MINIMUM_DETAILED_PIECE_SIZE, getPlanMinimumDetailedPieceSize());
     // Write recent homes list
     int i = 1;
     for (Iterator<String> it = getRecentHomes().iterator(); it.hasNext() && i <= getRecentHomesMaxCount(); i ++) {
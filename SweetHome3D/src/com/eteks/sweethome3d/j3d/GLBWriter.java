@@ -0,0 +1,933 @@
+/*
+ * GLBWriter.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.media.j3d.Appearance;
+import javax.media.j3d.ColoringAttributes;
+import javax.media.j3d.Geometry;
+import javax.media.j3d.GeometryArray;
+import javax.media.j3d.GeometryStripArray;
+import javax.media.j3d.Group;
+import javax.media.j3d.ImageComponent2D;
+import javax.media.j3d.IndexedGeometryArray;
+import javax.media.j3d.IndexedGeometryStripArray;
+import javax.media.j3d.IndexedQuadArray;
+import javax.media.j3d.IndexedTriangleArray;
+import javax.media.j3d.IndexedTriangleFanArray;
+import javax.media.j3d.IndexedTriangleStripArray;
+import javax.media.j3d.Link;
+import javax.media.j3d.Material;
+import javax.media.j3d.Node;
+import javax.media.j3d.PolygonAttributes;
+import javax.media.j3d.QuadArray;
+import javax.media.j3d.RenderingAttributes;
+import javax.media.j3d.Shape3D;
+import javax.media.j3d.TexCoordGeneration;
+import javax.media.j3d.Texture;
+import javax.media.j3d.TextureAttributes;
+import javax.media.j3d.Transform3D;
+import javax.media.j3d.TransformGroup;
+import javax.media.j3d.TransparencyAttributes;
+import javax.media.j3d.TriangleArray;
+import javax.media.j3d.TriangleFanArray;
+import javax.media.j3d.TriangleStripArray;
+import javax.vecmath.Color3f;
+import javax.vecmath.Point3f;
+import javax.vecmath.Vector3f;
+import javax.vecmath.Vector4f;
+
+/**
+ * A writer that exports Java 3D nodes in a binary glTF file (GLB format).
+ * Vertices and indices are packed in the binary chunk of the file with textures images,
+ * and the shapes sharing the same geometries and appearance, like the pieces of furniture
+ * using the same model, reference the same mesh with a different transformation.
+ * Coordinates written in centimeters are converted to meters in the root node of the scene.
+ * <p>Once you wrote nodes, call <code>close</code> method to write the file.
+ * Only triangles and quadrilaterals of <code>GeometryArray</code> instances are written.
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class GLBWriter implements Closeable {
+  private static final int GLB_MAGIC          = 0x46546C67; // glTF
+  private static final int JSON_CHUNK_TYPE    = 0x4E4F534A; // JSON
+  private static final int BIN_CHUNK_TYPE     = 0x004E4942; // BIN
+  private static final int ARRAY_BUFFER         = 34962;
+  private static final int ELEMENT_ARRAY_BUFFER = 34963;
+  private static final int FLOAT                = 5126;
+  private static final int UNSIGNED_SHORT       = 5123;
+  private static final int UNSIGNED_INT         = 5125;
+
+  private final OutputStream out;
+  private final String       generator;
+  private ByteBuffer         buffer;
+
+  private final List<String> bufferViews = new ArrayList<String>();
+  private final List<String> accessors = new ArrayList<String>();
+  private final List<String> meshes = new ArrayList<String>();
+  private final List<String> materials = new ArrayList<String>();
+  private final List<String> textures = new ArrayList<String>();
+  private final List<String> images = new ArrayList<String>();
+  private final List<String> nodes = new ArrayList<String>();
+  private final List<Integer> sceneNodes = new ArrayList<Integer>();
+
+  private final Map<MeshKey, Integer>  meshIndices = new HashMap<MeshKey, Integer>();
+  private final Map<String, Integer>   materialIndices = new HashMap<String, Integer>();
+  private final Map<Texture, Integer>  textureIndices = new IdentityHashMap<Texture, Integer>();
+
+  /**
+   * Creates a GLB writer for the given file.
+   * @param glbFile   the file into which 3D nodes will be written at GLB format
+   * @param generator the text written in the generator field of the file or <code>null</code>
+   */
+  public GLBWriter(File glbFile, String generator) throws IOException {
+    this(new FileOutputStream(glbFile), generator);
+  }
+
+  /**
+   * Creates a GLB writer for the given file name.
+   * @param glbFileName the name of the file into which 3D nodes will be written at GLB format
+   * @param generator   the text written in the generator field of the file or <code>null</code>
+   */
+  public GLBWriter(String glbFileName, String generator) throws IOException {
+    this(new FileOutputStream(glbFileName), generator);
+  }
+
+  /**
+   * Creates a GLB writer that will write in <code>out</code> stream.
+   * @param out       the stream into which 3D nodes will be written at GLB format
+   * @param generator the text written in the generator field of the file or <code>null</code>
+   */
+  public GLBWriter(OutputStream out, String generator) {
+    this.out = new BufferedOutputStream(out);
+    this.generator = generator;
+    this.buffer = ByteBuffer.allocate(65536).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Throws an <code>InterruptedIOException</code> exception
+   * if current thread is interrupted.
+   */
+  private void checkCurrentThreadIsntInterrupted() throws InterruptedIOException {
+    if (Thread.interrupted()) {
+      throw new InterruptedIOException("Current thread interrupted");
+    }
+  }
+
+  /**
+   * Writes all the 3D shapes children of <code>node</code> at GLB format.
+   * @see #writeNode(Node, String)
+   */
+  public void writeNode(Node node) throws IOException, InterruptedIOException {
+    writeNode(node, null);
+  }
+
+  /**
+   * Writes all the 3D shapes children of <code>node</code> at GLB format.
+   * If there are transformation groups on the path from <code>node</code> to its shapes,
+   * they'll be written as the transformation of the node referencing each shape.
+   * The <code>node</code> shouldn't be alive or if it's alive, it should have the
+   * capabilities to read its children, the geometries and the appearance of its shapes.
+   * @param node     a Java 3D node
+   * @param nodeName the name of the node or <code>null</code>
+   * @throws IOException if the operation failed
+   * @throws InterruptedIOException if the current thread was interrupted during this operation.
+   *         The interrupted status of the current thread is cleared when this exception is thrown.
+   */
+  public void writeNode(Node node, String nodeName) throws IOException, InterruptedIOException {
+    List<Integer> children = new ArrayList<Integer>();
+    writeNode(node, new Transform3D(), children);
+    if (!children.isEmpty()) {
+      StringBuilder json = new StringBuilder("{");
+      if (nodeName != null) {
+        json.append("\"name\":").append(toJSONString(nodeName)).append(",");
+      }
+      json.append("\"children\":").append(children).append("}");
+      this.sceneNodes.add(this.nodes.size());
+      this.nodes.add(json.toString());
+    }
+  }
+
+  /**
+   * Writes the shapes children of <code>node</code> and adds the indices of their nodes to <code>children</code>.
+   */
+  private void writeNode(Node node, Transform3D parentTransformations, List<Integer> children) throws IOException {
+    if (node instanceof Group) {
+      if (node instanceof TransformGroup) {
+        parentTransformations = new Transform3D(parentTransformations);
+        Transform3D transform = new Transform3D();
+        ((TransformGroup)node).getTransform(transform);
+        parentTransformations.mul(transform);
+      }
+      Enumeration<?> enumeration = ((Group)node).getAllChildren();
+      while (enumeration.hasMoreElements()) {
+        writeNode((Node)enumeration.nextElement(), parentTransformations, children);
+      }
+    } else if (node instanceof Link) {
+      writeNode(((Link)node).getSharedGroup(), parentTransformations, children);
+    } else if (node instanceof Shape3D) {
+      Shape3D shape = (Shape3D)node;
+      Appearance appearance = shape.getAppearance();
+      RenderingAttributes renderingAttributes = appearance != null
+          ? appearance.getRenderingAttributes() : null;
+      if (shape.numGeometries() >= 1
+          && (renderingAttributes == null
+              || renderingAttributes.getVisible())) {
+        checkCurrentThreadIsntInterrupted();
+        Integer meshIndex = getMeshIndex(shape, parentTransformations.determinant() < 0);
+        if (meshIndex != null) {
+          StringBuilder json = new StringBuilder("{");
+          if (shape.getUserData() instanceof String) {
+            json.append("\"name\":").append(toJSONString((String)shape.getUserData())).append(",");
+          }
+          json.append("\"mesh\":").append(meshIndex);
+          if (parentTransformations.getBestType() != Transform3D.IDENTITY) {
+            float [] matrix = new float [16];
+            parentTransformations.get(matrix);
+            // Write matrix in column-major order
+            json.append(",\"matrix\":[");
+            for (int column = 0; column < 4; column++) {
+              for (int row = 0; row < 4; row++) {
+                if (column > 0 || row > 0) {
+                  json.append(",");
+                }
+                json.append(matrix [row * 4 + column]);
+              }
+            }
+            json.append("]");
+          }
+          json.append("}");
+          children.add(this.nodes.size());
+          this.nodes.add(json.toString());
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the mesh matching the geometries and the appearance of the given shape,
+   * after writing it if it doesn't exist yet, or <code>null</code> if the shape doesn't contain any triangle.
+   * @param mirrored <code>true</code> if the transformation of the shape has a negative determinant
+   */
+  private Integer getMeshIndex(Shape3D shape, boolean mirrored) throws IOException {
+    Appearance appearance = shape.getAppearance();
+    int cullFace = PolygonAttributes.CULL_BACK;
+    boolean backFaceNormalFlip = false;
+    TexCoordGeneration texCoordGeneration = null;
+    Transform3D textureTransform = new Transform3D();
+    if (appearance != null) {
+      PolygonAttributes polygonAttributes = appearance.getPolygonAttributes();
+      if (polygonAttributes != null) {
+        cullFace = polygonAttributes.getCullFace();
+        backFaceNormalFlip = polygonAttributes.getBackFaceNormalFlip();
+      }
+      texCoordGeneration = appearance.getTexCoordGeneration();
+      if (texCoordGeneration != null
+          && (texCoordGeneration.getGenMode() != TexCoordGeneration.OBJECT_LINEAR
+              || !texCoordGeneration.getEnable())) {
+        texCoordGeneration = null;
+      }
+      TextureAttributes textureAttributes = appearance.getTextureAttributes();
+      if (textureAttributes != null) {
+        textureAttributes.getTextureTransform(textureTransform);
+      }
+    }
+
+    int materialIndex = getMaterialIndex(appearance, cullFace == PolygonAttributes.CULL_NONE);
+    Geometry [] geometries = new Geometry [shape.numGeometries()];
+    for (int i = 0; i < geometries.length; i++) {
+      geometries [i] = shape.getGeometry(i);
+    }
+    float [] textureCoordinatesTransformation = null;
+    if (texCoordGeneration != null
+        || textureTransform.getBestType() != Transform3D.IDENTITY) {
+      textureCoordinatesTransformation = new float [24];
+      textureTransform.get(textureCoordinatesTransformation);
+      if (texCoordGeneration != null) {
+        Vector4f planeS = new Vector4f();
+        Vector4f planeT = new Vector4f();
+        texCoordGeneration.getPlaneS(planeS);
+        texCoordGeneration.getPlaneT(planeT);
+        float [] planes = {planeS.x, planeS.y, planeS.z, planeS.w, planeT.x, planeT.y, planeT.z, planeT.w};
+        System.arraycopy(planes, 0, textureCoordinatesTransformation, 16, planes.length);
+      }
+    }
+    MeshKey meshKey = new MeshKey(geometries, materialIndex, cullFace, backFaceNormalFlip, mirrored, 
+        textureCoordinatesTransformation);
+    Integer meshIndex = this.meshIndices.get(meshKey);
+    if (meshIndex == null
+        && !this.meshIndices.containsKey(meshKey)) {
+      List<String> primitives = new ArrayList<String>();
+      for (Geometry geometry : geometries) {
+        if (geometry instanceof GeometryArray) {
+          String primitive = writeGeometry((GeometryArray)geometry, materialIndex, cullFace, backFaceNormalFlip,
+              mirrored, texCoordGeneration, textureTransform);
+          if (primitive != null) {
+            primitives.add(primitive);
+          }
+        }
+      }
+      if (!primitives.isEmpty()) {
+        meshIndex = this.meshes.size();
+        this.meshes.add("{\"primitives\":" + primitives + "}");
+      }
+      this.meshIndices.put(meshKey, meshIndex);
+    }
+    return meshIndex;
+  }
+
+  /**
+   * Writes the triangles of the given geometry in buffer and returns the primitive referencing them,
+   * or <code>null</code> if it doesn't contain any triangle.
+   * As glTF viewers already reverse the front faces of nodes with a mirroring matrix, 
+   * the vertex order and the normals of a <code>mirrored</code> geometry are changed 
+   * only if its cull face and its back face normal flip don't compensate this mirroring.
+   */
+  private String writeGeometry(GeometryArray geometryArray, int materialIndex,
+                               int cullFace, boolean backFaceNormalFlip, boolean mirrored,
+                               TexCoordGeneration texCoordGeneration, Transform3D textureTransform) throws IOException {
+    int [] triangles = getTriangles(geometryArray);
+    if (triangles == null || triangles.length == 0) {
+      return null;
+    }
+    if (cullFace == PolygonAttributes.CULL_FRONT ^ mirrored) {
+      // Reverse vertex order
+      for (int i = 0; i < triangles.length; i += 3) {
+        int tmp = triangles [i];
+        triangles [i] = triangles [i + 2];
+        triangles [i + 2] = tmp;
+      }
+    }
+
+    int vertexCount = geometryArray.getVertexCount();
+    int vertexFormat = geometryArray.getVertexFormat();
+    float [] coordinates = new float [vertexCount * 3];
+    float [] normals = (vertexFormat & GeometryArray.NORMALS) != 0
+        ? new float [vertexCount * 3]
+        : null;
+    float [] textureCoordinates = texCoordGeneration != null
+          || (vertexFormat & GeometryArray.TEXTURE_COORDINATE_2) != 0
+        ? new float [vertexCount * 2]
+        : null;
+    readVertices(geometryArray, coordinates, normals, textureCoordinates);
+    if (normals != null) {
+      for (int i = 0; i < normals.length; i += 3) {
+        Vector3f normal = new Vector3f(normals [i], normals [i + 1], normals [i + 2]);
+        if (Float.isNaN(normal.x) || Float.isNaN(normal.y) || Float.isNaN(normal.z)) {
+          // Ignore normals if one of them is invalid
+          normals = null;
+          break;
+        }
+        if (backFaceNormalFlip ^ mirrored) {
+          normal.negate();
+        }
+        if (normal.x != 0 || normal.y != 0 || normal.z != 0) {
+          normal.normalize();
+        }
+        normals [i] = normal.x;
+        normals [i + 1] = normal.y;
+        normals [i + 2] = normal.z;
+      }
+    }
+    if (textureCoordinates != null) {
+      boolean identityTextureTransform = textureTransform.getBestType() == Transform3D.IDENTITY;
+      Vector4f planeS = new Vector4f();
+      Vector4f planeT = new Vector4f();
+      if (texCoordGeneration != null) {
+        texCoordGeneration.getPlaneS(planeS);
+        texCoordGeneration.getPlaneT(planeT);
+      }
+      for (int index = 0, i = 0; index < vertexCount; index++, i += 2) {
+        Point3f point;
+        if (texCoordGeneration != null) {
+          float x = coordinates [index * 3];
+          float y = coordinates [index * 3 + 1];
+          float z = coordinates [index * 3 + 2];
+          point = new Point3f(x * planeS.x + y * planeS.y + z * planeS.z + planeS.w,
+              x * planeT.x + y * planeT.y + z * planeT.z + planeT.w, 0);
+        } else {
+          point = new Point3f(textureCoordinates [i], textureCoordinates [i + 1], 0);
+        }
+        if (!identityTextureTransform) {
+          textureTransform.transform(point);
+        }
+        // Texture origin is at top left corner in glTF
+        textureCoordinates [i] = point.x;
+        textureCoordinates [i + 1] = 1 - point.y;
+      }
+    }
+
+    // Build vertices with a unique index for each combination of coordinates, normal and texture coordinates
+    int [] coordinateIndices = getAttributeIndices(geometryArray, triangles, 0);
+    int [] normalIndices = normals != null
+        ? getAttributeIndices(geometryArray, triangles, 1)
+        : null;
+    int [] textureCoordinateIndices = textureCoordinates != null
+        ? getAttributeIndices(geometryArray, triangles, texCoordGeneration != null ? 0 : 2)
+        : null;
+    int [] vertices;
+    int [] indices;
+    if (geometryArray instanceof IndexedGeometryArray) {
+      Map<Long, Integer> vertexIndices = new HashMap<Long, Integer>();
+      vertices = new int [triangles.length * 3];
+      indices = new int [triangles.length];
+      int writtenVertexCount = 0;
+      for (int i = 0; i < triangles.length; i++) {
+        int normalIndex = normalIndices != null ? normalIndices [i] : 0;
+        int textureCoordinateIndex = textureCoordinateIndices != null ? textureCoordinateIndices [i] : 0;
+        Integer vertexIndex = null;
+        Long vertexKey = null;
+        if (vertexCount < 0x200000) {
+          vertexKey = coordinateIndices [i] | ((long)normalIndex << 21) | ((long)textureCoordinateIndex << 42);
+          vertexIndex = vertexIndices.get(vertexKey);
+        }
+        if (vertexIndex == null) {
+          vertexIndex = writtenVertexCount++;
+          if (vertexKey != null) {
+            vertexIndices.put(vertexKey, vertexIndex);
+          }
+          vertices [vertexIndex * 3] = coordinateIndices [i];
+          vertices [vertexIndex * 3 + 1] = normalIndex;
+          vertices [vertexIndex * 3 + 2] = textureCoordinateIndex;
+        }
+        indices [i] = vertexIndex;
+      }
+      int [] usedVertices = new int [writtenVertexCount * 3];
+      System.arraycopy(vertices, 0, usedVertices, 0, usedVertices.length);
+      vertices = usedVertices;
+    } else {
+      // Keep vertices of not indexed geometries in the same order
+      vertices = new int [vertexCount * 3];
+      for (int i = 0; i < vertices.length; i++) {
+        vertices [i] = i / 3;
+      }
+      indices = triangles;
+    }
+
+    int writtenVertexCount = vertices.length / 3;
+    float [] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+    float [] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+    int offset = startBufferView(writtenVertexCount * 3 * 4);
+    for (int i = 0; i < vertices.length; i += 3) {
+      int coordinateIndex = vertices [i] * 3;
+      for (int j = 0; j < 3; j++) {
+        float value = coordinates [coordinateIndex + j];
+        this.buffer.putFloat(value);
+        min [j] = Math.min(min [j], value);
+        max [j] = Math.max(max [j], value);
+      }
+    }
+    StringBuilder attributes = new StringBuilder("{\"POSITION\":");
+    attributes.append(addAccessor(offset, ARRAY_BUFFER, FLOAT, writtenVertexCount, "VEC3",
+        ",\"min\":[" + min [0] + "," + min [1] + "," + min [2] + "],\"max\":[" + max [0] + "," + max [1] + "," + max [2] + "]"));
+    if (normals != null) {
+      offset = startBufferView(writtenVertexCount * 3 * 4);
+      for (int i = 1; i < vertices.length; i += 3) {
+        int normalIndex = vertices [i] * 3;
+        this.buffer.putFloat(normals [normalIndex]);
+        this.buffer.putFloat(normals [normalIndex + 1]);
+        this.buffer.putFloat(normals [normalIndex + 2]);
+      }
+      attributes.append(",\"NORMAL\":").append(addAccessor(offset, ARRAY_BUFFER, FLOAT, writtenVertexCount, "VEC3", ""));
+    }
+    if (textureCoordinates != null) {
+      offset = startBufferView(writtenVertexCount * 2 * 4);
+      for (int i = 2; i < vertices.length; i += 3) {
+        int textureCoordinateIndex = vertices [i] * 2;
+        this.buffer.putFloat(textureCoordinates [textureCoordinateIndex]);
+        this.buffer.putFloat(textureCoordinates [textureCoordinateIndex + 1]);
+      }
+      attributes.append(",\"TEXCOORD_0\":").append(addAccessor(offset, ARRAY_BUFFER, FLOAT, writtenVertexCount, "VEC2", ""));
+    }
+    attributes.append("}");
+
+    int indexAccessor;
+    if (writtenVertexCount <= 65536) {
+      offset = startBufferView(indices.length * 2);
+      for (int index : indices) {
+        this.buffer.putShort((short)index);
+      }
+      indexAccessor = addAccessor(offset, ELEMENT_ARRAY_BUFFER, UNSIGNED_SHORT, indices.length, "SCALAR", "");
+    } else {
+      offset = startBufferView(indices.length * 4);
+      for (int index : indices) {
+        this.buffer.putInt(index);
+      }
+      indexAccessor = addAccessor(offset, ELEMENT_ARRAY_BUFFER, UNSIGNED_INT, indices.length, "SCALAR", "");
+    }
+    return "{\"attributes\":" + attributes + ",\"indices\":" + indexAccessor
+        + ",\"material\":" + materialIndex + "}";
+  }
+
+  /**
+   * Returns the vertex indices of the triangles of the given geometry, or <code>null</code>
+   * if it's not a geometry with triangles or quadrilaterals. For indexed geometries,
+   * the returned values are indices in the index arrays of the geometry.
+   */
+  private int [] getTriangles(GeometryArray geometryArray) {
+    List<Integer> triangles = new ArrayList<Integer>();
+    if (geometryArray instanceof IndexedTriangleArray
+        || geometryArray instanceof TriangleArray) {
+      int count = geometryArray instanceof IndexedGeometryArray
+          ? ((IndexedGeometryArray)geometryArray).getIndexCount()
+          : geometryArray.getVertexCount();
+      for (int i = 0; i < count - 2; i += 3) {
+        addTriangle(triangles, i, i + 1, i + 2);
+      }
+    } else if (geometryArray instanceof IndexedQuadArray
+        || geometryArray instanceof QuadArray) {
+      int count = geometryArray instanceof IndexedGeometryArray
+          ? ((IndexedGeometryArray)geometryArray).getIndexCount()
+          : geometryArray.getVertexCount();
+      for (int i = 0; i < count - 3; i += 4) {
+        addTriangle(triangles, i, i + 1, i + 2);
+        addTriangle(triangles, i, i + 2, i + 3);
+      }
+    } else if (geometryArray instanceof IndexedTriangleStripArray
+        || geometryArray instanceof IndexedTriangleFanArray
+        || geometryArray instanceof TriangleStripArray
+        || geometryArray instanceof TriangleFanArray) {
+      int [] stripCounts;
+      if (geometryArray instanceof IndexedGeometryStripArray) {
+        IndexedGeometryStripArray geometryStripArray = (IndexedGeometryStripArray)geometryArray;
+        stripCounts = new int [geometryStripArray.getNumStrips()];
+        geometryStripArray.getStripIndexCounts(stripCounts);
+      } else {
+        GeometryStripArray geometryStripArray = (GeometryStripArray)geometryArray;
+        stripCounts = new int [geometryStripArray.getNumStrips()];
+        geometryStripArray.getStripVertexCounts(stripCounts);
+      }
+      boolean fan = geometryArray instanceof IndexedTriangleFanArray
+          || geometryArray instanceof TriangleFanArray;
+      int initialIndex = 0;
+      for (int strip = 0; strip < stripCounts.length; strip++) {
+        for (int i = initialIndex, n = initialIndex + stripCounts [strip] - 2, j = 0; i < n; i++, j++) {
+          if (fan) {
+            addTriangle(triangles, initialIndex, i + 1, i + 2);
+          } else if (j % 2 == 0) {
+            addTriangle(triangles, i, i + 1, i + 2);
+          } else { // Vertices of odd triangles are in reverse order
+            addTriangle(triangles, i, i + 2, i + 1);
+          }
+        }
+        initialIndex += stripCounts [strip];
+      }
+    } else {
+      return null;
+    }
+    int [] trianglesArray = new int [triangles.size()];
+    for (int i = 0; i < trianglesArray.length; i++) {
+      trianglesArray [i] = triangles.get(i);
+    }
+    return trianglesArray;
+  }
+
+  private void addTriangle(List<Integer> triangles, int vertexIndex1, int vertexIndex2, int vertexIndex3) {
+    triangles.add(vertexIndex1);
+    triangles.add(vertexIndex2);
+    triangles.add(vertexIndex3);
+  }
+
+  /**
+   * Returns the indices of the coordinates (attribute 0), normals (attribute 1) or texture coordinates
+   * (attribute 2) used by the given triangles vertices.
+   */
+  private int [] getAttributeIndices(GeometryArray geometryArray, int [] triangles, int attribute) {
+    if (geometryArray instanceof IndexedGeometryArray) {
+      IndexedGeometryArray indexedGeometryArray = (IndexedGeometryArray)geometryArray;
+      int [] attributeIndices = new int [triangles.length];
+      for (int i = 0; i < triangles.length; i++) {
+        switch (attribute) {
+          case 0 :
+            attributeIndices [i] = indexedGeometryArray.getCoordinateIndex(triangles [i]);
+            break;
+          case 1 :
+            attributeIndices [i] = indexedGeometryArray.getNormalIndex(triangles [i]);
+            break;
+          default :
+            attributeIndices [i] = indexedGeometryArray.getTextureCoordinateIndex(0, triangles [i]);
+            break;
+        }
+      }
+      return attributeIndices;
+    } else {
+      return triangles;
+    }
+  }
+
+  /**
+   * Reads the coordinates, the normals and the texture coordinates of the given geometry.
+   */
+  private void readVertices(GeometryArray geometryArray, float [] coordinates,
+                            float [] normals, float [] textureCoordinates) {
+    int vertexCount = geometryArray.getVertexCount();
+    boolean textureCoordinatesDefined = textureCoordinates != null
+        && (geometryArray.getVertexFormat() & GeometryArray.TEXTURE_COORDINATE_2) != 0;
+    if ((geometryArray.getVertexFormat() & GeometryArray.BY_REFERENCE) != 0) {
+      if ((geometryArray.getVertexFormat() & GeometryArray.INTERLEAVED) != 0) {
+        float [] vertexData = geometryArray.getInterleavedVertices();
+        int vertexSize = vertexData.length / vertexCount;
+        for (int index = 0, i = 0; index < vertexCount; index++, i += vertexSize) {
+          System.arraycopy(vertexData, i + vertexSize - 3, coordinates, index * 3, 3);
+          if (normals != null) {
+            System.arraycopy(vertexData, i + vertexSize - 6, normals, index * 3, 3);
+          }
+          if (textureCoordinatesDefined) {
+            System.arraycopy(vertexData, i, textureCoordinates, index * 2, 2);
+          }
+        }
+      } else {
+        System.arraycopy(geometryArray.getCoordRefFloat(), 0, coordinates, 0, coordinates.length);
+        if (normals != null) {
+          System.arraycopy(geometryArray.getNormalRefFloat(), 0, normals, 0, normals.length);
+        }
+        if (textureCoordinatesDefined) {
+          System.arraycopy(geometryArray.getTexCoordRefFloat(0), 0, textureCoordinates, 0, textureCoordinates.length);
+        }
+      }
+    } else {
+      geometryArray.getCoordinates(0, coordinates);
+      if (normals != null) {
+        geometryArray.getNormals(0, normals);
+      }
+      if (textureCoordinatesDefined) {
+        geometryArray.getTextureCoordinates(0, 0, textureCoordinates);
+      }
+    }
+  }
+
+  /**
+   * Aligns buffer on 4 bytes, ensures it can store <code>length</code> more bytes
+   * and adds a buffer view referencing them.
+   * @return the offset of the new buffer view
+   */
+  private int startBufferView(int length) {
+    while (this.buffer.position() % 4 != 0) {
+      this.buffer.put((byte)0);
+    }
+    int offset = this.buffer.position();
+    if (this.buffer.remaining() < length) {
+      ByteBuffer buffer = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, offset + length))
+          .order(ByteOrder.LITTLE_ENDIAN);
+      this.buffer.flip();
+      buffer.put(this.buffer);
+      this.buffer = buffer;
+    }
+    return offset;
+  }
+
+  /**
+   * Adds a buffer view for the data written since <code>offset</code> and
+   * an accessor on this view, then returns the index of the accessor.
+   */
+  private int addAccessor(int offset, int target, int componentType, int count,
+                          String type, String bounds) {
+    int bufferView = addBufferView(offset, target);
+    this.accessors.add("{\"bufferView\":" + bufferView + ",\"componentType\":" + componentType
+        + ",\"count\":" + count + ",\"type\":\"" + type + "\"" + bounds + "}");
+    return this.accessors.size() - 1;
+  }
+
+  /**
+   * Adds a buffer view for the data written since <code>offset</code> and returns its index.
+   */
+  private int addBufferView(int offset, int target) {
+    this.bufferViews.add("{\"buffer\":0,\"byteOffset\":" + offset
+        + ",\"byteLength\":" + (this.buffer.position() - offset)
+        + (target != 0 ? ",\"target\":" + target : "") + "}");
+    return this.bufferViews.size() - 1;
+  }
+
+  /**
+   * Returns the index of the material matching the given appearance, after adding it if it doesn't exist yet.
+   */
+  private int getMaterialIndex(Appearance appearance, boolean doubleSided) throws IOException {
+    float [] color = {1, 1, 1, 1};
+    float roughness = 1;
+    Integer textureIndex = null;
+    if (appearance != null) {
+      Color3f diffuseColor = null;
+      Material material = appearance.getMaterial();
+      if (material != null) {
+        diffuseColor = new Color3f();
+        material.getDiffuseColor(diffuseColor);
+        roughness = 1 - Math.min(1, material.getShininess() / 128);
+      } else {
+        ColoringAttributes coloringAttributes = appearance.getColoringAttributes();
+        if (coloringAttributes != null) {
+          diffuseColor = new Color3f();
+          coloringAttributes.getColor(diffuseColor);
+        }
+      }
+      if (diffuseColor != null) {
+        color [0] = diffuseColor.x;
+        color [1] = diffuseColor.y;
+        color [2] = diffuseColor.z;
+      }
+      TransparencyAttributes transparencyAttributes = appearance.getTransparencyAttributes();
+      if (transparencyAttributes != null
+          && transparencyAttributes.getTransparencyMode() != TransparencyAttributes.NONE) {
+        color [3] = 1 - transparencyAttributes.getTransparency();
+      }
+      Texture texture = appearance.getTexture();
+      if (texture != null) {
+        textureIndex = getTextureIndex(texture);
+      }
+    }
+
+    StringBuilder json = new StringBuilder("{\"pbrMetallicRoughness\":{\"baseColorFactor\":[");
+    json.append(color [0]).append(",").append(color [1]).append(",").append(color [2]).append(",").append(color [3]).append("]");
+    if (textureIndex != null) {
+      json.append(",\"baseColorTexture\":{\"index\":").append(textureIndex).append("}");
+    }
+    json.append(",\"metallicFactor\":0,\"roughnessFactor\":").append(roughness).append("}");
+    if (color [3] < 1) {
+      json.append(",\"alphaMode\":\"BLEND\"");
+    } else if (textureIndex != null) {
+      json.append(",\"alphaMode\":\"MASK\"");
+    }
+    if (doubleSided) {
+      json.append(",\"doubleSided\":true");
+    }
+    json.append("}");
+    String material = json.toString();
+    Integer materialIndex = this.materialIndices.get(material);
+    if (materialIndex == null) {
+      materialIndex = this.materials.size();
+      this.materials.add(material);
+      this.materialIndices.put(material, materialIndex);
+    }
+    return materialIndex;
+  }
+
+  /**
+   * Returns the index of the given texture, after storing its image in buffer if it doesn't exist yet.
+   */
+  private Integer getTextureIndex(Texture texture) throws IOException {
+    Integer textureIndex = this.textureIndices.get(texture);
+    if (textureIndex == null
+        && !this.textureIndices.containsKey(texture)) {
+      byte [] imageData = null;
+      String mimeType = null;
+      if (texture.getUserData() instanceof URL) {
+        // Reuse the content of the texture image if it's a PNG or JPEG image
+        InputStream in = null;
+        try {
+          in = ((URL)texture.getUserData()).openStream();
+          ByteArrayOutputStream imageOut = new ByteArrayOutputStream();
+          byte [] buffer = new byte [8192];
+          int size;
+          while ((size = in.read(buffer)) != -1) {
+            imageOut.write(buffer, 0, size);
+          }
+          ImageInputStream imageIn = ImageIO.createImageInputStream(new ByteArrayInputStream(imageOut.toByteArray()));
+          Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageIn);
+          if (imageReaders.hasNext()) {
+            String formatName = imageReaders.next().getFormatName().toLowerCase();
+            if ("png".equals(formatName)) {
+              mimeType = "image/png";
+              imageData = imageOut.toByteArray();
+            } else if ("jpeg".equals(formatName) || "jpg".equals(formatName)) {
+              mimeType = "image/jpeg";
+              imageData = imageOut.toByteArray();
+            }
+          }
+        } catch (IOException ex) {
+          // Use texture image
+        } finally {
+          if (in != null) {
+            in.close();
+          }
+        }
+      }
+      if (imageData == null
+          && texture.getImage(0) instanceof ImageComponent2D) {
+        ByteArrayOutputStream imageOut = new ByteArrayOutputStream();
+        ImageIO.write(((ImageComponent2D)texture.getImage(0)).getRenderedImage(), "png", imageOut);
+        mimeType = "image/png";
+        imageData = imageOut.toByteArray();
+      }
+      if (imageData != null) {
+        int offset = startBufferView(imageData.length);
+        this.buffer.put(imageData);
+        int bufferView = addBufferView(offset, 0);
+        this.images.add("{\"bufferView\":" + bufferView + ",\"mimeType\":\"" + mimeType + "\"}");
+        textureIndex = this.textures.size();
+        this.textures.add("{\"sampler\":0,\"source\":" + (this.images.size() - 1) + "}");
+      }
+      this.textureIndices.put(texture, textureIndex);
+    }
+    return textureIndex;
+  }
+
+  /**
+   * Returns the given string between quotes with its special characters escaped.
+   */
+  private String toJSONString(String text) {
+    StringBuilder json = new StringBuilder("\"");
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < ' ' || c > '~') {
+        json.append(String.format("\\u%04x", (int)c));
+      } else {
+        json.append(c);
+      }
+    }
+    return json.append("\"").toString();
+  }
+
+  /**
+   * Writes the GLB file with the nodes written so far and closes this writer.
+   * @throws IOException if this writer couldn't be closed or the file couldn't be written
+   */
+  public void close() throws IOException {
+    try {
+      StringBuilder json = new StringBuilder("{\"asset\":{\"version\":\"2.0\"");
+      if (this.generator != null) {
+        json.append(",\"generator\":").append(toJSONString(this.generator));
+      }
+      json.append("},\"scene\":0,\"scenes\":[{\"nodes\":[").append(this.nodes.size()).append("]}]");
+      // Add a root node scaling coordinates from centimeters to meters
+      List<String> nodes = new ArrayList<String>(this.nodes);
+      nodes.add("{\"scale\":[0.01,0.01,0.01],\"children\":" + this.sceneNodes + "}");
+      json.append(",\"nodes\":").append(nodes);
+      if (!this.meshes.isEmpty()) {
+        json.append(",\"meshes\":").append(this.meshes);
+        json.append(",\"materials\":").append(this.materials);
+      }
+      if (!this.textures.isEmpty()) {
+        json.append(",\"textures\":").append(this.textures);
+        json.append(",\"images\":").append(this.images);
+        json.append(",\"samplers\":[{\"wrapS\":10497,\"wrapT\":10497}]");
+      }
+      while (this.buffer.position() % 4 != 0) {
+        this.buffer.put((byte)0);
+      }
+      int binLength = this.buffer.position();
+      if (binLength > 0) {
+        json.append(",\"buffers\":[{\"byteLength\":").append(binLength).append("}]");
+        json.append(",\"bufferViews\":").append(this.bufferViews);
+        json.append(",\"accessors\":").append(this.accessors);
+      }
+      json.append("}");
+      while (json.length() % 4 != 0) {
+        json.append(' ');
+      }
+      byte [] jsonData = json.toString().getBytes("UTF-8");
+
+      ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(GLB_MAGIC);
+      header.putInt(2);
+      header.putInt(12 + 8 + jsonData.length + (binLength > 0 ? 8 + binLength : 0));
+      header.putInt(jsonData.length);
+      header.putInt(JSON_CHUNK_TYPE);
+      this.out.write(header.array());
+      this.out.write(jsonData);
+      if (binLength > 0) {
+        header.clear();
+        header.putInt(binLength);
+        header.putInt(BIN_CHUNK_TYPE);
+        this.out.write(header.array(), 0, 8);
+        this.out.write(this.buffer.array(), 0, binLength);
+      }
+    } finally {
+      this.out.close();
+    }
+  }
+
+  /**
+   * The key identifying a mesh built from the same geometries and the same attributes.
+   */
+  private static class MeshKey {
+    private final Geometry [] geometries;
+    private final int         materialIndex;
+    private final int         cullFace;
+    private final boolean     backFaceNormalFlip;
+    private final boolean     mirrored;
+    private final float []    textureCoordinatesTransformation;
+
+    public MeshKey(Geometry [] geometries, int materialIndex, int cullFace,
+                   boolean backFaceNormalFlip, boolean mirrored, float [] textureCoordinatesTransformation) {
+      this.geometries = geometries;
+      this.materialIndex = materialIndex;
+      this.cullFace = cullFace;
+      this.backFaceNormalFlip = backFaceNormalFlip;
+      this.mirrored = mirrored;
+      this.textureCoordinatesTransformation = textureCoordinatesTransformation;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof MeshKey) {
+        MeshKey key = (MeshKey)obj;
+        if (key.geometries.length != this.geometries.length) {
+          return false;
+        }
+        for (int i = 0; i < this.geometries.length; i++) {
+          // Compare geometries identity
+          if (key.geometries [i] != this.geometries [i]) {
+            return false;
+          }
+        }
+        return key.materialIndex == this.materialIndex
+            && key.cullFace == this.cullFace
+            && key.backFaceNormalFlip == this.backFaceNormalFlip
+            && key.mirrored == this.mirrored
+            && Arrays.equals(key.textureCoordinatesTransformation, this.textureCoordinatesTransformation);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      int hashCode = this.materialIndex + 31 * this.cullFace;
+      for (Geometry geometry : this.geometries) {
+        hashCode = 31 * hashCode + System.identityHashCode(geometry);
+      }
+      return hashCode;
+    }
+  }
+}
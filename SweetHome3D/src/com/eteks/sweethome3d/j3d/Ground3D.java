@@ -24,6 +24,7 @@ import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -42,7 +43,9 @@ import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.HomeTexture;
 import com.eteks.sweethome3d.model.Level;
 import com.eteks.sweethome3d.model.Room;
+import com.eteks.sweethome3d.model.Selectable;
 import com.eteks.sweethome3d.model.Wall;
+import com.eteks.sweethome3d.tools.PolygonBoolean;
 import com.sun.j3d.utils.geometry.GeometryInfo;
 import com.sun.j3d.utils.geometry.NormalGenerator;
 
@@ -55,6 +58,8 @@ public class Ground3D extends Object3DBranch {
   private final float originY;
   private final float width;
   private final float depth;
+  // Unions of areas computed at last update
+  private Map<List<Object>, CachedArea> areasCache = new HashMap<List<Object>, CachedArea>();
 
   /**
    * Creates a 3D ground for the given <code>home</code>.
@@ -133,29 +138,28 @@ public class Ground3D extends Object3DBranch {
             });
     }
     
-    Area areaRemovedFromGround = new Area();
-    // Compute the union of the rooms, the underground walls and furniture areas
-    Map<Level, LevelAreas> undergroundLevelAreas = new HashMap<Level, LevelAreas>();
+    // Search the rooms, the underground walls and furniture that shape the ground 
+    List<Object> groundRooms = new ArrayList<Object>();
+    Map<Level, LevelItems> undergroundLevelItems = new HashMap<Level, LevelItems>();
     for (Room room : home.getRooms()) {
       Level roomLevel = room.getLevel();
       if ((roomLevel == null || roomLevel.isViewable())
           && room.isFloorVisible()) {
         float [][] roomPoints = room.getPoints();
         if (roomPoints.length > 2) {
-          Area roomArea = new Area(getShape(roomPoints));
-          LevelAreas levelAreas = roomLevel != null && roomLevel.getElevation() < 0 
-              ? getUndergroundAreas(undergroundLevelAreas, roomLevel)
+          LevelItems levelItems = roomLevel != null && roomLevel.getElevation() < 0 
+              ? getUndergroundItems(undergroundLevelItems, roomLevel)
               : null;
           if (roomLevel == null
               || (roomLevel.getElevation() <= 0
                   && roomLevel.isViewableAndVisible())) {
-            areaRemovedFromGround.add(roomArea);
-            if (levelAreas != null) {
-              levelAreas.getRoomArea().add(roomArea);
+            groundRooms.add(room);
+            if (levelItems != null) {
+              levelItems.getRooms().add(room);
             }
           }
-          if (levelAreas != null) {
-            levelAreas.getUndergroundArea().add(roomArea);
+          if (levelItems != null) {
+            levelItems.getUndergroundItems().add(room);
           }
         }
       }
@@ -168,12 +172,7 @@ public class Ground3D extends Object3DBranch {
           && pieceLevel != null
           && pieceLevel.isViewable()
           && pieceLevel.getElevation() < 0) {
-        LevelAreas levelAreas = getUndergroundAreas(undergroundLevelAreas, pieceLevel);
-        if (piece.getStaircaseCutOutShape() == null) {
-          levelAreas.getUndergroundArea().add(new Area(getShape(piece.getPoints())));
-        } else {
-          levelAreas.getUndergroundArea().add(ModelManager.getInstance().getAreaOnFloor(piece));
-        }
+        getUndergroundItems(undergroundLevelItems, pieceLevel).getUndergroundItems().add(piece);
       }
     }
     for (Wall wall : home.getWalls()) {
@@ -181,12 +180,25 @@ public class Ground3D extends Object3DBranch {
       if (wallLevel != null 
           && wallLevel.isViewable()
           && wallLevel.getElevation() < 0) {
-        LevelAreas levelAreas = getUndergroundAreas(undergroundLevelAreas, wallLevel);
-        levelAreas.getWallArea().add(new Area(getShape(wall.getPoints())));
+        getUndergroundItems(undergroundLevelItems, wallLevel).getWalls().add(wall);
       }
     }
+    
+    // Compute the union of the areas of the items found at each level, 
+    // reusing the unions computed at previous update for levels where these items didn't change
+    Map<List<Object>, CachedArea> areasCache = new HashMap<List<Object>, CachedArea>();
+    Area areaRemovedFromGround = getUnionArea(Arrays.<Object>asList(home), groundRooms, areasCache);
+    List<LevelAreas> undergroundAreas = new ArrayList<LevelAreas>(undergroundLevelItems.size());
+    for (LevelItems levelItems : undergroundLevelItems.values()) {
+      Level level = levelItems.getLevel();
+      undergroundAreas.add(new LevelAreas(level, 
+          getUnionArea(Arrays.<Object>asList(level, "undergroundItems"), levelItems.getUndergroundItems(), areasCache),
+          getUnionArea(Arrays.<Object>asList(level, "rooms"), levelItems.getRooms(), areasCache),
+          getUnionArea(Arrays.<Object>asList(level, "walls"), levelItems.getWalls(), areasCache)));
+    }
+    this.areasCache = areasCache;
+    
     // Consider that walls around a closed area define a hole 
-    List<LevelAreas> undergroundAreas = new ArrayList<LevelAreas>(undergroundLevelAreas.values());
     for (LevelAreas levelAreas : undergroundAreas) {
       for (float [][] points : getPoints(levelAreas.getWallArea())) {
         if (!new Room(points).isClockwise()) {
@@ -319,14 +331,77 @@ public class Ground3D extends Object3DBranch {
   }
 
   /**
-   * Returns the {@link LevelAreas} instance matching the given level.
+   * Returns the {@link LevelItems} instance matching the given level.
+   */
+  private LevelItems getUndergroundItems(Map<Level, LevelItems> undergroundItems, Level level) {
+    LevelItems levelItems = undergroundItems.get(level);
+    if (levelItems == null) {
+      undergroundItems.put(level, levelItems = new LevelItems(level));
+    }
+    return levelItems;
+  }
+
+  /**
+   * Returns a copy of the union of the areas of the given rooms, walls or pieces. 
+   * This union is computed only if no union was computed for the same <code>key</code> 
+   * at previous update or if the items changed since, then it's stored in <code>areasCache</code>. 
+   */
+  private Area getUnionArea(List<Object> key, List<Object> items, Map<List<Object>, CachedArea> areasCache) {
+    Object [] itemsSignature = new Object [items.size()];
+    for (int i = 0; i < itemsSignature.length; i++) {
+      itemsSignature [i] = getSignature(items.get(i));
+    }
+    CachedArea cachedArea = this.areasCache.get(key);
+    if (cachedArea == null
+        || !Arrays.deepEquals(cachedArea.getItemsSignature(), itemsSignature)) {
+      Area area;
+      if (PolygonBoolean.isEnabled()) {
+        // Compute the union of item polygons in a single batch
+        List<float [][]> polygons = new ArrayList<float[][]>(items.size());
+        List<Area> staircaseAreas = new ArrayList<Area>();
+        for (Object item : items) {
+          if (item instanceof HomePieceOfFurniture
+              && ((HomePieceOfFurniture)item).getStaircaseCutOutShape() != null) {
+            staircaseAreas.add(ModelManager.getInstance().getAreaOnFloor((HomePieceOfFurniture)item));
+          } else {
+            polygons.add(((Selectable)item).getPoints());
+          }
+        }
+        List<float [][]> union = PolygonBoolean.union(polygons);
+        for (Area staircaseArea : staircaseAreas) {
+          // Staircase areas may contain holes
+          union = PolygonBoolean.union(union, PolygonBoolean.getPolygons(staircaseArea, 1));
+        }
+        area = PolygonBoolean.getArea(union);
+      } else {
+        area = new Area();
+        for (Object item : items) {
+          if (item instanceof HomePieceOfFurniture
+              && ((HomePieceOfFurniture)item).getStaircaseCutOutShape() != null) {
+            area.add(ModelManager.getInstance().getAreaOnFloor((HomePieceOfFurniture)item));
+          } else {
+            area.add(new Area(getShape(((Selectable)item).getPoints())));
+          }
+        }
+      }
+      cachedArea = new CachedArea(itemsSignature, area);
+    }
+    areasCache.put(key, cachedArea);
+    return (Area)cachedArea.getArea().clone();
+  }
+
+  /**
+   * Returns the data of the given item which its area depends on.
    */
-  private LevelAreas getUndergroundAreas(Map<Level, LevelAreas> undergroundAreas, Level level) {
-    LevelAreas levelAreas = undergroundAreas.get(level);
-    if (levelAreas == null) {
-      undergroundAreas.put(level, levelAreas = new LevelAreas(level));
+  private Object getSignature(Object item) {
+    float [][] points = ((Selectable)item).getPoints();
+    if (item instanceof HomePieceOfFurniture
+        && ((HomePieceOfFurniture)item).getStaircaseCutOutShape() != null) {
+      HomePieceOfFurniture staircase = (HomePieceOfFurniture)item;
+      return new Object [] {points, staircase.getStaircaseCutOutShape(), staircase.isModelMirrored()};
+    } else {
+      return points;
     }
-    return levelAreas;
   }
 
   /**
@@ -410,6 +485,57 @@ public class Ground3D extends Object3DBranch {
     groundShape.addGeometry(geometryInfo.getIndexedGeometryArray());
   }
   
+  /**
+   * Items of an underground level that shape the ground.
+   */
+  private static class LevelItems {
+    private Level        level;
+    private List<Object> undergroundItems = new ArrayList<Object>();
+    private List<Object> rooms = new ArrayList<Object>();
+    private List<Object> walls = new ArrayList<Object>();
+
+    public LevelItems(Level level) {
+      this.level = level;
+    }
+
+    public Level getLevel() {
+      return this.level;
+    }
+
+    public List<Object> getUndergroundItems() {
+      return this.undergroundItems;
+    }
+
+    public List<Object> getRooms() {
+      return this.rooms;
+    }
+
+    public List<Object> getWalls() {
+      return this.walls;
+    }
+  }
+
+  /**
+   * The union of the areas of items, stored with the signature of these items.
+   */
+  private static class CachedArea {
+    private Object [] itemsSignature;
+    private Area      area;
+
+    public CachedArea(Object [] itemsSignature, Area area) {
+      this.itemsSignature = itemsSignature;
+      this.area = area;
+    }
+
+    public Object [] getItemsSignature() {
+      return this.itemsSignature;
+    }
+
+    public Area getArea() {
+      return this.area;
+    }
+  }
+
   /**
    * Areas of underground levels.
    */
@@ -421,15 +547,17 @@ public class Ground3D extends Object3DBranch {
     private Area undergroundSideArea = new Area();
     private Area upperLevelArea = new Area();
 
-    public LevelAreas(Level level) {
-      this(level, new Area());
-    }
-
     public LevelAreas(Level level, Area undergroundArea) {
       this.level = level;
       this.undergroundArea = undergroundArea;
     }
 
+    public LevelAreas(Level level, Area undergroundArea, Area roomArea, Area wallArea) {
+      this(level, undergroundArea);
+      this.roomArea = roomArea;
+      this.wallArea = wallArea;
+    }
+
     public Level getLevel() {
       return this.level;
     }
@@ -104,6 +104,7 @@ import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.HomeTexture;
 import com.eteks.sweethome3d.model.Room;
 import com.eteks.sweethome3d.tools.OperatingSystem;
+import com.eteks.sweethome3d.tools.PolygonBoolean;
 import com.eteks.sweethome3d.tools.SimpleURLContent;
 import com.eteks.sweethome3d.tools.TemporaryURLContent;
 import com.eteks.sweethome3d.tools.URLContent;
@@ -1056,8 +1057,9 @@ public class ModelManager {
     } else {
       int vertexCount = getVertexCount(node);
       if (vertexCount < 1000000) {
-        Area frontAreaWithHoles = new Area();
-        computeBottomOrFrontArea(node, frontAreaWithHoles, new Transform3D(), false, false);
+        ProjectedArea projectedArea = new ProjectedArea();
+        computeBottomOrFrontArea(node, projectedArea, new Transform3D(), false, false);
+        Area frontAreaWithHoles = projectedArea.getArea();
         // Remove holes and duplicated points
         frontArea = new Area();
         List<float []> currentPathPoints = new ArrayList<float[]>();
@@ -1120,8 +1122,9 @@ public class ModelManager {
     Area modelAreaOnFloor;
     int vertexCount = getVertexCount(node);
     if (vertexCount < 10000) {
-      modelAreaOnFloor = new Area();
-      computeBottomOrFrontArea(node, modelAreaOnFloor, new Transform3D(), true, true);
+      ProjectedArea projectedArea = new ProjectedArea();
+      computeBottomOrFrontArea(node, projectedArea, new Transform3D(), true, true);
+      modelAreaOnFloor = projectedArea.getArea();
     } else {
       List<float []> vertices = new ArrayList<float[]>(vertexCount); 
       computeVerticesOnFloor(node, vertices, new Transform3D());
@@ -1172,7 +1175,7 @@ public class ModelManager {
    * Computes the 2D area on floor or on front side of the 3D shapes children of <code>node</code>.
    */
   private void computeBottomOrFrontArea(Node node, 
-                                        Area nodeArea, 
+                                        ProjectedArea nodeArea, 
                                         Transform3D parentTransformations,
                                         boolean ignoreTransparentShapes, 
                                         boolean bottom) {
@@ -1215,7 +1218,7 @@ public class ModelManager {
    * and the front area if not.
    */
   private void computeBottomOrFrontGeometryArea(Geometry geometry, 
-                                                Area nodeArea, 
+                                                ProjectedArea nodeArea, 
                                                 Transform3D parentTransformations,
                                                 boolean bottom) {
     if (geometry instanceof GeometryArray) {
@@ -1366,7 +1369,7 @@ public class ModelManager {
       }
       
       if (geometryPath != null) {
-        nodeArea.add(new Area(geometryPath));
+        nodeArea.add(geometryPath);
       }
     } 
   }
@@ -1378,7 +1381,7 @@ public class ModelManager {
   private void addIndexedTriangleToPath(IndexedGeometryArray geometryArray, 
                                     int vertexIndex1, int vertexIndex2, int vertexIndex3, 
                                     float [] vertices, 
-                                    GeneralPath geometryPath, int triangleIndex, Area nodeArea) {
+                                    GeneralPath geometryPath, int triangleIndex, ProjectedArea nodeArea) {
     addTriangleToPath(geometryArray, geometryArray.getCoordinateIndex(vertexIndex1), 
         geometryArray.getCoordinateIndex(vertexIndex2), 
         geometryArray.getCoordinateIndex(vertexIndex3), vertices, geometryPath, triangleIndex, nodeArea);
@@ -1391,7 +1394,7 @@ public class ModelManager {
   private void addIndexedQuadrilateralToPath(IndexedGeometryArray geometryArray, 
                                          int vertexIndex1, int vertexIndex2, int vertexIndex3, int vertexIndex4, 
                                          float [] vertices, 
-                                         GeneralPath geometryPath, int quadrilateralIndex, Area nodeArea) {
+                                         GeneralPath geometryPath, int quadrilateralIndex, ProjectedArea nodeArea) {
     addQuadrilateralToPath(geometryArray, geometryArray.getCoordinateIndex(vertexIndex1), 
         geometryArray.getCoordinateIndex(vertexIndex2), 
         geometryArray.getCoordinateIndex(vertexIndex3), 
@@ -1406,7 +1409,7 @@ public class ModelManager {
   private void addTriangleToPath(GeometryArray geometryArray, 
                              int vertexIndex1, int vertexIndex2, int vertexIndex3, 
                              float [] vertices, 
-                             GeneralPath geometryPath, int triangleIndex, Area nodeArea) {
+                             GeneralPath geometryPath, int triangleIndex, ProjectedArea nodeArea) {
     float xVertex1 = vertices [2 * vertexIndex1];
     float yVertex1 = vertices [2 * vertexIndex1 + 1];
     float xVertex2 = vertices [2 * vertexIndex2];
@@ -1416,7 +1419,7 @@ public class ModelManager {
     if ((xVertex2 - xVertex1) * (yVertex3 - yVertex2) - (yVertex2 - yVertex1) * (xVertex3 - xVertex2) > 0) {
       if (triangleIndex > 0 && triangleIndex % 1000 == 0) {
         // Add now current path to area otherwise area gets too slow
-        nodeArea.add(new Area(geometryPath));
+        nodeArea.add(geometryPath);
         geometryPath.reset();
       }
       geometryPath.moveTo(xVertex1, yVertex1);      
@@ -1434,7 +1437,7 @@ public class ModelManager {
   private void addQuadrilateralToPath(GeometryArray geometryArray, 
                                       int vertexIndex1, int vertexIndex2, int vertexIndex3, int vertexIndex4, 
                                       float [] vertices, 
-                                      GeneralPath geometryPath, int quadrilateralIndex, Area nodeArea) {
+                                      GeneralPath geometryPath, int quadrilateralIndex, ProjectedArea nodeArea) {
     float xVertex1 = vertices [2 * vertexIndex1];
     float yVertex1 = vertices [2 * vertexIndex1 + 1];
     float xVertex2 = vertices [2 * vertexIndex2];
@@ -1444,7 +1447,7 @@ public class ModelManager {
     if ((xVertex2 - xVertex1) * (yVertex3 - yVertex2) - (yVertex2 - yVertex1) * (xVertex3 - xVertex2) > 0) {
       if (quadrilateralIndex > 0 && quadrilateralIndex % 1000 == 0) {
         // Add now current path to area otherwise area gets too slow
-        nodeArea.add(new Area(geometryPath));
+        nodeArea.add(geometryPath);
         geometryPath.reset();
       }
       geometryPath.moveTo(xVertex1, yVertex1);      
@@ -1718,6 +1721,45 @@ public class ModelManager {
     return shape;
   }
   
+  /**
+   * The area of the triangles and quadrilaterals of 3D shapes projected on a plane,
+   * computed with {@link PolygonBoolean} class if it's enabled.
+   */
+  private static class ProjectedArea {
+    private final Area             area;
+    private final List<float [][]> polygons;
+
+    public ProjectedArea() {
+      if (PolygonBoolean.isEnabled()) {
+        this.area = null;
+        this.polygons = new ArrayList<float[][]>();
+      } else {
+        this.area = new Area();
+        this.polygons = null;
+      }
+    }
+
+    /**
+     * Adds the polygons of the given path to this area.
+     */
+    public void add(GeneralPath path) {
+      if (this.polygons != null) {
+        // Postpone union to compute it in a single batch
+        this.polygons.addAll(PolygonBoolean.getPolygons(path, 1));
+      } else {
+        this.area.add(new Area(path));
+      }
+    }
+
+    public Area getArea() {
+      if (this.polygons != null) {
+        return PolygonBoolean.getArea(PolygonBoolean.union(this.polygons));
+      } else {
+        return this.area;
+      }
+    }
+  }
+
   /**
    * Separated static class to be able to exclude Batik library from classpath. 
    */
@@ -31,6 +31,7 @@ import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.net.JarURLConnection;
 import java.net.URISyntaxException;
@@ -45,9 +46,16 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -111,13 +119,19 @@ public class OBJWriter extends FilterWriter {
   private String  mtlFileName;
 
   private int shapeIndex = 1;
-  private Map<Point3f, Integer>    vertexIndices = new HashMap<Point3f, Integer>();
-  private Map<Vector3f, Integer>   normalIndices = new HashMap<Vector3f, Integer>();
-  private Map<TexCoord2f, Integer> textureCoordinatesIndices = new HashMap<TexCoord2f, Integer>();  
+  private int            deduplicationFractionDigits = -1;
+  private ElementIndices vertexIndices = new ElementIndices(3, -1);
+  private ElementIndices normalIndices = new ElementIndices(3, -1);
+  private ElementIndices textureCoordinatesIndices = new ElementIndices(2, -1);  
   private Map<ComparableAppearance, String> appearances = 
       new LinkedHashMap<ComparableAppearance, String>();
   private Map<Texture, File> textures = new HashMap<Texture, File>();
   private List<URL>          copiedTextures = new ArrayList<URL>();
+
+  private int                    threadCount = 1;
+  private ExecutorService        nodesConverter;
+  private List<Future<String>>   nodeChunks;
+  private NodeChunk              lastNodeChunk;
   
   /**
    * Create an OBJ writer for the given file, with no header and default precision.
@@ -223,6 +237,18 @@ public class OBJWriter extends FilterWriter {
     writeHeader(this.out);
   }
   
+  /**
+   * Creates an OBJ writer used by worker threads to convert nodes in <code>out</code>.
+   */
+  private OBJWriter(NumberFormat numberFormat, int deduplicationFractionDigits, Writer out) {
+    super(out);
+    this.numberFormat = numberFormat != null 
+        ? (NumberFormat)numberFormat.clone()
+        : null;
+    this.header = null;
+    setDeduplicationFractionDigits(deduplicationFractionDigits);
+  }
+
   /**
    * Writes header to <code>writer</code>
    */
@@ -326,13 +352,125 @@ public class OBJWriter extends FilterWriter {
       this.firstNode = false;
     }
     
-    writeNode(node, nodeName, new Transform3D());
+    if (this.nodesConverter != null) {
+      checkCurrentThreadIsntInterrupted();
+      // Collect shapes with their materials in this thread and convert their geometry in a worker thread
+      NodeChunk nodeChunk = new NodeChunk(this.lastNodeChunk);
+      writeNode(node, nodeName, new Transform3D(), nodeChunk);
+      this.lastNodeChunk = nodeChunk;
+      this.nodeChunks.add(this.nodesConverter.submit(nodeChunk));
+      // Write the chunks already converted and limit the count of pending chunks to bound memory use
+      writeNodeChunks(this.threadCount * 4);
+    } else {
+      writeNode(node, nodeName, new Transform3D(), null);
+    }
   }
 
   /**
-   * Writes all the 3D shapes children of <code>node</code> at OBJ format.
+   * Sets the count of threads used to convert nodes at OBJ format, or 0 to use as many threads 
+   * as available processors. When more than one thread is used, the geometry of each node 
+   * passed to <code>writeNode</code> is converted in a worker thread, then written in the order 
+   * nodes were passed. Vertices, normals and texture coordinates of each node are renumbered 
+   * in that order too, to be shared among all the nodes as when a single thread is used. 
+   * @throws IllegalStateException if a node was already written
+   * @since 5.5
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 0) {
+      throw new IllegalArgumentException("Negative thread count");
+    } else if (!this.firstNode) {
+      throw new IllegalStateException("Nodes already written");
+    }
+    if (threadCount == 0) {
+      threadCount = Runtime.getRuntime().availableProcessors();
+    }
+    if (this.nodesConverter != null) {
+      this.nodesConverter.shutdown();
+      this.nodesConverter = null;
+      this.nodeChunks = null;
+    }
+    this.threadCount = threadCount;
+    if (threadCount > 1) {
+      this.nodesConverter = Executors.newFixedThreadPool(threadCount);
+      this.nodeChunks = new LinkedList<Future<String>>();
+    }
+  }
+  
+  /**
+   * Returns the count of threads used to convert nodes at OBJ format.
+   * @since 5.5
+   */
+  public int getThreadCount() {
+    return this.threadCount;
+  }
+  
+  /**
+   * Sets the count of fraction digits kept to compare the coordinates of vertices, normals 
+   * and texture coordinates, to write only once the elements equal once rounded. 
+   * By default, elements are written once only if their coordinates are exactly the same.
+   * @param deduplicationFractionDigits a count of fraction digits or -1 to compare exact values
+   * @throws IllegalStateException if a node was already written
+   * @since 5.5
+   */
+  public void setDeduplicationFractionDigits(int deduplicationFractionDigits) {
+    if (!this.firstNode) {
+      throw new IllegalStateException("Nodes already written");
+    }
+    this.deduplicationFractionDigits = Math.max(-1, deduplicationFractionDigits);
+    this.vertexIndices = new ElementIndices(3, this.deduplicationFractionDigits);
+    this.normalIndices = new ElementIndices(3, this.deduplicationFractionDigits);
+    this.textureCoordinatesIndices = new ElementIndices(2, this.deduplicationFractionDigits);
+  }
+  
+  /**
+   * Returns the count of fraction digits kept to compare elements or -1 if exact values are compared.
+   * @since 5.5
+   */
+  public int getDeduplicationFractionDigits() {
+    return this.deduplicationFractionDigits;
+  }
+  
+  /**
+   * Writes in order the pending converted nodes until their count is smaller 
+   * or equal to <code>maximumPendingChunks</code>, and the following ones already converted.
+   */
+  private void writeNodeChunks(int maximumPendingChunks) throws IOException {
+    try {
+      while (!this.nodeChunks.isEmpty()
+             && (this.nodeChunks.size() > maximumPendingChunks
+                 || this.nodeChunks.get(0).isDone())) {
+        this.out.write(this.nodeChunks.remove(0).get());
+      }
+    } catch (InterruptedException ex) {
+      stopNodesConverter();
+      throw new InterruptedIOException("Current thread interrupted");
+    } catch (ExecutionException ex) {
+      stopNodesConverter();
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException)ex.getCause();
+      } else if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException)ex.getCause();
+      } else {
+        throw (Error)ex.getCause();
+      }
+    }
+  }
+  
+  /**
+   * Stops the threads converting nodes and ignores pending nodes.
+   */
+  private void stopNodesConverter() {
+    this.mtlFileName = null;
+    this.nodesConverter.shutdownNow();
+    this.nodeChunks.clear();
+  }
+
+  /**
+   * Writes all the 3D shapes children of <code>node</code> at OBJ format, or adds them 
+   * to <code>nodeChunk</code> if it's not <code>null</code>.
    */ 
-  private void writeNode(Node node, String nodeName, Transform3D parentTransformations) throws IOException {
+  private void writeNode(Node node, String nodeName, Transform3D parentTransformations, 
+                         NodeChunk nodeChunk) throws IOException {
     if (node instanceof Group) {
       if (node instanceof TransformGroup) {
         parentTransformations = new Transform3D(parentTransformations);
@@ -343,10 +481,10 @@ public class OBJWriter extends FilterWriter {
       // Write all children
       Enumeration<?> enumeration = ((Group)node).getAllChildren(); 
       while (enumeration.hasMoreElements()) {
-        writeNode((Node)enumeration.nextElement(), nodeName, parentTransformations);
+        writeNode((Node)enumeration.nextElement(), nodeName, parentTransformations, nodeChunk);
       }
     } else if (node instanceof Link) {
-      writeNode(((Link)node).getSharedGroup(), nodeName, parentTransformations);
+      writeNode(((Link)node).getSharedGroup(), nodeName, parentTransformations, nodeChunk);
     } else if (node instanceof Shape3D) {
       Shape3D shape = (Shape3D)node;
       Appearance appearance = shape.getAppearance();
@@ -372,7 +510,7 @@ public class OBJWriter extends FilterWriter {
         objectName += String.valueOf(this.shapeIndex++);
         
         // Start a new object at OBJ format 
-        this.out.write("g " + objectName + "\n");
+        String shapeHeader = "g " + objectName + "\n";
         
         TexCoordGeneration texCoordGeneration = null;
         Transform3D textureTransform = new Transform3D();
@@ -440,7 +578,7 @@ public class OBJWriter extends FilterWriter {
                 }
               }
             } 
-            this.out.write("usemtl " + appearanceName + "\n");
+            shapeHeader += "usemtl " + appearanceName + "\n";
           }
         }
         
@@ -454,10 +592,16 @@ public class OBJWriter extends FilterWriter {
           }
         }
         
-        // Write object geometries
-        for (int i = 0, n = shape.numGeometries(); i < n; i++) {
-          writeNodeGeometry(shape.getGeometry(i), parentTransformations, texCoordGeneration, 
+        if (nodeChunk != null) {
+          nodeChunk.addShape(shapeHeader, shape, parentTransformations, texCoordGeneration, 
               textureTransform, cullFace, backFaceNormalFlip);
+        } else {
+          this.out.write(shapeHeader);
+          // Write object geometries
+          for (int i = 0, n = shape.numGeometries(); i < n; i++) {
+            writeNodeGeometry(shape.getGeometry(i), parentTransformations, texCoordGeneration, 
+                textureTransform, cullFace, backFaceNormalFlip);
+          }
         }
       }
     }    
@@ -518,6 +662,24 @@ public class OBJWriter extends FilterWriter {
                                  Transform3D textureTransform, 
                                  int cullFace, 
                                  boolean backFaceNormalFlip) throws IOException {
+    GeometryIndices geometryIndices = writeNodeGeometryVertices(geometry, parentTransformations, 
+        texCoordGeneration, textureTransform, cullFace, backFaceNormalFlip);
+    if (geometryIndices != null) {
+      writeNodeGeometryFaces(geometryIndices);
+    }
+  }
+
+  /**
+   * Writes the vertices, the texture coordinates and the normals of a 3D geometry at OBJ format.
+   * @return the indices of the written elements required to write the faces of the geometry
+   *         or <code>null</code> if the geometry isn't supported
+   */
+  private GeometryIndices writeNodeGeometryVertices(Geometry geometry, 
+                                                    Transform3D parentTransformations, 
+                                                    TexCoordGeneration texCoordGeneration, 
+                                                    Transform3D textureTransform, 
+                                                    int cullFace, 
+                                                    boolean backFaceNormalFlip) throws IOException {
     if (geometry instanceof GeometryArray) {
       GeometryArray geometryArray = (GeometryArray)geometry;      
       
@@ -676,135 +838,155 @@ public class OBJWriter extends FilterWriter {
         out.write(normalsBuffer.toString());
       } else if (addedNormals != null) {
         // Remove ignored normals
-        for (Vector3f normal : addedNormals) {
-          this.normalIndices.remove(normal);
+        for (int i = addedNormals.size(); i > 0; i--) {
+          this.normalIndices.removeLast();
         }
       }
 
-      checkCurrentThreadIsntInterrupted();
-      
-      // Write lines, triangles or quadrilaterals depending on the geometry
-      if (geometryArray instanceof IndexedGeometryArray) {
-        if (geometryArray instanceof IndexedLineArray) {
-          IndexedLineArray lineArray = (IndexedLineArray)geometryArray;
-          for (int i = 0, n = lineArray.getIndexCount(); i < n; i += 2) {
-            writeIndexedLine(lineArray, i, i + 1, vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
-          }
-        } else if (geometryArray instanceof IndexedTriangleArray) {
-          IndexedTriangleArray triangleArray = (IndexedTriangleArray)geometryArray;
-          for (int i = 0, n = triangleArray.getIndexCount(); i < n; i += 3) {
-            writeIndexedTriangle(triangleArray, i, i + 1, i + 2, 
-                vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
-                normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-          }
-        } else if (geometryArray instanceof IndexedQuadArray) {
-          IndexedQuadArray quadArray = (IndexedQuadArray)geometryArray;
-          for (int i = 0, n = quadArray.getIndexCount(); i < n; i += 4) {
-            writeIndexedQuadrilateral(quadArray, i, i + 1, i + 2, i + 3, 
-                vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
-                normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-          }
-        } else if (geometryArray instanceof IndexedGeometryStripArray) {
-          IndexedGeometryStripArray geometryStripArray = (IndexedGeometryStripArray)geometryArray;
-          int [] stripIndexCounts = new int [geometryStripArray.getNumStrips()];
-          geometryStripArray.getStripIndexCounts(stripIndexCounts);
-          int initialIndex = 0; 
-          
-          if (geometryStripArray instanceof IndexedLineStripArray) {
-            for (int strip = 0; strip < stripIndexCounts.length; strip++) {
-              for (int i = initialIndex, n = initialIndex + stripIndexCounts [strip] - 1; i < n; i++) {
-                writeIndexedLine(geometryStripArray, i, i + 1, 
-                    vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
-              }
-              initialIndex += stripIndexCounts [strip];
-            }
-          } else if (geometryStripArray instanceof IndexedTriangleStripArray) {
-            for (int strip = 0; strip < stripIndexCounts.length; strip++) {
-              for (int i = initialIndex, n = initialIndex + stripIndexCounts [strip] - 2, j = 0; i < n; i++, j++) {
-                if (j % 2 == 0) {
-                  writeIndexedTriangle(geometryStripArray, i, i + 1, i + 2, 
-                      vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,   
-                      normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-                } else { // Vertices of odd triangles are in reverse order               
-                  writeIndexedTriangle(geometryStripArray, i, i + 2, i + 1, 
-                      vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
-                      normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-                }
-              }
-              initialIndex += stripIndexCounts [strip];
+      return new GeometryIndices(geometryArray, vertexIndexSubstitutes, normalIndexSubstitutes, 
+          oppositeSideNormalIndexSubstitutes, normalsDefined, textureCoordinatesIndexSubstitutes, 
+          textureCoordinatesGenerated, cullFace);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the lines, triangles or quadrilaterals of a 3D geometry at OBJ format.
+   */
+  private void writeNodeGeometryFaces(GeometryIndices geometryIndices) throws IOException {
+    GeometryArray geometryArray = geometryIndices.geometryArray;
+    int [] vertexIndexSubstitutes = geometryIndices.vertexIndexSubstitutes;
+    int [] normalIndexSubstitutes = geometryIndices.normalIndexSubstitutes;
+    int [] oppositeSideNormalIndexSubstitutes = geometryIndices.oppositeSideNormalIndexSubstitutes;
+    boolean normalsDefined = geometryIndices.normalsDefined;
+    int [] textureCoordinatesIndexSubstitutes = geometryIndices.textureCoordinatesIndexSubstitutes;
+    boolean textureCoordinatesGenerated = geometryIndices.textureCoordinatesGenerated;
+    int cullFace = geometryIndices.cullFace;
+
+    checkCurrentThreadIsntInterrupted();
+    
+    // Write lines, triangles or quadrilaterals depending on the geometry
+    if (geometryArray instanceof IndexedGeometryArray) {
+      if (geometryArray instanceof IndexedLineArray) {
+        IndexedLineArray lineArray = (IndexedLineArray)geometryArray;
+        for (int i = 0, n = lineArray.getIndexCount(); i < n; i += 2) {
+          writeIndexedLine(lineArray, i, i + 1, vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
+        }
+      } else if (geometryArray instanceof IndexedTriangleArray) {
+        IndexedTriangleArray triangleArray = (IndexedTriangleArray)geometryArray;
+        for (int i = 0, n = triangleArray.getIndexCount(); i < n; i += 3) {
+          writeIndexedTriangle(triangleArray, i, i + 1, i + 2, 
+              vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
+              normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
+        }
+      } else if (geometryArray instanceof IndexedQuadArray) {
+        IndexedQuadArray quadArray = (IndexedQuadArray)geometryArray;
+        for (int i = 0, n = quadArray.getIndexCount(); i < n; i += 4) {
+          writeIndexedQuadrilateral(quadArray, i, i + 1, i + 2, i + 3, 
+              vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
+              normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
+        }
+      } else if (geometryArray instanceof IndexedGeometryStripArray) {
+        IndexedGeometryStripArray geometryStripArray = (IndexedGeometryStripArray)geometryArray;
+        int [] stripIndexCounts = new int [geometryStripArray.getNumStrips()];
+        geometryStripArray.getStripIndexCounts(stripIndexCounts);
+        int initialIndex = 0; 
+        
+        if (geometryStripArray instanceof IndexedLineStripArray) {
+          for (int strip = 0; strip < stripIndexCounts.length; strip++) {
+            for (int i = initialIndex, n = initialIndex + stripIndexCounts [strip] - 1; i < n; i++) {
+              writeIndexedLine(geometryStripArray, i, i + 1, 
+                  vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
             }
-          } else if (geometryStripArray instanceof IndexedTriangleFanArray) {
-            for (int strip = 0; strip < stripIndexCounts.length; strip++) {
-              for (int i = initialIndex, n = initialIndex + stripIndexCounts [strip] - 2; i < n; i++) {
-                writeIndexedTriangle(geometryStripArray, initialIndex, i + 1, i + 2, 
+            initialIndex += stripIndexCounts [strip];
+          }
+        } else if (geometryStripArray instanceof IndexedTriangleStripArray) {
+          for (int strip = 0; strip < stripIndexCounts.length; strip++) {
+            for (int i = initialIndex, n = initialIndex + stripIndexCounts [strip] - 2, j = 0; i < n; i++, j++) {
+              if (j % 2 == 0) {
+                writeIndexedTriangle(geometryStripArray, i, i + 1, i + 2, 
                     vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,   
                     normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
+              } else { // Vertices of odd triangles are in reverse order               
+                writeIndexedTriangle(geometryStripArray, i, i + 2, i + 1, 
+                    vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
+                    normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
               }
-              initialIndex += stripIndexCounts [strip];
             }
+            initialIndex += stripIndexCounts [strip];
           }
-        } 
-      } else {
-        if (geometryArray instanceof LineArray) {
-          LineArray lineArray = (LineArray)geometryArray;
-          for (int i = 0, n = lineArray.getVertexCount(); i < n; i += 2) {
-            writeLine(lineArray, i, i + 1, vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
-          }
-        } else if (geometryArray instanceof TriangleArray) {
-          TriangleArray triangleArray = (TriangleArray)geometryArray;
-          for (int i = 0, n = triangleArray.getVertexCount(); i < n; i += 3) {
-            writeTriangle(triangleArray, i, i + 1, i + 2, 
-                vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,   
-                normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-          }
-        } else if (geometryArray instanceof QuadArray) {
-          QuadArray quadArray = (QuadArray)geometryArray;
-          for (int i = 0, n = quadArray.getVertexCount(); i < n; i += 4) {
-            writeQuadrilateral(quadArray, i, i + 1, i + 2, i + 3, 
-                vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,   
-                normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-          }
-        } else if (geometryArray instanceof GeometryStripArray) {
-          GeometryStripArray geometryStripArray = (GeometryStripArray)geometryArray;
-          int [] stripVertexCounts = new int [geometryStripArray.getNumStrips()];
-          geometryStripArray.getStripVertexCounts(stripVertexCounts);
-          int initialIndex = 0;
-          
-          if (geometryStripArray instanceof LineStripArray) {
-            for (int strip = 0; strip < stripVertexCounts.length; strip++) {
-              for (int i = initialIndex, n = initialIndex + stripVertexCounts [strip] - 1; i < n; i++) {
-                writeLine(geometryStripArray, i, i + 1, vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
-              }
-              initialIndex += stripVertexCounts [strip];
+        } else if (geometryStripArray instanceof IndexedTriangleFanArray) {
+          for (int strip = 0; strip < stripIndexCounts.length; strip++) {
+            for (int i = initialIndex, n = initialIndex + stripIndexCounts [strip] - 2; i < n; i++) {
+              writeIndexedTriangle(geometryStripArray, initialIndex, i + 1, i + 2, 
+                  vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,   
+                  normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
             }
-          } else if (geometryStripArray instanceof TriangleStripArray) {
-            for (int strip = 0; strip < stripVertexCounts.length; strip++) {
-              for (int i = initialIndex, n = initialIndex + stripVertexCounts [strip] - 2, j = 0; i < n; i++, j++) {
-                if (j % 2 == 0) {
-                  writeTriangle(geometryStripArray, i, i + 1, i + 2, 
-                      vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
-                      normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-                } else { // Vertices of odd triangles are in reverse order               
-                  writeTriangle(geometryStripArray, i, i + 2, i + 1, 
-                      vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
-                      normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
-                }
-              }
-              initialIndex += stripVertexCounts [strip];
+            initialIndex += stripIndexCounts [strip];
+          }
+        }
+      } 
+    } else {
+      if (geometryArray instanceof LineArray) {
+        LineArray lineArray = (LineArray)geometryArray;
+        for (int i = 0, n = lineArray.getVertexCount(); i < n; i += 2) {
+          writeLine(lineArray, i, i + 1, vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
+        }
+      } else if (geometryArray instanceof TriangleArray) {
+        TriangleArray triangleArray = (TriangleArray)geometryArray;
+        for (int i = 0, n = triangleArray.getVertexCount(); i < n; i += 3) {
+          writeTriangle(triangleArray, i, i + 1, i + 2, 
+              vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,   
+              normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
+        }
+      } else if (geometryArray instanceof QuadArray) {
+        QuadArray quadArray = (QuadArray)geometryArray;
+        for (int i = 0, n = quadArray.getVertexCount(); i < n; i += 4) {
+          writeQuadrilateral(quadArray, i, i + 1, i + 2, i + 3, 
+              vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,   
+              normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
+        }
+      } else if (geometryArray instanceof GeometryStripArray) {
+        GeometryStripArray geometryStripArray = (GeometryStripArray)geometryArray;
+        int [] stripVertexCounts = new int [geometryStripArray.getNumStrips()];
+        geometryStripArray.getStripVertexCounts(stripVertexCounts);
+        int initialIndex = 0;
+        
+        if (geometryStripArray instanceof LineStripArray) {
+          for (int strip = 0; strip < stripVertexCounts.length; strip++) {
+            for (int i = initialIndex, n = initialIndex + stripVertexCounts [strip] - 1; i < n; i++) {
+              writeLine(geometryStripArray, i, i + 1, vertexIndexSubstitutes, textureCoordinatesIndexSubstitutes);
             }
-          } else if (geometryStripArray instanceof TriangleFanArray) {
-            for (int strip = 0; strip < stripVertexCounts.length; strip++) {
-              for (int i = initialIndex, n = initialIndex + stripVertexCounts [strip] - 2; i < n; i++) {
-                writeTriangle(geometryStripArray, initialIndex, i + 1, i + 2, 
+            initialIndex += stripVertexCounts [strip];
+          }
+        } else if (geometryStripArray instanceof TriangleStripArray) {
+          for (int strip = 0; strip < stripVertexCounts.length; strip++) {
+            for (int i = initialIndex, n = initialIndex + stripVertexCounts [strip] - 2, j = 0; i < n; i++, j++) {
+              if (j % 2 == 0) {
+                writeTriangle(geometryStripArray, i, i + 1, i + 2, 
+                    vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
+                    normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
+              } else { // Vertices of odd triangles are in reverse order               
+                writeTriangle(geometryStripArray, i, i + 2, i + 1, 
                     vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
                     normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
               }
-              initialIndex += stripVertexCounts [strip];
             }
+            initialIndex += stripVertexCounts [strip];
+          }
+        } else if (geometryStripArray instanceof TriangleFanArray) {
+          for (int strip = 0; strip < stripVertexCounts.length; strip++) {
+            for (int i = initialIndex, n = initialIndex + stripVertexCounts [strip] - 2; i < n; i++) {
+              writeTriangle(geometryStripArray, initialIndex, i + 1, i + 2, 
+                  vertexIndexSubstitutes, normalIndexSubstitutes, oppositeSideNormalIndexSubstitutes,  
+                  normalsDefined, textureCoordinatesIndexSubstitutes, textureCoordinatesGenerated, cullFace);
+            }
+            initialIndex += stripVertexCounts [strip];
           }
         }
       }
-    } 
+    }
   }
 
   /**
@@ -826,10 +1008,9 @@ public class OBJWriter extends FilterWriter {
                            Point3f vertex, int index,
                            int [] vertexIndexSubstitutes) throws IOException {
     transformationToParent.transform(vertex);
-    Integer vertexIndex = this.vertexIndices.get(vertex);
-    if (vertexIndex == null) {
-      vertexIndexSubstitutes [index] = this.vertexIndices.size() + 1;
-      this.vertexIndices.put(vertex, vertexIndexSubstitutes [index]);
+    int vertexIndex = this.vertexIndices.getIndex(vertex.x, vertex.y, vertex.z);
+    if (vertexIndex == 0) {
+      vertexIndexSubstitutes [index] = this.vertexIndices.add(vertex.x, vertex.y, vertex.z);
       // Write only once unique vertices
       this.out.write("v " + format(vertex.x) 
           + " " + format(vertex.y) 
@@ -879,10 +1060,9 @@ public class OBJWriter extends FilterWriter {
       transformationToParent.transform(normal);
       normal.normalize();
     }
-    Integer normalIndex = this.normalIndices.get(normal);
-    if (normalIndex == null) {
-      normalIndexSubstitutes [index] = this.normalIndices.size() + 1;
-      this.normalIndices.put(normal, normalIndexSubstitutes [index]);
+    int normalIndex = this.normalIndices.getIndex(normal.x, normal.y, normal.z);
+    if (normalIndex == 0) {
+      normalIndexSubstitutes [index] = this.normalIndices.add(normal.x, normal.y, normal.z);
       addedNormals.add(normal);
       // Write only once unique normals
       normalsBuffer.append("vn " + format(normal.x) 
@@ -914,10 +1094,10 @@ public class OBJWriter extends FilterWriter {
       textureTransform.transform(transformedCoordinates);
       textureCoordinates = new TexCoord2f(transformedCoordinates.x, transformedCoordinates.y);
     }
-    Integer textureCoordinatesIndex = this.textureCoordinatesIndices.get(textureCoordinates);
-    if (textureCoordinatesIndex == null) {
-      textureCoordinatesIndexSubstitutes [index] = this.textureCoordinatesIndices.size() + 1;
-      this.textureCoordinatesIndices.put(textureCoordinates, textureCoordinatesIndexSubstitutes [index]);
+    int textureCoordinatesIndex = this.textureCoordinatesIndices.getIndex(textureCoordinates.x, textureCoordinates.y, 0);
+    if (textureCoordinatesIndex == 0) {
+      textureCoordinatesIndexSubstitutes [index] = this.textureCoordinatesIndices.add(
+          textureCoordinates.x, textureCoordinates.y, 0);
       // Write only once unique texture coordinates
       this.out.write("vt " + format(textureCoordinates.x) 
           + " " + format(textureCoordinates.y) + " 0\n");
@@ -1285,6 +1465,14 @@ public class OBJWriter extends FilterWriter {
    */
   @Override
   public void close() throws IOException, InterruptedIOException {
+    if (this.nodesConverter != null) {
+      try {
+        writeNodeChunks(0);
+      } finally {
+        this.nodesConverter.shutdownNow();
+        this.nodesConverter = null;
+      }
+    }
     super.close();
     if (this.mtlFileName != null) {
       writeAppearancesToMTLFile();
@@ -1420,6 +1608,24 @@ public class OBJWriter extends FilterWriter {
                                         int compressionLevel,
                                         String entryName, 
                                         String header) throws IOException {
+    writeNodeInZIPFile(node, materialAppearances, zipFile, compressionLevel, entryName, header, -1);
+  }
+  
+  /**
+   * Writes <code>node</code> in an entry at OBJ format of the given zip file 
+   * along with its MTL file and texture images, with the elements compared with
+   * the given fraction digits count to write them only once.
+   * @see #writeNodeInZIPFile(Node, Map, File, int, String, String)
+   * @see #setDeduplicationFractionDigits(int)
+   * @since 5.5
+   */
+  public static void writeNodeInZIPFile(Node node, 
+                                        Map<String, Appearance> materialAppearances,
+                                        File zipFile,    
+                                        int compressionLevel,
+                                        String entryName, 
+                                        String header, 
+                                        int deduplicationFractionDigits) throws IOException {
     // Create a temporary folder
     File tempFolder = null;
     for (int i = 0; i < 10 && tempFolder == null; i++) { 
@@ -1437,6 +1643,7 @@ public class OBJWriter extends FilterWriter {
     try {
       // Write model in an OBJ file
       OBJWriter writer = new OBJWriter(new File(tempFolder, entryName), header, -1);
+      writer.setDeduplicationFractionDigits(deduplicationFractionDigits);
       writer.writeNode(node);
       writer.close();
       // Create a ZIP file containing temp folder files (OBJ + MTL + texture files)
@@ -1483,6 +1690,365 @@ public class OBJWriter extends FilterWriter {
   }
   
   
+  /**
+   * A hash table storing the coordinates of the vertices, normals or texture coordinates 
+   * written in OBJ file, to find their index without creating objects. Coordinates are compared 
+   * once rounded to a given fraction digits count, or with their exact value if this count is negative.
+   */
+  private static class ElementIndices {
+    private final int    dimension;
+    private final double scale;
+    // Rounded coordinates of elements in the order they were added 
+    private long []      keys;
+    // Element indices stored at the location of their hash code, 0 meaning an empty location
+    private int []       table;
+    private int          size;
+
+    public ElementIndices(int dimension, int fractionDigits) {
+      this.dimension = dimension;
+      this.scale = fractionDigits >= 0 
+          ? Math.pow(10, fractionDigits)
+          : 0;
+      this.keys = new long [dimension * 256];
+      this.table = new int [512];
+    }
+
+    private long getKey(float value) {
+      if (value == 0) {
+        // Ensure -0 and 0 get the same key
+        return 0;
+      } else if (this.scale == 0) {
+        return Float.floatToIntBits(value);
+      } else {
+        return Math.round(value * this.scale);
+      }
+    }
+
+    private int getLocation(long key0, long key1, long key2) {
+      long hash = (key0 * 0x9E3779B97F4A7C15L + key1) * 0x9E3779B97F4A7C15L + key2;
+      hash ^= hash >>> 29;
+      return (int)(hash ^ (hash >>> 32)) & (this.table.length - 1);
+    }
+
+    /**
+     * Returns the index from 1 of the element with the given coordinates or 0 if it wasn't added yet.
+     */
+    public int getIndex(float x, float y, float z) {
+      return getIndex(getKey(x), getKey(y), this.dimension == 3 ? getKey(z) : 0);
+    }
+
+    /**
+     * Returns the index from 1 of the element equal to the one at the given <code>index</code> 
+     * in <code>elements</code> or 0 if it wasn't added yet.
+     */
+    public int getIndex(ElementIndices elements, int index) {
+      int i = (index - 1) * this.dimension;
+      return getIndex(elements.keys [i], elements.keys [i + 1], 
+          this.dimension == 3 ? elements.keys [i + 2] : 0);
+    }
+
+    private int getIndex(long key0, long key1, long key2) {
+      for (int location = getLocation(key0, key1, key2); ; location = (location + 1) & (this.table.length - 1)) {
+        int index = this.table [location];
+        if (index == 0) {
+          return 0;
+        }
+        int i = (index - 1) * this.dimension;
+        if (this.keys [i] == key0 
+            && this.keys [i + 1] == key1
+            && (this.dimension == 2 || this.keys [i + 2] == key2)) {
+          return index;
+        }
+      }
+    }
+
+    /**
+     * Adds an element with the given coordinates and returns its index from 1.
+     */
+    public int add(float x, float y, float z) {
+      return add(getKey(x), getKey(y), this.dimension == 3 ? getKey(z) : 0);
+    }
+
+    /**
+     * Adds the element at the given <code>index</code> in <code>elements</code> 
+     * and returns its index from 1 in this table.
+     */
+    public int add(ElementIndices elements, int index) {
+      int i = (index - 1) * this.dimension;
+      return add(elements.keys [i], elements.keys [i + 1], 
+          this.dimension == 3 ? elements.keys [i + 2] : 0);
+    }
+
+    private int add(long key0, long key1, long key2) {
+      if ((this.size + 1) * 2 > this.table.length) {
+        // Enlarge table and reinsert elements in the order they were added
+        this.table = new int [this.table.length * 2];
+        long [] keys = new long [this.keys.length * 2];
+        System.arraycopy(this.keys, 0, keys, 0, this.keys.length);
+        this.keys = keys;
+        for (int index = 1; index <= this.size; index++) {
+          store(index);
+        }
+      }
+      int i = this.size * this.dimension;
+      this.keys [i] = key0;
+      this.keys [i + 1] = key1;
+      if (this.dimension == 3) {
+        this.keys [i + 2] = key2;
+      }
+      store(++this.size);
+      return this.size;
+    }
+
+    private void store(int index) {
+      int i = (index - 1) * this.dimension;
+      int location = getLocation(this.keys [i], this.keys [i + 1], 
+          this.dimension == 3 ? this.keys [i + 2] : 0);
+      while (this.table [location] != 0) {
+        location = (location + 1) & (this.table.length - 1);
+      }
+      this.table [location] = index;
+    }
+
+    /**
+     * Removes the last added element. As no other element was stored after it, 
+     * its location can be freed without breaking the search of other elements.
+     */
+    public void removeLast() {
+      int i = (this.size - 1) * this.dimension;
+      int location = getLocation(this.keys [i], this.keys [i + 1], 
+          this.dimension == 3 ? this.keys [i + 2] : 0);
+      while (this.table [location] != this.size) {
+        location = (location + 1) & (this.table.length - 1);
+      }
+      this.table [location] = 0;
+      this.size--;
+    }
+
+    /**
+     * Returns the count of added elements.
+     */
+    public int size() {
+      return this.size;
+    }
+  }
+
+  /**
+   * The indices of the vertices, normals and texture coordinates written for a geometry
+   * and required to write its faces.
+   */
+  private static class GeometryIndices {
+    private final GeometryArray geometryArray;
+    private final int []        vertexIndexSubstitutes;
+    private final int []        normalIndexSubstitutes;
+    private final int []        oppositeSideNormalIndexSubstitutes;
+    private final boolean       normalsDefined;
+    private final int []        textureCoordinatesIndexSubstitutes;
+    private final boolean       textureCoordinatesGenerated;
+    private final int           cullFace;
+
+    public GeometryIndices(GeometryArray geometryArray, int [] vertexIndexSubstitutes,
+                           int [] normalIndexSubstitutes, int [] oppositeSideNormalIndexSubstitutes,
+                           boolean normalsDefined, int [] textureCoordinatesIndexSubstitutes,
+                           boolean textureCoordinatesGenerated, int cullFace) {
+      this.geometryArray = geometryArray;
+      this.vertexIndexSubstitutes = vertexIndexSubstitutes;
+      this.normalIndexSubstitutes = normalIndexSubstitutes;
+      this.oppositeSideNormalIndexSubstitutes = oppositeSideNormalIndexSubstitutes;
+      this.normalsDefined = normalsDefined;
+      this.textureCoordinatesIndexSubstitutes = textureCoordinatesIndexSubstitutes;
+      this.textureCoordinatesGenerated = textureCoordinatesGenerated;
+      this.cullFace = cullFace;
+    }
+
+    /**
+     * Replaces the indices of this geometry by the ones stored at their location 
+     * in the given arrays.
+     */
+    public void replaceIndices(int [] vertexIndices, int [] normalIndices, int [] textureCoordinatesIndices) {
+      replaceIndices(this.vertexIndexSubstitutes, vertexIndices);
+      replaceIndices(this.normalIndexSubstitutes, normalIndices);
+      replaceIndices(this.oppositeSideNormalIndexSubstitutes, normalIndices);
+      replaceIndices(this.textureCoordinatesIndexSubstitutes, textureCoordinatesIndices);
+    }
+
+    private void replaceIndices(int [] indexSubstitutes, int [] indices) {
+      if (indexSubstitutes != null) {
+        for (int i = 0; i < indexSubstitutes.length; i++) {
+          // Ignore unset indices
+          if (indexSubstitutes [i] != 0) {
+            indexSubstitutes [i] = indices [indexSubstitutes [i]];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The shapes of a node converted at OBJ format by a worker thread. 
+   * The vertices, normals and texture coordinates of a chunk are first numbered from 1, 
+   * then searched among the elements of the writer once the previous chunk added its own ones, 
+   * to write only new elements and renumber faces as if the nodes were written sequentially.
+   */
+  private class NodeChunk implements Callable<String> {
+    private NodeChunk                   previousChunk;
+    private final List<ChunkShape>      shapes;
+    private final CountDownLatch        elementsAdded;
+    private boolean                     failed;
+
+    public NodeChunk(NodeChunk previousChunk) {
+      this.previousChunk = previousChunk;
+      this.shapes = new ArrayList<ChunkShape>();
+      this.elementsAdded = new CountDownLatch(1);
+    }
+
+    public void addShape(String header, Shape3D shape, Transform3D parentTransformations, 
+                         TexCoordGeneration texCoordGeneration, Transform3D textureTransform, 
+                         int cullFace, boolean backFaceNormalFlip) {
+      this.shapes.add(new ChunkShape(header, shape, parentTransformations, texCoordGeneration, 
+          textureTransform, cullFace, backFaceNormalFlip));
+    }
+
+    public String call() throws IOException {
+      try {
+        StringWriter elements = new StringWriter();
+        OBJWriter writer = new OBJWriter(numberFormat, deduplicationFractionDigits, elements);
+        // Convert vertices, normals and texture coordinates numbered from 1 
+        // and keep track of the end of the elements written for each geometry
+        List<List<GeometryIndices>> shapesGeometryIndices = new ArrayList<List<GeometryIndices>>(this.shapes.size());
+        List<Integer> geometriesElementsEnd = new ArrayList<Integer>();
+        for (ChunkShape shape : this.shapes) {
+          List<GeometryIndices> geometryIndices = new ArrayList<GeometryIndices>();
+          for (int i = 0, n = shape.shape.numGeometries(); i < n; i++) {
+            geometryIndices.add(writer.writeNodeGeometryVertices(shape.shape.getGeometry(i), 
+                shape.parentTransformations, shape.texCoordGeneration, shape.textureTransform, 
+                shape.cullFace, shape.backFaceNormalFlip));
+            geometriesElementsEnd.add(elements.getBuffer().length());
+          }
+          shapesGeometryIndices.add(geometryIndices);
+        }
+        
+        // Wait the previous chunk added its elements to the ones of the writer
+        if (this.previousChunk != null) {
+          try {
+            this.previousChunk.elementsAdded.await();
+          } catch (InterruptedException ex) {
+            throw new InterruptedIOException("Current thread interrupted");
+          }
+          if (this.previousChunk.failed) {
+            throw new IOException("Previous node not converted");
+          }
+          this.previousChunk = null;
+        }
+        
+        // Search the elements of this chunk among the ones of the writer, 
+        // knowing that each line v, vt or vn matches the next element of its type
+        int [] vertexIndices = new int [writer.vertexIndices.size() + 1];
+        int [] normalIndices = new int [writer.normalIndices.size() + 1];
+        int [] textureCoordinatesIndices = new int [writer.textureCoordinatesIndices.size() + 1];
+        int vertexIndex = 0;
+        int normalIndex = 0;
+        int textureCoordinatesIndex = 0;
+        StringBuffer elementsBuffer = elements.getBuffer();
+        List<String> geometriesNewElements = new ArrayList<String>(geometriesElementsEnd.size());
+        StringBuilder newElements = new StringBuilder();
+        int lineStart = 0;
+        for (int geometryElementsEnd : geometriesElementsEnd) {
+          while (lineStart < geometryElementsEnd) {
+            int lineEnd = elementsBuffer.indexOf("\n", lineStart) + 1;
+            boolean newElement;
+            switch (elementsBuffer.charAt(lineStart + 1)) {
+              case 'n' :
+                newElement = addElement(OBJWriter.this.normalIndices, 
+                    writer.normalIndices, ++normalIndex, normalIndices);
+                break;
+              case 't' :
+                newElement = addElement(OBJWriter.this.textureCoordinatesIndices, 
+                    writer.textureCoordinatesIndices, ++textureCoordinatesIndex, textureCoordinatesIndices);
+                break;
+              default :
+                newElement = addElement(OBJWriter.this.vertexIndices, 
+                    writer.vertexIndices, ++vertexIndex, vertexIndices);
+                break;
+            }
+            if (newElement) {
+              // Keep only elements not written yet
+              newElements.append(elementsBuffer, lineStart, lineEnd);
+            }
+            lineStart = lineEnd;
+          }
+          geometriesNewElements.add(newElements.toString());
+          newElements.setLength(0);
+        }
+        this.elementsAdded.countDown();
+        
+        // Write shapes with their new elements and their faces with renumbered indices
+        StringWriter chunk = new StringWriter();
+        OBJWriter facesWriter = new OBJWriter(numberFormat, deduplicationFractionDigits, chunk);
+        Iterator<String> newElementsIterator = geometriesNewElements.iterator();
+        for (int i = 0; i < this.shapes.size(); i++) {
+          chunk.write(this.shapes.get(i).header);
+          for (GeometryIndices indices : shapesGeometryIndices.get(i)) {
+            chunk.write(newElementsIterator.next());
+            if (indices != null) {
+              indices.replaceIndices(vertexIndices, normalIndices, textureCoordinatesIndices);
+              facesWriter.writeNodeGeometryFaces(indices);
+            }
+          }
+        }
+        return chunk.toString();
+      } finally {
+        if (this.elementsAdded.getCount() > 0) {
+          // Let next chunk know that this one failed
+          this.failed = true;
+          this.elementsAdded.countDown();
+        }
+      }
+    }
+
+    /**
+     * Stores in <code>indices</code> the index in <code>writtenElements</code> of the element 
+     * at <code>chunkIndex</code> in <code>chunkElements</code>, after adding it if it's a new one.
+     * @return <code>true</code> if the element wasn't written yet
+     */
+    private boolean addElement(ElementIndices writtenElements, ElementIndices chunkElements, 
+                               int chunkIndex, int [] indices) {
+      int index = writtenElements.getIndex(chunkElements, chunkIndex);
+      if (index == 0) {
+        indices [chunkIndex] = writtenElements.add(chunkElements, chunkIndex);
+        return true;
+      } else {
+        indices [chunkIndex] = index;
+        return false;
+      }
+    }
+  }
+
+  /**
+   * A shape stored in a chunk with the attributes required to convert its geometries.
+   */
+  private static class ChunkShape {
+    private final String              header;
+    private final Shape3D             shape;
+    private final Transform3D         parentTransformations;
+    private final TexCoordGeneration  texCoordGeneration;
+    private final Transform3D         textureTransform;
+    private final int                 cullFace;
+    private final boolean             backFaceNormalFlip;
+
+    public ChunkShape(String header, Shape3D shape, Transform3D parentTransformations, 
+                      TexCoordGeneration texCoordGeneration, Transform3D textureTransform, 
+                      int cullFace, boolean backFaceNormalFlip) {
+      this.header = header;
+      this.shape = shape;
+      this.parentTransformations = parentTransformations;
+      this.texCoordGeneration = texCoordGeneration;
+      this.textureTransform = textureTransform;
+      this.cullFace = cullFace;
+      this.backFaceNormalFlip = backFaceNormalFlip;
+    }
+  }
+
   /**
    * An <code>Appearance</code> wrapper able to compare 
    * if two appearances are equal for MTL format.  
@@ -19,17 +19,27 @@
  */
 package com.eteks.sweethome3d.j3d;
 
-import java.awt.AlphaComposite;
 import java.awt.EventQueue;
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
-import java.awt.image.RenderedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.URL;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -40,6 +50,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.UUID;
 
 import javax.imageio.ImageIO;
@@ -84,10 +96,12 @@ import javax.vecmath.Vector4f;
 
 import org.sunflow.PluginRegistry;
 import org.sunflow.SunflowAPI;
+import org.sunflow.core.BucketOrder;
 import org.sunflow.core.Display;
 import org.sunflow.core.Instance;
 import org.sunflow.core.ParameterList;
 import org.sunflow.core.ParameterList.InterpolationType;
+import org.sunflow.core.bucket.BucketOrderFactory;
 import org.sunflow.core.light.SphereLight;
 import org.sunflow.core.light.SunSkyLight;
 import org.sunflow.core.primitive.TriangleMesh;
@@ -100,6 +114,7 @@ import org.sunflow.system.ui.SilentInterface;
 
 import com.eteks.sweethome3d.model.Camera;
 import com.eteks.sweethome3d.model.Compass;
+import com.eteks.sweethome3d.model.Content;
 import com.eteks.sweethome3d.model.Home;
 import com.eteks.sweethome3d.model.HomeEnvironment;
 import com.eteks.sweethome3d.model.HomeFurnitureGroup;
@@ -134,9 +149,24 @@ public class PhotoRenderer {
   private boolean useSunskyLight;
   private String  sunSkyLightName;
   private String  sunLightName;
+  private float [] sunDirection;
+  private int     threadCount;
+  private boolean lowPriorityThreads;
+  private int     bucketSize;
+  private String  bucketOrder;
+  private long    maximumDuration;
   private final Map<Selectable, String []>         homeItemsNames     = new HashMap<Selectable, String []>();
   private final Map<TransparentTextureKey, String> textureImagesCache = new HashMap<TransparentTextureKey, String>();
+  private final List<String>                       acquiredTextureFiles = new ArrayList<String>();
+  private File                                     imageBaseLightFile;
+  private final Map<SharedGeometryKey, SharedGeometry>     sharedGeometries = new HashMap<SharedGeometryKey, SharedGeometry>();
+  private final Map<Selectable, List<SharedGeometryKey>> homeItemsSharedGeometries = new HashMap<Selectable, List<SharedGeometryKey>>();
   private Thread renderingThread;
+  private volatile boolean stopped;
+
+  private static final String [] SIGNIFICANT_RENDERING_PARAMETERS = {"antiAliasing.min", "antiAliasing.max", "filter", 
+      "globalIllumination", "diffusedBounces", "causticsPhotons", "shininessShader", 
+      "normalLens.focusDistance", "normalLens.radius", "samplerAlgorithm"};
 
   static {
     // Ignore logs
@@ -144,6 +174,7 @@ public class PhotoRenderer {
     // Use small triangles for better rendering
     TriangleMesh.setSmallTriangles(true);
     PluginRegistry.lightSourcePlugins.registerPlugin("sphere", SphereLightWithNoRepresentation.class);
+    PluginRegistry.bucketOrderPlugins.registerPlugin(CheckpointBucketOrder.NAME, CheckpointBucketOrder.class);
   }
 
   /**
@@ -190,15 +221,24 @@ public class PhotoRenderer {
           if (!(piece instanceof HomeFurnitureGroup)) {
             Node node = (Node)object3dFactory.createObject3D(home, piece, true);
             if (node != null) {
-              this.homeItemsNames.put(piece, exportNode(node, false, silk));
+              List<SharedGeometryKey> sharedGeometryKeys = new ArrayList<SharedGeometryKey>();
+              this.homeItemsNames.put(piece, exportNode(node, false, sharedGeometryKeys, silk));
+              this.homeItemsSharedGeometries.put(piece, sharedGeometryKeys);
             }
           }
         }
       } else {
         Node node = (Node)object3dFactory.createObject3D(home, item, true);
         if (node != null) {
-          String [] itemNames = exportNode(node, item instanceof Wall || item instanceof Room, silk);
+          List<SharedGeometryKey> sharedGeometryKeys = item instanceof HomePieceOfFurniture
+              ? new ArrayList<SharedGeometryKey>()
+              : null;
+          String [] itemNames = exportNode(node, item instanceof Wall || item instanceof Room, 
+              sharedGeometryKeys, silk);
           this.homeItemsNames.put(item, itemNames);
+          if (sharedGeometryKeys != null) {
+            this.homeItemsSharedGeometries.put(item, sharedGeometryKeys);
+          }
         }
       }
     }
@@ -208,7 +248,7 @@ public class PhotoRenderer {
     translation.setTranslation(new Vector3f(0, -0.1f, 0));
     TransformGroup groundTransformGroup = new TransformGroup(translation);
     groundTransformGroup.addChild(ground);
-    exportNode(groundTransformGroup, true, silk);
+    exportNode(groundTransformGroup, true, null, silk);
     homeEnvironment.setSubpartSizeUnderLight(subpartSize);
 
     HomeTexture skyTexture = homeEnvironment.getSkyTexture();
@@ -227,9 +267,8 @@ public class PhotoRenderer {
       g2D.dispose();
       File imageFile = OperatingSystem.createTemporaryFile("ibl", ".png");
       ImageIO.write(imageBaseLightImage, "png", imageFile);
-      // Add it to images cache with a null key just to delete it 
-      // with the other temporary images in dispose method
-      this.textureImagesCache.put(null, imageFile.getAbsolutePath());
+      // Keep it to delete it in dispose method
+      this.imageBaseLightFile = imageFile;
       
       this.sunflow.parameter("texture", imageFile.getAbsolutePath());
       this.sunflow.parameter("center", new Vector3(-1, 0, 0));
@@ -348,10 +387,10 @@ public class PhotoRenderer {
       this.sunflow.options(SunflowAPI.DEFAULT_OPTIONS);
     }
 
-    // Use a spiral computing
-    this.sunflow.parameter("bucket.size", 64);
-    this.sunflow.parameter("bucket.order", "spiral");
-    this.sunflow.options(SunflowAPI.DEFAULT_OPTIONS);
+    // Use by default a spiral computing with low priority threads
+    this.lowPriorityThreads = Boolean.parseBoolean(getRenderingParameterValue("lowPriorityThreads"));
+    setBucketSize(Integer.parseInt(getRenderingParameterValue("bucketSize")));
+    setBucketOrder(getRenderingParameterValue("bucketOrder"));
   }
 
   /**
@@ -371,90 +410,143 @@ public class PhotoRenderer {
   /**
    * Renders home in <code>image</code> at the given <code>camera</code> location and image size.
    * The home objects listed in <code>updatedItems</code> will be updated in the renderer, 
-   * allowing animations or modifications of their appearance. 
+   * allowing animations or modifications of their appearance, or removed from the renderer
+   * if they were deleted from home. 
+   */
+  public void render(final BufferedImage image, 
+                     Camera camera,
+                     List<? extends Selectable> updatedItems, 
+                     final ImageObserver observer) throws IOException {
+    render(image, camera, updatedItems, null, observer);
+  }
+
+  /**
+   * Renders home in <code>image</code> at the given <code>camera</code> location and image size,
+   * saving each computed bucket of the image in <code>checkpointFile</code>.
+   * If this file already contains the buckets of a previous interrupted rendering of the same scene 
+   * seen from the same camera with the same image size and quality, these buckets are restored in 
+   * <code>image</code> and only the missing ones are computed. 
+   * The checkpoint file is deleted once all the buckets of the image are computed.
+   * @param checkpointFile  the file used to save rendered buckets, or <code>null</code> 
+   * @since 5.5
    */
   public void render(final BufferedImage image, 
                      Camera camera,
                      List<? extends Selectable> updatedItems, 
+                     File checkpointFile,
                      final ImageObserver observer) throws IOException {
+    this.stopped = false;
+    RenderingTimer timer = new RenderingTimer(this.maximumDuration);
+    try {
+      render(image, camera, updatedItems, observer, null, false, checkpointFile);
+    } finally {
+      if (timer.isElapsed()) {
+        this.stopped = true;
+      }
+      timer.cancel();
+    }
+  }
+
+  /**
+   * Renders home in <code>image</code> at the given <code>camera</code> location and image size
+   * with successive passes of increasing quality, each pass refining the image computed by the previous one. 
+   * A first quick pass with one sample per pixel gives a preview of the whole image, then the image 
+   * is rendered again with more samples per pixel up to the quality of this renderer, if this quality
+   * requires more than one sample per pixel.
+   * If <code>maximumDuration</code> is greater than 0, rendering stops once this duration is elapsed, 
+   * leaving in <code>image</code> the best result computed so far.
+   * @param maximumDuration  the maximum duration of the rendering in milliseconds, or 0 for no limit 
+   * @since 5.5
+   */
+  public void renderProgressively(BufferedImage image, 
+                                  Camera camera,
+                                  long maximumDuration,
+                                  ImageObserver observer) {
+    this.stopped = false;
+    RenderingTimer timer = new RenderingTimer(maximumDuration);
+    try {
+      int antiAliasingMin = Integer.parseInt(getRenderingParameterValue("antiAliasing.min"));
+      int antiAliasingMax = Integer.parseInt(getRenderingParameterValue("antiAliasing.max"));
+      List<int []> antiAliasingPasses = new ArrayList<int []>();
+      if (antiAliasingMax > 1) {
+        // Add an intermediate pass with up to 4 samples per pixel
+        antiAliasingPasses.add(new int [] {Math.min(antiAliasingMin, 0), 1});
+      }
+      if (antiAliasingMax > 0) {
+        antiAliasingPasses.add(new int [] {antiAliasingMin, antiAliasingMax});
+      } // Otherwise the first pass with one sample per pixel already meets the requested quality
+      
+      // First pass computed with SunFlow progressive renderer, from large to small pixels
+      render(image, camera, null, observer, new Object [] {"ipr", 0, 0}, false, null);
+      for (int [] antiAliasing : antiAliasingPasses) {
+        if (this.stopped || timer.isElapsed()) {
+          break;
+        }
+        render(image, camera, null, observer, 
+            new Object [] {getRenderingParameterValue("samplerAlgorithm"), antiAliasing [0], antiAliasing [1]}, true, null);
+      }
+    } catch (IOException ex) {
+      // Exception can't happen, since there's no updated item
+    } finally {
+      timer.cancel();
+    }
+  }
+
+  /**
+   * Renders home in <code>image</code> with the given sampler and antialiasing settings,
+   * or the ones of the quality of this renderer if <code>samplerSettings</code> is <code>null</code>. 
+   */
+  private void render(final BufferedImage image, 
+                      Camera camera,
+                      List<? extends Selectable> updatedItems, 
+                      final ImageObserver observer,
+                      Object [] samplerSettings, 
+                      boolean refining,
+                      File checkpointFile) throws IOException {
     this.renderingThread = Thread.currentThread();
 
     if (updatedItems != null) {
       boolean silk = isSilkShaderUsed(this.quality);  
       for (Selectable item : updatedItems) {
-        // Remove from SunFlow updated objects
-        String [] itemNames = this.homeItemsNames.get(item);
-        if (itemNames != null) {
-          for (String name : itemNames) {
-            this.sunflow.remove(name);
-          }
-        }
+        String [] previousItemNames = this.homeItemsNames.remove(item);
+        List<SharedGeometryKey> previousSharedGeometryKeys = this.homeItemsSharedGeometries.remove(item);
         
-        Node node = (Node)this.object3dFactory.createObject3D(home, item, true);
+        // Don't export again items deleted from home
+        Node node = isDeletedItem(item) 
+            ? null
+            : (Node)this.object3dFactory.createObject3D(home, item, true);
         if (node != null) {
-          itemNames = exportNode(node, item instanceof Wall || item instanceof Room, silk);
+          List<SharedGeometryKey> sharedGeometryKeys = item instanceof HomePieceOfFurniture
+              ? new ArrayList<SharedGeometryKey>()
+              : null;
+          String [] itemNames = exportNode(node, item instanceof Wall || item instanceof Room, 
+              sharedGeometryKeys, silk);
           this.homeItemsNames.put(item, itemNames);
+          if (sharedGeometryKeys != null) {
+            this.homeItemsSharedGeometries.put(item, sharedGeometryKeys);
+          }
+        }
+        
+        // Remove from SunFlow previous objects of updated item
+        if (previousItemNames != null) {
+          for (String name : previousItemNames) {
+            this.sunflow.remove(name);
+          }
+        }
+        // Release shared geometries once the item is exported again to keep the ones still used
+        if (previousSharedGeometryKeys != null) {
+          releaseSharedGeometries(previousSharedGeometryKeys);
         }
       }
     }
     
-    if (this.sunSkyLightName != null) {
-      this.sunflow.remove(this.sunSkyLightName);
-    }
-    if (this.sunLightName != null) {
-      this.sunflow.remove(this.sunLightName);
-    }
     // Possible values: default, path
     String globalIllumination = getRenderingParameterValue("globalIllumination");
     float [] sunDirection = getSunDirection(this.compass, Camera.convertTimeToTimeZone(camera.getTime(), this.compass.getTimeZone()));
-    // Update Sun direction during daytime
-    if (sunDirection [1] > -0.075f) {
-      if (this.useSunSky) {
-        this.sunflow.parameter("up", new Vector3(0, 1, 0));
-        this.sunflow.parameter("east", 
-            new Vector3((float)Math.sin(compass.getNorthDirection()), 0, (float)Math.cos(compass.getNorthDirection())));
-        this.sunflow.parameter("sundir", new Vector3(sunDirection [0], sunDirection [1], sunDirection [2]));
-        this.sunflow.parameter("turbidity", 6f);
-        this.sunflow.parameter("samples", this.useSunskyLight ? 12 : 0); 
-        this.sunSkyLightName = UUID.randomUUID().toString();
-        this.sunflow.light(this.sunSkyLightName, "sunsky");
-      }
-
-      // Retrieve sun color
-      SunSkyLight sunSkyLight = new SunSkyLight();
-      ParameterList parameterList = new ParameterList();
-      parameterList.addVectors("up", InterpolationType.NONE, new float [] {0, 1, 0});
-      parameterList.addVectors("east", InterpolationType.NONE, 
-          new float [] {(float)Math.sin(compass.getNorthDirection()), 0, (float)Math.cos(compass.getNorthDirection())});
-      parameterList.addVectors("sundir", InterpolationType.NONE, 
-          new float [] {sunDirection [0], sunDirection [1], sunDirection [2]});
-      sunSkyLight.update(parameterList, this.sunflow);
-      float [] sunColor = sunSkyLight.getSunColor().getRGB();
-      
-      // Simulate additional Sun with a faraway sphere light of a color depending of the hour of the day
-      int sunPower = this.useSunskyLight ? 10 : 40; 
-      this.sunflow.parameter("radiance", null,
-          (this.homeLightColor >> 16) * sunPower * (float)Math.sqrt(sunColor [0]), 
-          ((this.homeLightColor >> 8) & 0xFF) * sunPower * (float)Math.sqrt(sunColor [1]), 
-          (this.homeLightColor & 0xFF) * sunPower * (float)Math.sqrt(sunColor [2]));
-      this.sunflow.parameter("center", new Point3(1000000 * sunDirection [0], 1000000 * sunDirection [1], 1000000 * sunDirection [2])); 
-      this.sunflow.parameter("radius", 10000f);  
-      this.sunflow.parameter("samples", 4);
-      this.sunLightName = UUID.randomUUID().toString();
-      this.sunflow.light(this.sunLightName, "sphere");
-
-      if (!this.useSunskyLight
-          && "default".equals(globalIllumination)) {
-        this.sunflow.parameter("gi.engine", "ambocc");
-        this.sunflow.parameter("gi.ambocc.bright", null, new float [] {1, 1, 1});
-        // Use complementary color
-        this.sunflow.parameter("gi.ambocc.dark", null, 
-            new float [] {(sunColor [1] + sunColor [2]) / 200, 
-                          (sunColor [0] + sunColor [2]) / 200,
-                          (sunColor [0] + sunColor [1]) / 200});
-        this.sunflow.parameter("gi.ambocc.samples", 1);
-        this.sunflow.options(SunflowAPI.DEFAULT_OPTIONS);
-      }
+    // Update Sun lights only if Sun direction changed since previous rendering
+    if (!Arrays.equals(sunDirection, this.sunDirection)) {
+      updateSunLights(sunDirection, globalIllumination);
+      this.sunDirection = sunDirection;
     }
     
     if ("path".equals(globalIllumination)) {
@@ -518,25 +610,344 @@ public class PhotoRenderer {
     this.sunflow.parameter("resolutionX", image.getWidth());
     this.sunflow.parameter("resolutionY", image.getHeight());
     
-    int antiAliasingMin = Integer.parseInt(getRenderingParameterValue("antiAliasing.min"));
-    int antiAliasingMax = Integer.parseInt(getRenderingParameterValue("antiAliasing.max"));
+    int antiAliasingMin;
+    int antiAliasingMax;
+    String samplerAlgorithm;
+    if (samplerSettings != null) {
+      samplerAlgorithm = (String)samplerSettings [0];
+      antiAliasingMin = (Integer)samplerSettings [1];
+      antiAliasingMax = (Integer)samplerSettings [2];
+    } else {
+      samplerAlgorithm = getRenderingParameterValue("samplerAlgorithm");
+      antiAliasingMin = Integer.parseInt(getRenderingParameterValue("antiAliasing.min"));
+      antiAliasingMax = Integer.parseInt(getRenderingParameterValue("antiAliasing.max"));
+    }
     String filter = getRenderingParameterValue("filter");
     this.sunflow.parameter("filter", filter);
     this.sunflow.parameter("aa.min", antiAliasingMin);
     this.sunflow.parameter("aa.max", antiAliasingMax); 
-    String samplerAlgorithm = getRenderingParameterValue("samplerAlgorithm");
     this.sunflow.parameter("sampler", samplerAlgorithm); // ipr, fast or bucket 
 
     // Render image with default camera
     this.sunflow.parameter("camera", CAMERA_NAME);
+    this.sunflow.parameter("threads", this.threadCount);
+    this.sunflow.parameter("threads.lowPriority", this.lowPriorityThreads);
+    this.sunflow.parameter("bucket.size", this.bucketSize);
+    RenderingCheckpoint checkpoint = null;
+    if (checkpointFile != null 
+        && "bucket".equals(samplerAlgorithm)) {
+      // Skip the buckets already computed and saved in checkpoint file  
+      checkpoint = new RenderingCheckpoint(checkpointFile, 
+          getSceneSignature(camera, image.getWidth(), image.getHeight(), antiAliasingMin, antiAliasingMax), 
+          this.bucketSize, this.bucketOrder);
+      this.sunflow.parameter("bucket.order", CheckpointBucketOrder.NAME);
+      CheckpointBucketOrder.checkpoint.set(checkpoint);
+    } else {
+      this.sunflow.parameter("bucket.order", this.bucketOrder);
+    }
+    CheckpointBucketOrder.bucketOrder.set(this.bucketOrder);
     this.sunflow.options(SunflowAPI.DEFAULT_OPTIONS);
-    this.sunflow.render(SunflowAPI.DEFAULT_OPTIONS, new BufferedImageDisplay(image, observer));
+    try {
+      this.sunflow.render(SunflowAPI.DEFAULT_OPTIONS, new BufferedImageDisplay(image, observer, refining, checkpoint));
+    } finally {
+      CheckpointBucketOrder.bucketOrder.remove();
+      if (checkpoint != null) {
+        CheckpointBucketOrder.checkpoint.remove();
+        checkpoint.close();
+      }
+    }
+  }
+  
+  /**
+   * Returns a digest of the scene rendered with the given <code>camera</code>, image size and 
+   * rendering parameters. The content of textures and models is taken into account rather than their URL, 
+   * which may change each time a home is read.
+   */
+  private byte [] getSceneSignature(Camera camera, int width, int height, 
+                                    int antiAliasingMin, int antiAliasingMax) throws IOException {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      final Map<Content, byte []> contentsDigests = new HashMap<Content, byte []>();
+      ObjectOutputStream out = new ObjectOutputStream(new DigestOutputStream(new OutputStream() {
+          @Override
+          public void write(int b) {
+          }
+  
+          @Override
+          public void write(byte [] b, int off, int len) {
+          }
+        }, digest)) {
+          {
+            enableReplaceObject(true);
+          }
+          
+          @Override
+          protected Object replaceObject(Object obj) throws IOException {
+            if (obj instanceof Content) {
+              Content content = (Content)obj;
+              byte [] contentDigest = contentsDigests.get(content);
+              if (contentDigest == null) {
+                contentDigest = getContentDigest(content);
+                contentsDigests.put(content, contentDigest);
+              }
+              return contentDigest;
+            } else {
+              return obj;
+            }
+          }
+        };
+      out.writeUTF(this.quality.name());
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt(antiAliasingMin);
+      out.writeInt(antiAliasingMax);
+      for (String parameter : SIGNIFICANT_RENDERING_PARAMETERS) {
+        out.writeObject(getRenderingParameterValue(parameter));
+      }
+      out.writeObject(camera);
+      out.writeObject(this.home.getEnvironment());
+      out.writeObject(this.home.getCompass());
+      out.writeObject(new ArrayList<Level>(this.home.getLevels()));
+      out.writeObject(new ArrayList<HomePieceOfFurniture>(this.home.getFurniture()));
+      out.writeObject(new ArrayList<Wall>(this.home.getWalls()));
+      out.writeObject(new ArrayList<Room>(this.home.getRooms()));
+      out.close();
+      return digest.digest();
+    } catch (NoSuchAlgorithmException ex) {
+      IOException ex2 = new IOException("No SHA-1 message digest is available");
+      ex2.initCause(ex);
+      throw ex2;
+    }
+  }
+
+  /**
+   * Returns a digest of the data of the given <code>content</code>.
+   */
+  private static byte [] getContentDigest(Content content) throws IOException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      InputStream in = content.openStream();
+      try {
+        byte [] buffer = new byte [8192];
+        int size;
+        while ((size = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, size);
+        }
+      } finally {
+        in.close();
+      }
+      return digest.digest();
+    } catch (NoSuchAlgorithmException ex) {
+      IOException ex2 = new IOException("No SHA-1 message digest is available");
+      ex2.initCause(ex);
+      throw ex2;
+    }
+  }
+  
+  /**
+   * Sets the count of threads used to render images, or 0 to use as many threads 
+   * as available processors. A smaller count is useful to render several images at the same time
+   * with different renderers. 
+   * @since 5.5
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 0) {
+      throw new IllegalArgumentException("Negative thread count");
+    }
+    this.threadCount = threadCount;
+  }
+  
+  /**
+   * Returns the count of threads used to render images, or 0 if it depends on available processors.
+   * @since 5.5
+   */
+  public int getThreadCount() {
+    return this.threadCount;
+  }
+
+  /**
+   * Sets whether the threads used to render images should run with a low priority,
+   * to keep the other threads of the application responsive. 
+   * @since 5.5
+   */
+  public void setLowPriorityThreads(boolean lowPriorityThreads) {
+    this.lowPriorityThreads = lowPriorityThreads;
+  }
+  
+  /**
+   * Returns <code>true</code> if the threads used to render images run with a low priority.
+   * @since 5.5
+   */
+  public boolean isLowPriorityThreads() {
+    return this.lowPriorityThreads;
+  }
+  
+  /**
+   * Sets the size in pixels of the square buckets computed by each rendering thread.
+   * Smaller buckets share better the work among threads and display sooner some results,
+   * bigger buckets lower the cost of the pixels computed at their borders with some filters. 
+   * @param bucketSize a value between 16 and 512
+   * @since 5.5
+   */
+  public void setBucketSize(int bucketSize) {
+    if (bucketSize < 16 || bucketSize > 512) {
+      throw new IllegalArgumentException("Bucket size out of range " + bucketSize);
+    }
+    this.bucketSize = bucketSize;
+  }
+  
+  /**
+   * Returns the size in pixels of buckets.
+   * @since 5.5
+   */
+  public int getBucketSize() {
+    return this.bucketSize;
+  }
+  
+  /**
+   * Sets the order in which buckets are computed.
+   * @param bucketOrder <code>spiral</code>, <code>hilbert</code>, <code>column</code>, <code>row</code>, 
+   *            <code>diagonal</code> or <code>random</code>, optionally prefixed by 
+   *            <code>inverse</code>, <code>invert</code> or <code>reverse</code> and a space 
+   *            to compute buckets in the opposite order
+   * @since 5.5
+   */
+  public void setBucketOrder(String bucketOrder) {
+    String bucketOrderName = bucketOrder;
+    if (bucketOrder != null) {
+      String [] tokens = bucketOrder.split("\\s+");
+      if (tokens.length == 2
+          && (tokens [0].equals("inverse") 
+              || tokens [0].equals("invert") 
+              || tokens [0].equals("reverse"))) {
+        bucketOrderName = tokens [1];
+      }
+    }
+    if (bucketOrderName == null
+        || CheckpointBucketOrder.NAME.equals(bucketOrderName)
+        || !PluginRegistry.bucketOrderPlugins.hasType(bucketOrderName)) {
+      throw new IllegalArgumentException("Unknown bucket order " + bucketOrder);
+    }
+    this.bucketOrder = bucketOrder;
   }
   
+  /**
+   * Returns the order in which buckets are computed.
+   * @since 5.5
+   */
+  public String getBucketOrder() {
+    return this.bucketOrder;
+  }
+  
+  /**
+   * Sets the maximum duration of the next renderings in milliseconds, or 0 for no limit. 
+   * Once this duration is elapsed, rendering stops as if {@link #stop()} was called,
+   * leaving unfinished buckets in the image.
+   * @since 5.5
+   */
+  public void setMaximumDuration(long maximumDuration) {
+    if (maximumDuration < 0) {
+      throw new IllegalArgumentException("Negative duration");
+    }
+    this.maximumDuration = maximumDuration;
+  }
+  
+  /**
+   * Returns the maximum duration of renderings in milliseconds, or 0 if it's not limited.
+   * @since 5.5
+   */
+  public long getMaximumDuration() {
+    return this.maximumDuration;
+  }
+
+  /**
+   * Returns <code>true</code> if the scene exported by this renderer can be rendered 
+   * at the given <code>camera</code> location. As lights and rooms ceilings are exported 
+   * differently for aerial view and observer cameras, a renderer built for a home 
+   * viewed from one type of camera can't render it from the other type.
+   * @since 5.5
+   */
+  public boolean isCameraCompatible(Camera camera) {
+    return this.useSunskyLight == !(camera instanceof ObserverCamera);
+  }
+
+  /**
+   * Replaces the lights that simulate the Sun for the given <code>sunDirection</code>. 
+   */
+  private void updateSunLights(float [] sunDirection, String globalIllumination) {
+    if (this.sunSkyLightName != null) {
+      this.sunflow.remove(this.sunSkyLightName);
+      this.sunSkyLightName = null;
+    }
+    if (this.sunLightName != null) {
+      this.sunflow.remove(this.sunLightName);
+      this.sunLightName = null;
+    }
+    // Update Sun direction during daytime
+    if (sunDirection [1] > -0.075f) {
+      if (this.useSunSky) {
+        this.sunflow.parameter("up", new Vector3(0, 1, 0));
+        this.sunflow.parameter("east", 
+            new Vector3((float)Math.sin(compass.getNorthDirection()), 0, (float)Math.cos(compass.getNorthDirection())));
+        this.sunflow.parameter("sundir", new Vector3(sunDirection [0], sunDirection [1], sunDirection [2]));
+        this.sunflow.parameter("turbidity", 6f);
+        this.sunflow.parameter("samples", this.useSunskyLight ? 12 : 0); 
+        this.sunSkyLightName = UUID.randomUUID().toString();
+        this.sunflow.light(this.sunSkyLightName, "sunsky");
+      }
+
+      // Retrieve sun color
+      SunSkyLight sunSkyLight = new SunSkyLight();
+      ParameterList parameterList = new ParameterList();
+      parameterList.addVectors("up", InterpolationType.NONE, new float [] {0, 1, 0});
+      parameterList.addVectors("east", InterpolationType.NONE, 
+          new float [] {(float)Math.sin(compass.getNorthDirection()), 0, (float)Math.cos(compass.getNorthDirection())});
+      parameterList.addVectors("sundir", InterpolationType.NONE, 
+          new float [] {sunDirection [0], sunDirection [1], sunDirection [2]});
+      sunSkyLight.update(parameterList, this.sunflow);
+      float [] sunColor = sunSkyLight.getSunColor().getRGB();
+      
+      // Simulate additional Sun with a faraway sphere light of a color depending of the hour of the day
+      int sunPower = this.useSunskyLight ? 10 : 40; 
+      this.sunflow.parameter("radiance", null,
+          (this.homeLightColor >> 16) * sunPower * (float)Math.sqrt(sunColor [0]), 
+          ((this.homeLightColor >> 8) & 0xFF) * sunPower * (float)Math.sqrt(sunColor [1]), 
+          (this.homeLightColor & 0xFF) * sunPower * (float)Math.sqrt(sunColor [2]));
+      this.sunflow.parameter("center", new Point3(1000000 * sunDirection [0], 1000000 * sunDirection [1], 1000000 * sunDirection [2])); 
+      this.sunflow.parameter("radius", 10000f);  
+      this.sunflow.parameter("samples", 4);
+      this.sunLightName = UUID.randomUUID().toString();
+      this.sunflow.light(this.sunLightName, "sphere");
+
+      if (!this.useSunskyLight
+          && "default".equals(globalIllumination)) {
+        this.sunflow.parameter("gi.engine", "ambocc");
+        this.sunflow.parameter("gi.ambocc.bright", null, new float [] {1, 1, 1});
+        // Use complementary color
+        this.sunflow.parameter("gi.ambocc.dark", null, 
+            new float [] {(sunColor [1] + sunColor [2]) / 200, 
+                          (sunColor [0] + sunColor [2]) / 200,
+                          (sunColor [0] + sunColor [1]) / 200});
+        this.sunflow.parameter("gi.ambocc.samples", 1);
+        this.sunflow.options(SunflowAPI.DEFAULT_OPTIONS);
+      }
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the last rendering was stopped before its end, 
+   * because {@link #stop()} was called or its maximum duration was elapsed.
+   * @since 5.5
+   */
+  public boolean isStopped() {
+    return this.stopped;
+  }
+
   /**
    * Stops the rendering process.
    */
   public void stop() {
+    this.stopped = true;
     if (this.renderingThread != null) {
       if (!this.renderingThread.isInterrupted()) {
         this.renderingThread.interrupt();
@@ -551,10 +962,16 @@ public class PhotoRenderer {
    */
   public void dispose() {
     // Clean up temporary images 
-    for (String imagePath : this.textureImagesCache.values()) {
-      new File(imagePath).delete();
+    TextureFileManager textureFileManager = TextureFileManager.getInstance();
+    for (String imagePath : this.acquiredTextureFiles) {
+      textureFileManager.releaseFile(imagePath);
     }
+    this.acquiredTextureFiles.clear();
     this.textureImagesCache.clear();
+    if (this.imageBaseLightFile != null) {
+      this.imageBaseLightFile.delete();
+      this.imageBaseLightFile = null;
+    }
   }
   
   /**
@@ -623,18 +1040,63 @@ public class PhotoRenderer {
   /**
    * Exports the given Java 3D <code>node</code> and its children with SunFlow API,
    * then returns the SunFlow names that match this node.   
+   * If <code>sharedGeometryKeys</code> isn't <code>null</code>, the geometries of the node are exported 
+   * only once for all the nodes that share them, each shape of the node is exported 
+   * as an instance transformed with its parent transformations, and the keys of the 
+   * shared geometries used by these instances are added to <code>sharedGeometryKeys</code>.
    */
-  private String [] exportNode(Node node, boolean ignoreTransparency, boolean silk) throws IOException {
+  private String [] exportNode(Node node, boolean ignoreTransparency, 
+                               List<SharedGeometryKey> sharedGeometryKeys, boolean silk) throws IOException {
     List<String> nodeNames = new ArrayList<String>();
-    exportNode(node, ignoreTransparency, silk, nodeNames, new Transform3D());
+    exportNode(node, ignoreTransparency, sharedGeometryKeys, silk, nodeNames, new Transform3D());
     return nodeNames.toArray(new String [nodeNames.size()]);
   }
 
+  /**
+   * Returns <code>true</code> if the given wall, room or piece doesn't belong to home anymore.
+   */
+  private boolean isDeletedItem(Selectable item) {
+    if (item instanceof Wall) {
+      return !this.home.getWalls().contains(item);
+    } else if (item instanceof Room) {
+      return !this.home.getRooms().contains(item);
+    } else if (item instanceof HomePieceOfFurniture) {
+      for (HomePieceOfFurniture piece : this.home.getFurniture()) {
+        if (piece == item
+            || piece instanceof HomeFurnitureGroup
+                && ((HomeFurnitureGroup)piece).getAllFurniture().contains(item)) {
+          return false;
+        }
+      }
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Releases the shared geometries matching the given keys, and removes from SunFlow 
+   * the objects of the geometries which aren't used anymore by any instance.
+   */
+  private void releaseSharedGeometries(List<SharedGeometryKey> sharedGeometryKeys) {
+    for (SharedGeometryKey geometryKey : sharedGeometryKeys) {
+      SharedGeometry sharedGeometry = this.sharedGeometries.get(geometryKey);
+      if (sharedGeometry != null
+          && --sharedGeometry.instanceCount == 0) {
+        for (String objectName : sharedGeometry.objectNames) {
+          this.sunflow.remove(objectName);
+        }
+        this.sharedGeometries.remove(geometryKey);
+      }
+    }
+  }
+
   /**
    * Exports all the 3D shapes children of <code>node</code> with SunFlow API.
    */ 
   private void exportNode(Node node, 
                           boolean ignoreTransparency,
+                          List<SharedGeometryKey> sharedGeometryKeys,
                           boolean silk,
                           List<String> nodeNames,
                           Transform3D parentTransformations) throws IOException {
@@ -648,10 +1110,10 @@ public class PhotoRenderer {
       // Export all children
       Enumeration<?> enumeration = ((Group)node).getAllChildren(); 
       while (enumeration.hasMoreElements()) {
-        exportNode((Node)enumeration.nextElement(), ignoreTransparency, silk, nodeNames, parentTransformations);
+        exportNode((Node)enumeration.nextElement(), ignoreTransparency, sharedGeometryKeys, silk, nodeNames, parentTransformations);
       }
     } else if (node instanceof Link) {
-      exportNode(((Link)node).getSharedGroup(), ignoreTransparency, silk, nodeNames, parentTransformations);
+      exportNode(((Link)node).getSharedGroup(), ignoreTransparency, sharedGeometryKeys, silk, nodeNames, parentTransformations);
     } else if (node instanceof Shape3D) {
       Shape3D shape = (Shape3D)node;
       Appearance appearance = shape.getAppearance();
@@ -694,18 +1156,52 @@ public class PhotoRenderer {
         // Export object geometries
         for (int i = 0, n = shape.numGeometries(); i < n; i++) {
           String objectNameBase = "object" + uuid + "-" + i;
-          // Always ignore normals on walls
-          String [] objectsName = exportNodeGeometry(shape.getGeometry(i), parentTransformations, texCoordGeneration, 
-              textureTransform, cullFace, backFaceNormalFlip, objectNameBase);
-          if (objectsName != null) {
+          Geometry geometry = shape.getGeometry(i);
+          // Share geometries except lines which width shouldn't be transformed, 
+          // and geometries transformed by an indirect transformation to keep the orientation of their faces  
+          if (sharedGeometryKeys != null
+              && !isLineGeometry(geometry)
+              && parentTransformations.determinant() > 0) {
+            SharedGeometryKey geometryKey = new SharedGeometryKey(geometry, texCoordGeneration, 
+                textureTransform, cullFace, backFaceNormalFlip);
+            SharedGeometry sharedGeometry = this.sharedGeometries.get(geometryKey);
+            if (sharedGeometry == null) {
+              // Export geometry in its local coordinates system
+              String [] objectsName = exportNodeGeometry(geometry, new Transform3D(), texCoordGeneration, 
+                  textureTransform, cullFace, backFaceNormalFlip, objectNameBase);
+              sharedGeometry = new SharedGeometry(objectsName != null ? objectsName : new String [0]);
+              this.sharedGeometries.put(geometryKey, sharedGeometry);
+            }
+            // Count instances to remove shared objects from SunFlow once they're not used anymore
+            sharedGeometry.instanceCount++;
+            sharedGeometryKeys.add(geometryKey);
+            String [] objectsName = sharedGeometry.objectNames;
+            float [] matrix = new float [16];
+            parentTransformations.get(matrix);
             for (String objectName : objectsName) {
               if (appearanceName != null) {
                 this.sunflow.parameter("shaders", new String [] {appearanceName});
               }
-              String instanceName = objectName + ".instance";
+              this.sunflow.parameter("transform", new Matrix4(matrix [0], matrix [1], matrix [2], matrix [3], 
+                  matrix [4], matrix [5], matrix [6], matrix [7], matrix [8], matrix [9], matrix [10], matrix [11]));
+              String instanceName = objectName + "." + uuid + ".instance";
               this.sunflow.instance(instanceName, objectName);
               nodeNames.add(instanceName);
-              nodeNames.add(objectName);
+            }
+          } else {
+            // Always ignore normals on walls
+            String [] objectsName = exportNodeGeometry(geometry, parentTransformations, texCoordGeneration, 
+                textureTransform, cullFace, backFaceNormalFlip, objectNameBase);
+            if (objectsName != null) {
+              for (String objectName : objectsName) {
+                if (appearanceName != null) {
+                  this.sunflow.parameter("shaders", new String [] {appearanceName});
+                }
+                String instanceName = objectName + ".instance";
+                this.sunflow.instance(instanceName, objectName);
+                nodeNames.add(instanceName);
+                nodeNames.add(objectName);
+              }
             }
           }
         }
@@ -713,6 +1209,16 @@ public class PhotoRenderer {
     }    
   }
   
+  /**
+   * Returns <code>true</code> if the given <code>geometry</code> is exported as lines.
+   */
+  private boolean isLineGeometry(Geometry geometry) {
+    return geometry instanceof IndexedLineArray
+        || geometry instanceof IndexedLineStripArray
+        || geometry instanceof LineArray
+        || geometry instanceof LineStripArray;
+  }
+  
   /**
    * Returns the names of the exported 3D geometries with SunFlow API.
    */
@@ -1337,21 +1843,10 @@ public class PhotoRenderer {
         if (texture.getUserData() instanceof URL && transparency == 1) {
           imagePath = texture.getUserData().toString();
         } else {
+          // Share the file of images with a same content exported by this renderer or other ones 
           ImageComponent2D imageComponent = (ImageComponent2D)texture.getImage(0);
-          RenderedImage image = imageComponent.getRenderedImage();
-          if (transparency < 1) {
-            // Compute a partially transparent image
-            BufferedImage transparentImage = new BufferedImage(image.getWidth(), 
-                image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2D = (Graphics2D)transparentImage.getGraphics();
-            g2D.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, transparency));
-            g2D.drawRenderedImage(image, null);
-            g2D.dispose();
-            image = transparentImage;
-          }
-          File imageFile = OperatingSystem.createTemporaryFile("texture", ".png");
-          ImageIO.write(image, "png", imageFile);
-          imagePath = imageFile.getAbsolutePath();
+          imagePath = TextureFileManager.getInstance().acquireFile(imageComponent.getRenderedImage(), transparency);
+          this.acquiredTextureFiles.add(imagePath);
         }
         this.textureImagesCache.put(key, imagePath);
       }
@@ -1468,25 +1963,46 @@ public class PhotoRenderer {
                                            Color.YELLOW.toRGB(), Color.CYAN.toRGB(), Color.MAGENTA.toRGB(),
                                            new Color(1, 0.5f, 0).toRGB(), new Color(0.5f, 1, 0).toRGB()};
     
-    private final ImageObserver observer;
-    private final BufferedImage image;
+    private final ImageObserver       observer;
+    private final BufferedImage       image;
+    private final boolean             refining;
+    private final RenderingCheckpoint checkpoint;
 
-    private BufferedImageDisplay(BufferedImage image, ImageObserver observer) {
+    /**
+     * Creates a display that updates <code>image</code>. If <code>refining</code> is <code>true</code>,
+     * image isn't darkened at the beginning of the rendering and bucket borders aren't drawn, 
+     * to keep the image computed by a previous rendering visible until it's replaced. 
+     * If <code>checkpoint</code> isn't <code>null</code>, the buckets it contains are restored in image 
+     * and the computed buckets are saved in it. 
+     */
+    private BufferedImageDisplay(BufferedImage image, ImageObserver observer, boolean refining, 
+                                 RenderingCheckpoint checkpoint) {
       this.observer = observer;
       this.image = image;
+      this.refining = refining;
+      this.checkpoint = checkpoint;
     }
 
     public synchronized void imageBegin(int width, int height, int bucketSize) {
+      if (this.refining) {
+        return;
+      }
       for (int y = 0; y < height; y++) {
         for (int x = 0; x < width; x++) {
           int rgba = this.image.getRGB(x, y);
           this.image.setRGB(x, y, ((rgba & 0xFEFEFEFE) >>> 1) + ((rgba & 0xFCFCFCFC) >>> 2));
         }
       }
+      if (this.checkpoint != null) {
+        this.checkpoint.restoreBuckets(this.image, width, height);
+      }
       notifyObserver(ImageObserver.FRAMEBITS | BASE_INFO_FLAGS, 0, 0, width, height);
     }
 
     public synchronized void imagePrepare(int x, int y, int width, int height, int id) {
+      if (this.refining) {
+        return;
+      }
       int border = BORDERS [id % BORDERS.length] | 0xFF000000;
       for (int by = 0; by < height; by++) {
         for (int bx = 0; bx < width; bx++) {
@@ -1505,12 +2021,16 @@ public class PhotoRenderer {
     }
 
     public synchronized void imageUpdate(int x, int y, int width, int height, Color [] data, float [] alpha) {
+      int [] pixels = new int [width * height];
       for (int j = 0, index = 0; j < height; j++) {
         for (int i = 0; i < width; i++, index++) {
-          this.image.setRGB(x + i, y + j, 
-              data [index].copy().mul(1.0f / alpha [index]).toNonLinear().toRGBA(alpha [index]));
+          pixels [index] = data [index].copy().mul(1.0f / alpha [index]).toNonLinear().toRGBA(alpha [index]);
         }
       }
+      this.image.setRGB(x, y, width, height, pixels, 0, width);
+      if (this.checkpoint != null) {
+        this.checkpoint.saveBucket(x, y, width, height, pixels);
+      }
       notifyObserver(ImageObserver.SOMEBITS | BASE_INFO_FLAGS, x, y, width, height);
     }
 
@@ -1540,6 +2060,251 @@ public class PhotoRenderer {
     }
   }
 
+  /**
+   * A timer that interrupts the current thread once a given duration is elapsed.
+   */
+  private static class RenderingTimer {
+    private Timer   timer;
+    private boolean elapsed;
+
+    public RenderingTimer(long maximumDuration) {
+      if (maximumDuration > 0) {
+        final Thread renderingThread = Thread.currentThread();
+        this.timer = new Timer(true);
+        this.timer.schedule(new TimerTask() {
+            public void run() {
+              synchronized (RenderingTimer.this) {
+                elapsed = true;
+                renderingThread.interrupt();
+              }
+            }
+          }, maximumDuration);
+      }
+    }
+    
+    public synchronized boolean isElapsed() {
+      return this.elapsed;
+    }
+    
+    /**
+     * Cancels this timer and clears the interrupted state of the current thread if it was set by this timer.
+     */
+    public synchronized void cancel() {
+      if (this.timer != null) {
+        this.timer.cancel();
+        if (this.elapsed) {
+          Thread.interrupted();
+        }
+      }
+    }
+  }
+
+  /**
+   * The buckets of an image saved in a file during its rendering.
+   */
+  private static class RenderingCheckpoint {
+    private static final int MAGIC_NUMBER = 0x53483343; // SH3C
+    
+    private final File                   file;
+    private final byte []                signature;
+    private final int                    bucketSize;
+    private final String                 bucketOrder;
+    private final Map<Point2D, int []>   restoredBuckets;
+    private int                          bucketCount;
+    private int                          savedBucketCount;
+    private DataOutputStream             out;
+    private boolean                      failed;
+
+    /**
+     * Reads the buckets stored in <code>file</code> if it exists and if its signature and 
+     * bucket size are the same ones.
+     */
+    public RenderingCheckpoint(File file, byte [] signature, int bucketSize, String bucketOrder) {
+      this.file = file;
+      this.signature = signature;
+      this.bucketSize = bucketSize;
+      this.bucketOrder = bucketOrder;
+      this.restoredBuckets = new HashMap<Point2D, int []>();
+      long validLength = 0;
+      if (file.exists()) {
+        DataInputStream in = null;
+        try {
+          in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+          byte [] fileSignature = new byte [signature.length];
+          if (in.readInt() == MAGIC_NUMBER
+              && in.readInt() == bucketSize
+              && in.readInt() == signature.length) {
+            in.readFully(fileSignature);
+            if (Arrays.equals(signature, fileSignature)) {
+              validLength = 12 + signature.length;
+              // Read buckets up to the last one completely saved
+              while (true) {
+                int x = in.readInt();
+                int y = in.readInt();
+                int width = in.readInt();
+                int height = in.readInt();
+                if (width <= 0 || height <= 0 || width > bucketSize || height > bucketSize) {
+                  break;
+                }
+                int [] pixels = new int [width * height + 2];
+                pixels [0] = width;
+                pixels [1] = height;
+                for (int i = 2; i < pixels.length; i++) {
+                  pixels [i] = in.readInt();
+                }
+                this.restoredBuckets.put(new Point2D.Float(x, y), pixels);
+                validLength += 16 + 4 * (pixels.length - 2);
+              }
+            }
+          }
+        } catch (IOException ex) {
+          // Ignore last bucket if it's incomplete
+        } finally {
+          if (in != null) {
+            try {
+              in.close();
+            } catch (IOException ex) {
+            }
+          }
+        }
+      }
+      
+      try {
+        if (validLength > 0) {
+          // Remove incomplete data at the end of the file before appending new buckets
+          RandomAccessFile checkpointFile = new RandomAccessFile(file, "rw");
+          checkpointFile.setLength(validLength);
+          checkpointFile.close();
+          this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        } else {
+          this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+          this.out.writeInt(MAGIC_NUMBER);
+          this.out.writeInt(bucketSize);
+          this.out.writeInt(signature.length);
+          this.out.write(signature);
+          this.out.flush();
+        }
+      } catch (IOException ex) {
+        // Render without saving checkpoint
+        this.failed = true;
+      }
+    }
+
+    /**
+     * Returns <code>true</code> if the bucket at the given location was restored.
+     */
+    public boolean isBucketRestored(int x, int y) {
+      return this.restoredBuckets.containsKey(new Point2D.Float(x, y));
+    }
+    
+    public int getBucketSize() {
+      return this.bucketSize;
+    }
+
+    public String getBucketOrder() {
+      return this.bucketOrder;
+    }
+
+    /**
+     * Draws restored buckets in the given image.
+     */
+    public synchronized void restoreBuckets(BufferedImage image, int width, int height) {
+      this.bucketCount = ((width + this.bucketSize - 1) / this.bucketSize) 
+          * ((height + this.bucketSize - 1) / this.bucketSize);
+      this.savedBucketCount = 0;
+      for (Map.Entry<Point2D, int []> entry : this.restoredBuckets.entrySet()) {
+        int x = (int)entry.getKey().getX();
+        int y = (int)entry.getKey().getY();
+        int [] pixels = entry.getValue();
+        if (x + pixels [0] <= width && y + pixels [1] <= height) {
+          image.setRGB(x, y, pixels [0], pixels [1], pixels, 2, pixels [0]);
+          this.savedBucketCount++;
+        }
+      }
+    }
+
+    /**
+     * Appends the given bucket to the checkpoint file.
+     */
+    public synchronized void saveBucket(int x, int y, int width, int height, int [] pixels) {
+      if (!this.failed) {
+        try {
+          this.out.writeInt(x);
+          this.out.writeInt(y);
+          this.out.writeInt(width);
+          this.out.writeInt(height);
+          for (int pixel : pixels) {
+            this.out.writeInt(pixel);
+          }
+          this.out.flush();
+          this.savedBucketCount++;
+        } catch (IOException ex) {
+          this.failed = true;
+        }
+      }
+    }
+
+    /**
+     * Closes the checkpoint file and deletes it if all the buckets of the image were saved.
+     */
+    public synchronized void close() {
+      try {
+        if (this.out != null) {
+          this.out.close();
+        }
+      } catch (IOException ex) {
+        this.failed = true;
+      }
+      if (!this.failed 
+          && this.bucketCount > 0
+          && this.savedBucketCount >= this.bucketCount) {
+        this.file.delete();
+      }
+    }
+  }
+
+  /**
+   * A SunFlow bucket order which skips the buckets restored from a checkpoint file,  
+   * and computes the other ones in the order of the renderer. 
+   * This class is public to be instantiated by SunFlow but shouldn't be used by other classes.
+   * @since 5.5
+   */
+  public static class CheckpointBucketOrder implements BucketOrder {
+    private static final String NAME = "sweethome3d-checkpoint";
+    
+    private static final String DEFAULT_BUCKET_ORDER = "spiral";
+    
+    // Checkpoint and bucket order of the rendering prepared in the current thread 
+    private static final ThreadLocal<RenderingCheckpoint> checkpoint = new ThreadLocal<RenderingCheckpoint>();
+    private static final ThreadLocal<String> bucketOrder = new ThreadLocal<String>();
+    
+    public int [] getBucketSequence(int bucketCountX, int bucketCountY) {
+      RenderingCheckpoint checkpoint = CheckpointBucketOrder.checkpoint.get();
+      String bucketOrder = checkpoint != null
+          ? checkpoint.getBucketOrder()
+          : CheckpointBucketOrder.bucketOrder.get();
+      // Let SunFlow factory manage inverted orders  
+      int [] sequence = BucketOrderFactory.create(bucketOrder != null ? bucketOrder : DEFAULT_BUCKET_ORDER)
+          .getBucketSequence(bucketCountX, bucketCountY);
+      if (checkpoint == null) {
+        return sequence;
+      } else {
+        int bucketSize = checkpoint.getBucketSize();
+        int [] remainingSequence = new int [sequence.length];
+        int length = 0;
+        for (int i = 0; i < sequence.length; i += 2) {
+          if (!checkpoint.isBucketRestored(sequence [i] * bucketSize, sequence [i + 1] * bucketSize)) {
+            remainingSequence [length++] = sequence [i];
+            remainingSequence [length++] = sequence [i + 1];
+          }
+        }
+        int [] sequenceWithoutRestoredBuckets = new int [length];
+        System.arraycopy(remainingSequence, 0, sequenceWithoutRestoredBuckets, 0, length);
+        return sequenceWithoutRestoredBuckets;
+      }
+    }
+  }
+
   /**
    * A SunFlow sphere light with no representation.
    */
@@ -1623,4 +2388,73 @@ public class PhotoRenderer {
       return this.texture.hashCode() + Float.floatToIntBits(this.transparency);
     }
   }
+
+  /**
+   * The names of the SunFlow objects exported for a shared geometry and the count of their instances.
+   */
+  private static class SharedGeometry {
+    private final String [] objectNames;
+    private int             instanceCount;
+
+    public SharedGeometry(String [] objectNames) {
+      this.objectNames = objectNames;
+    }
+  }
+
+  /**
+   * A key used to share the SunFlow objects exported for a Java 3D geometry 
+   * with the same texture coordinates settings.
+   */
+  private static class SharedGeometryKey {
+    private final Geometry geometry;
+    private final float [] textureSettings;
+    private final int      cullFace;
+    private final boolean  backFaceNormalFlip;
+
+    public SharedGeometryKey(Geometry geometry, 
+                             TexCoordGeneration texCoordGeneration,
+                             Transform3D textureTransform, 
+                             int cullFace, 
+                             boolean backFaceNormalFlip) {
+      this.geometry = geometry;
+      this.textureSettings = new float [27];
+      textureTransform.get(this.textureSettings);
+      if (texCoordGeneration != null) {
+        this.textureSettings [16] = texCoordGeneration.getEnable() ? 1 : 0;
+        this.textureSettings [17] = texCoordGeneration.getGenMode();
+        float [] plane = new float [4];
+        Vector4f planeS = new Vector4f();
+        texCoordGeneration.getPlaneS(planeS);
+        planeS.get(plane);
+        System.arraycopy(plane, 0, this.textureSettings, 18, 4);
+        Vector4f planeT = new Vector4f();
+        texCoordGeneration.getPlaneT(planeT);
+        planeT.get(plane);
+        System.arraycopy(plane, 0, this.textureSettings, 22, 4);
+      } else {
+        this.textureSettings [26] = -1;
+      }
+      this.cullFace = cullFace;
+      this.backFaceNormalFlip = backFaceNormalFlip;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.geometry) + Arrays.hashCode(this.textureSettings) 
+          + this.cullFace + (this.backFaceNormalFlip ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof SharedGeometryKey) {
+        SharedGeometryKey key = (SharedGeometryKey)obj;
+        return this.geometry == key.geometry
+            && Arrays.equals(this.textureSettings, key.textureSettings)
+            && this.cullFace == key.cullFace
+            && this.backFaceNormalFlip == key.backFaceNormalFlip;
+      } else {
+        return false;
+      }
+    }
+  }
 }
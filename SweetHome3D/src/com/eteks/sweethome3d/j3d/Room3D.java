@@ -57,6 +57,9 @@ public class Room3D extends Object3DBranch {
   private static final int CEILING_PART = 1;
   
   private final Home home;
+  // Union of the staircases areas cut out from floor and ceiling, with the staircases used to compute them
+  private final Area []                     staircasesAreaCache = new Area [2];
+  private final List<?> []                  staircasesAreaCacheKeys = new List<?> [2];
 
   /**
    * Creates the 3D room matching the given home <code>room</code>.
@@ -235,6 +238,15 @@ public class Room3D extends Object3DBranch {
       } else {
         visibleStaircases = getVisibleStaircases(this.home.getFurniture(), roomPart, roomLevel, 
             roomLevel.getElevation() == firstLevelElevation);
+        if (visibleStaircases.size() > 0) {
+          // Keep only staircases which bounds intersect room
+          Rectangle2D roomBounds = getBounds(points);
+          for (int i = visibleStaircases.size() - 1; i >= 0; i--) {
+            if (!getBounds(visibleStaircases.get(i).getPoints()).intersects(roomBounds)) {
+              visibleStaircases.remove(i);
+            }
+          }
+        }
       }
 
       // Check ceiling points of the last level are at the same elevation
@@ -265,7 +277,7 @@ public class Room3D extends Object3DBranch {
             roomVisibleArea.subtract(new Area(getShape(otherRoom.getPoints())));
           }
         }        
-        removeStaircasesFromArea(visibleStaircases, roomVisibleArea);
+        removeStaircasesFromArea(roomPart, visibleStaircases, roomVisibleArea);
         roomPoints = new ArrayList<float[][]>();
         roomHoles = new ArrayList<float[][]>();
         roomPointsWithoutHoles = getAreaPoints(roomVisibleArea, roomPoints, roomHoles, 1, roomPart == CEILING_PART);
@@ -552,12 +564,40 @@ public class Room3D extends Object3DBranch {
     return geometryInfo.getIndexedGeometryArray();
   }
 
-  private void removeStaircasesFromArea(List<HomePieceOfFurniture> visibleStaircases, Area area) {
-    // Remove from room area all the staircases that intersect it
-    ModelManager modelManager = ModelManager.getInstance();
-    for (HomePieceOfFurniture staircase : visibleStaircases) {
-      area.subtract(modelManager.getAreaOnFloor(staircase));
+  /**
+   * Removes from <code>area</code> the cut out areas of the given staircases. 
+   * The union of these areas is cached for the given room part and reused 
+   * as long as the staircases aren't moved or changed. 
+   */
+  private void removeStaircasesFromArea(int roomPart, List<HomePieceOfFurniture> visibleStaircases, Area area) {
+    if (visibleStaircases.size() > 0) {
+      List<StaircaseKey> staircasesKey = new ArrayList<StaircaseKey>(visibleStaircases.size());
+      for (HomePieceOfFurniture staircase : visibleStaircases) {
+        staircasesKey.add(new StaircaseKey(staircase));
+      }
+      if (!staircasesKey.equals(this.staircasesAreaCacheKeys [roomPart])) {
+        // Compute the union of all the staircases that intersect the room
+        ModelManager modelManager = ModelManager.getInstance();
+        Area staircasesArea = new Area();
+        for (HomePieceOfFurniture staircase : visibleStaircases) {
+          staircasesArea.add(modelManager.getAreaOnFloor(staircase));
+        }
+        this.staircasesAreaCache [roomPart] = staircasesArea;
+        this.staircasesAreaCacheKeys [roomPart] = staircasesKey;
+      }
+      area.subtract(this.staircasesAreaCache [roomPart]);
+    }
+  }
+
+  /**
+   * Returns the bounds of the given points.
+   */
+  private Rectangle2D getBounds(float [][] points) {
+    Rectangle2D bounds = new Rectangle2D.Float(points [0][0], points [0][1], 0, 0);
+    for (int i = 1; i < points.length; i++) {
+      bounds.add(points [i][0], points [i][1]);
     }
+    return bounds;
   }
 
   /**
@@ -737,4 +777,51 @@ public class Room3D extends Object3DBranch {
     RenderingAttributes renderingAttributes = roomPartAppearance.getRenderingAttributes();
     renderingAttributes.setVisible(visible);
   }
-}
\ No newline at end of file
+
+  /**
+   * The properties of a staircase that have an effect on its cut out area.
+   */
+  private static class StaircaseKey {
+    private final HomePieceOfFurniture staircase;
+    private final String  cutOutShape;
+    private final float   x;
+    private final float   y;
+    private final float   angle;
+    private final float   width;
+    private final float   depth;
+    private final boolean modelMirrored;
+
+    public StaircaseKey(HomePieceOfFurniture staircase) {
+      this.staircase = staircase;
+      this.cutOutShape = staircase.getStaircaseCutOutShape();
+      this.x = staircase.getX();
+      this.y = staircase.getY();
+      this.angle = staircase.getAngle();
+      this.width = staircase.getWidth();
+      this.depth = staircase.getDepth();
+      this.modelMirrored = staircase.isModelMirrored();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof StaircaseKey) {
+        StaircaseKey key = (StaircaseKey)obj;
+        return this.staircase == key.staircase
+            && this.cutOutShape.equals(key.cutOutShape)
+            && this.x == key.x
+            && this.y == key.y
+            && this.angle == key.angle
+            && this.width == key.width
+            && this.depth == key.depth
+            && this.modelMirrored == key.modelMirrored;
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.staircase) 
+          + Float.floatToIntBits(this.x) + 31 * Float.floatToIntBits(this.y);
+    }
+  }
+}
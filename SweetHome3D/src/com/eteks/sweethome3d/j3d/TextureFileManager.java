@@ -0,0 +1,257 @@
+/*
+ * TextureFileManager.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.j3d;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.imageio.ImageIO;
+
+import com.eteks.sweethome3d.tools.OperatingSystem;
+
+/**
+ * Singleton managing the image files of textures exported for renderers that need to read
+ * them from files. Files are shared by images with the same content, and the files of the
+ * images not used anymore are kept while their total size is smaller than a maximum size,
+ * to be reused by next renderings.
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class TextureFileManager {
+  private static TextureFileManager instance;
+  // Digests of the images already exported
+  private final Map<RenderedImage, String> imagesDigests;
+  // Exported files sorted from the least recently used to the most recently used one
+  private final Map<String, TextureFile>   textureFiles;
+  private final Map<String, TextureFile>   textureFilesByPath;
+  // Maximum size in bytes of the files not used anymore
+  private long                             maximumUnusedFilesSize;
+  private long                             unusedFilesSize;
+
+  private TextureFileManager() {
+    this.imagesDigests = new WeakHashMap<RenderedImage, String>();
+    this.textureFiles = new LinkedHashMap<String, TextureFile>(16, 0.75f, true);
+    this.textureFilesByPath = new HashMap<String, TextureFile>();
+    this.maximumUnusedFilesSize = 128L << 20;
+    try {
+      this.maximumUnusedFilesSize = Math.max(0, Long.parseLong(System.getProperty(
+          "com.eteks.sweethome3d.j3d.maximumUnusedTextureFilesSize", String.valueOf(this.maximumUnusedFilesSize))));
+    } catch (NumberFormatException ex) {
+      // Ignore wrong value and keep default size
+    }
+  }
+
+  /**
+   * Returns an instance of this singleton.
+   */
+  public static synchronized TextureFileManager getInstance() {
+    if (instance == null) {
+      instance = new TextureFileManager();
+    }
+    return instance;
+  }
+
+  /**
+   * Sets the maximum size in bytes of the files kept once they're not used anymore.
+   * @param maximumUnusedFilesSize a size in bytes or 0 to delete files as soon as they're released
+   */
+  public synchronized void setMaximumUnusedFilesSize(long maximumUnusedFilesSize) {
+    if (maximumUnusedFilesSize < 0) {
+      throw new IllegalArgumentException("Negative maximum size " + maximumUnusedFilesSize);
+    }
+    this.maximumUnusedFilesSize = maximumUnusedFilesSize;
+    deleteUnusedFiles();
+  }
+
+  /**
+   * Returns the maximum size in bytes of the files kept once they're not used anymore.
+   */
+  public synchronized long getMaximumUnusedFilesSize() {
+    return this.maximumUnusedFilesSize;
+  }
+
+  /**
+   * Returns the path of a PNG file containing the given <code>image</code>
+   * drawn with the given <code>opacity</code>. The returned file is shared with
+   * the images of the same content and opacity, and must be released with
+   * {@link #releaseFile(String) releaseFile} once it's not used anymore.
+   * @param image    the image to export
+   * @param opacity  a value between 0 and 1, 1 meaning the image is drawn as is
+   */
+  public String acquireFile(RenderedImage image, float opacity) throws IOException {
+    String digest;
+    synchronized (this) {
+      digest = this.imagesDigests.get(image);
+    }
+    if (digest == null) {
+      digest = getImageDigest(image);
+      synchronized (this) {
+        this.imagesDigests.put(image, digest);
+      }
+    }
+    String key = digest + "-" + Float.floatToIntBits(opacity);
+    synchronized (this) {
+      TextureFile textureFile = this.textureFiles.get(key);
+      if (textureFile != null) {
+        addUser(textureFile);
+        return textureFile.path;
+      }
+    }
+
+    // Encode image out of synchronized block to let other threads acquire their files meanwhile
+    if (opacity < 1) {
+      BufferedImage transparentImage = new BufferedImage(image.getWidth(),
+          image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g2D = (Graphics2D)transparentImage.getGraphics();
+      g2D.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+      g2D.drawRenderedImage(image, null);
+      g2D.dispose();
+      image = transparentImage;
+    }
+    File imageFile = OperatingSystem.createTemporaryFile("texture", ".png");
+    ImageIO.write(image, "png", imageFile);
+
+    synchronized (this) {
+      TextureFile textureFile = this.textureFiles.get(key);
+      if (textureFile != null) {
+        // Another thread exported the same image meanwhile
+        imageFile.delete();
+        addUser(textureFile);
+      } else {
+        textureFile = new TextureFile(imageFile.getAbsolutePath(), imageFile.length());
+        textureFile.users = 1;
+        this.textureFiles.put(key, textureFile);
+        this.textureFilesByPath.put(textureFile.path, textureFile);
+      }
+      return textureFile.path;
+    }
+  }
+
+  private void addUser(TextureFile textureFile) {
+    if (textureFile.users++ == 0) {
+      this.unusedFilesSize -= textureFile.length;
+    }
+  }
+
+  /**
+   * Releases the file at the given <code>path</code> acquired with {@link #acquireFile(RenderedImage, float) acquireFile}.
+   * The file may be deleted once it's not used anymore.
+   */
+  public synchronized void releaseFile(String path) {
+    TextureFile textureFile = this.textureFilesByPath.get(path);
+    if (textureFile != null
+        && --textureFile.users == 0) {
+      this.unusedFilesSize += textureFile.length;
+      deleteUnusedFiles();
+    }
+  }
+
+  /**
+   * Deletes the least recently used files not used anymore until their size is smaller than the maximum size.
+   */
+  private void deleteUnusedFiles() {
+    for (Iterator<TextureFile> it = this.textureFiles.values().iterator();
+         it.hasNext() && this.unusedFilesSize > this.maximumUnusedFilesSize; ) {
+      TextureFile textureFile = it.next();
+      if (textureFile.users == 0) {
+        it.remove();
+        this.textureFilesByPath.remove(textureFile.path);
+        this.unusedFilesSize -= textureFile.length;
+        new File(textureFile.path).delete();
+      }
+    }
+  }
+
+  /**
+   * Deletes the files not used anymore.
+   */
+  public synchronized void clear() {
+    long maximumUnusedFilesSize = this.maximumUnusedFilesSize;
+    this.maximumUnusedFilesSize = 0;
+    deleteUnusedFiles();
+    this.maximumUnusedFilesSize = maximumUnusedFilesSize;
+  }
+
+  /**
+   * Returns a digest of the size and the pixels of the given image.
+   */
+  private String getImageDigest(RenderedImage image) throws IOException {
+    BufferedImage bufferedImage;
+    if (image instanceof BufferedImage) {
+      bufferedImage = (BufferedImage)image;
+    } else {
+      bufferedImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g2D = (Graphics2D)bufferedImage.getGraphics();
+      g2D.drawRenderedImage(image, null);
+      g2D.dispose();
+    }
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      int width = bufferedImage.getWidth();
+      int height = bufferedImage.getHeight();
+      int [] pixels = new int [width];
+      byte [] bytes = new byte [width * 4];
+      digest.update(new byte [] {(byte)(width >> 24), (byte)(width >> 16), (byte)(width >> 8), (byte)width,
+                                 (byte)(height >> 24), (byte)(height >> 16), (byte)(height >> 8), (byte)height});
+      for (int y = 0; y < height; y++) {
+        bufferedImage.getRGB(0, y, width, 1, pixels, 0, width);
+        for (int x = 0, i = 0; x < width; x++) {
+          int pixel = pixels [x];
+          bytes [i++] = (byte)(pixel >> 24);
+          bytes [i++] = (byte)(pixel >> 16);
+          bytes [i++] = (byte)(pixel >> 8);
+          bytes [i++] = (byte)pixel;
+        }
+        digest.update(bytes);
+      }
+      return new BigInteger(1, digest.digest()).toString(16);
+    } catch (NoSuchAlgorithmException ex) {
+      IOException ex2 = new IOException(ex.getMessage());
+      ex2.initCause(ex);
+      throw ex2;
+    }
+  }
+
+  /**
+   * An exported file and the count of its users.
+   */
+  private static class TextureFile {
+    private final String path;
+    private final long   length;
+    private int          users;
+
+    public TextureFile(String path, long length) {
+      this.path = path;
+      this.length = length;
+    }
+  }
+}
@@ -20,6 +20,7 @@
 package com.eteks.sweethome3d.j3d;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.EventQueue;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -28,11 +29,9 @@ import java.awt.TexturePaint;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,13 +39,13 @@ import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-import javax.imageio.ImageIO;
 import javax.media.j3d.ImageComponent;
 import javax.media.j3d.ImageComponent2D;
 import javax.media.j3d.Texture;
 
 import com.eteks.sweethome3d.model.Content;
 import com.eteks.sweethome3d.model.HomeTexture;
+import com.eteks.sweethome3d.tools.ImageManager;
 import com.eteks.sweethome3d.tools.URLContent;
 import com.sun.j3d.utils.image.TextureLoader;
 
@@ -68,6 +67,12 @@ public class TextureManager {
   private Map<RotatedContentKey, List<TextureObserver>>         loadingTextureObservers;
   // Executor used to load images
   private ExecutorService       texturesLoader;
+  // Maximum width or height of loaded images, 0 meaning no limit
+  private int                   maximumTextureSize;
+  // Memory in bytes that shared textures shouldn't exceed, 0 meaning no limit
+  private long                  textureMemoryBudget;
+
+  private static final int      MINIMUM_BUDGETED_TEXTURE_SIZE = 64;
 
   private TextureManager() {
     this.errorTexture = getColoredImageTexture(Color.RED);
@@ -75,6 +80,14 @@ public class TextureManager {
     this.contentTextures = new WeakHashMap<Content, List<ComparableTextureAngleTuple>>();
     this.textures = new WeakHashMap<Texture, ComparableTexture>();
     this.loadingTextureObservers = new HashMap<RotatedContentKey, List<TextureObserver>>();
+    try {
+      this.maximumTextureSize = Math.max(0, 
+          Integer.parseInt(System.getProperty("com.eteks.sweethome3d.j3d.maximumTextureSize", "0")));
+      this.textureMemoryBudget = Math.max(0, 
+          Long.parseLong(System.getProperty("com.eteks.sweethome3d.j3d.textureMemoryBudget", "0")));
+    } catch (NumberFormatException ex) {
+      // Ignore wrong values and keep no limit
+    }
   }
 
   /**
@@ -102,6 +115,79 @@ public class TextureManager {
     this.loadingTextureObservers.clear();
   }
   
+  /**
+   * Sets the maximum width or height of the images of the textures loaded from now on.
+   * Larger images will be downscaled during their reading. 
+   * @param maximumTextureSize a size in pixels or 0 to keep images at their original size
+   * @since 5.5
+   */
+  public void setMaximumTextureSize(int maximumTextureSize) {
+    if (maximumTextureSize < 0) {
+      throw new IllegalArgumentException("Negative maximum texture size " + maximumTextureSize);
+    }
+    this.maximumTextureSize = maximumTextureSize;
+  }
+  
+  /**
+   * Returns the maximum width or height of the images of loaded textures, 
+   * or 0 if images aren't downscaled.
+   * @since 5.5
+   */
+  public int getMaximumTextureSize() {
+    return this.maximumTextureSize;
+  }
+  
+  /**
+   * Sets the memory in bytes that shared textures shouldn't exceed. Once this budget 
+   * is reached, the images of textures loaded from now on will be downscaled
+   * to fit in the remaining memory, without getting smaller than 64 x 64 pixels.   
+   * @param textureMemoryBudget a memory size in bytes or 0 for no limit
+   * @since 5.5
+   */
+  public void setTextureMemoryBudget(long textureMemoryBudget) {
+    if (textureMemoryBudget < 0) {
+      throw new IllegalArgumentException("Negative texture memory budget " + textureMemoryBudget);
+    }
+    this.textureMemoryBudget = textureMemoryBudget;
+  }
+  
+  /**
+   * Returns the memory in bytes that shared textures shouldn't exceed, or 0 if there's no limit. 
+   * @since 5.5
+   */
+  public long getTextureMemoryBudget() {
+    return this.textureMemoryBudget;
+  }
+  
+  /**
+   * Returns an estimation of the memory in bytes used by the images of the shared textures 
+   * still referenced.
+   * @since 5.5
+   */
+  public long getTextureMemoryUsage() {
+    long memoryUsage = 0;
+    synchronized (this.textures) { 
+      for (Texture texture : this.textures.keySet()) {
+        if (texture != null) {
+          memoryUsage += getTextureMemorySize(texture);
+        }
+      }
+    }
+    return memoryUsage;
+  }
+  
+  /**
+   * Returns the memory in bytes used by the images of the given <code>texture</code>.
+   */
+  private static long getTextureMemorySize(Texture texture) {
+    long size = 4L * texture.getWidth() * texture.getHeight();
+    if (texture.getMipMapMode() == Texture.MULTI_LEVEL_MIPMAP) {
+      // Add the size of the mip pyramid
+      size += size / 3;
+    }
+    return size;
+  }
+  
   /**
    * Returns a texture image of one pixel of the given <code>color</code>. 
    */
@@ -243,18 +329,8 @@ public class TextureManager {
   private Texture loadTexture(final Content content, float angle) {
     try {
       // Read the image 
-      InputStream contentStream = content.openStream();
-      BufferedImage image;          
-      try {
-        image = ImageIO.read(contentStream);
-      } catch (ConcurrentModificationException ex) {
-        // Try to read the image once more, 
-        // see unfixed Java bug http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6986863
-        contentStream.close();
-        contentStream = content.openStream();
-       image = ImageIO.read(contentStream);
-      }
-      if (angle != 0) {
+      BufferedImage image = readImage(content);          
+      if (image != null && angle != 0) {
         double cos = Math.cos(angle);
         double sin = Math.sin(angle);
         BufferedImage rotatedImage = new BufferedImage((int)Math.round(Math.abs(image.getWidth() * cos) + Math.abs(image.getHeight() * sin)), 
@@ -270,7 +346,6 @@ public class TextureManager {
         g2D.dispose();
         image = rotatedImage;
       }
-      contentStream.close();
       if (image != null) {
         Texture texture = new TextureLoader(image).getTexture();
         // Keep in user data the URL of the texture image
@@ -296,6 +371,64 @@ public class TextureManager {
     }            
   }
 
+  /**
+   * Returns the image read from the given content, downscaled if it's larger than 
+   * the maximum texture size or if it doesn't fit in the remaining texture memory budget.
+   */
+  private BufferedImage readImage(Content content) throws IOException {
+    ImageManager imageManager = ImageManager.getInstance();
+    if (this.maximumTextureSize == 0
+        && this.textureMemoryBudget == 0) {
+      return imageManager.readImage(content);
+    } else {
+      Dimension imageSize = imageManager.getImageSize(content);
+      if (imageSize == null) {
+        return null;
+      }
+      long maximumPixelCount = 0;
+      if (this.textureMemoryBudget > 0) {
+        long availableMemory = this.textureMemoryBudget - getTextureMemoryUsage();
+        maximumPixelCount = Math.max(availableMemory / 4, 
+            MINIMUM_BUDGETED_TEXTURE_SIZE * MINIMUM_BUDGETED_TEXTURE_SIZE);
+      }
+      // As TextureLoader resizes images to the closest power of 2, 
+      // compute the size of the texture image from these powers of 2
+      int textureWidth = getClosestPowerOfTwo(imageSize.width);
+      int textureHeight = getClosestPowerOfTwo(imageSize.height);
+      boolean downscaled = false;
+      while ((this.maximumTextureSize > 0
+              && Math.max(textureWidth, textureHeight) > this.maximumTextureSize
+              || maximumPixelCount > 0
+              && (long)textureWidth * textureHeight > maximumPixelCount)
+             && (textureWidth > 1 || textureHeight > 1)) {
+        textureWidth = Math.max(1, textureWidth / 2);
+        textureHeight = Math.max(1, textureHeight / 2);
+        downscaled = true;
+      }
+      if (downscaled) {
+        return imageManager.readImage(content, textureWidth, textureHeight);
+      } else {
+        return imageManager.readImage(content);
+      }
+    }
+  }
+
+  /**
+   * Returns the power of 2 closest to <code>value</code>, 
+   * as computed by <code>TextureLoader</code> for images of other sizes.
+   */
+  private static int getClosestPowerOfTwo(int value) {
+    int powerOfTwo = 1;
+    while (powerOfTwo < value) {
+      powerOfTwo *= 2;
+    }
+    if (powerOfTwo - value > value - powerOfTwo / 2) {
+      return Math.max(1, powerOfTwo / 2);
+    } else {
+      return powerOfTwo;
+    }
+  }
+
   /**
    * Returns either the <code>texture</code> in parameter or a shared texture 
    * if the same texture as the one in parameter is already shared.
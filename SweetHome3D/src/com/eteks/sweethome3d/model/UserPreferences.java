@@ -53,7 +53,8 @@ public abstract class UserPreferences {
                         NEW_WALL_THICKNESS, NEW_WALL_HEIGHT, NEW_WALL_SIDEBOARD_THICKNESS, NEW_WALL_SIDEBOARD_HEIGHT, NEW_FLOOR_THICKNESS, 
                         RECENT_HOMES, IGNORED_ACTION_TIP, FURNITURE_CATALOG_VIEWED_IN_TREE, NAVIGATION_PANEL_VISIBLE, 
                         AERIAL_VIEW_CENTERED_ON_SELECTION_ENABLED, CHECK_UPDATES_ENABLED, UPDATES_MINIMUM_DATE, AUTO_SAVE_DELAY_FOR_RECOVERY, 
-                        AUTO_COMPLETION_STRINGS, RECENT_COLORS, RECENT_TEXTURES}
+                        AUTO_COMPLETION_STRINGS, RECENT_COLORS, RECENT_TEXTURES, PHOTO_RENDERING_THREAD_COUNT, 
+                        PROGRESSIVE_PHOTO_RENDERING_ENABLED, PHOTO_RENDERING_MAXIMUM_DURATION, PLAN_MINIMUM_TEXT_SIZE, PLAN_MINIMUM_DETAILED_PIECE_SIZE}
   
   public static final String FURNITURE_LIBRARY_TYPE = "Furniture library"; 
   public static final String TEXTURES_LIBRARY_TYPE  = "Textures library"; 
@@ -116,6 +117,11 @@ public abstract class UserPreferences {
   private boolean          checkUpdatesEnabled;
   private Long             updatesMinimumDate;
   private int              autoSaveDelayForRecovery;
+  private int              photoRenderingThreadCount;
+  private boolean          progressivePhotoRenderingEnabled;
+  private int              photoRenderingMaximumDuration;
+  private float            planMinimumTextSize;
+  private float            planMinimumDetailedPieceSize;
   private Map<String, List<String>>  autoCompletionStrings;
   private List<Integer>      recentColors;
   private List<TextureImage> recentTextures;
@@ -897,6 +903,119 @@ public abstract class UserPreferences {
     }
   }
   
+  /**
+   * Returns the count of threads used to render a photo.
+   * @return a count of threads or 0 to use as many threads as available processors.
+   * @since 5.5
+   */
+  public int getPhotoRenderingThreadCount() {
+    return this.photoRenderingThreadCount;
+  }
+  
+  /**
+   * Sets the count of threads used to render a photo, and notifies listeners of this change.
+   * @since 5.5
+   */
+  public void setPhotoRenderingThreadCount(int photoRenderingThreadCount) {
+    if (this.photoRenderingThreadCount != photoRenderingThreadCount) {
+      int oldPhotoRenderingThreadCount = this.photoRenderingThreadCount;
+      this.photoRenderingThreadCount = photoRenderingThreadCount;
+      this.propertyChangeSupport.firePropertyChange(Property.PHOTO_RENDERING_THREAD_COUNT.name(), 
+          oldPhotoRenderingThreadCount, photoRenderingThreadCount);
+    }
+  }
+  
+  /**
+   * Returns <code>true</code> if photos are rendered progressively, 
+   * with a quick preview refined in successive passes up to the requested quality.
+   * @since 5.5
+   */
+  public boolean isProgressivePhotoRenderingEnabled() {
+    return this.progressivePhotoRenderingEnabled;
+  }
+  
+  /**
+   * Sets whether photos should be rendered progressively, and notifies listeners of this change.
+   * @since 5.5
+   */
+  public void setProgressivePhotoRenderingEnabled(boolean progressivePhotoRenderingEnabled) {
+    if (this.progressivePhotoRenderingEnabled != progressivePhotoRenderingEnabled) {
+      this.progressivePhotoRenderingEnabled = progressivePhotoRenderingEnabled;
+      this.propertyChangeSupport.firePropertyChange(Property.PROGRESSIVE_PHOTO_RENDERING_ENABLED.name(), 
+          !progressivePhotoRenderingEnabled, progressivePhotoRenderingEnabled);
+    }
+  }
+  
+  /**
+   * Returns the maximum duration of a progressive photo rendering, 
+   * after which the best image computed so far is kept.
+   * @return a duration in seconds or 0 if rendering duration isn't limited.
+   * @since 5.5
+   */
+  public int getPhotoRenderingMaximumDuration() {
+    return this.photoRenderingMaximumDuration;
+  }
+  
+  /**
+   * Sets the maximum duration of a progressive photo rendering, and notifies listeners of this change.
+   * @since 5.5
+   */
+  public void setPhotoRenderingMaximumDuration(int photoRenderingMaximumDuration) {
+    if (this.photoRenderingMaximumDuration != photoRenderingMaximumDuration) {
+      int oldPhotoRenderingMaximumDuration = this.photoRenderingMaximumDuration;
+      this.photoRenderingMaximumDuration = photoRenderingMaximumDuration;
+      this.propertyChangeSupport.firePropertyChange(Property.PHOTO_RENDERING_MAXIMUM_DURATION.name(), 
+          oldPhotoRenderingMaximumDuration, photoRenderingMaximumDuration);
+    }
+  }
+  
+  /**
+   * Returns the minimum size in pixels of the texts displayed in the plan. 
+   * Smaller texts aren't drawn at low scales.
+   * @return a size in pixels or 0 to draw all texts.
+   * @since 5.5
+   */
+  public float getPlanMinimumTextSize() {
+    return this.planMinimumTextSize;
+  }
+  
+  /**
+   * Sets the minimum size in pixels of the texts displayed in the plan, and notifies listeners of this change.
+   * @since 5.5
+   */
+  public void setPlanMinimumTextSize(float planMinimumTextSize) {
+    if (this.planMinimumTextSize != planMinimumTextSize) {
+      float oldPlanMinimumTextSize = this.planMinimumTextSize;
+      this.planMinimumTextSize = planMinimumTextSize;
+      this.propertyChangeSupport.firePropertyChange(Property.PLAN_MINIMUM_TEXT_SIZE.name(), 
+          oldPlanMinimumTextSize, planMinimumTextSize);
+    }
+  }
+  
+  /**
+   * Returns the minimum size in pixels of the pieces of furniture drawn with their icon 
+   * and their sashes in the plan. Smaller pieces are drawn as filled shapes at low scales.
+   * @return a size in pixels or 0 to draw all pieces with details.
+   * @since 5.5
+   */
+  public float getPlanMinimumDetailedPieceSize() {
+    return this.planMinimumDetailedPieceSize;
+  }
+  
+  /**
+   * Sets the minimum size in pixels of the pieces of furniture drawn with details in the plan, 
+   * and notifies listeners of this change.
+   * @since 5.5
+   */
+  public void setPlanMinimumDetailedPieceSize(float planMinimumDetailedPieceSize) {
+    if (this.planMinimumDetailedPieceSize != planMinimumDetailedPieceSize) {
+      float oldPlanMinimumDetailedPieceSize = this.planMinimumDetailedPieceSize;
+      this.planMinimumDetailedPieceSize = planMinimumDetailedPieceSize;
+      this.propertyChangeSupport.firePropertyChange(Property.PLAN_MINIMUM_DETAILED_PIECE_SIZE.name(), 
+          oldPlanMinimumDetailedPieceSize, planMinimumDetailedPieceSize);
+    }
+  }
+  
   /**
    * Returns an unmodifiable list of the recent homes.
    */
@@ -76,8 +76,9 @@ import com.eteks.sweethome3d.viewcontroller.View;
  */
 public class FileContentManager implements ContentManager {
   private static final String OBJ_EXTENSION = ".obj";
+  private static final String GLB_EXTENSION = ".glb";
   /**
-   * Supported OBJ filter.
+   * Supported OBJ filter, followed by binary glTF filter proposed for exports.
    */
   private static final FileFilter [] OBJ_FILTER = {
       new FileFilter() {
@@ -92,6 +93,19 @@ public class FileContentManager implements ContentManager {
         public String getDescription() {
           return "OBJ - Wavefront";
         }
+      },
+      new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+          // Accept directories and .glb files
+          return file.isDirectory()
+              || file.getName().toLowerCase().endsWith(GLB_EXTENSION);
+        }
+        
+        @Override
+        public String getDescription() {
+          return "GLB - Binary glTF";
+        }
       }};
   /**
    * Supported 3D model file filters.
@@ -461,7 +475,7 @@ public class FileContentManager implements ContentManager {
     this.fileExtensions.put(ContentType.PDF,               new String [] {PDF_EXTENSION});
     this.fileExtensions.put(ContentType.CSV,               new String [] {CSV_EXTENSION});
     this.fileExtensions.put(ContentType.SVG,               new String [] {SVG_EXTENSION});
-    this.fileExtensions.put(ContentType.OBJ,               new String [] {OBJ_EXTENSION});
+    this.fileExtensions.put(ContentType.OBJ,               new String [] {OBJ_EXTENSION, GLB_EXTENSION});
     this.fileExtensions.put(ContentType.MODEL,             
         new String [] {OBJ_EXTENSION, LWS_EXTENSION, THREEDS_EXTENSION, DAE_EXTENSION, ZIP_EXTENSION, KMZ_EXTENSION});
     this.fileExtensions.put(ContentType.IMAGE,             
@@ -610,7 +624,11 @@ public class FileContentManager implements ContentManager {
     boolean addedExtension = false;
     if (savedPath != null) {
       if (defaultExtension != null) {
-        if (!savedPath.toLowerCase().endsWith(defaultExtension)) {
+        boolean supportedExtension = contentType == ContentType.OBJ
+            // Keep other extensions supported by export like .glb
+            ? hasExtension(savedPath, getFileExtensions(contentType))
+            : savedPath.toLowerCase().endsWith(defaultExtension);
+        if (!supportedExtension) {
           savedPath += defaultExtension;
           addedExtension = true;
         }
@@ -787,13 +805,39 @@ public class FileContentManager implements ContentManager {
       }
       // Store last directory
       setLastDirectory(contentType, directory);
+      String selectedFile = fileChooser.getSelectedFile().toString();
+      if (save 
+          && contentType == ContentType.OBJ) {
+        // Append to file name without extension the extension of the chosen filter
+        String [] fileExtensions = getFileExtensions(contentType);
+        for (int i = 0; i < contentFileFilters.length && i < fileExtensions.length; i++) {
+          if (fileChooser.getFileFilter() == contentFileFilters [i]
+              && !hasExtension(selectedFile, fileExtensions)) {
+            selectedFile += fileExtensions [i];
+            break;
+          }
+        }
+      }
       // Return selected file
-      return fileChooser.getSelectedFile().toString();
+      return selectedFile;
     } else {
       return null;
     }
   }
 
+  /**
+   * Returns <code>true</code> if the given <code>path</code> ends with one of the <code>extensions</code>.
+   */
+  private boolean hasExtension(String path, String [] extensions) {
+    path = path.toLowerCase();
+    for (String extension : extensions) {
+      if (path.endsWith(extension)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Returns default file dialog title.
    */
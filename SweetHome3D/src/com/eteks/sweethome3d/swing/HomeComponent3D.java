@@ -152,6 +152,7 @@ import com.eteks.sweethome3d.model.Selectable;
 import com.eteks.sweethome3d.model.UserPreferences;
 import com.eteks.sweethome3d.model.Wall;
 import com.eteks.sweethome3d.tools.OperatingSystem;
+import com.eteks.sweethome3d.tools.SpatialIndex;
 import com.eteks.sweethome3d.viewcontroller.HomeController3D;
 import com.eteks.sweethome3d.viewcontroller.Object3DFactory;
 import com.sun.j3d.exp.swing.JCanvas3D;
@@ -214,6 +215,14 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
   private ComponentListener                        navigationPanelListener;
   private BufferedImage                            navigationPanelImage;
   private Area                                     lightScopeOutsideWallsAreaCache;
+  // Index of walls used to search the walls around doors and windows
+  private SpatialIndex<Wall>                       wallsIndexCache;
+  // Last known bounds of doors and windows in plan
+  private final Map<HomePieceOfFurniture, Rectangle2D> doorsAndWindowsBounds = new HashMap<HomePieceOfFurniture, Rectangle2D>();
+  // Index of rooms used to search the rooms around staircases
+  private SpatialIndex<Room>                       roomsIndexCache;
+  // Last known bounds and elevation range of staircases
+  private final Map<HomePieceOfFurniture, StaircaseLocation> staircasesLocations = new HashMap<HomePieceOfFurniture, StaircaseLocation>();
   
   /**
    * Creates a 3D component that displays <code>home</code> walls, rooms and furniture, 
@@ -2067,9 +2076,12 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
           String propertyName = ev.getPropertyName();
           if (!Wall.Property.PATTERN.name().equals(propertyName)) {
             Wall updatedWall = (Wall)ev.getSource();
+            wallsIndexCache = null;
             updateWall(updatedWall);          
             updateObjects(home.getRooms());
-            if (updatedWall.getLevel() != null && updatedWall.getLevel().getElevation() < 0) {
+            if (isGroundShapingWall(updatedWall.getLevel())
+                || Wall.Property.LEVEL.name().equals(propertyName)
+                    && isGroundShapingWall((Level)ev.getOldValue())) {
               groundChangeListener.propertyChange(null);
             }
             if (home.getEnvironment().getSubpartSizeUnderLight() > 0) {
@@ -2103,8 +2115,11 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
               break;
           }
           lightScopeOutsideWallsAreaCache = null;
+          wallsIndexCache = null;
           updateObjects(home.getRooms());
-          groundChangeListener.propertyChange(null);
+          if (isGroundShapingWall(wall.getLevel())) {
+            groundChangeListener.propertyChange(null);
+          }
           updateObjectsLightScope(null);
         }
       };
@@ -2133,6 +2148,12 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
               || HomePieceOfFurniture.Property.VISIBLE.name().equals(propertyName)
               || HomePieceOfFurniture.Property.LEVEL.name().equals(propertyName)) {
             updatePieceOfFurnitureGeometry(updatedPiece);
+            if (HomePieceOfFurniture.Property.LEVEL.name().equals(propertyName)
+                && ev.getOldValue() != null
+                && ((Level)ev.getOldValue()).getElevation() < 0) {
+              // Piece left an underground level
+              groundChangeListener.propertyChange(null);
+            }
           } else if (HomePieceOfFurniture.Property.COLOR.name().equals(propertyName)
               || HomePieceOfFurniture.Property.TEXTURE.name().equals(propertyName)
               || HomePieceOfFurniture.Property.MODEL_MATERIALS.name().equals(propertyName)
@@ -2147,9 +2168,9 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
           updateObjects(Arrays.asList(new HomePieceOfFurniture [] {piece}));
           // If piece is or contains a door or a window, update walls that intersect with piece
           if (containsDoorsAndWindows(piece)) {
-            updateObjects(home.getWalls());
+            updateWallsAroundDoorsAndWindows(piece, false);
           } else if (containsStaircases(piece)) {
-            updateObjects(home.getRooms());
+            updateRoomsAroundStaircases(piece, false);
           }
           if (piece.getLevel() != null && piece.getLevel().getElevation() < 0) {
             groundChangeListener.propertyChange(null);
@@ -2164,6 +2185,12 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
       } else {
         piece.addPropertyChangeListener(this.furnitureChangeListener);
       }
+      for (HomePieceOfFurniture doorOrWindow : getDoorsAndWindows(piece)) {
+        this.doorsAndWindowsBounds.put(doorOrWindow, getBounds(doorOrWindow.getPoints()));
+      }
+      for (HomePieceOfFurniture staircase : getStaircases(piece)) {
+        this.staircasesLocations.put(staircase, new StaircaseLocation(staircase));
+      }
     }      
     this.furnitureListener = new CollectionListener<HomePieceOfFurniture>() {
         public void collectionChanged(CollectionEvent<HomePieceOfFurniture> ev) {
@@ -2198,11 +2225,13 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
           }
           // If piece is or contains a door or a window, update walls that intersect with piece
           if (containsDoorsAndWindows(piece)) {
-            updateObjects(home.getWalls());
+            updateWallsAroundDoorsAndWindows(piece, ev.getType() == CollectionEvent.Type.DELETE);
           } else if (containsStaircases(piece)) {
-            updateObjects(home.getRooms());
+            updateRoomsAroundStaircases(piece, ev.getType() == CollectionEvent.Type.DELETE);
+          }
+          if (isGroundShapingPiece(piece)) {
+            groundChangeListener.propertyChange(null);
           }
-          groundChangeListener.propertyChange(null);
           updateObjectsLightScope(Arrays.asList(new HomePieceOfFurniture [] {piece}));
         }
       };
@@ -2225,6 +2254,165 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
     }
   }
   
+  /**
+   * Returns <code>true</code> if the given <code>piece</code> is or contains a piece 
+   * that digs the ground at an underground level.  
+   */
+  private boolean isGroundShapingPiece(HomePieceOfFurniture piece) {
+    if (piece instanceof HomeFurnitureGroup) {
+      for (HomePieceOfFurniture groupPiece : ((HomeFurnitureGroup)piece).getFurniture()) {
+        if (isGroundShapingPiece(groupPiece)) {
+          return true;
+        }
+      }
+      return false;
+    } else {
+      return piece.getLevel() != null
+          && piece.getLevel().getElevation() < 0
+          && piece.getGroundElevation() < 0;
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if walls at the given <code>level</code> shape the ground.  
+   */
+  private boolean isGroundShapingWall(Level level) {
+    return level != null 
+        && level.getElevation() < 0;
+  }
+
+  /**
+   * Returns <code>true</code> if rooms at the given <code>level</code> shape the ground.  
+   */
+  private boolean isGroundShapingRoom(Level level) {
+    return level == null 
+        || level.getElevation() <= 0;
+  }
+
+  /**
+   * Returns the doors and windows that are or belong to the given <code>piece</code>.  
+   */
+  private List<HomePieceOfFurniture> getDoorsAndWindows(HomePieceOfFurniture piece) {
+    List<HomePieceOfFurniture> doorsAndWindows = new ArrayList<HomePieceOfFurniture>();
+    if (piece instanceof HomeFurnitureGroup) {
+      for (HomePieceOfFurniture groupPiece : ((HomeFurnitureGroup)piece).getFurniture()) {
+        doorsAndWindows.addAll(getDoorsAndWindows(groupPiece));
+      }
+    } else if (piece.isDoorOrWindow()) {
+      doorsAndWindows.add(piece);
+    }
+    return doorsAndWindows;
+  }
+
+  /**
+   * Updates the walls which intersect the doors and windows of the given <code>piece</code>
+   * at their previous or their current location. 
+   */
+  private void updateWallsAroundDoorsAndWindows(HomePieceOfFurniture piece, boolean deleted) {
+    SpatialIndex<Wall> wallsIndex = getWallsIndex();
+    Collection<Wall> walls = new HashSet<Wall>();
+    for (HomePieceOfFurniture doorOrWindow : getDoorsAndWindows(piece)) {
+      Rectangle2D oldBounds;
+      if (deleted) {
+        oldBounds = this.doorsAndWindowsBounds.remove(doorOrWindow);
+      } else {
+        Rectangle2D newBounds = getBounds(doorOrWindow.getPoints());
+        oldBounds = this.doorsAndWindowsBounds.put(doorOrWindow, newBounds);
+        walls.addAll(wallsIndex.getItemsIntersecting(newBounds));
+      }
+      if (oldBounds != null) {
+        walls.addAll(wallsIndex.getItemsIntersecting(oldBounds));
+      }
+    }
+    updateObjects(walls);
+  }
+
+  /**
+   * Returns the index of home walls built from their bounds including baseboards.  
+   */
+  private SpatialIndex<Wall> getWallsIndex() {
+    if (this.wallsIndexCache == null) {
+      this.wallsIndexCache = new SpatialIndex<Wall>(200);
+      for (Wall wall : this.home.getWalls()) {
+        this.wallsIndexCache.add(wall, getBounds(wall.getPoints(true)));
+      }
+    }
+    return this.wallsIndexCache;
+  }
+
+  /**
+   * Returns the staircases that are or belong to the given <code>piece</code>.  
+   */
+  private List<HomePieceOfFurniture> getStaircases(HomePieceOfFurniture piece) {
+    List<HomePieceOfFurniture> staircases = new ArrayList<HomePieceOfFurniture>();
+    if (piece instanceof HomeFurnitureGroup) {
+      for (HomePieceOfFurniture groupPiece : ((HomeFurnitureGroup)piece).getFurniture()) {
+        staircases.addAll(getStaircases(groupPiece));
+      }
+    } else if (piece.getStaircaseCutOutShape() != null) {
+      staircases.add(piece);
+    }
+    return staircases;
+  }
+
+  /**
+   * Updates the rooms which floor or ceiling may be cut out by the staircases 
+   * of the given <code>piece</code> at their previous or their current location. 
+   */
+  private void updateRoomsAroundStaircases(HomePieceOfFurniture piece, boolean deleted) {
+    Collection<Room> rooms = new HashSet<Room>();
+    for (HomePieceOfFurniture staircase : getStaircases(piece)) {
+      StaircaseLocation oldLocation;
+      if (deleted) {
+        oldLocation = this.staircasesLocations.remove(staircase);
+      } else {
+        StaircaseLocation newLocation = new StaircaseLocation(staircase);
+        oldLocation = this.staircasesLocations.put(staircase, newLocation);
+        rooms.addAll(getRoomsAroundStaircase(newLocation));
+      }
+      if (oldLocation != null) {
+        rooms.addAll(getRoomsAroundStaircase(oldLocation));
+      }
+    }
+    updateObjects(rooms);
+  }
+
+  /**
+   * Returns the rooms which floor or ceiling may be cut out by a staircase at the given location.
+   */
+  private List<Room> getRoomsAroundStaircase(StaircaseLocation location) {
+    if (this.roomsIndexCache == null) {
+      this.roomsIndexCache = new SpatialIndex<Room>(200);
+      for (Room room : this.home.getRooms()) {
+        if (room.getPoints().length > 0) {
+          this.roomsIndexCache.add(room, getBounds(room.getPoints()));
+        }
+      }
+    }
+    List<Room> rooms = this.roomsIndexCache.getItemsIntersecting(location.getBounds());
+    for (int i = rooms.size() - 1; i >= 0; i--) {
+      Level level = rooms.get(i).getLevel();
+      // Keep rooms at a level crossed by the staircase
+      if (level == null
+          || location.getTopElevation() < level.getElevation() - level.getFloorThickness()
+          || location.getBottomElevation() > level.getElevation() + level.getHeight()) {
+        rooms.remove(i);
+      }
+    }
+    return rooms;
+  }
+
+  /**
+   * Returns the bounds of the given points.
+   */
+  private Rectangle2D getBounds(float [][] points) {
+    Rectangle2D bounds = new Rectangle2D.Float(points [0][0], points [0][1], 0, 0);
+    for (int i = 1; i < points.length; i++) {
+      bounds.add(points [i][0], points [i][1]);
+    }
+    return bounds;
+  }
+  
   /**
    * Returns <code>true</code> if the given <code>piece</code> is or contains a staircase
    * with a top cut out shape.  
@@ -2251,6 +2439,9 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
         public void propertyChange(PropertyChangeEvent ev) {
           Room updatedRoom = (Room)ev.getSource();
           String propertyName = ev.getPropertyName();
+          if (Room.Property.POINTS.name().equals(propertyName)) {
+            roomsIndexCache = null;
+          }
           if (Room.Property.FLOOR_COLOR.name().equals(propertyName)
               || Room.Property.FLOOR_TEXTURE.name().equals(propertyName)
               || Room.Property.FLOOR_SHININESS.name().equals(propertyName)
@@ -2262,7 +2453,13 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
               || Room.Property.CEILING_VISIBLE.name().equals(propertyName)
               || Room.Property.LEVEL.name().equals(propertyName)) {   
             updateObjects(home.getRooms());
-            groundChangeListener.propertyChange(null);
+            if (Room.Property.FLOOR_VISIBLE.name().equals(propertyName)
+                  && isGroundShapingRoom(updatedRoom.getLevel())
+                || Room.Property.LEVEL.name().equals(propertyName)
+                  && (isGroundShapingRoom(updatedRoom.getLevel()) 
+                      || isGroundShapingRoom((Level)ev.getOldValue()))) {
+              groundChangeListener.propertyChange(null);
+            }
           } else if (Room.Property.POINTS.name().equals(propertyName)) {   
             if (homeObjectsToUpdate != null) {
               // Don't try to optimize if more than one room to update
@@ -2294,7 +2491,9 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
                 }
               }              
             }
-            groundChangeListener.propertyChange(null);
+            if (isGroundShapingRoom(updatedRoom.getLevel())) {
+              groundChangeListener.propertyChange(null);
+            }
             updateObjectsLightScope(Arrays.asList(new Room [] {updatedRoom}));
             updateObjectsLightScope(getHomeObjects(HomeLight.class));
           }            
@@ -2318,8 +2517,11 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
               room.removePropertyChangeListener(roomChangeListener);
               break;
           }
+          roomsIndexCache = null;
           updateObjects(home.getRooms());
-          groundChangeListener.propertyChange(null);
+          if (isGroundShapingRoom(room.getLevel())) {
+            groundChangeListener.propertyChange(null);
+          }
           updateObjectsLightScope(Arrays.asList(new Room [] {room}));
           updateObjectsLightScope(getHomeObjects(HomeLight.class));
         }
@@ -2619,4 +2821,35 @@ public class HomeComponent3D extends JComponent implements com.eteks.sweethome3d
     shadow.setAppearance(shadowAppearance);    
     homeRoot.addChild(shadow);
   }
+
+  /**
+   * The bounds and the elevation range of a staircase at a given time.
+   */
+  private static class StaircaseLocation {
+    private final Rectangle2D bounds;
+    private final float       bottomElevation;
+    private final float       topElevation;
+
+    public StaircaseLocation(HomePieceOfFurniture staircase) {
+      float [][] points = staircase.getPoints();
+      this.bounds = new Rectangle2D.Float(points [0][0], points [0][1], 0, 0);
+      for (int i = 1; i < points.length; i++) {
+        this.bounds.add(points [i][0], points [i][1]);
+      }
+      this.bottomElevation = staircase.getGroundElevation();
+      this.topElevation = this.bottomElevation + staircase.getHeight();
+    }
+
+    public Rectangle2D getBounds() {
+      return this.bounds;
+    }
+
+    public float getBottomElevation() {
+      return this.bottomElevation;
+    }
+
+    public float getTopElevation() {
+      return this.topElevation;
+    }
+  }
 }
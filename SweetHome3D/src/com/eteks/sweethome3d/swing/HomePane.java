@@ -69,6 +69,7 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
@@ -162,6 +163,7 @@ import javax.swing.table.TableColumnModel;
 import javax.swing.text.JTextComponent;
 
 import com.eteks.sweethome3d.j3d.Ground3D;
+import com.eteks.sweethome3d.j3d.GLBWriter;
 import com.eteks.sweethome3d.j3d.OBJWriter;
 import com.eteks.sweethome3d.j3d.Object3DBranchFactory;
 import com.eteks.sweethome3d.model.BackgroundImage;
@@ -4349,14 +4351,22 @@ public class HomePane extends JRootPane implements HomeView {
   
   /**
    * Export to OBJ in a separate class to be able to run HomePane without Java 3D classes.
+   * If the chosen file has a .glb extension, the home is exported at binary glTF format.
    */
   private static class OBJExporter {
     public static void exportHomeToFile(Home home, String objFile, String header, 
                                         boolean exportAllToOBJ, Object3DFactory object3dFactory) throws RecorderException {
-      OBJWriter writer = null;
+      Closeable writer = null;
       boolean exportInterrupted = false;
       try {
-        writer = new OBJWriter(objFile, header, -1);
+        if (objFile.toLowerCase().endsWith(".glb")) {
+          writer = new GLBWriter(objFile, header);
+        } else {
+          OBJWriter objWriter = new OBJWriter(objFile, header, -1);
+          objWriter.setThreadCount(getExportThreadCount());
+          objWriter.setDeduplicationFractionDigits(getExportDeduplicationFractionDigits());
+          writer = objWriter;
+        }
   
         List<Selectable> exportedItems = new ArrayList<Selectable>(exportAllToOBJ
             ? home.getSelectableViewableItems()
@@ -4385,7 +4395,7 @@ public class HomePane extends JRootPane implements HomeView {
             Ground3D groundNode = new Ground3D(home, 
                 (float)homeBounds.getX(), (float)homeBounds.getY(), 
                 (float)homeBounds.getWidth(), (float)homeBounds.getHeight(), true);
-            writer.writeNode(groundNode, "ground");
+            writeNode(writer, groundNode, "ground");
           }
         }
         
@@ -4396,9 +4406,9 @@ public class HomePane extends JRootPane implements HomeView {
           Node node = (Node)object3dFactory.createObject3D(home, item, true);
           if (node != null) {
             if (item instanceof HomePieceOfFurniture) {
-              writer.writeNode(node);
+              writeNode(writer, node, null);
             } else {
-              writer.writeNode(node, item.getClass().getSimpleName().toLowerCase() + "_" + ++i);
+              writeNode(writer, node, item.getClass().getSimpleName().toLowerCase() + "_" + ++i);
             }
           }
         }
@@ -4422,6 +4432,57 @@ public class HomePane extends JRootPane implements HomeView {
       }
     }
     
+    /**
+     * Writes the given <code>node</code> with <code>writer</code>.
+     */
+    private static void writeNode(Closeable writer, Node node, String nodeName) throws IOException {
+      if (writer instanceof GLBWriter) {
+        ((GLBWriter)writer).writeNode(node, nodeName);
+      } else {
+        ((OBJWriter)writer).writeNode(node, nodeName);
+      }
+    }
+
+    /**
+     * Returns the count of threads used to convert home items at OBJ format, 
+     * read from <code>com.eteks.sweethome3d.swing.objExportThreadCount</code> System property.
+     * By default, items are converted with as many threads as available processors. As vertices 
+     * aren't shared among items converted in parallel, this property may be set to 1 
+     * to get smaller exported files. 
+     */
+    private static int getExportThreadCount() {
+      return Math.max(0, getIntegerProperty("com.eteks.sweethome3d.swing.objExportThreadCount", 0));
+    }
+
+    /**
+     * Returns the count of fraction digits used to compare the coordinates of exported elements
+     * to write them only once, read from <code>com.eteks.sweethome3d.swing.objExportDeduplicationFractionDigits</code> 
+     * System property. By default, coordinates are compared with 4 fraction digits, a precision  
+     * of 1 micrometer far smaller than the one of home items, which lets elements computed with  
+     * rounding errors be written only once. A negative value compares exact coordinates.
+     */
+    private static int getExportDeduplicationFractionDigits() {
+      return getIntegerProperty("com.eteks.sweethome3d.swing.objExportDeduplicationFractionDigits", 4);
+    }
+
+    /**
+     * Returns the integer value of the given System property or <code>defaultValue</code>
+     * if it doesn't exist or can't be read.
+     */
+    private static int getIntegerProperty(String propertyName, int defaultValue) {
+      try {
+        String value = System.getProperty(propertyName);
+        if (value != null) {
+          return Integer.parseInt(value);
+        }
+      } catch (NumberFormatException ex) {
+        // Ignore wrong value
+      } catch (SecurityException ex) {
+        // Ignore property
+      }
+      return defaultValue;
+    }
+
     /**
      * Returns <code>home</code> bounds. 
      */
@@ -21,22 +21,18 @@ package com.eteks.sweethome3d.swing;
 
 import java.awt.Component;
 import java.awt.Graphics;
-import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
-import javax.imageio.ImageIO;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 
 import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.tools.ImageManager;
 import com.eteks.sweethome3d.tools.ResourceURLContent;
 
 /**
@@ -51,8 +47,6 @@ public class IconManager {
   private final Content                          waitIconContent;
   // Map storing loaded icons
   private final Map<Content, Map<Integer, Icon>> icons;
-  // Executor used by IconProxy to load images
-  private ExecutorService                        iconsLoader;
 
   private IconManager() {
     this.errorIconContent = new ResourceURLContent(IconManager.class, "resources/icons/tango/image-missing.png");
@@ -71,14 +65,9 @@ public class IconManager {
   }
 
   /**
-   * Clears the loaded resources cache and shutdowns the multithreaded service 
-   * that loads icons. 
+   * Clears the loaded resources cache. 
    */
   public void clear() {
-    if (this.iconsLoader != null) {
-      this.iconsLoader.shutdownNow();
-      this.iconsLoader = null;
-    }
     this.icons.clear();
   }
   
@@ -202,22 +191,12 @@ public class IconManager {
    */
   private Icon createIcon(Content content, int height, Icon errorIcon) {
     try {
-      // Read the icon of the piece 
-      InputStream contentStream = content.openStream();
-      BufferedImage image = ImageIO.read(contentStream);
-      contentStream.close();
+      // Read the icon of the piece directly at the requested height
+      BufferedImage image = height != -1
+          ? ImageManager.getInstance().readImage(content, -1, height)
+          : ImageManager.getInstance().readImage(content);
       if (image != null) {
-        if (height != -1 && height != image.getHeight()) {
-          int width = image.getWidth() * height / image.getHeight();
-          // Create a scaled image not bound to original image to let the original image being garbage collected 
-          BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-          Graphics g = scaledImage.getGraphics();
-          g.drawImage(image.getScaledInstance(width, height, Image.SCALE_SMOOTH), 0, 0, null);
-          g.dispose();
-          return new ImageIcon(scaledImage);
-        } else {
-          return new ImageIcon(image);
-        }
+        return new ImageIcon(image);
       }
     } catch (IOException ex) {
       // Too bad, we'll use errorIcon
@@ -236,11 +215,8 @@ public class IconManager {
                      final Component waitingComponent,
                      final Icon errorIcon, Icon waitIcon) {
       this.icon = waitIcon;
-      if (iconsLoader == null) {
-        iconsLoader = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-      }
       // Load the icon in a different thread
-      iconsLoader.execute(new Runnable () {
+      ImageManager.getInstance().execute(new Runnable () {
           public void run() {
             icon = createIcon(content, height, errorIcon);
             waitingComponent.repaint();
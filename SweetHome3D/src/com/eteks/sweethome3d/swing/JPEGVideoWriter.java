@@ -0,0 +1,401 @@
+/*
+ * JPEGVideoWriter.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.swing;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A writer able to create a QuickTime movie file made of JPEG frames (Motion JPEG),
+ * without Java Media Framework. Frames are compressed in a separate thread
+ * and written to the movie file as soon as they're available,
+ * so only a few frames are kept in memory whatever the length of the movie.
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class JPEGVideoWriter {
+  // Count of frames that may wait to be compressed
+  private static final int MAXIMUM_PENDING_FRAMES = 2;
+  // QuickTime time is counted in seconds since 1904
+  private static final long QUICKTIME_EPOCH_OFFSET = 2082844800L;
+
+  private final File                 file;
+  private final int                  width;
+  private final int                  height;
+  private final int                  frameRate;
+  private final DataOutputStream     out;
+  private final ExecutorService      framesEncoder;
+  private final Queue<Future<?>>     pendingFrames;
+  private long                       offset;
+  private int                        frameCount;
+  private int []                     frameSizes;
+  private long []                    frameOffsets;
+  private boolean                    closed;
+
+  /**
+   * Creates a writer that will save the movie in the given <code>file</code>.
+   */
+  public JPEGVideoWriter(File file, int width, int height, int frameRate) throws IOException {
+    if (width <= 0 || height <= 0 || frameRate <= 0) {
+      throw new IllegalArgumentException("Invalid video size or frame rate");
+    }
+    this.file = file;
+    this.width = width;
+    this.height = height;
+    this.frameRate = frameRate;
+    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+    this.framesEncoder = Executors.newSingleThreadExecutor();
+    this.pendingFrames = new LinkedList<Future<?>>();
+    this.frameSizes = new int [256];
+    this.frameOffsets = new long [256];
+
+    writeAtomHeader("ftyp", 20);
+    this.out.writeBytes("qt  ");
+    this.out.writeInt(0x20050300);
+    this.out.writeBytes("qt  ");
+    // Media data atom with a 64 bit size updated once all the frames are written
+    this.out.writeInt(1);
+    this.out.writeBytes("mdat");
+    this.out.writeLong(0);
+    this.offset = 20 + 16;
+  }
+
+  /**
+   * Adds the given <code>image</code> at the end of the movie. The image is copied
+   * and compressed in an other thread, letting the caller compute the next frame meanwhile.
+   * @throws InterruptedIOException if current thread was interrupted while waiting for
+   *                the compression of previous frames.
+   */
+  public void writeFrame(BufferedImage image) throws IOException {
+    checkNotClosed();
+    // Copy image because it may be reused by the caller
+    final BufferedImage frame = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2D = (Graphics2D)frame.getGraphics();
+    g2D.drawImage(image, 0, 0, this.width, this.height, null);
+    g2D.dispose();
+    while (this.pendingFrames.size() >= MAXIMUM_PENDING_FRAMES) {
+      waitForFrame(this.pendingFrames.poll());
+    }
+    this.pendingFrames.add(this.framesEncoder.submit(new Callable<Void>() {
+        public Void call() throws IOException {
+          ByteArrayOutputStream jpegOut = new ByteArrayOutputStream();
+          if (!ImageIO.write(frame, "JPEG", jpegOut)) {
+            throw new IOException("No JPEG writer available");
+          }
+          writeFrameData(jpegOut.toByteArray());
+          return null;
+        }
+      }));
+  }
+
+  /**
+   * Adds the given JPEG data at the end of the movie.
+   */
+  public void writeFrame(byte [] jpegData) throws IOException {
+    checkNotClosed();
+    waitForPendingFrames();
+    writeFrameData(jpegData);
+  }
+
+  /**
+   * Writes JPEG data in the media data atom and keeps track of its location.
+   */
+  private void writeFrameData(byte [] jpegData) throws IOException {
+    if (this.frameCount == this.frameSizes.length) {
+      int [] frameSizes = new int [this.frameCount * 2];
+      System.arraycopy(this.frameSizes, 0, frameSizes, 0, this.frameCount);
+      this.frameSizes = frameSizes;
+      long [] frameOffsets = new long [this.frameCount * 2];
+      System.arraycopy(this.frameOffsets, 0, frameOffsets, 0, this.frameCount);
+      this.frameOffsets = frameOffsets;
+    }
+    this.out.write(jpegData);
+    this.frameSizes [this.frameCount] = jpegData.length;
+    this.frameOffsets [this.frameCount] = this.offset;
+    this.frameCount++;
+    this.offset += jpegData.length;
+  }
+
+  /**
+   * Returns the count of frames written in the movie.
+   */
+  public int getFrameCount() {
+    return this.frameCount;
+  }
+
+  /**
+   * Waits for the end of the compression of the given frame.
+   */
+  private void waitForFrame(Future<?> frame) throws IOException {
+    try {
+      frame.get();
+    } catch (InterruptedException ex) {
+      abort();
+      throw new InterruptedIOException("Video writing interrupted");
+    } catch (ExecutionException ex) {
+      abort();
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
+      } else {
+        throw new IOException(cause.getMessage());
+      }
+    }
+  }
+
+  private void waitForPendingFrames() throws IOException {
+    while (!this.pendingFrames.isEmpty()) {
+      waitForFrame(this.pendingFrames.poll());
+    }
+  }
+
+  private void checkNotClosed() throws IOException {
+    if (this.closed) {
+      throw new IOException("Video writer closed");
+    }
+  }
+
+  /**
+   * Stops the compression of pending frames and closes the movie file, leaving it unfinished.
+   */
+  public void abort() {
+    if (!this.closed) {
+      this.closed = true;
+      this.framesEncoder.shutdownNow();
+      this.pendingFrames.clear();
+      try {
+        this.out.close();
+      } catch (IOException ex) {
+        // Ignore close exception of an unfinished file
+      }
+    }
+  }
+
+  /**
+   * Writes the movie index once all the pending frames are written, and closes the movie file.
+   */
+  public void close() throws IOException {
+    if (!this.closed) {
+      try {
+        waitForPendingFrames();
+        this.framesEncoder.shutdown();
+        writeMovieAtom();
+        this.out.close();
+        this.closed = true;
+        // Update the size of the media data atom
+        RandomAccessFile movieFile = new RandomAccessFile(this.file, "rw");
+        try {
+          movieFile.seek(20 + 8);
+          movieFile.writeLong(this.offset - 20);
+        } finally {
+          movieFile.close();
+        }
+      } finally {
+        abort();
+      }
+    }
+  }
+
+  /**
+   * Writes the movie atom that describes the video track and the location of its frames.
+   */
+  private void writeMovieAtom() throws IOException {
+    long creationTime = System.currentTimeMillis() / 1000 + QUICKTIME_EPOCH_OFFSET;
+    int duration = this.frameCount;
+    boolean largeOffsets = this.offset > 0xFFFFFFFFL;
+
+    int stsdSize = 8 + 8 + 86;
+    int sttsSize = 8 + 8 + 8;
+    int stscSize = 8 + 8 + 12;
+    int stszSize = 8 + 12 + 4 * this.frameCount;
+    int stcoSize = 8 + 8 + (largeOffsets ? 8 : 4) * this.frameCount;
+    int stblSize = 8 + stsdSize + sttsSize + stscSize + stszSize + stcoSize;
+    int drefSize = 8 + 8 + 12;
+    int dinfSize = 8 + drefSize;
+    int vmhdSize = 8 + 12;
+    int dataHandlerSize = 8 + 24 + 1;
+    int minfSize = 8 + vmhdSize + dataHandlerSize + dinfSize + stblSize;
+    int mediaHandlerSize = 8 + 24 + 1;
+    int mdhdSize = 8 + 24;
+    int mdiaSize = 8 + mdhdSize + mediaHandlerSize + minfSize;
+    int tkhdSize = 8 + 84;
+    int trakSize = 8 + tkhdSize + mdiaSize;
+    int mvhdSize = 8 + 100;
+    int moovSize = 8 + mvhdSize + trakSize;
+
+    writeAtomHeader("moov", moovSize);
+    writeAtomHeader("mvhd", mvhdSize);
+    this.out.writeInt(0); // Version and flags
+    this.out.writeInt((int)creationTime);
+    this.out.writeInt((int)creationTime); // Modification time
+    this.out.writeInt(this.frameRate); // Time scale
+    this.out.writeInt(duration);
+    this.out.writeInt(0x00010000); // Preferred rate
+    this.out.writeShort(0x0100); // Preferred volume
+    this.out.write(new byte [10]);
+    writeIdentityMatrix();
+    this.out.write(new byte [24]); // Preview, poster, selection and current times
+    this.out.writeInt(2); // Next track ID
+
+    writeAtomHeader("trak", trakSize);
+    writeAtomHeader("tkhd", tkhdSize);
+    this.out.writeInt(0x0000000F); // Version and flags (enabled, in movie, in preview and in poster)
+    this.out.writeInt((int)creationTime);
+    this.out.writeInt((int)creationTime);
+    this.out.writeInt(1); // Track ID
+    this.out.writeInt(0);
+    this.out.writeInt(duration);
+    this.out.write(new byte [8]);
+    this.out.writeShort(0); // Layer
+    this.out.writeShort(0); // Alternate group
+    this.out.writeShort(0); // Volume
+    this.out.writeShort(0);
+    writeIdentityMatrix();
+    this.out.writeInt(this.width << 16);
+    this.out.writeInt(this.height << 16);
+
+    writeAtomHeader("mdia", mdiaSize);
+    writeAtomHeader("mdhd", mdhdSize);
+    this.out.writeInt(0);
+    this.out.writeInt((int)creationTime);
+    this.out.writeInt((int)creationTime);
+    this.out.writeInt(this.frameRate);
+    this.out.writeInt(duration);
+    this.out.writeShort(0); // Language
+    this.out.writeShort(0); // Quality
+    writeHandlerAtom(mediaHandlerSize, "mhlr", "vide");
+
+    writeAtomHeader("minf", minfSize);
+    writeAtomHeader("vmhd", vmhdSize);
+    this.out.writeInt(0x00000001);
+    this.out.writeShort(0x0040); // Dither copy graphics mode
+    this.out.write(new byte [6]); // Opcolor
+    writeHandlerAtom(dataHandlerSize, "dhlr", "alis");
+    writeAtomHeader("dinf", dinfSize);
+    writeAtomHeader("dref", drefSize);
+    this.out.writeInt(0);
+    this.out.writeInt(1); // Entry count
+    writeAtomHeader("alis", 12);
+    this.out.writeInt(0x00000001); // Data in same file
+
+    writeAtomHeader("stbl", stblSize);
+    writeAtomHeader("stsd", stsdSize);
+    this.out.writeInt(0);
+    this.out.writeInt(1); // Entry count
+    this.out.writeInt(86); // Sample description size
+    this.out.writeBytes("jpeg");
+    this.out.write(new byte [6]);
+    this.out.writeShort(1); // Data reference index
+    this.out.writeShort(0); // Version
+    this.out.writeShort(0); // Revision
+    this.out.writeInt(0); // Vendor
+    this.out.writeInt(0); // Temporal quality
+    this.out.writeInt(512); // Spatial quality
+    this.out.writeShort(this.width);
+    this.out.writeShort(this.height);
+    this.out.writeInt(0x00480000); // 72 dpi
+    this.out.writeInt(0x00480000);
+    this.out.writeInt(0); // Data size
+    this.out.writeShort(1); // Frame count per sample
+    byte [] compressorName = new byte [32];
+    String name = "Photo - JPEG";
+    compressorName [0] = (byte)name.length();
+    System.arraycopy(name.getBytes("ISO-8859-1"), 0, compressorName, 1, name.length());
+    this.out.write(compressorName);
+    this.out.writeShort(24); // Depth
+    this.out.writeShort(-1); // Default color table
+
+    writeAtomHeader("stts", sttsSize);
+    this.out.writeInt(0);
+    this.out.writeInt(1);
+    this.out.writeInt(this.frameCount);
+    this.out.writeInt(1); // Each frame lasts 1 / frameRate s
+
+    writeAtomHeader("stsc", stscSize);
+    this.out.writeInt(0);
+    this.out.writeInt(1);
+    this.out.writeInt(1); // First chunk
+    this.out.writeInt(1); // One frame per chunk
+    this.out.writeInt(1); // Sample description ID
+
+    writeAtomHeader("stsz", stszSize);
+    this.out.writeInt(0);
+    this.out.writeInt(0); // Frames have different sizes
+    this.out.writeInt(this.frameCount);
+    for (int i = 0; i < this.frameCount; i++) {
+      this.out.writeInt(this.frameSizes [i]);
+    }
+
+    writeAtomHeader(largeOffsets ? "co64" : "stco", stcoSize);
+    this.out.writeInt(0);
+    this.out.writeInt(this.frameCount);
+    for (int i = 0; i < this.frameCount; i++) {
+      if (largeOffsets) {
+        this.out.writeLong(this.frameOffsets [i]);
+      } else {
+        this.out.writeInt((int)this.frameOffsets [i]);
+      }
+    }
+  }
+
+  private void writeAtomHeader(String type, int size) throws IOException {
+    this.out.writeInt(size);
+    this.out.writeBytes(type);
+  }
+
+  private void writeHandlerAtom(int size, String componentType, String componentSubtype) throws IOException {
+    writeAtomHeader("hdlr", size);
+    this.out.writeInt(0);
+    this.out.writeBytes(componentType);
+    this.out.writeBytes(componentSubtype);
+    this.out.writeInt(0); // Manufacturer
+    this.out.writeInt(0); // Flags
+    this.out.writeInt(0); // Flags mask
+    this.out.writeByte(0); // Empty name
+  }
+
+  private void writeIdentityMatrix() throws IOException {
+    int [] matrix = {0x00010000, 0, 0, 0, 0x00010000, 0, 0, 0, 0x40000000};
+    for (int value : matrix) {
+      this.out.writeInt(value);
+    }
+  }
+}
@@ -135,6 +135,7 @@ public class PhotoPanel extends JPanel implements DialogView {
   private JPanel                   photoPanel;
   private CardLayout               photoCardLayout;
   private ExecutorService          photoCreationExecutor;
+  private volatile PhotoRenderer   photoRenderer;
   private long                     photoCreationStartTime;
   private JButton                  createButton;
   private JButton                  saveButton;
@@ -778,7 +779,16 @@ public class PhotoPanel extends JPanel implements DialogView {
               photoCardLayout.show(photoPanel, PHOTO_CARD);
             }
           });
-          photoRenderer.render(image, camera, this.photoComponent);
+          photoRenderer.setThreadCount(this.preferences.getPhotoRenderingThreadCount());
+          this.photoRenderer = photoRenderer;
+          if (this.preferences.isProgressivePhotoRenderingEnabled()) {
+            // Render photo progressively to display quickly a preview of the photo 
+            photoRenderer.renderProgressively(image, camera, 
+                this.preferences.getPhotoRenderingMaximumDuration() * 1000L, this.photoComponent);
+          } else {
+            photoRenderer.render(image, camera, this.photoComponent);
+          }
+          this.photoRenderer = null;
           photoRenderer.dispose();
         }
       } else {
@@ -846,6 +856,11 @@ public class PhotoPanel extends JPanel implements DialogView {
                   this.preferences.getLocalizedString(PhotoPanel.class, "confirmStopCreation.title"), 
                   JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION)) {
       if (this.photoCreationExecutor != null) { // Check a second time in case rendering stopped meanwhile
+        PhotoRenderer photoRenderer = this.photoRenderer;
+        if (photoRenderer != null) {
+          // Stop also the next passes of a progressive rendering
+          photoRenderer.stop();
+        }
         // Will interrupt executor thread      
         this.photoCreationExecutor.shutdownNow();
         this.photoCreationExecutor = null;
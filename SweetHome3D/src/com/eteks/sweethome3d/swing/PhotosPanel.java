@@ -632,6 +632,8 @@ public class PhotosPanel extends JPanel implements DialogView {
   private void computePhotos(Home home, final Map<Camera, File> cameraFiles) {
     BufferedImage image = null;
     boolean success = false;
+    PhotoRenderer photoRenderer = null;
+    PhotoRenderer.Quality photoRendererQuality = null;
     try {
       int photoIndex = 0;
       for (Map.Entry<Camera, File> cameraEntry : cameraFiles.entrySet()) {
@@ -642,10 +644,20 @@ public class PhotosPanel extends JPanel implements DialogView {
         home.setCamera(camera);
         if (quality >= 2) {
           // Use photo renderer
-          PhotoRenderer photoRenderer = new PhotoRenderer(home, this.object3dFactory,
-            quality == 2 
-                ? PhotoRenderer.Quality.LOW 
-                : PhotoRenderer.Quality.HIGH);
+          PhotoRenderer.Quality photoQuality = quality == 2 
+              ? PhotoRenderer.Quality.LOW 
+              : PhotoRenderer.Quality.HIGH;
+          if (photoRenderer == null
+              || photoRendererQuality != photoQuality
+              || !photoRenderer.isCameraCompatible(camera)) {
+            // Export home scene only when it can't be shared with the previous camera
+            if (photoRenderer != null) {
+              photoRenderer.dispose();
+            }
+            photoRenderer = new PhotoRenderer(home, this.object3dFactory, photoQuality);
+            photoRenderer.setThreadCount(this.preferences.getPhotoRenderingThreadCount());
+            photoRendererQuality = photoQuality;
+          }
           int bestImageHeight;
           // Update ratio if lens is fisheye or spherical
           if (camera.getLens() == Camera.Lens.FISHEYE) {
@@ -691,6 +703,9 @@ public class PhotosPanel extends JPanel implements DialogView {
     } catch (IOException ex) {
       showPhotosComputingError(ex);
     } finally { 
+      if (photoRenderer != null) {
+        photoRenderer.dispose();
+      }
       final boolean succeeded = success;
       EventQueue.invokeLater(new Runnable() {
           public void run() {
@@ -34,6 +34,7 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
@@ -46,7 +47,7 @@ import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.TexturePaint;
-import java.awt.Toolkit;
+import java.awt.Transparency;
 import java.awt.Window;
 import java.awt.dnd.DragSource;
 import java.awt.event.ActionEvent;
@@ -71,14 +72,12 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.FilteredImageSource;
-import java.awt.image.MemoryImageSource;
 import java.awt.image.RGBImageFilter;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
@@ -105,7 +104,6 @@ import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-import javax.imageio.ImageIO;
 import javax.media.j3d.AmbientLight;
 import javax.media.j3d.Appearance;
 import javax.media.j3d.Background;
@@ -181,6 +179,7 @@ import com.eteks.sweethome3d.model.Home;
 import com.eteks.sweethome3d.model.HomeDoorOrWindow;
 import com.eteks.sweethome3d.model.HomeFurnitureGroup;
 import com.eteks.sweethome3d.model.HomeLight;
+import com.eteks.sweethome3d.model.HomeMaterial;
 import com.eteks.sweethome3d.model.HomePieceOfFurniture;
 import com.eteks.sweethome3d.model.HomeTexture;
 import com.eteks.sweethome3d.model.Label;
@@ -197,6 +196,8 @@ import com.eteks.sweethome3d.model.TextStyle;
 import com.eteks.sweethome3d.model.TextureImage;
 import com.eteks.sweethome3d.model.UserPreferences;
 import com.eteks.sweethome3d.model.Wall;
+import com.eteks.sweethome3d.tools.AreaUnion;
+import com.eteks.sweethome3d.tools.ImageManager;
 import com.eteks.sweethome3d.tools.OperatingSystem;
 import com.eteks.sweethome3d.viewcontroller.PlanController;
 import com.eteks.sweethome3d.viewcontroller.PlanView;
@@ -300,6 +301,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   private Rectangle2D                       planBoundsCache;  
   private boolean                           planBoundsCacheValid = false;  
   private BufferedImage                     backgroundImageCache;
+  private float                             backgroundImageCacheScale;
+  private float                             backgroundImageLoadingScale;
   private Map<TextureImage, BufferedImage>  patternImagesCache;
   private List<Wall>                        otherLevelsWallsCache;
   private Area                              otherLevelsWallAreaCache;
@@ -307,11 +310,15 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   private Area                              otherLevelsRoomAreaCache;
   private Color                             wallsPatternBackgroundCache;
   private Color                             wallsPatternForegroundCache;
-  private Map<Collection<Wall>, Area>       wallAreasCache;
+  private Map<TextureImage, AreaUnion<Wall>> wallAreasCache;
   private Map<RotatedTextureKey, BufferedImage> floorTextureImagesCache;
   private Map<HomePieceOfFurniture, PieceOfFurnitureTopViewIcon> furnitureTopViewIconsCache;
+  private StaticLayersTiles                 staticLayersTiles;
+  private Map<Selectable, Rectangle2D>      staticItemsBoundsCache;
+  private Map<Selectable, Rectangle2D>      itemBoundsCache;
+  private boolean                           staticLayersPaintedFromTiles;
+  private boolean                           waitingContentPainted;
 
-  private static ExecutorService            backgroundImageLoader;
   
   private static final Shape       POINT_INDICATOR;
   private static final GeneralPath FURNITURE_ROTATION_INDICATOR;
@@ -346,6 +353,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   
   private static final float       WALL_STROKE_WIDTH = 1.5f;
   private static final float       BORDER_STROKE_WIDTH = 1f;
+  // Margin in pixels added around clip to keep items which only stroke or antialiasing is visible
+  private static final float       CULLING_MARGIN = 10;
   
   private static final BufferedImage ERROR_TEXTURE_IMAGE;
   private static final BufferedImage WAIT_TEXTURE_IMAGE;
@@ -599,6 +608,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     this.preferences = preferences;
     // Set JComponent default properties
     setOpaque(true);
+    if (controller != null) {
+      createStaticLayersTiles();
+    }
     // Add listeners
     addModelListeners(home, preferences, controller);
     createToolTipTextFields(preferences, controller);
@@ -632,6 +644,29 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     super.setBackground(UIManager.getColor("TextField.background"));
   }
 
+  /**
+   * Creates the tiles used to keep the static layers of the plan in memory, 
+   * if the memory size allowed to the tiles isn't zero. This size, 64 MB by default, 
+   * may be changed with the <code>com.eteks.sweethome3d.swing.planTilesCacheSize</code> 
+   * system property expressed in MB.
+   */
+  private void createStaticLayersTiles() {
+    long tilesCacheSize = 64;
+    try {
+      String cacheSize = System.getProperty("com.eteks.sweethome3d.swing.planTilesCacheSize");
+      if (cacheSize != null) {
+        tilesCacheSize = Long.parseLong(cacheSize);
+      }
+    } catch (NumberFormatException ex) {
+      // Keep default size
+    } catch (AccessControlException ex) {
+      // Keep default size
+    }
+    if (tilesCacheSize > 0) {
+      this.staticLayersTiles = new StaticLayersTiles(tilesCacheSize << 20);
+    }
+  }
+
   /**
    * Adds home items and selection listeners on this component to receive  
    * changes notifications from home. 
@@ -641,6 +676,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Add listener to update plan when furniture changes
     final PropertyChangeListener furnitureChangeListener = new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
+          invalidateStaticLayers((HomePieceOfFurniture)ev.getSource(), false);
+          invalidateItemBounds((HomePieceOfFurniture)ev.getSource());
           if (furnitureTopViewIconsCache != null
               && (HomePieceOfFurniture.Property.COLOR.name().equals(ev.getPropertyName())
                   || HomePieceOfFurniture.Property.TEXTURE.name().equals(ev.getPropertyName())
@@ -690,6 +727,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
               }
             }
           }
+          invalidateStaticLayers(piece, ev.getType() == CollectionEvent.Type.DELETE);
+          invalidateItemBounds(piece);
           sortedLevelFurniture = null;
           revalidate();
         }
@@ -712,14 +751,20 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
               otherLevelsWallAreaCache = null;
               otherLevelsWallsCache = null;
             }
-            wallAreasCache = null;
+            updateWallAreasCache((Wall)ev.getSource(), false);
+            if (ev.getOldValue() instanceof Wall) {
+              updateJoinedWallInWallAreasCache((Wall)ev.getOldValue());
+              invalidateStaticLayers((Wall)ev.getOldValue(), false);
+            }
+            invalidateWallStaticLayers((Wall)ev.getSource(), false);
             revalidate();
           } else if (Wall.Property.LEVEL.name().equals(propertyName)
               || Wall.Property.HEIGHT.name().equals(propertyName)
               || Wall.Property.HEIGHT_AT_END.name().equals(propertyName)) {
             otherLevelsWallAreaCache = null;
             otherLevelsWallsCache = null;
-            wallAreasCache = null;
+            updateWallAreasCache((Wall)ev.getSource(), false);
+            invalidateWallStaticLayers((Wall)ev.getSource(), false);
             repaint();
           }
         }
@@ -731,12 +776,14 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         public void collectionChanged(CollectionEvent<Wall> ev) {
           if (ev.getType() == CollectionEvent.Type.ADD) {
             ev.getItem().addPropertyChangeListener(wallChangeListener);
+            updateWallAreasCache(ev.getItem(), false);
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
             ev.getItem().removePropertyChangeListener(wallChangeListener);
+            updateWallAreasCache(ev.getItem(), true);
           }
+          invalidateWallStaticLayers(ev.getItem(), ev.getType() == CollectionEvent.Type.DELETE);
           otherLevelsWallAreaCache = null;
           otherLevelsWallsCache = null;
-          wallAreasCache = null;
           revalidate();
         }
       });
@@ -744,6 +791,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Add listener to update plan when rooms change
     final PropertyChangeListener roomChangeListener = new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
+          invalidateStaticLayers((Room)ev.getSource(), false);
+          invalidateItemBounds((Room)ev.getSource());
           String propertyName = ev.getPropertyName();
           if (Room.Property.POINTS.name().equals(propertyName)
               || Room.Property.NAME.name().equals(propertyName)
@@ -778,6 +827,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
             ev.getItem().removePropertyChangeListener(roomChangeListener);
           }
+          invalidateStaticLayers(ev.getItem(), ev.getType() == CollectionEvent.Type.DELETE);
+          invalidateItemBounds(ev.getItem());
           sortedLevelRooms = null;
           otherLevelsRoomsCache = null;
           otherLevelsRoomAreaCache = null;
@@ -788,6 +839,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
      // Add listener to update plan when polylines change
      final PropertyChangeListener changeListener = new PropertyChangeListener() {
          public void propertyChange(PropertyChangeEvent ev) {
+           invalidateItemBounds((Polyline)ev.getSource());
            String propertyName = ev.getPropertyName();
            if (Polyline.Property.COLOR.name().equals(propertyName)
                || Polyline.Property.DASH_STYLE.name().equals(propertyName)) {
@@ -806,6 +858,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             ev.getItem().addPropertyChangeListener(changeListener);
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
             ev.getItem().removePropertyChangeListener(changeListener);
+            invalidateItemBounds(ev.getItem());
           }
           revalidate();
         }
@@ -814,6 +867,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Add listener to update plan when dimension lines change
     final PropertyChangeListener dimensionLineChangeListener = new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
+          invalidateItemBounds((DimensionLine)ev.getSource());
           revalidate();
         }
       };
@@ -826,6 +880,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             ev.getItem().addPropertyChangeListener(dimensionLineChangeListener);
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
             ev.getItem().removePropertyChangeListener(dimensionLineChangeListener);
+            invalidateItemBounds(ev.getItem());
           }
           revalidate();
         }
@@ -834,6 +889,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Add listener to update plan when labels change
     final PropertyChangeListener labelChangeListener = new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
+          invalidateItemBounds((Label)ev.getSource());
           revalidate();
         }
       };
@@ -846,6 +902,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             ev.getItem().addPropertyChangeListener(labelChangeListener);
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
             ev.getItem().removePropertyChangeListener(labelChangeListener);
+            invalidateItemBounds(ev.getItem());
           }
           revalidate();
         }
@@ -857,6 +914,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           String propertyName = ev.getPropertyName();
           if (Level.Property.BACKGROUND_IMAGE.name().equals(propertyName)) {
             backgroundImageCache = null;
+            invalidateStaticLayers();
             revalidate();
           } else if (Level.Property.ELEVATION.name().equals(propertyName)
                      || Level.Property.ELEVATION_INDEX.name().equals(propertyName)
@@ -869,6 +927,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             wallAreasCache = null;
             sortedLevelFurniture = null;
             sortedLevelRooms = null;
+            invalidateStaticLayers();
             repaint();
           }
         }
@@ -884,6 +943,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
             level.removePropertyChangeListener(levelChangeListener);
           }
+          invalidateStaticLayers();
           revalidate();
         }
       });
@@ -915,6 +975,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
               || Compass.Property.NORTH_DIRECTION.name().equals(propertyName)
               || Compass.Property.DIAMETER.name().equals(propertyName)
               || Compass.Property.VISIBLE.name().equals(propertyName)) {
+            invalidateStaticLayers();
             revalidate();
           }
         }
@@ -928,6 +989,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
           backgroundImageCache = null;
+          invalidateStaticLayers();
           repaint();
         }
       });
@@ -941,6 +1003,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           wallAreasCache = null;
           sortedLevelRooms = null;
           sortedLevelFurniture = null;
+          invalidateStaticLayers();
           repaint();
         }
       });
@@ -958,6 +1021,10 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         new UserPreferencesChangeListener(this));
     preferences.addPropertyChangeListener(UserPreferences.Property.WALL_PATTERN, 
         new UserPreferencesChangeListener(this));
+    preferences.addPropertyChangeListener(UserPreferences.Property.PLAN_MINIMUM_TEXT_SIZE, 
+        new UserPreferencesChangeListener(this));
+    preferences.addPropertyChangeListener(UserPreferences.Property.PLAN_MINIMUM_DETAILED_PIECE_SIZE, 
+        new UserPreferencesChangeListener(this));
   }
 
   /**
@@ -1027,6 +1094,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           default:
             break;
         }
+        planComponent.invalidateStaticLayers();
+        // Texts of items may have changed
+        planComponent.itemBoundsCache = null;
         planComponent.repaint();
       }
     }
@@ -1603,15 +1673,15 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         BackgroundImage backgroundImage = this.home.getBackgroundImage();
         if (backgroundImage != null) {
           this.planBoundsCache.add(-backgroundImage.getXOrigin(), -backgroundImage.getYOrigin());
-          this.planBoundsCache.add(this.backgroundImageCache.getWidth() * backgroundImage.getScale() - backgroundImage.getXOrigin(),
-              this.backgroundImageCache.getHeight() * backgroundImage.getScale() - backgroundImage.getYOrigin());
+          this.planBoundsCache.add(this.backgroundImageCache.getWidth() / this.backgroundImageCacheScale * backgroundImage.getScale() - backgroundImage.getXOrigin(),
+              this.backgroundImageCache.getHeight() / this.backgroundImageCacheScale * backgroundImage.getScale() - backgroundImage.getYOrigin());
         }
         for (Level level : this.home.getLevels()) {
           BackgroundImage levelBackgroundImage = level.getBackgroundImage();
           if (levelBackgroundImage != null) {
             this.planBoundsCache.add(-levelBackgroundImage.getXOrigin(), -levelBackgroundImage.getYOrigin());
-            this.planBoundsCache.add(this.backgroundImageCache.getWidth() * levelBackgroundImage.getScale() - levelBackgroundImage.getXOrigin(),
-                this.backgroundImageCache.getHeight() * levelBackgroundImage.getScale() - levelBackgroundImage.getYOrigin());
+            this.planBoundsCache.add(this.backgroundImageCache.getWidth() / this.backgroundImageCacheScale * levelBackgroundImage.getScale() - levelBackgroundImage.getXOrigin(),
+                this.backgroundImageCache.getHeight() / this.backgroundImageCacheScale * levelBackgroundImage.getScale() - levelBackgroundImage.getYOrigin());
           }
         }
       }
@@ -1924,18 +1994,288 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Change component coordinates system to plan system
     Rectangle2D planBounds = getPlanBounds();    
     float paintScale = getScale();
-    g2D.translate(insets.left + (MARGIN - planBounds.getMinX()) * paintScale,
-        insets.top + (MARGIN - planBounds.getMinY()) * paintScale);
+    double xOrigin = insets.left + (MARGIN - planBounds.getMinX()) * paintScale;
+    double yOrigin = insets.top + (MARGIN - planBounds.getMinY()) * paintScale;
+    // Blit static layers from tiles if possible, then paint other items over them 
+    this.staticLayersPaintedFromTiles = this.staticLayersTiles != null
+        && paintStaticLayersTiles(g2D, xOrigin, yOrigin, paintScale);
+    g2D.translate(xOrigin, yOrigin);
     g2D.scale(paintScale, paintScale);
     setRenderingHints(g2D);
     try {
       paintContent(g2D, paintScale, PaintMode.PAINT);
     } catch (InterruptedIOException ex) {
       // Ignore exception because it may happen only in EXPORT paint mode 
-    }   
+    } finally {
+      this.staticLayersPaintedFromTiles = false;
+    }
     g2D.dispose();
   }
 
+  /**
+   * Paints the static layers of the plan with the tiles of <code>staticLayersTiles</code>, 
+   * after computing the tiles intersecting the clip of <code>g2D</code> that are missing.
+   * @return <code>false</code> if tiles can't be used with the transformation of <code>g2D</code>.
+   */
+  private boolean paintStaticLayersTiles(Graphics2D g2D, double xOrigin, double yOrigin, float paintScale) {
+    AffineTransform deviceTransform = g2D.getTransform();
+    Rectangle clipBounds = g2D.getClipBounds();
+    if (clipBounds == null
+        || clipBounds.isEmpty()
+        || deviceTransform.getShearX() != 0
+        || deviceTransform.getShearY() != 0
+        || deviceTransform.getScaleX() != deviceTransform.getScaleY()
+        || deviceTransform.getScaleX() <= 0) {
+      return false;
+    }
+    double deviceScale = deviceTransform.getScaleX();
+    Color backgroundColor = getBackgroundColor(PaintMode.PAINT);
+    Color foregroundColor = getForegroundColor(PaintMode.PAINT);
+    // Tiles are computed again if one of the following parameters changed 
+    this.staticLayersTiles.update(paintScale, xOrigin, yOrigin, deviceScale, 
+        this.home.getSelectedLevel(), backgroundColor, foregroundColor, this.backgroundPainted, 
+        this.wallsDoorsOrWindowsModification, this.backgroundImageCache);
+    
+    int tileSize = StaticLayersTiles.TILE_SIZE;
+    int minColumn = (int)Math.floor((double)clipBounds.x / tileSize);
+    int maxColumn = (int)Math.floor((double)(clipBounds.x + clipBounds.width - 1) / tileSize);
+    int minRow = (int)Math.floor((double)clipBounds.y / tileSize);
+    int maxRow = (int)Math.floor((double)(clipBounds.y + clipBounds.height - 1) / tileSize);
+    this.staticLayersTiles.setMinimumTileCount((maxColumn - minColumn + 1) * (maxRow - minRow + 1));
+    Rectangle missingTilesBounds = null;
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        if (!this.staticLayersTiles.isTileValid(column, row)) {
+          Rectangle tileBounds = new Rectangle(column * tileSize, row * tileSize, tileSize, tileSize);
+          if (missingTilesBounds == null) {
+            missingTilesBounds = tileBounds;
+          } else {
+            missingTilesBounds.add(tileBounds);
+          }
+        }
+      }
+    }
+    
+    if (missingTilesBounds != null) {
+      if (this.staticItemsBoundsCache == null) {
+        // Store the bounds of items to be able to invalidate the tiles where they were displayed once modified 
+        this.staticItemsBoundsCache = new IdentityHashMap<Selectable, Rectangle2D>();
+        for (HomePieceOfFurniture piece : this.home.getFurniture()) {
+          updateStaticItemBounds(piece, false);
+        }
+        for (Wall wall : this.home.getWalls()) {
+          updateStaticItemBounds(wall, false);
+        }
+        for (Room room : this.home.getRooms()) {
+          updateStaticItemBounds(room, false);
+        }
+      }
+      // Paint static layers once in an image covering all the missing tiles 
+      BufferedImage layersImage = new BufferedImage(
+          (int)Math.ceil(missingTilesBounds.width * deviceScale), 
+          (int)Math.ceil(missingTilesBounds.height * deviceScale), BufferedImage.TYPE_INT_ARGB_PRE);
+      Graphics2D layersG2D = layersImage.createGraphics();
+      layersG2D.scale(deviceScale, deviceScale);
+      layersG2D.translate(-missingTilesBounds.x, -missingTilesBounds.y);
+      layersG2D.clipRect(missingTilesBounds.x, missingTilesBounds.y, missingTilesBounds.width, missingTilesBounds.height);
+      layersG2D.translate(xOrigin, yOrigin);
+      layersG2D.scale(paintScale, paintScale);
+      setRenderingHints(layersG2D);
+      int tilesVersion = this.staticLayersTiles.getVersion();
+      this.waitingContentPainted = false;
+      try {
+        paintStaticLayers(layersG2D, paintScale, backgroundColor, foregroundColor);
+      } catch (InterruptedIOException ex) {
+        // Ignore exception because it may happen only in EXPORT paint mode 
+      }   
+      layersG2D.dispose();
+      // Tiles containing items not ready yet or invalidated during painting will be computed again 
+      boolean validTiles = !this.waitingContentPainted
+          && tilesVersion == this.staticLayersTiles.getVersion();
+      
+      int tileImageSize = (int)Math.ceil(tileSize * deviceScale);
+      GraphicsConfiguration graphicsConfiguration = getGraphicsConfiguration();
+      for (int row = minRow; row <= maxRow; row++) {
+        for (int column = minColumn; column <= maxColumn; column++) {
+          int x = column * tileSize;
+          int y = row * tileSize;
+          if (missingTilesBounds.contains(x, y)
+              && !this.staticLayersTiles.isTileValid(column, row)) {
+            BufferedImage tileImage = graphicsConfiguration != null
+                ? graphicsConfiguration.createCompatibleImage(tileImageSize, tileImageSize, Transparency.TRANSLUCENT)
+                : new BufferedImage(tileImageSize, tileImageSize, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D tileG2D = tileImage.createGraphics();
+            tileG2D.setComposite(AlphaComposite.Src);
+            tileG2D.drawImage(layersImage, (int)Math.round((missingTilesBounds.x - x) * deviceScale), 
+                (int)Math.round((missingTilesBounds.y - y) * deviceScale), null);
+            tileG2D.dispose();
+            this.staticLayersTiles.setTile(column, row, tileImage, validTiles);
+          }
+        }
+      }
+    }
+
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        g2D.drawImage(this.staticLayersTiles.getTileImage(column, row), 
+            column * tileSize, row * tileSize, tileSize, tileSize, null);
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Paints the layers of the plan which don't depend on selection and feedback 
+   * in <code>PAINT</code> mode.
+   */
+  private void paintStaticLayers(Graphics2D g2D, float planScale, 
+                                 Color backgroundColor, Color foregroundColor) throws InterruptedIOException {
+    paintBackgroundLayers(g2D, planScale, backgroundColor, foregroundColor, PaintMode.PAINT);
+    paintStaticHomeItems(g2D, this.home.getSelectedItems(), planScale, backgroundColor, foregroundColor, PaintMode.PAINT);
+  }
+
+  /**
+   * Invalidates all the tiles of static layers.
+   */
+  private void invalidateStaticLayers() {
+    if (this.staticLayersTiles != null) {
+      this.staticLayersTiles.invalidate();
+    }
+  }
+
+  /**
+   * Invalidates the tiles of static layers where the given <code>item</code> 
+   * was displayed and where it's displayed now if it's not deleted.
+   */
+  private void invalidateStaticLayers(Selectable item, boolean deletedItem) {
+    if (this.staticItemsBoundsCache != null) {
+      updateStaticItemBounds(item, deletedItem);
+    }
+  }
+
+  /**
+   * Invalidates the tiles of static layers where the given <code>wall</code> 
+   * and the walls joined to it are displayed.
+   */
+  private void invalidateWallStaticLayers(Wall wall, boolean deletedWall) {
+    if (this.staticItemsBoundsCache != null) {
+      updateStaticItemBounds(wall, deletedWall);
+      // Walls joined to the wall change of shape too
+      Wall wallAtStart = wall.getWallAtStart();
+      if (wallAtStart != null) {
+        updateStaticItemBounds(wallAtStart, false);
+      }
+      Wall wallAtEnd = wall.getWallAtEnd();
+      if (wallAtEnd != null) {
+        updateStaticItemBounds(wallAtEnd, false);
+      }
+    }
+  }
+
+  /**
+   * Invalidates the tiles of static layers intersecting the previous and the new bounds
+   * of the given <code>item</code> and stores its new bounds.
+   */
+  private void updateStaticItemBounds(Selectable item, boolean deletedItem) {
+    Rectangle2D previousBounds = deletedItem
+        ? this.staticItemsBoundsCache.remove(item)
+        : this.staticItemsBoundsCache.get(item);
+    if (previousBounds != null) {
+      this.staticLayersTiles.invalidate(previousBounds);
+    }
+    if (!deletedItem) {
+      Rectangle2D bounds = getPointsBounds(item.getPoints());
+      if (item instanceof HomeDoorOrWindow) {
+        HomeDoorOrWindow doorOrWindow = (HomeDoorOrWindow)item;
+        for (Sash sash : doorOrWindow.getSashes()) {
+          bounds.add(getDoorOrWindowSashShape(doorOrWindow, sash).getBounds2D());
+        }
+      }
+      this.staticItemsBoundsCache.put(item, bounds);
+      this.staticLayersTiles.invalidate(bounds);
+    }
+    if (item instanceof HomeFurnitureGroup) {
+      for (HomePieceOfFurniture piece : ((HomeFurnitureGroup)item).getFurniture()) {
+        updateStaticItemBounds(piece, deletedItem);
+      }
+    }
+  }
+
+  /**
+   * Returns the bounds of the clip of <code>g2D</code> enlarged to keep the items which only
+   * stroke is visible, or <code>null</code> if items shouldn't be culled.
+   * Items are culled only in <code>PAINT</code> mode, because the bounds they cache are computed 
+   * with the font of this component.
+   */
+  private Rectangle2D getCullingBounds(Graphics2D g2D, float planScale, PaintMode paintMode) {
+    Shape clip = g2D.getClip();
+    if (paintMode != PaintMode.PAINT
+        || clip == null) {
+      return null;
+    } else {
+      Rectangle2D clipBounds = clip.getBounds2D();
+      float margin = CULLING_MARGIN / planScale;
+      clipBounds.setRect(clipBounds.getX() - margin, clipBounds.getY() - margin, 
+          clipBounds.getWidth() + 2 * margin, clipBounds.getHeight() + 2 * margin);
+      return clipBounds;
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the cached bounds of the given <code>item</code> 
+   * intersect <code>cullingBounds</code> or if <code>cullingBounds</code> is <code>null</code>.
+   */
+  private boolean isItemInCullingBounds(Selectable item, Rectangle2D cullingBounds) {
+    if (cullingBounds == null) {
+      return true;
+    } 
+    if (this.itemBoundsCache == null) {
+      this.itemBoundsCache = new IdentityHashMap<Selectable, Rectangle2D>();
+    }
+    Rectangle2D itemBounds = this.itemBoundsCache.get(item);
+    if (itemBounds == null) {
+      itemBounds = getItemBounds(null, item);
+      if (item instanceof Polyline) {
+        // Add the margin occupied by thickness, joins and arrows 
+        float thickness = ((Polyline)item).getThickness();
+        float margin = 5 * thickness + 14 * (float)Math.pow(thickness, 0.66);
+        itemBounds = new Rectangle2D.Float((float)itemBounds.getX() - margin, (float)itemBounds.getY() - margin, 
+            (float)itemBounds.getWidth() + 2 * margin, (float)itemBounds.getHeight() + 2 * margin);
+      }
+      this.itemBoundsCache.put(item, itemBounds);
+    }
+    return itemBounds.intersects(cullingBounds);
+  }
+
+  /**
+   * Removes the cached bounds of the given <code>item</code>.
+   */
+  private void invalidateItemBounds(Selectable item) {
+    if (this.itemBoundsCache != null) {
+      this.itemBoundsCache.remove(item);
+      if (item instanceof HomeFurnitureGroup) {
+        for (HomePieceOfFurniture piece : ((HomeFurnitureGroup)item).getFurniture()) {
+          invalidateItemBounds(piece);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the rectangle enclosing the given <code>points</code>.
+   */
+  private Rectangle2D getPointsBounds(float [][] points) {
+    Rectangle2D bounds = new Rectangle2D.Float();
+    for (int i = 0; i < points.length; i++) {
+      if (i == 0) {
+        bounds.setRect(points [i][0], points [i][1], 0, 0);
+      } else {
+        bounds.add(points [i][0], points [i][1]);
+      }
+    }
+    return bounds;
+  }
+
   /**
    * Returns the print preferred scale of the plan drawn in this component
    * to make it fill <code>pageFormat</code> imageable size.
@@ -2223,31 +2563,60 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       // Under Mac OS X, prepare background image with alpha because Java 5/6 doesn't always 
       // paint images correctly with alpha, and Java 7 blocks for some images
       final boolean prepareBackgroundImageWithAlphaInMemory = OperatingSystem.isMacOSX();
-      if (this.backgroundImageCache == null && paintMode == PaintMode.PAINT) {
-        // Load background image in an executor
-        if (backgroundImageLoader == null) {
-          backgroundImageLoader = Executors.newSingleThreadExecutor();
+      final float imageScale = getBackgroundImageScale(g2D, backgroundImage);
+      if (paintMode == PaintMode.PAINT
+          && (this.backgroundImageCache == null
+              || this.backgroundImageCacheScale < imageScale)) {
+        if (this.backgroundImageCache == null) {
+          this.waitingContentPainted = true;
         }
-        backgroundImageLoader.execute(new Runnable() {
-            public void run() {
-              if (backgroundImageCache == null) {
-                backgroundImageCache = readBackgroundImage(backgroundImage.getImage(), prepareBackgroundImageWithAlphaInMemory);
-                revalidate();
+        if (this.backgroundImageLoadingScale < imageScale) {
+          this.backgroundImageLoadingScale = imageScale;
+          final BufferedImage previousImage = this.backgroundImageCache;
+          // Load background image at the displayed scale in the executor dedicated to images
+          ImageManager.getInstance().execute(new Runnable() {
+              public void run() {
+                final BufferedImage image = readBackgroundImage(backgroundImage.getImage(), 
+                    imageScale, prepareBackgroundImageWithAlphaInMemory);
+                // Update cache in Event Dispatch Thread where it's read
+                EventQueue.invokeLater(new Runnable() {
+                    public void run() {
+                      // Ignore image if cache was emptied or replaced in the meantime 
+                      if (backgroundImageCache == previousImage
+                          && (previousImage == null
+                              || backgroundImageCacheScale < imageScale)) {
+                        backgroundImageCacheScale = imageScale;
+                        backgroundImageCache = image;
+                      }
+                      if (backgroundImageLoadingScale == imageScale) {
+                        backgroundImageLoadingScale = 0;
+                      }
+                      revalidate();
+                    }
+                  });
               }
-            }
-          });
-      } else {
-        // Paint image at specified scale with 0.7 alpha
+            });
+        }
+      }
+      BufferedImage image = this.backgroundImageCache;
+      float paintedImageScale = this.backgroundImageCacheScale;
+      if (paintMode != PaintMode.PAINT
+          && (image == null
+              || paintedImageScale < imageScale)) {
+        image = readBackgroundImage(backgroundImage.getImage(), imageScale, prepareBackgroundImageWithAlphaInMemory);
+        paintedImageScale = imageScale;
+      }
+      if (image != null) {
+        // Paint image at specified scale with 0.7 alpha, 
+        // waiting for the image at the displayed scale if the one in cache is too small
         AffineTransform previousTransform = g2D.getTransform();
         g2D.translate(-backgroundImage.getXOrigin(), -backgroundImage.getYOrigin());
-        g2D.scale(backgroundImage.getScale(), backgroundImage.getScale());
+        g2D.scale(backgroundImage.getScale() / paintedImageScale, backgroundImage.getScale() / paintedImageScale);
         Composite oldComposite = null;
         if (!prepareBackgroundImageWithAlphaInMemory) {
           oldComposite = setTransparency(g2D, 0.7f);
         }
-        g2D.drawImage(this.backgroundImageCache != null
-            ? this.backgroundImageCache
-            : readBackgroundImage(backgroundImage.getImage(), prepareBackgroundImageWithAlphaInMemory), 0, 0, this);
+        g2D.drawImage(image, 0, 0, this);
         if (!prepareBackgroundImageWithAlphaInMemory) {
           g2D.setComposite(oldComposite);
         }
@@ -2281,28 +2650,52 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   }
 
   /**
-   * Returns the image contained in <code>imageContent</code> or an empty image if reading failed.
+   * Returns the scale at which the given background image should be decoded to be painted
+   * with <code>g2D</code>, i.e. the smallest power of 2 greater than the displayed scale and lower or equal to 1.
    */
-  private BufferedImage readBackgroundImage(Content imageContent, boolean prepareBackgroundImageWithAlpha) {
-    InputStream contentStream = null;
+  private float getBackgroundImageScale(Graphics2D g2D, BackgroundImage backgroundImage) {
+    AffineTransform transform = g2D.getTransform();
+    double displayedScale = backgroundImage.getScale() 
+        * Math.sqrt(transform.getScaleX() * transform.getScaleX() + transform.getShearY() * transform.getShearY());
+    float imageScale = 1;
+    while (imageScale / 2 >= displayedScale 
+           && imageScale > 1f / 64) {
+      imageScale /= 2;
+    }
+    return imageScale;
+  }
+
+  /**
+   * Returns the image contained in <code>imageContent</code> decoded at the given scale 
+   * or an empty image if reading failed.
+   */
+  private BufferedImage readBackgroundImage(Content imageContent, float imageScale, 
+                                            boolean prepareBackgroundImageWithAlpha) {
     try {
-      try {
-        contentStream = imageContent.openStream();
-        BufferedImage image = ImageIO.read(contentStream);
-        if (prepareBackgroundImageWithAlpha) {
-          BufferedImage backgroundImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-          Graphics2D g2D = (Graphics2D)backgroundImage.getGraphics();
-          g2D.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f));
-          g2D.drawRenderedImage(image, null);
-          g2D.dispose();
-          return backgroundImage;
-        } else {
-          return image;
-        }
-      } finally {
-        if (contentStream != null) {
-          contentStream.close();
+      ImageManager imageManager = ImageManager.getInstance();
+      BufferedImage image = null;
+      if (imageScale < 1) {
+        // Decode only the pixels required at the displayed scale 
+        Dimension imageSize = imageManager.getImageSize(imageContent);
+        if (imageSize != null) {
+          image = imageManager.readImage(imageContent, 
+              Math.max(1, Math.round(imageSize.width * imageScale)), 
+              Math.max(1, Math.round(imageSize.height * imageScale)));
         }
+      } else {
+        image = imageManager.readImage(imageContent);
+      }
+      if (image == null) {
+        return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+      } else if (prepareBackgroundImageWithAlpha) {
+        BufferedImage backgroundImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2D = (Graphics2D)backgroundImage.getGraphics();
+        g2D.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f));
+        g2D.drawRenderedImage(image, null);
+        g2D.dispose();
+        return backgroundImage;
+      } else {
+        return image;
       }
     } catch (IOException ex) {
       return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
@@ -2452,7 +2845,14 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     float xMax;
     float yMax;
     Rectangle2D planBounds = getPlanBounds();    
-    if (getParent() instanceof JViewport) {
+    Rectangle clipBounds = g2D.getClipBounds();
+    if (clipBounds != null) {
+      // Paint only the grid lines visible in clip, which may be outside of the viewport when tiles are computed
+      xMin = clipBounds.x - 1;
+      yMin = clipBounds.y - 1;
+      xMax = clipBounds.x + clipBounds.width + 1;
+      yMax = clipBounds.y + clipBounds.height + 1;
+    } else if (getParent() instanceof JViewport) {
       Rectangle viewRectangle = ((JViewport)getParent()).getViewRect();
       xMin = convertXPixelToModel(viewRectangle.x - 1);
       yMin = convertYPixelToModel(viewRectangle.y - 1);
@@ -2579,14 +2979,8 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   private void paintContent(Graphics2D g2D, float planScale, PaintMode paintMode) throws InterruptedIOException {
     Color backgroundColor = getBackgroundColor(paintMode);
     Color foregroundColor = getForegroundColor(paintMode);
-    if (this.backgroundPainted) {
-      paintBackgroundImage(g2D, paintMode);
-      if (paintMode == PaintMode.PAINT) {
-        paintOtherLevels(g2D, planScale, backgroundColor, foregroundColor);
-        if (this.preferences.isGridVisible()) {
-          paintGrid(g2D, planScale);
-        }
-      }
+    if (!this.staticLayersPaintedFromTiles) {
+      paintBackgroundLayers(g2D, planScale, backgroundColor, foregroundColor, paintMode);
     }
     
     paintHomeItems(g2D, planScale, backgroundColor, foregroundColor, paintMode);
@@ -2661,6 +3055,22 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     }
   }
   
+  /**
+   * Paints background image, other levels and grid if background is painted.
+   */
+  private void paintBackgroundLayers(Graphics2D g2D, float planScale, 
+                                     Color backgroundColor, Color foregroundColor, PaintMode paintMode) {
+    if (this.backgroundPainted) {
+      paintBackgroundImage(g2D, paintMode);
+      if (paintMode == PaintMode.PAINT) {
+        paintOtherLevels(g2D, planScale, backgroundColor, foregroundColor);
+        if (this.preferences.isGridVisible()) {
+          paintGrid(g2D, planScale);
+        }
+      }
+    }
+  }
+  
   /**
    * Paints home items at the given scale, and with background and foreground colors.
    * Outline around selected items will be painted only under <code>PAINT</code> mode. 
@@ -2669,22 +3079,6 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                                 Color backgroundColor, Color foregroundColor, PaintMode paintMode) throws InterruptedIOException {
     Graphics2D g2D = (Graphics2D)g;
     List<Selectable> selectedItems = this.home.getSelectedItems();
-    if (this.sortedLevelFurniture == null) {
-      // Sort home furniture in elevation order
-      this.sortedLevelFurniture = new ArrayList<HomePieceOfFurniture>();
-      for (HomePieceOfFurniture piece : this.home.getFurniture()) {
-        if (isViewableAtSelectedLevel(piece)) {
-          this.sortedLevelFurniture.add(piece);
-        }
-      }
-      Collections.sort(this.sortedLevelFurniture,
-          new Comparator<HomePieceOfFurniture>() {
-            public int compare(HomePieceOfFurniture piece1, HomePieceOfFurniture piece2) {
-              return Float.compare(piece1.getGroundElevation(), piece2.getGroundElevation());
-            }
-          });
-    }    
-    
     Color selectionColor = getSelectionColor(); 
     Paint selectionOutlinePaint = new Color(selectionColor.getRed(), selectionColor.getGreen(), 
         selectionColor.getBlue(), 128);
@@ -2696,17 +3090,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         1 / planScale, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_BEVEL, 0, 
         new float [] {20 / planScale, 5 / planScale, 5 / planScale, 5 / planScale}, 4 / planScale);
 
-    paintCompass(g2D, selectedItems, planScale, foregroundColor, paintMode);
-
-    checkCurrentThreadIsntInterrupted(paintMode);
-    paintRooms(g2D, selectedItems, planScale, foregroundColor, paintMode);
-
-    checkCurrentThreadIsntInterrupted(paintMode);
-    paintWalls(g2D, selectedItems, planScale, backgroundColor, foregroundColor, paintMode);
-    
-    checkCurrentThreadIsntInterrupted(paintMode);
-    paintFurniture(g2D, this.sortedLevelFurniture, selectedItems, 
-        planScale, backgroundColor, foregroundColor, getFurnitureOutlineColor(), paintMode, true);
+    if (!this.staticLayersPaintedFromTiles) {
+      paintStaticHomeItems(g2D, selectedItems, planScale, backgroundColor, foregroundColor, paintMode);
+    }
     
     checkCurrentThreadIsntInterrupted(paintMode);
     paintPolylines(g2D, this.home.getPolylines(), selectedItems, selectionOutlinePaint,  
@@ -2722,7 +3108,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     paintRoomsNameAndArea(g2D, selectedItems, planScale, foregroundColor, paintMode);
 
     checkCurrentThreadIsntInterrupted(paintMode);
-    paintFurnitureName(g2D, this.sortedLevelFurniture, selectedItems, planScale, foregroundColor, paintMode);
+    paintFurnitureName(g2D, getSortedLevelFurniture(), selectedItems, planScale, foregroundColor, paintMode);
 
     checkCurrentThreadIsntInterrupted(paintMode);
     paintLabels(g2D, this.home.getLabels(), selectedItems, selectionOutlinePaint, dimensionLinesSelectionOutlineStroke, 
@@ -2741,6 +3127,46 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     }
   }
 
+  /**
+   * Paints compass, rooms, walls and furniture, the home items painted under the other ones.
+   */
+  private void paintStaticHomeItems(Graphics2D g2D, List<Selectable> selectedItems, float planScale, 
+                                    Color backgroundColor, Color foregroundColor, PaintMode paintMode) throws InterruptedIOException {
+    paintCompass(g2D, selectedItems, planScale, foregroundColor, paintMode);
+
+    checkCurrentThreadIsntInterrupted(paintMode);
+    paintRooms(g2D, selectedItems, planScale, foregroundColor, paintMode);
+
+    checkCurrentThreadIsntInterrupted(paintMode);
+    paintWalls(g2D, selectedItems, planScale, backgroundColor, foregroundColor, paintMode);
+    
+    checkCurrentThreadIsntInterrupted(paintMode);
+    paintFurniture(g2D, getSortedLevelFurniture(), selectedItems, 
+        planScale, backgroundColor, foregroundColor, getFurnitureOutlineColor(), paintMode, true);
+  }
+
+  /**
+   * Returns the furniture viewable at the selected level sorted in elevation order.
+   */
+  private List<HomePieceOfFurniture> getSortedLevelFurniture() {
+    if (this.sortedLevelFurniture == null) {
+      // Sort home furniture in elevation order
+      this.sortedLevelFurniture = new ArrayList<HomePieceOfFurniture>();
+      for (HomePieceOfFurniture piece : this.home.getFurniture()) {
+        if (isViewableAtSelectedLevel(piece)) {
+          this.sortedLevelFurniture.add(piece);
+        }
+      }
+      Collections.sort(this.sortedLevelFurniture,
+          new Comparator<HomePieceOfFurniture>() {
+            public int compare(HomePieceOfFurniture piece1, HomePieceOfFurniture piece2) {
+              return Float.compare(piece1.getGroundElevation(), piece2.getGroundElevation());
+            }
+          });
+    }    
+    return this.sortedLevelFurniture;
+  }
+
   /**
    * Returns the color used to draw selection outlines. 
    */
@@ -2776,10 +3202,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
   }
   
   /**
-   * Paints rooms. 
+   * Returns the rooms viewable at the selected level sorted in floor / floor-ceiling / ceiling order.
    */
-  private void paintRooms(Graphics2D g2D, List<Selectable> selectedItems, float planScale, 
-                          Color foregroundColor, PaintMode paintMode) {
+  private List<Room> getSortedLevelRooms() {
     if (this.sortedLevelRooms == null) {
       // Sort home rooms in floor / floor-ceiling / ceiling order
       this.sortedLevelRooms = new ArrayList<Room>();
@@ -2803,17 +3228,26 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
             }
           });
     }
-    
+    return this.sortedLevelRooms;
+  }
+
+  /**
+   * Paints rooms. 
+   */
+  private void paintRooms(Graphics2D g2D, List<Selectable> selectedItems, float planScale, 
+                          Color foregroundColor, PaintMode paintMode) {
     Color defaultFillPaint = paintMode == PaintMode.PRINT 
         ? Color.WHITE
         : Color.GRAY;
     // Draw rooms area
     g2D.setStroke(new BasicStroke(getStrokeWidth(Room.class, paintMode) / planScale));
-    for (Room room : this.sortedLevelRooms) { 
+    Rectangle2D cullingBounds = getCullingBounds(g2D, planScale, paintMode);
+    for (Room room : getSortedLevelRooms()) { 
       boolean selectedRoom = selectedItems.contains(room);
       // In clipboard paint mode, paint room only if it is selected
-      if (paintMode != PaintMode.CLIPBOARD
-          || selectedRoom) {
+      if ((paintMode != PaintMode.CLIPBOARD
+            || selectedRoom)
+          && isItemInCullingBounds(room, cullingBounds)) {
         g2D.setPaint(defaultFillPaint);
         if (this.preferences.isRoomFloorColoredOrTextured()
             && room.isFloorVisible()) {
@@ -2847,6 +3281,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                           floorTextureImagesCache.put(floorRotatedTextureKey, 
                               ((ImageComponent2D)texture.getImage(0)).getImage());
                           if (!waitForTexture) {
+                            invalidateStaticLayers();
                             repaint();
                           }
                         }
@@ -2886,6 +3321,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                 }
                 textureImage = this.floorTextureImagesCache.get(floorRotatedTextureKey);
               }
+              if (textureImage == WAIT_TEXTURE_IMAGE) {
+                this.waitingContentPainted = true;
+              }
               
               float textureWidth = floorTexture.getWidth();
               float textureHeight = floorTexture.getHeight();
@@ -2969,24 +3407,28 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                                      Color foregroundColor, PaintMode paintMode) {
     g2D.setPaint(foregroundColor);
     Font previousFont = g2D.getFont();
-    for (Room room : this.sortedLevelRooms) { 
+    Rectangle2D cullingBounds = getCullingBounds(g2D, planScale, paintMode);
+    for (Room room : getSortedLevelRooms()) { 
       boolean selectedRoom = selectedItems.contains(room);
       // In clipboard paint mode, paint room only if it is selected
-      if (paintMode != PaintMode.CLIPBOARD
-          || selectedRoom) {
+      if ((paintMode != PaintMode.CLIPBOARD
+            || selectedRoom)
+          && isItemInCullingBounds(room, cullingBounds)) {
         float xRoomCenter = room.getXCenter();
         float yRoomCenter = room.getYCenter();
         String name = room.getName();
         if (name != null) {
           name = name.trim();
-          if (name.length() > 0) {
+          if (name.length() > 0
+              && isTextReadable(room.getClass(), room.getNameStyle(), planScale, paintMode)) {
             paintText(g2D, room.getClass(), name, room.getNameStyle(), null,
                 xRoomCenter + room.getNameXOffset(),
                 yRoomCenter + room.getNameYOffset(),
                 room.getNameAngle(), previousFont);
           }
         }
-        if (room.isAreaVisible()) {
+        if (room.isAreaVisible()
+            && isTextReadable(room.getClass(), room.getAreaStyle(), planScale, paintMode)) {
           float area = room.getArea();
           if (area > 0.01f) {
             // Draw room area 
@@ -3039,6 +3481,23 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     g2D.drawString(text, 0, 0);
     g2D.setTransform(previousTransform);
   }
+
+  /**
+   * Returns <code>true</code> if a text displayed with the given <code>style</code> 
+   * at the given scale is large enough to be read. 
+   * Texts are always readable in other modes than <code>PAINT</code>.
+   */
+  private boolean isTextReadable(Class<? extends Selectable> selectableClass, TextStyle style, 
+                                 float planScale, PaintMode paintMode) {
+    if (paintMode != PaintMode.PAINT) {
+      return true;
+    } else {
+      if (style == null) {
+        style = this.preferences.getDefaultTextStyle(selectableClass);
+      }
+      return style.getFontSize() * planScale >= this.preferences.getPlanMinimumTextSize();
+    }
+  }
   
   /**
    * Paints the outline of rooms among <code>items</code> and indicators if 
@@ -3291,7 +3750,12 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       // Paint walls with half transparent paint when a wall or a door/window in the base plan is being handled
       oldComposite = setTransparency(g2D, 0.5f);
     }
+    Rectangle2D cullingBounds = getCullingBounds(g2D, planScale, paintMode);
     for (Map.Entry<Collection<Wall>, Area> areaEntry : wallAreas.entrySet()) {
+      if (cullingBounds != null
+          && !areaEntry.getValue().getBounds2D().intersects(cullingBounds)) {
+        continue;
+      }
       TextureImage wallPattern = areaEntry.getKey().iterator().next().getPattern();
       fillAndDrawWallsArea(g2D, areaEntry.getValue(), planScale, 
           getWallPaint(wallPaintScale, backgroundColor, foregroundColor, 
@@ -3483,9 +3947,78 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
    */
   private Map<Collection<Wall>, Area> getWallAreas() {
     if (this.wallAreasCache == null) {
-      this.wallAreasCache = getWallAreas(getDrawableWallsInSelectedLevel(this.home.getWalls()));
+      // Compute the union of walls for each pattern, updated afterwards when walls change
+      this.wallAreasCache = new LinkedHashMap<TextureImage, AreaUnion<Wall>>();
+      for (Wall wall : getDrawableWallsInSelectedLevel(this.home.getWalls())) {
+        getWallAreaUnion(getWallPattern(wall)).add(wall, getShape(wall.getPoints(), true));
+      }
+    }
+    Map<Collection<Wall>, Area> wallAreas = new LinkedHashMap<Collection<Wall>, Area>();
+    for (AreaUnion<Wall> wallAreaUnion : this.wallAreasCache.values()) {
+      wallAreas.put(wallAreaUnion.getItems(), wallAreaUnion.getArea());
+    }
+    return wallAreas;
+  }
+
+  /**
+   * Returns the union of the walls drawn with the given <code>pattern</code> 
+   * stored in the cache of wall areas.
+   */
+  private AreaUnion<Wall> getWallAreaUnion(TextureImage pattern) {
+    AreaUnion<Wall> wallAreaUnion = this.wallAreasCache.get(pattern);
+    if (wallAreaUnion == null) {
+      wallAreaUnion = new AreaUnion<Wall>();
+      this.wallAreasCache.put(pattern, wallAreaUnion);
+    }
+    return wallAreaUnion;
+  }
+
+  private TextureImage getWallPattern(Wall wall) {
+    TextureImage wallPattern = wall.getPattern();
+    return wallPattern != null
+        ? wallPattern
+        : this.preferences.getWallPattern();
+  }
+
+  /**
+   * Updates the shape of the given <code>wall</code> and of its joined walls 
+   * in the cache of wall areas.
+   */
+  private void updateWallAreasCache(Wall wall, boolean deleted) {
+    if (this.wallAreasCache != null) {
+      boolean drawable = !deleted && isViewableAtSelectedLevel(wall);
+      AreaUnion<Wall> wallAreaUnion = drawable
+          ? getWallAreaUnion(getWallPattern(wall))
+          : null;
+      for (Iterator<AreaUnion<Wall>> it = this.wallAreasCache.values().iterator(); it.hasNext(); ) {
+        AreaUnion<Wall> otherWallAreaUnion = it.next();
+        if (otherWallAreaUnion != wallAreaUnion
+            && otherWallAreaUnion.remove(wall)
+            && otherWallAreaUnion.size() == 0) {
+          it.remove();
+        }
+      }
+      if (drawable) {
+        wallAreaUnion.add(wall, getShape(wall.getPoints(), true));
+      }
+      // Points of joined walls depend on the given wall
+      updateJoinedWallInWallAreasCache(wall.getWallAtStart());
+      updateJoinedWallInWallAreasCache(wall.getWallAtEnd());
+    }
+  }
+
+  /**
+   * Updates the shape of the given joined <code>wall</code> in the cache of wall areas.
+   */
+  private void updateJoinedWallInWallAreasCache(Wall wall) {
+    if (wall != null
+        && this.wallAreasCache != null) {
+      for (AreaUnion<Wall> wallAreaUnion : this.wallAreasCache.values()) {
+        if (wallAreaUnion.contains(wall)) {
+          wallAreaUnion.add(wall, getShape(wall.getPoints(), true));
+        }
+      }
     }
-    return this.wallAreasCache;
   }
 
   /**
@@ -3546,11 +4079,11 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
    * Returns an area matching the union of all <code>items</code> shapes. 
    */
   private Area getItemsArea(Collection<? extends Selectable> items) {
-    Area itemsArea = new Area();
+    AreaUnion<Selectable> itemsArea = new AreaUnion<Selectable>();
     for (Selectable item : items) {
-      itemsArea.add(new Area(getShape(item.getPoints(), true)));
+      itemsArea.add(item, getShape(item.getPoints(), true));
     }
-    return itemsArea;
+    return itemsArea.getArea();
   }
 
   /**
@@ -3581,6 +4114,12 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     if (!furniture.isEmpty()) {
       BasicStroke pieceBorderStroke = new BasicStroke(getStrokeWidth(HomePieceOfFurniture.class, paintMode) / planScale);
       Boolean allFurnitureViewedFromTop = null;
+      Rectangle2D cullingBounds = getCullingBounds(g2D, planScale, paintMode);
+      // Pieces smaller than this size are drawn as filled shapes aggregated in a single path 
+      float minimumDetailedPieceSize = paintMode == PaintMode.PAINT
+          ? this.preferences.getPlanMinimumDetailedPieceSize() / planScale
+          : 0;
+      GeneralPath smallPiecesPath = null;
       // Draw furniture
       for (HomePieceOfFurniture piece : furniture) {
         if (piece.isVisible()) {
@@ -3594,10 +4133,19 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                     : emptyList, 
                 planScale, backgroundColor, foregroundColor, 
                 furnitureOutlineColor, paintMode, paintIcon);
-          } else if (paintMode != PaintMode.CLIPBOARD
-                    || selectedPiece) {
+          } else if ((paintMode != PaintMode.CLIPBOARD
+                        || selectedPiece)
+                     && isItemInCullingBounds(piece, cullingBounds)) {
             // In clipboard paint mode, paint piece only if it is selected
             Shape pieceShape = getShape(piece.getPoints(), true);
+            if (Math.max(piece.getWidth(), piece.getDepth()) < minimumDetailedPieceSize) {
+              // Ignore icon, sashes and outline of tiny pieces
+              if (smallPiecesPath == null) {
+                smallPiecesPath = new GeneralPath();
+              }
+              smallPiecesPath.append(pieceShape, false);
+              continue;
+            }
             Shape pieceShape2D;
             if (piece instanceof HomeDoorOrWindow) {
               HomeDoorOrWindow doorOrWindow = (HomeDoorOrWindow)piece;
@@ -3668,6 +4216,12 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           }
         }
       }
+      if (smallPiecesPath != null) {
+        g2D.setPaint(foregroundColor);
+        g2D.fill(smallPiecesPath);
+        g2D.setStroke(pieceBorderStroke);
+        g2D.draw(smallPiecesPath);
+      }
     }
   }
 
@@ -3755,6 +4309,7 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                                   Color foregroundColor, PaintMode paintMode) {
     Font previousFont = g2D.getFont();
     g2D.setPaint(foregroundColor);
+    Rectangle2D cullingBounds = getCullingBounds(g2D, planScale, paintMode);
     // Draw furniture name
     for (HomePieceOfFurniture piece : furniture) {
       if (piece.isVisible()) {
@@ -3770,7 +4325,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         } 
         if (piece.isNameVisible()
             && (paintMode != PaintMode.CLIPBOARD
-                || selectedPiece)) {
+                || selectedPiece)
+            && isItemInCullingBounds(piece, cullingBounds)
+            && isTextReadable(piece.getClass(), piece.getNameStyle(), planScale, paintMode)) {
           // In clipboard paint mode, paint piece only if it is selected
           String name = piece.getName().trim();
           if (name.length() > 0) {
@@ -3894,6 +4451,9 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Get piece icon
     Icon icon = IconManager.getInstance().getIcon(piece.getIcon(), 128, 
         paintMode == PaintMode.PAINT ? this : null);
+    if (IconManager.getInstance().isWaitIcon(icon)) {
+      this.waitingContentPainted = true;
+    }
     paintPieceOfFurnitureIcon(g2D, piece, icon, pieceShape2D, planScale, backgroundColor);
   }
 
@@ -3953,12 +4513,15 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       if (piece.getPlanIcon() != null) {
         icon = new PieceOfFurniturePlanIcon(piece, waitingComponent);
       } else {
-        icon = new PieceOfFurnitureModelIcon(piece, waitingComponent);
+        icon = PieceOfFurnitureModelIcon.getIcon(piece, waitingComponent);
       }
       this.furnitureTopViewIconsCache.put(piece, icon);
     }
     
     if (icon.isWaitIcon() || icon.isErrorIcon()) {
+      if (icon.isWaitIcon()) {
+        this.waitingContentPainted = true;
+      }
       paintPieceOfFurnitureIcon(g2D, piece, icon, pieceShape2D, planScale, backgroundColor);
       g2D.setPaint(foregroundColor);
       g2D.setStroke(pieceBorderStroke);
@@ -4079,12 +4642,16 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                               Paint selectionOutlinePaint,  
                               Paint indicatorPaint, float planScale, 
                               Color foregroundColor, PaintMode paintMode) {
+    Rectangle2D cullingBounds = getCullingBounds(g2D, planScale, paintMode);
     // Draw polylines
     for (Polyline polyline : polylines) {
       if (isViewableAtSelectedLevel(polyline)) {
         boolean selected = selectedItems.contains(polyline);
-        if (paintMode != PaintMode.CLIPBOARD
-            || selected) {
+        // Don't cull selected items which indicators may be drawn out of their bounds
+        if ((paintMode != PaintMode.CLIPBOARD
+              || selected)
+            && (selected
+                || isItemInCullingBounds(polyline, cullingBounds))) {
           g2D.setPaint(new Color(polyline.getColor()));
           float thickness = polyline.getThickness();
           g2D.setStroke(SwingTools.getStroke(thickness, 
@@ -4222,10 +4789,16 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     // Draw dimension lines
     g2D.setPaint(foregroundColor);
     BasicStroke dimensionLineStroke = new BasicStroke(getStrokeWidth(DimensionLine.class, paintMode) / planScale);
+    // Don't cull feedback dimension lines which bounds would be cached uselessly
+    Rectangle2D cullingBounds = feedback 
+        ? null 
+        : getCullingBounds(g2D, planScale, paintMode);
     // Change font size
     Font previousFont = g2D.getFont();
     for (DimensionLine dimensionLine : dimensionLines) {
-      if (isViewableAtSelectedLevel(dimensionLine)) {
+      if (isViewableAtSelectedLevel(dimensionLine)
+          && (selectedItems.contains(dimensionLine)
+              || isItemInCullingBounds(dimensionLine, cullingBounds))) {
         AffineTransform previousTransform = g2D.getTransform();
         double angle = Math.atan2(dimensionLine.getYEnd() - dimensionLine.getYStart(), 
             dimensionLine.getXEnd() - dimensionLine.getXStart());
@@ -4267,40 +4840,43 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
         g2D.draw(new Line2D.Float(0, -dimensionLine.getOffset(), 0, -5));
         g2D.draw(new Line2D.Float(dimensionLineLength, -dimensionLine.getOffset(), dimensionLineLength, -5));
         
-        float displayedValue = feedback
-            ? this.preferences.getLengthUnit().getMagnetizedLength(dimensionLineLength, getPixelLength())
-            : dimensionLineLength;
-        String lengthText = this.preferences.getLengthUnit().getFormat().format(displayedValue);
-        TextStyle lengthStyle = dimensionLine.getLengthStyle();
-        if (lengthStyle == null) {
-          lengthStyle = this.preferences.getDefaultTextStyle(dimensionLine.getClass());
-        }          
-        if (feedback && getFont() != null) {
-          // Use default for feedback
-          lengthStyle = lengthStyle.deriveStyle(getFont().getSize() / getScale());
-        }
-        Font font = getFont(previousFont, lengthStyle);
-        FontMetrics lengthFontMetrics = getFontMetrics(font, lengthStyle);
-        Rectangle2D lengthTextBounds = lengthFontMetrics.getStringBounds(lengthText, g2D);
-        int fontAscent = lengthFontMetrics.getAscent();
-        g2D.translate((dimensionLineLength - (float)lengthTextBounds.getWidth()) / 2, 
-            dimensionLine.getOffset() <= 0 
-                ? -lengthFontMetrics.getDescent() - 1
-                : fontAscent + 1);
-        if (feedback) {
-          // Draw text outline with half transparent background color
-          g2D.setPaint(backgroundColor);
-          Composite oldComposite = setTransparency(g2D, 0.7f);
-          g2D.setStroke(new BasicStroke(3 / planScale));
-          FontRenderContext fontRenderContext = g2D.getFontRenderContext();
-          TextLayout textLayout = new TextLayout(lengthText, font, fontRenderContext);
-          g2D.draw(textLayout.getOutline(new AffineTransform()));
-          g2D.setComposite(oldComposite);
-          g2D.setPaint(foregroundColor);
+        if (feedback
+            || isTextReadable(dimensionLine.getClass(), dimensionLine.getLengthStyle(), planScale, paintMode)) {
+          float displayedValue = feedback
+              ? this.preferences.getLengthUnit().getMagnetizedLength(dimensionLineLength, getPixelLength())
+              : dimensionLineLength;
+          String lengthText = this.preferences.getLengthUnit().getFormat().format(displayedValue);
+          TextStyle lengthStyle = dimensionLine.getLengthStyle();
+          if (lengthStyle == null) {
+            lengthStyle = this.preferences.getDefaultTextStyle(dimensionLine.getClass());
+          }          
+          if (feedback && getFont() != null) {
+            // Use default for feedback
+            lengthStyle = lengthStyle.deriveStyle(getFont().getSize() / getScale());
+          }
+          Font font = getFont(previousFont, lengthStyle);
+          FontMetrics lengthFontMetrics = getFontMetrics(font, lengthStyle);
+          Rectangle2D lengthTextBounds = lengthFontMetrics.getStringBounds(lengthText, g2D);
+          int fontAscent = lengthFontMetrics.getAscent();
+          g2D.translate((dimensionLineLength - (float)lengthTextBounds.getWidth()) / 2, 
+              dimensionLine.getOffset() <= 0 
+                  ? -lengthFontMetrics.getDescent() - 1
+                  : fontAscent + 1);
+          if (feedback) {
+            // Draw text outline with half transparent background color
+            g2D.setPaint(backgroundColor);
+            Composite oldComposite = setTransparency(g2D, 0.7f);
+            g2D.setStroke(new BasicStroke(3 / planScale));
+            FontRenderContext fontRenderContext = g2D.getFontRenderContext();
+            TextLayout textLayout = new TextLayout(lengthText, font, fontRenderContext);
+            g2D.draw(textLayout.getOutline(new AffineTransform()));
+            g2D.setComposite(oldComposite);
+            g2D.setPaint(foregroundColor);
+          }
+          // Draw dimension length in middle
+          g2D.setFont(font);
+          g2D.drawString(lengthText, 0, 0);
         }
-        // Draw dimension length in middle
-        g2D.setFont(font);
-        g2D.drawString(lengthText, 0, 0);
         
         g2D.setTransform(previousTransform);
       }
@@ -4369,12 +4945,15 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
                            Paint selectionOutlinePaint, Stroke selectionOutlineStroke, Paint indicatorPaint,
                            float planScale, Color foregroundColor, PaintMode paintMode) {
     Font previousFont = g2D.getFont();
+    Rectangle2D cullingBounds = getCullingBounds(g2D, planScale, paintMode);
     // Draw labels
     for (Label label : labels) {
       if (isViewableAtSelectedLevel(label)) {
         boolean selectedLabel = selectedItems.contains(label);
         // In clipboard paint mode, paint label only if it is selected
-        if (paintMode != PaintMode.CLIPBOARD || selectedLabel) {
+        if ((paintMode != PaintMode.CLIPBOARD || selectedLabel)
+            && (selectedLabel
+                || isItemInCullingBounds(label, cullingBounds))) {
           String labelText = label.getText();
           float xLabel = label.getX();
           float yLabel = label.getY();
@@ -4386,10 +4965,13 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
           if (labelStyle.getFontName() == null && getFont() != null) {
             labelStyle = labelStyle.deriveStyle(getFont().getFontName());
           }
-          Integer color = label.getColor();
-          g2D.setPaint(color != null ?  new Color(color) : foregroundColor);
-          paintText(g2D, label.getClass(), labelText, labelStyle, label.getOutlineColor(), 
-              xLabel, yLabel, labelAngle, previousFont);
+          if (selectedLabel
+              || isTextReadable(label.getClass(), labelStyle, planScale, paintMode)) {
+            Integer color = label.getColor();
+            g2D.setPaint(color != null ?  new Color(color) : foregroundColor);
+            paintText(g2D, label.getClass(), labelText, labelStyle, label.getOutlineColor(), 
+                xLabel, yLabel, labelAngle, previousFont);
+          }
 
           if (paintMode == PaintMode.PAINT && this.selectedItemsOutlinePainted && selectedLabel) {
             // Draw selection border
@@ -5947,6 +6529,148 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     }
   }
 
+  /**
+   * Tiles of the static layers of the plan painted at a given scale for the selected level. 
+   * Tiles are square images placed in component coordinates system, and their count 
+   * is limited by the memory they may use, the least recently used ones being removed first.
+   */
+  private static class StaticLayersTiles {
+    private static final int TILE_SIZE = 256;
+    
+    private final long            maximumMemory;
+    private final Map<Long, Tile> tiles;
+    private Object []             parameters;
+    private float                 scale;
+    private double                xOrigin;
+    private double                yOrigin;
+    private int                   tileMemory;
+    private int                   minimumTileCount;
+    private int                   version;
+
+    public StaticLayersTiles(long maximumMemory) {
+      this.maximumMemory = maximumMemory;
+      this.tiles = new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+            return size() > Math.max(minimumTileCount, StaticLayersTiles.this.maximumMemory / tileMemory);
+          }
+        };
+    }
+
+    /**
+     * Invalidates all the tiles if one of the given parameters changed since last call.
+     * @param scale   the scale of the plan
+     * @param xOrigin the abscissa of the plan origin in component coordinates system
+     * @param yOrigin the ordinate of the plan origin in component coordinates system
+     * @param deviceScale  the scale of the device where tiles are painted
+     * @param otherParameters other parameters which values change the painted layers
+     */
+    public void update(float scale, double xOrigin, double yOrigin, double deviceScale, 
+                       Object ... otherParameters) {
+      Object [] parameters = new Object [otherParameters.length + 4];
+      parameters [0] = scale;
+      parameters [1] = xOrigin;
+      parameters [2] = yOrigin;
+      parameters [3] = deviceScale;
+      System.arraycopy(otherParameters, 0, parameters, 4, otherParameters.length);
+      if (!Arrays.equals(parameters, this.parameters)) {
+        invalidate();
+        this.parameters = parameters;
+        this.scale = scale;
+        this.xOrigin = xOrigin;
+        this.yOrigin = yOrigin;
+        int tileImageSize = (int)Math.ceil(TILE_SIZE * deviceScale);
+        this.tileMemory = tileImageSize * tileImageSize * 4;
+      }
+    }
+    
+    /**
+     * Sets the count of tiles that mustn't be removed even if they use more memory than allowed.
+     */
+    public void setMinimumTileCount(int minimumTileCount) {
+      this.minimumTileCount = minimumTileCount;
+    }
+
+    /**
+     * Returns the version of tiles, incremented each time they're invalidated.
+     */
+    public int getVersion() {
+      return this.version;
+    }
+    
+    /**
+     * Invalidates all the tiles.
+     */
+    public void invalidate() {
+      this.tiles.clear();
+      this.version++;
+    }
+
+    /**
+     * Invalidates the tiles intersecting the given rectangle expressed in plan coordinates system,
+     * enlarged to include strokes and antialiasing.
+     */
+    public void invalidate(Rectangle2D planBounds) {
+      if (!this.tiles.isEmpty()) {
+        double margin = 3;
+        int minColumn = (int)Math.floor((planBounds.getMinX() * this.scale + this.xOrigin - margin) / TILE_SIZE);
+        int maxColumn = (int)Math.floor((planBounds.getMaxX() * this.scale + this.xOrigin + margin) / TILE_SIZE);
+        int minRow = (int)Math.floor((planBounds.getMinY() * this.scale + this.yOrigin - margin) / TILE_SIZE);
+        int maxRow = (int)Math.floor((planBounds.getMaxY() * this.scale + this.yOrigin + margin) / TILE_SIZE);
+        for (Iterator<Long> it = this.tiles.keySet().iterator(); it.hasNext(); ) {
+          long key = it.next();
+          int column = (int)(key >> 32);
+          int row = (int)key;
+          if (column >= minColumn && column <= maxColumn
+              && row >= minRow && row <= maxRow) {
+            it.remove();
+          }
+        }
+        this.version++;
+      }
+    }
+    
+    /**
+     * Returns <code>true</code> if the tile at the given column and row exists and is valid.
+     */
+    public boolean isTileValid(int column, int row) {
+      Tile tile = this.tiles.get(getKey(column, row));
+      return tile != null && tile.valid;
+    }
+
+    /**
+     * Returns the image of the tile at the given column and row or <code>null</code> if it doesn't exist.
+     */
+    public BufferedImage getTileImage(int column, int row) {
+      Tile tile = this.tiles.get(getKey(column, row));
+      return tile != null
+          ? tile.image
+          : null;
+    }
+    
+    /**
+     * Sets the image of the tile at the given column and row. An invalid tile
+     * will be considered as missing once it's painted.
+     */
+    public void setTile(int column, int row, BufferedImage image, boolean valid) {
+      this.tiles.put(getKey(column, row), new Tile(image, valid));
+    }
+
+    private long getKey(int column, int row) {
+      return ((long)column << 32) | (row & 0xFFFFFFFFL);
+    }
+    
+    private static class Tile {
+      private final BufferedImage image;
+      private final boolean       valid;
+
+      public Tile(BufferedImage image, boolean valid) {
+        this.image = image;
+        this.valid = valid;
+      }
+    }
+  }
+
   /**
    * Key used to ensure rotated content uniqueness per texture.
    */
@@ -6125,13 +6849,155 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
     }
   }
   
+  /**
+   * The attributes of a piece that change its top view icon computed from its model. 
+   */
+  private static class TopViewIconKey {
+    private final Content        model;
+    private final float [][]     modelRotation;
+    private final boolean        modelMirrored;
+    private final boolean        backFaceShown;
+    private final Integer        color;
+    private final HomeTexture    texture;
+    private final HomeMaterial [] modelMaterials;
+    private final Float          shininess;
+    // Size is significant only for textured pieces 
+    private final float []       size;
+    
+    public TopViewIconKey(HomePieceOfFurniture piece) {
+      this.model = piece.getModel();
+      this.modelRotation = piece.getModelRotation();
+      // Mirrored resizable pieces are drawn from a non mirrored model
+      this.modelMirrored = piece.isModelMirrored() && !piece.isResizable();
+      this.backFaceShown = piece.isBackFaceShown();
+      this.color = piece.getColor();
+      this.texture = piece.getTexture();
+      this.modelMaterials = piece.getModelMaterials();
+      this.shininess = piece.getShininess();
+      boolean textured = this.texture != null;
+      if (this.modelMaterials != null) {
+        for (HomeMaterial material : this.modelMaterials) {
+          textured |= material != null && material.getTexture() != null;
+        }
+      }
+      this.size = textured 
+          ? new float [] {piece.getWidth(), piece.getDepth(), piece.getHeight()}
+          : null;
+    }
+    
+    /**
+     * Returns the key used to store the icon matching this key, 
+     * built from the digest of the model and textures contents.
+     */
+    public String getStoredIconKey(TopViewIconFileManager fileManager) throws IOException {
+      StringBuilder key = new StringBuilder("128x128;");
+      key.append(fileManager.getContentDigest(this.model));
+      key.append(";").append(Arrays.deepToString(this.modelRotation));
+      key.append(";").append(this.modelMirrored);
+      key.append(";").append(this.backFaceShown);
+      key.append(";").append(this.color);
+      key.append(";").append(getStoredTextureKey(this.texture, fileManager));
+      if (this.modelMaterials != null) {
+        for (HomeMaterial material : this.modelMaterials) {
+          if (material != null) {
+            key.append(";").append(material.getName()).append(",").append(material.getKey()) 
+                .append(",").append(material.getColor()).append(",").append(material.getShininess()) 
+                .append(",").append(getStoredTextureKey(material.getTexture(), fileManager));
+          } else {
+            key.append(";null");
+          }
+        }
+      }
+      key.append(";").append(this.shininess);
+      key.append(";").append(Arrays.toString(this.size));
+      return key.toString();
+    }
+
+    private String getStoredTextureKey(HomeTexture texture, TopViewIconFileManager fileManager) throws IOException {
+      if (texture == null) {
+        return "null";
+      } else {
+        return fileManager.getContentDigest(texture.getImage()) + "," + texture.getWidth() + "," + texture.getHeight() 
+            + "," + texture.getAngle() + "," + texture.isLeftToRightOriented();
+      }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (obj instanceof TopViewIconKey) {
+        TopViewIconKey key = (TopViewIconKey)obj;
+        return this.model.equals(key.model)
+            && Arrays.deepEquals(this.modelRotation, key.modelRotation)
+            && this.modelMirrored == key.modelMirrored
+            && this.backFaceShown == key.backFaceShown
+            && (this.color == key.color
+                || this.color != null && this.color.equals(key.color))
+            && (this.texture == key.texture
+                || this.texture != null && this.texture.equals(key.texture))
+            && areMaterialsEqual(this.modelMaterials, key.modelMaterials)
+            && (this.shininess == key.shininess
+                || this.shininess != null && this.shininess.equals(key.shininess))
+            && Arrays.equals(this.size, key.size);
+      }
+      return false;
+    }
+
+    private static boolean areMaterialsEqual(HomeMaterial [] materials1, HomeMaterial [] materials2) {
+      if (materials1 == materials2) {
+        return true;
+      } else if (materials1 == null 
+                 || materials2 == null
+                 || materials1.length != materials2.length) {
+        return false;
+      }
+      for (int i = 0; i < materials1.length; i++) {
+        HomeMaterial material1 = materials1 [i];
+        HomeMaterial material2 = materials2 [i];
+        if (material1 != material2
+            && (material1 == null 
+                || material2 == null
+                || !(material1.getName() == material2.getName()
+                      || material1.getName() != null && material1.getName().equals(material2.getName()))
+                || !(material1.getKey() == material2.getKey()
+                      || material1.getKey() != null && material1.getKey().equals(material2.getKey()))
+                || !(material1.getColor() == material2.getColor()
+                      || material1.getColor() != null && material1.getColor().equals(material2.getColor()))
+                || !(material1.getTexture() == material2.getTexture()
+                      || material1.getTexture() != null && material1.getTexture().equals(material2.getTexture()))
+                || !(material1.getShininess() == material2.getShininess()
+                      || material1.getShininess() != null && material1.getShininess().equals(material2.getShininess())))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.model.hashCode()
+          + Arrays.deepHashCode(this.modelRotation)
+          + (this.color != null ? this.color.hashCode() : 0)
+          + (this.texture != null ? this.texture.hashCode() : 0)
+          + (this.modelMaterials != null ? this.modelMaterials.length : 0)
+          + Arrays.hashCode(this.size);
+    }
+  }
+
   /**
    * A proxy for the furniture top view icon generated from its 3D model. 
+   * Icons are shared among the pieces displaying the same model with the same appearance,
+   * and stored with {@link TopViewIconFileManager} to be reused by next sessions.
    */
   private static class PieceOfFurnitureModelIcon extends PieceOfFurnitureTopViewIcon {
     private static Canvas3D        canvas3D;
     private static BranchGroup     sceneRoot;
     private static ExecutorService iconsCreationExecutor;
+    private static Map<TopViewIconKey, WeakReference<PieceOfFurnitureModelIcon>> sharedIcons;
+    private static int             sharedIconsPurgeSize;
+
+    private List<Component> waitingComponents;
     
     static {
       // Create the universe used to compute top view icons 
@@ -6169,64 +7035,183 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       }
       universe.addBranchGraph(sceneRoot);
       iconsCreationExecutor = Executors.newSingleThreadExecutor();
+      sharedIcons = new HashMap<TopViewIconKey, WeakReference<PieceOfFurnitureModelIcon>>();
+      sharedIconsPurgeSize = 64;
     }
     
+    /**
+     * Returns a top view icon proxy for a <code>piece</code> of furniture, shared with 
+     * the other pieces that have the same model and the same appearance.
+     * @param piece an object containing a 3D content
+     * @param waitingComponent a waiting component. If <code>null</code>, the returned icon will
+     *            be read immediately in the current thread.
+     */
+    public static PieceOfFurnitureModelIcon getIcon(HomePieceOfFurniture piece, 
+                                                    Component waitingComponent) {
+      TopViewIconKey key = new TopViewIconKey(piece);
+      synchronized (sharedIcons) {
+        WeakReference<PieceOfFurnitureModelIcon> iconReference = sharedIcons.get(key);
+        if (iconReference != null) {
+          PieceOfFurnitureModelIcon icon = iconReference.get();
+          if (icon != null) {
+            if (waitingComponent != null) {
+              icon.addWaitingComponent(waitingComponent);
+              return icon;
+            } else if (!icon.isWaitIcon()) {
+              return icon;
+            }
+          }
+        }
+      }
+      PieceOfFurnitureModelIcon icon = new PieceOfFurnitureModelIcon(piece, key, waitingComponent);
+      synchronized (sharedIcons) {
+        sharedIcons.put(key, new WeakReference<PieceOfFurnitureModelIcon>(icon));
+        if (sharedIcons.size() > sharedIconsPurgeSize) {
+          // Remove the entries of icons not used anymore
+          for (Iterator<WeakReference<PieceOfFurnitureModelIcon>> it = sharedIcons.values().iterator(); it.hasNext(); ) {
+            if (it.next().get() == null) {
+              it.remove();
+            }
+          }
+          sharedIconsPurgeSize = Math.max(64, sharedIcons.size() * 2);
+        }
+      }
+      return icon;
+    }
+
     /**
      * Creates a top view icon proxy for a <code>piece</code> of furniture.
      * @param piece an object containing a 3D content
+     * @param key   the key of the icon
      * @param waitingComponent a waiting component. If <code>null</code>, the returned icon will
      *            be read immediately in the current thread.
      */
-    public PieceOfFurnitureModelIcon(final HomePieceOfFurniture piece, 
-                                     final Component waitingComponent) {
+    private PieceOfFurnitureModelIcon(HomePieceOfFurniture piece, 
+                                      final TopViewIconKey key,
+                                      Component waitingComponent) {
       super(IconManager.getInstance().getWaitIcon());
-      ModelManager.getInstance().loadModel(piece.getModel(), waitingComponent == null,
+      // Work on a clone of the piece centered at the origin
+      // with the same size to get a correct texture mapping
+      final HomePieceOfFurniture normalizedPiece = piece.clone();
+      if (normalizedPiece.isResizable()) {
+        normalizedPiece.setModelMirrored(false);
+      }
+      normalizedPiece.setX(0);
+      normalizedPiece.setY(0);
+      normalizedPiece.setElevation(-normalizedPiece.getHeight() / 2);
+      normalizedPiece.setAngle(0);
+      if (waitingComponent != null) {
+        this.waitingComponents = new ArrayList<Component>();
+        this.waitingComponents.add(waitingComponent);
+        // Search stored icon in an other thread to avoid blocking EDT 
+        iconsCreationExecutor.execute(new Runnable() {
+            public void run() {
+              loadIcon(normalizedPiece, key, true);
+            }
+          });
+      } else {
+        loadIcon(normalizedPiece, key, false);
+      }
+    }
+
+    /**
+     * Reads the icon of the given piece from the icons stored on disk,
+     * or computes it from its model.
+     */
+    private void loadIcon(final HomePieceOfFurniture normalizedPiece, TopViewIconKey key, 
+                          final boolean asynchronous) {
+      final TopViewIconFileManager fileManager = TopViewIconFileManager.getInstance();
+      String storedIconKey = null;
+      try {
+        storedIconKey = key.getStoredIconKey(fileManager);
+        BufferedImage storedImage = fileManager.getImage(storedIconKey);
+        if (storedImage != null) {
+          setIcon(new ImageIcon(storedImage));
+          repaintWaitingComponents();
+          return;
+        }
+      } catch (IOException ex) {
+        // Ignore icon storage if model content can't be read
+      }
+      
+      final String iconKey = storedIconKey;
+      ModelManager.getInstance().loadModel(normalizedPiece.getModel(), !asynchronous,
           new ModelManager.ModelObserver() {
             public void modelUpdated(final BranchGroup modelNode) {
               // Now that it's sure that 3D model exists
-              // work on a clone of the piece centered at the origin
-              // with the same size to get a correct texture mapping
-              final HomePieceOfFurniture normalizedPiece = piece.clone();
-              if (normalizedPiece.isResizable()) {
-                normalizedPiece.setModelMirrored(false);
-              }
-              normalizedPiece.setX(0);
-              normalizedPiece.setY(0);
-              normalizedPiece.setElevation(-normalizedPiece.getHeight() / 2);
-              normalizedPiece.setAngle(0);
-              final float pieceWidth = normalizedPiece.getWidth();
-              final float pieceDepth = normalizedPiece.getDepth();
-              final float pieceHeight = normalizedPiece.getHeight();
-              if (waitingComponent != null) {
+              if (asynchronous) {
                 // Generate icons in an other thread to avoid blocking EDT during offscreen rendering
                 iconsCreationExecutor.execute(new Runnable() {
                     public void run() {
-                      setIcon(createIcon(new HomePieceOfFurniture3D(normalizedPiece, null, true, true),
-                          pieceWidth, pieceDepth, pieceHeight));
-                      waitingComponent.repaint();
+                      createAndStoreIcon(normalizedPiece, iconKey);
                     }
                   });
               } else {
-                setIcon(createIcon(new HomePieceOfFurniture3D(normalizedPiece, null, true, true),
-                    pieceWidth, pieceDepth, pieceHeight));
+                createAndStoreIcon(normalizedPiece, iconKey);
               }
             }
         
             public void modelError(Exception ex) {
               // Too bad, we'll use errorIcon
               setIcon(IconManager.getInstance().getErrorIcon());                
-              if (waitingComponent != null) {
-                waitingComponent.repaint();
-              }
+              repaintWaitingComponents();
             }
           });
     }
+
+    private void createAndStoreIcon(HomePieceOfFurniture normalizedPiece, String storedIconKey) {
+      BufferedImage image = createIcon(new HomePieceOfFurniture3D(normalizedPiece, null, true, true),
+          normalizedPiece.getWidth(), normalizedPiece.getDepth(), normalizedPiece.getHeight());
+      setIcon(new ImageIcon(image));
+      repaintWaitingComponents();
+      if (storedIconKey != null) {
+        try {
+          TopViewIconFileManager.getInstance().putImage(storedIconKey, image);
+        } catch (IOException ex) {
+          // Icon won't be available for next sessions
+        }
+      }
+    }
+
+    /**
+     * Adds a component that should be repainted once this icon is available.
+     */
+    private void addWaitingComponent(Component waitingComponent) {
+      synchronized (this) {
+        if (this.waitingComponents != null) {
+          if (!this.waitingComponents.contains(waitingComponent)) {
+            this.waitingComponents.add(waitingComponent);
+          }
+          return;
+        }
+      }
+      if (isWaitIcon()) {
+        // Icon is read synchronously in another thread 
+        waitingComponent.repaint();
+      }
+    }
+
+    /**
+     * Repaints the components waiting for this icon.
+     */
+    private void repaintWaitingComponents() {
+      List<Component> waitingComponents;
+      synchronized (this) {
+        waitingComponents = this.waitingComponents;
+        this.waitingComponents = null;
+      }
+      if (waitingComponents != null) {
+        for (Component waitingComponent : waitingComponents) {
+          waitingComponent.repaint();
+        }
+      }
+    }
     
     /**
-     * Returns an icon created and scaled from piece model content.
+     * Returns an image created and scaled from piece model content.
      */
-    private Icon createIcon(BranchGroup modelNode,  
-                            float pieceWidth, float pieceDepth, float pieceHeight) {
+    private BufferedImage createIcon(BranchGroup modelNode,  
+                                     float pieceWidth, float pieceDepth, float pieceHeight) {
       // Add piece model scene to a normalized transform group
       Transform3D scaleTransform = new Transform3D();
       scaleTransform.setScale(new Vector3d(2 / pieceWidth, 2 / pieceHeight, 2 / pieceDepth));
@@ -6267,9 +7252,11 @@ public class PlanComponent extends JComponent implements PlanView, Scrollable, P
       }
       
       sceneRoot.removeChild(model);
-      return new ImageIcon(Toolkit.getDefaultToolkit().createImage(new MemoryImageSource(
-          imageWithWhiteBackgound.getWidth(), imageWithWhiteBackgound.getHeight(), 
-          imageWithWhiteBackgoundPixels, 0, imageWithWhiteBackgound.getWidth())));
+      BufferedImage image = new BufferedImage(imageWithWhiteBackgound.getWidth(), 
+          imageWithWhiteBackgound.getHeight(), BufferedImage.TYPE_INT_ARGB);
+      image.setRGB(0, 0, image.getWidth(), image.getHeight(), 
+          imageWithWhiteBackgoundPixels, 0, image.getWidth());
+      return image;
     }
 
     /**
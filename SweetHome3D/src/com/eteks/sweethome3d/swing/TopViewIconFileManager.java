@@ -0,0 +1,384 @@
+/*
+ * TopViewIconFileManager.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.swing;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.imageio.ImageIO;
+
+import com.eteks.sweethome3d.model.Content;
+import com.eteks.sweethome3d.tools.OperatingSystem;
+import com.eteks.sweethome3d.tools.ResourceURLContent;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * Singleton managing the PNG files of the furniture icons viewed from top,
+ * stored in a folder to be reused from one session to the other.
+ * Files are named after a digest of the key of the icon they contain, and
+ * the least recently used files are deleted once their total size is greater
+ * than a maximum size.
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class TopViewIconFileManager {
+  private static TopViewIconFileManager instance;
+  private final Map<Content, String>        contentDigests;
+  // Entries of the last read zip files
+  private final Map<URL, List<String>>      zipUrlEntries;
+  // Files sorted from the least recently used to the most recently used one
+  private final Map<String, Long>           iconFiles;
+  private File                              folder;
+  // Maximum size in bytes of the stored files
+  private long                              maximumSize;
+  private long                              size;
+
+  private TopViewIconFileManager() {
+    this.contentDigests = new WeakHashMap<Content, String>();
+    this.zipUrlEntries = new LinkedHashMap<URL, List<String>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<URL, List<String>> eldest) {
+          return size() > 8;
+        }
+      };
+    this.iconFiles = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    this.maximumSize = 32L << 20;
+    try {
+      this.maximumSize = Math.max(0, Long.parseLong(System.getProperty(
+          "com.eteks.sweethome3d.swing.topViewIconsCacheSize", String.valueOf(this.maximumSize >> 20)))) << 20;
+    } catch (NumberFormatException ex) {
+      // Ignore wrong value and keep default size
+    }
+    try {
+      String folder = System.getProperty("com.eteks.sweethome3d.swing.topViewIconsFolder");
+      setFolder(folder != null
+          ? new File(folder)
+          : new File(OperatingSystem.getDefaultApplicationFolder(), "topViewIcons"));
+    } catch (IOException ex) {
+      // Icons won't be stored
+    } catch (SecurityException ex) {
+      // Icons won't be stored
+    }
+  }
+
+  /**
+   * Returns an instance of this singleton.
+   */
+  public static synchronized TopViewIconFileManager getInstance() {
+    if (instance == null) {
+      instance = new TopViewIconFileManager();
+    }
+    return instance;
+  }
+
+  /**
+   * Sets the folder where icons files are stored, and lists the files it already contains.
+   * @param folder a folder or <code>null</code> to disable icons storage
+   */
+  public synchronized void setFolder(File folder) {
+    this.folder = folder;
+    this.iconFiles.clear();
+    this.size = 0;
+    if (folder != null) {
+      File [] files = folder.listFiles();
+      if (files != null) {
+        // List existing files from the least recently used one
+        Arrays.sort(files, new Comparator<File>() {
+            public int compare(File file1, File file2) {
+              long lastModified1 = file1.lastModified();
+              long lastModified2 = file2.lastModified();
+              return lastModified1 < lastModified2
+                  ? -1
+                  : (lastModified1 == lastModified2 ? 0 : 1);
+            }
+          });
+        for (File file : files) {
+          if (file.isFile()
+              && file.getName().endsWith(".png")) {
+            this.iconFiles.put(file.getName(), file.length());
+            this.size += file.length();
+          }
+        }
+        deleteLeastRecentlyUsedFiles();
+      }
+    }
+  }
+
+  /**
+   * Returns the folder where icons files are stored.
+   */
+  public synchronized File getFolder() {
+    return this.folder;
+  }
+
+  /**
+   * Sets the maximum size in bytes of the stored files.
+   * @param maximumSize a size in bytes or 0 to store no file
+   */
+  public synchronized void setMaximumSize(long maximumSize) {
+    if (maximumSize < 0) {
+      throw new IllegalArgumentException("Negative maximum size " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    deleteLeastRecentlyUsedFiles();
+  }
+
+  /**
+   * Returns the maximum size in bytes of the stored files.
+   */
+  public synchronized long getMaximumSize() {
+    return this.maximumSize;
+  }
+
+  /**
+   * Returns the image stored with the given <code>key</code> or <code>null</code>
+   * if it doesn't exist or can't be read.
+   */
+  public BufferedImage getImage(String key) {
+    File file;
+    synchronized (this) {
+      String fileName = getFileName(key);
+      if (this.folder == null
+          || !this.iconFiles.containsKey(fileName)) {
+        return null;
+      }
+      // Update files order
+      this.iconFiles.get(fileName);
+      file = new File(this.folder, fileName);
+    }
+    try {
+      BufferedImage image = ImageIO.read(file);
+      if (image != null) {
+        // Keep track of the use of this file for next sessions
+        file.setLastModified(System.currentTimeMillis());
+      }
+      return image;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Stores the given <code>image</code> with the given <code>key</code>
+   * and deletes the least recently used files if the maximum size is reached.
+   */
+  public void putImage(String key, BufferedImage image) throws IOException {
+    File folder;
+    String fileName;
+    synchronized (this) {
+      folder = this.folder;
+      fileName = getFileName(key);
+      if (folder == null
+          || this.maximumSize == 0
+          || this.iconFiles.containsKey(fileName)) {
+        return;
+      }
+    }
+
+    // Encode image out of synchronized block to let other threads get their images meanwhile
+    if (!folder.exists()
+        && !folder.mkdirs()) {
+      throw new IOException("Can't create folder " + folder);
+    }
+    File file = new File(folder, fileName);
+    ImageIO.write(image, "png", file);
+
+    synchronized (this) {
+      if (folder.equals(this.folder)
+          && !this.iconFiles.containsKey(fileName)) {
+        this.iconFiles.put(fileName, file.length());
+        this.size += file.length();
+        deleteLeastRecentlyUsedFiles();
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used files until their size is smaller than the maximum size.
+   */
+  private void deleteLeastRecentlyUsedFiles() {
+    for (Iterator<Map.Entry<String, Long>> it = this.iconFiles.entrySet().iterator();
+         it.hasNext() && this.size > this.maximumSize; ) {
+      Map.Entry<String, Long> fileEntry = it.next();
+      it.remove();
+      this.size -= fileEntry.getValue();
+      new File(this.folder, fileEntry.getKey()).delete();
+    }
+  }
+
+  /**
+   * Deletes all the stored files.
+   */
+  public synchronized void clear() {
+    long maximumSize = this.maximumSize;
+    this.maximumSize = 0;
+    deleteLeastRecentlyUsedFiles();
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Returns the name of the file matching the given <code>key</code>.
+   */
+  private String getFileName(String key) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      digest.update(key.getBytes("UTF-8"));
+      return new BigInteger(1, digest.digest()).toString(16) + ".png";
+    } catch (NoSuchAlgorithmException ex) {
+      throw new InternalError("No SHA-1 message digest is available");
+    } catch (IOException ex) {
+      throw new InternalError("No UTF-8 encoding is available");
+    }
+  }
+
+  /**
+   * Returns a SHA-1 digest of the data of the given <code>content</code>.
+   * If the content is a multi part entry of a zip file, the digest is computed from 
+   * the entries of its directory, to take into account the other files it may 
+   * reference like textures.
+   */
+  public String getContentDigest(Content content) throws IOException {
+    synchronized (this) {
+      String digest = this.contentDigests.get(content);
+      if (digest != null) {
+        return digest;
+      }
+    }
+    try {
+      MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+      String entryDirectory = getMultiPartEntryDirectory(content);
+      if (entryDirectory != null) {
+        URL zipUrl = ((URLContent)content).getJAREntryURL();
+        for (String zipEntryName : getZipEntries(zipUrl)) {
+          if (zipEntryName.startsWith(entryDirectory)
+              && !zipEntryName.endsWith("/")) {
+            // Use names relative to directory to get the same digest whatever the directory name
+            messageDigest.update(zipEntryName.substring(entryDirectory.length()).getBytes("UTF-8"));
+            updateMessageDigest(messageDigest, new URLContent(new URL("jar:" + zipUrl + "!/"
+                + URLEncoder.encode(zipEntryName, "UTF-8").replace("+", "%20"))));
+          }
+        }
+      } else {
+        updateMessageDigest(messageDigest, content);
+      }
+      String digest = new BigInteger(1, messageDigest.digest()).toString(16);
+      synchronized (this) {
+        this.contentDigests.put(content, digest);
+      }
+      return digest;
+    } catch (NoSuchAlgorithmException ex) {
+      throw new InternalError("No SHA-1 message digest is available");
+    }
+  }
+
+  /**
+   * Returns the directory of the zip entries that make the given <code>content</code>, 
+   * or <code>null</code> if the content is made of a single entry.
+   */
+  private String getMultiPartEntryDirectory(Content content) {
+    if (content instanceof URLContent
+        && ((URLContent)content).isJAREntry()) {
+      String entryName = ((URLContent)content).getJAREntryName();
+      if (content instanceof ResourceURLContent) {
+        // Resources are stored in the same directory as other resources 
+        // unless they're multi part resources
+        int lastSlashIndex = entryName.lastIndexOf('/');
+        if (((ResourceURLContent)content).isMultiPartResource()
+            && lastSlashIndex != -1) {
+          return entryName.substring(0, lastSlashIndex + 1);
+        }
+      } else {
+        // Multi part contents of homes and furniture libraries are saved in a directory 
+        int slashIndex = entryName.indexOf('/');
+        if (slashIndex > 0) {
+          return entryName.substring(0, slashIndex + 1);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the sorted names of the entries of the given zip file.
+   */
+  private List<String> getZipEntries(URL zipUrl) throws IOException {
+    synchronized (this) {
+      List<String> entries = this.zipUrlEntries.get(zipUrl);
+      if (entries != null) {
+        return entries;
+      }
+    }
+    List<String> entries = new ArrayList<String>();
+    ZipInputStream zipIn = null;
+    try {
+      zipIn = new ZipInputStream(zipUrl.openStream());
+      for (ZipEntry entry; (entry = zipIn.getNextEntry()) != null; ) {
+        entries.add(entry.getName());
+      }
+    } finally {
+      if (zipIn != null) {
+        zipIn.close();
+      }
+    }
+    // Sort entries to get the same digest whatever their order in the zip file
+    Collections.sort(entries);
+    synchronized (this) {
+      this.zipUrlEntries.put(zipUrl, entries);
+    }
+    return entries;
+  }
+
+  /**
+   * Updates message digest with the data of the given <code>content</code>.
+   */
+  private void updateMessageDigest(MessageDigest messageDigest, Content content) throws IOException {
+    InputStream in = null;
+    try {
+      in = content.openStream();
+      byte [] buffer = new byte [8192];
+      int size;
+      while ((size = in.read(buffer)) != -1) {
+        messageDigest.update(buffer, 0, size);
+      }
+    } finally {
+      if (in != null) {
+        in.close();
+      }
+    }
+  }
+}
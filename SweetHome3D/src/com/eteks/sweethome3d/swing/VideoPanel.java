@@ -78,13 +78,22 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
 import java.util.Hashtable;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.imageio.ImageIO;
 import javax.media.Buffer;
@@ -1389,17 +1398,28 @@ public class VideoPanel extends JPanel implements DialogView {
     try {
       file = OperatingSystem.createTemporaryFile("video", ".mov"); 
       if (quality >= 2) {
-        frameGenerator = new PhotoImageGenerator(home, width, height, this.object3dFactory, 
-            quality == 2 
-              ? PhotoRenderer.Quality.LOW
-              : PhotoRenderer.Quality.HIGH);        
+        PhotoRenderer.Quality photoQuality = quality == 2 
+            ? PhotoRenderer.Quality.LOW
+            : PhotoRenderer.Quality.HIGH;
+        int renderersCount = Math.min(getParallelFramesCount(), videoFramesPath.length);
+        int threadCount = this.preferences.getPhotoRenderingThreadCount();
+        if (renderersCount > 1) {
+          frameGenerator = new ParallelPhotoImageGenerator(home, width, height, this.object3dFactory, 
+              photoQuality, threadCount, videoFramesPath, renderersCount);
+        } else {
+          frameGenerator = new PhotoImageGenerator(home, width, height, this.object3dFactory, photoQuality, threadCount);
+        }
       } else {
         frameGenerator = new Image3DGenerator(home, width, height, this.object3dFactory, quality == 1); 
       }
       if (!Thread.currentThread().isInterrupted()) {
-        ImageDataSource sourceStream = new ImageDataSource((VideoFormat)this.videoFormatComboBox.getSelectedItem(), 
-            frameGenerator, videoFramesPath, progressModel);
-        new JPEGImagesToVideo().createVideoFile(width, height, frameRate, sourceStream, file);
+        if ("jmf".equalsIgnoreCase(System.getProperty("com.eteks.sweethome3d.swing.videoEncoder"))) {
+          ImageDataSource sourceStream = new ImageDataSource((VideoFormat)this.videoFormatComboBox.getSelectedItem(), 
+              frameGenerator, videoFramesPath, progressModel);
+          new JPEGImagesToVideo().createVideoFile(width, height, frameRate, sourceStream, file);
+        } else {
+          writeVideoFile(width, height, frameRate, frameGenerator, videoFramesPath, progressModel, file);
+        }
       }
     } catch (InterruptedIOException ex) {
       if (file != null) {
@@ -1438,6 +1458,50 @@ public class VideoPanel extends JPanel implements DialogView {
     }
   }
 
+  /**
+   * Writes in <code>file</code> the frames computed by <code>frameGenerator</code> along 
+   * <code>framesPath</code>, each frame being compressed while the next one is computed.
+   */
+  private void writeVideoFile(int width, int height, int frameRate, 
+                              FrameGenerator frameGenerator, Camera [] framesPath,
+                              final BoundedRangeModel progressModel, File file) throws IOException {
+    JPEGVideoWriter videoWriter = new JPEGVideoWriter(file, width, height, frameRate);
+    try {
+      for (int i = 0; i < framesPath.length; i++) {
+        BufferedImage frame = frameGenerator.renderImageAt(framesPath [i], i == framesPath.length - 1);
+        videoWriter.writeFrame(frame);
+        final int progressionValue = i;
+        EventQueue.invokeLater(new Runnable() {
+            public void run() {
+              progressModel.setValue(progressionValue);
+            }
+          });
+      }
+      videoWriter.close();
+    } finally {
+      videoWriter.abort();
+    }
+  }
+
+  /**
+   * Returns the count of video frames that may be rendered at the same time by photo renderers.
+   * This count may be set with the <code>com.eteks.sweethome3d.swing.parallelVideoFrames</code> 
+   * System property. By default, a frame is rendered in parallel for each group of 4 processors, 
+   * without exceeding 4 frames to avoid an excessive memory use.
+   */
+  private int getParallelFramesCount() {
+    int availableProcessors = Runtime.getRuntime().availableProcessors();
+    String parallelFrames = System.getProperty("com.eteks.sweethome3d.swing.parallelVideoFrames");
+    if (parallelFrames != null) {
+      try {
+        return Math.max(1, Math.min(availableProcessors, Integer.parseInt(parallelFrames)));
+      } catch (NumberFormatException ex) {
+        // Use default value
+      }
+    } 
+    return Math.max(1, Math.min(4, availableProcessors / 4));
+  }
+
   /**
    * Shows a message error dialog. 
    */
@@ -1794,8 +1858,10 @@ public class VideoPanel extends JPanel implements DialogView {
     
     public PhotoImageGenerator(Home home, int width, int height,
                                Object3DFactory object3dFactory,
-                               PhotoRenderer.Quality quality) throws IOException {
+                               PhotoRenderer.Quality quality,
+                               int threadCount) throws IOException {
       this.renderer = new PhotoRenderer(home, object3dFactory, quality); 
+      this.renderer.setThreadCount(threadCount);
       this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
     }
 
@@ -1817,6 +1883,156 @@ public class VideoPanel extends JPanel implements DialogView {
     }
   }
 
+  /**
+   * A frame generator using several photo renderers to render the frames of a camera path 
+   * at the same time. Each renderer uses a part of the available processors, and rendered frames 
+   * are returned in the order of the camera path once they're all computed up to the requested one.  
+   */
+  private static class ParallelPhotoImageGenerator extends FrameGenerator {
+    private final Camera []                   framesPath;
+    private final int                         width;
+    private final int                         height;
+    private final BlockingQueue<PhotoRenderer> availableRenderers;
+    private final List<PhotoRenderer>         renderers;
+    private final ExecutorService             framesExecutor;
+    // Frames being rendered in the order of frames path
+    private final Queue<Future<BufferedImage>> renderedFrames;
+    private int                               nextFrameIndex;
+    private int                               nextRenderedFrameIndex;
+
+    public ParallelPhotoImageGenerator(Home home, int width, int height,
+                                       Object3DFactory object3dFactory,
+                                       PhotoRenderer.Quality quality, 
+                                       int threadCount,
+                                       Camera [] framesPath,
+                                       int renderersCount) throws IOException {
+      this.framesPath = framesPath;
+      this.width = width;
+      this.height = height;
+      this.availableRenderers = new ArrayBlockingQueue<PhotoRenderer>(renderersCount);
+      this.renderers = new ArrayList<PhotoRenderer>(renderersCount);
+      // Share threads among renderers
+      threadCount = Math.max(1, (threadCount > 0 
+          ? threadCount 
+          : Runtime.getRuntime().availableProcessors()) / renderersCount);
+      try {
+        for (int i = 0; i < renderersCount; i++) {
+          checkLaunchingThreadIsntInterrupted();
+          PhotoRenderer renderer = new PhotoRenderer(home, object3dFactory, quality);
+          renderer.setThreadCount(threadCount);
+          this.renderers.add(renderer);
+          this.availableRenderers.add(renderer);
+        }
+      } catch (IOException ex) {
+        disposeRenderers(this.renderers);
+        throw ex;
+      }
+      this.framesExecutor = Executors.newFixedThreadPool(renderersCount);
+      this.renderedFrames = new LinkedList<Future<BufferedImage>>();
+    }
+
+    public BufferedImage renderImageAt(Camera frameCamera, boolean last) throws IOException {
+      boolean rendered = false;
+      try {
+        if (frameCamera != this.framesPath [this.nextFrameIndex]) {
+          throw new IllegalArgumentException("Frames not requested in camera path order");
+        }
+        // Keep renderers busy with the next frames, without keeping in memory 
+        // more than twice the count of renderers 
+        while (this.nextRenderedFrameIndex < this.framesPath.length
+            && this.renderedFrames.size() < 2 * this.renderers.size()) {
+          final Camera camera = this.framesPath [this.nextRenderedFrameIndex++];
+          this.renderedFrames.add(this.framesExecutor.submit(new Callable<BufferedImage>() {
+              public BufferedImage call() throws Exception {
+                PhotoRenderer renderer = availableRenderers.take();
+                try {
+                  BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                  renderer.render(image, camera, null);
+                  return image;
+                } finally {
+                  availableRenderers.add(renderer);
+                }
+              }
+            }));
+        }
+        
+        Future<BufferedImage> frame = this.renderedFrames.poll();
+        this.nextFrameIndex++;
+        while (true) {
+          checkLaunchingThreadIsntInterrupted();
+          try {
+            BufferedImage image = frame.get(100, TimeUnit.MILLISECONDS);
+            checkLaunchingThreadIsntInterrupted();
+            rendered = true;
+            return image;
+          } catch (TimeoutException ex) {
+            // Check again launching thread state
+          } catch (InterruptedException ex) {
+            throw new InterruptedIOException("Frame rendering interrupted");
+          } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+              throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+              throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+              throw (Error)cause;
+            } else {
+              throw new IOException(cause.getMessage());
+            }
+          }
+        }
+      } finally {
+        // Stop renderers after last frame or in case of error  
+        if (last || !rendered) {
+          this.framesExecutor.shutdownNow();
+          for (PhotoRenderer renderer : this.renderers) {
+            renderer.stop();
+          }
+          // Wait the end of frames being rendered before disposing their renderers,
+          // ignoring temporarily the interruption of the launching thread
+          boolean interrupted = Thread.interrupted();
+          boolean terminated = false;
+          try {
+            terminated = this.framesExecutor.awaitTermination(10, TimeUnit.SECONDS);
+          } catch (InterruptedException ex) {
+            interrupted = true;
+          }
+          if (interrupted) {
+            Thread.currentThread().interrupt();
+          }
+          if (terminated) {
+            disposeRenderers(this.renderers);
+          } else {
+            // Dispose renderers once the frames still rendered by SunFlow are computed
+            final List<PhotoRenderer> renderers = new ArrayList<PhotoRenderer>(this.renderers);
+            final ExecutorService framesExecutor = this.framesExecutor;
+            Thread disposingThread = new Thread(new Runnable() {
+                public void run() {
+                  try {
+                    while (!framesExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    }
+                    disposeRenderers(renderers);
+                  } catch (InterruptedException ex) {
+                    // Keep renderers undisposed rather than disposing them while they're used
+                  }
+                }
+              });
+            disposingThread.setDaemon(true);
+            disposingThread.start();
+          }
+          this.renderers.clear();
+        }
+      }
+    }
+
+    private static void disposeRenderers(List<PhotoRenderer> renderers) {
+      for (PhotoRenderer renderer : renderers) {
+        renderer.dispose();
+      }
+    }
+  }
+
   /**
    * A frame generator using 3D offscreen images.
    */
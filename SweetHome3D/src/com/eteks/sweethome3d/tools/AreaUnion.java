@@ -0,0 +1,250 @@
+/*
+ * AreaUnion.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.tools;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The union of the shapes of a set of items, updated incrementally when items are
+ * added, modified or removed. The union is computed with a balanced tree which nodes
+ * cache the union of the items of their subtree, so the change of an item requires
+ * to compute again only the unions of the nodes between that item and the root.
+ * Items are sorted along a space filling curve each time the tree is rebuilt,
+ * to keep close items in the same subtrees.
+ * Items are compared with their identity.
+ * @param <T> the type of items
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class AreaUnion<T> {
+  private final Map<T, Integer> itemIndices;
+  private final Area            emptyArea;
+  private Object []             items;
+  private Area []               itemAreas;
+  // Unions of the subtrees, node 1 being the root and nodes 2n and 2n + 1 the children of node n
+  private Area []               nodes;
+  private int                   capacity;
+  private int                   usedLeafCount;
+  private int                   removedItemCount;
+
+  /**
+   * Creates an empty union.
+   */
+  public AreaUnion() {
+    this.itemIndices = new IdentityHashMap<T, Integer>();
+    this.emptyArea = new Area();
+    rebuild(1);
+  }
+
+  /**
+   * Adds the given <code>item</code> to this union or updates its <code>shape</code>
+   * if it was already added.
+   */
+  public void add(T item, Shape shape) {
+    Area itemArea = new Area(shape);
+    Integer index = this.itemIndices.get(item);
+    if (index == null) {
+      if (this.usedLeafCount == this.capacity) {
+        rebuild(this.itemIndices.size() + 1);
+      }
+      index = this.usedLeafCount++;
+      this.items [index] = item;
+      this.itemIndices.put(item, index);
+    }
+    this.itemAreas [index] = itemArea;
+    invalidate(index);
+  }
+
+  /**
+   * Removes the given <code>item</code> from this union.
+   * @return <code>true</code> if the item belonged to this union
+   */
+  public boolean remove(T item) {
+    Integer index = this.itemIndices.remove(item);
+    if (index == null) {
+      return false;
+    } else {
+      this.items [index] = null;
+      this.itemAreas [index] = null;
+      invalidate(index);
+      if (++this.removedItemCount > this.usedLeafCount / 2) {
+        rebuild(this.itemIndices.size());
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the given <code>item</code> belongs to this union.
+   */
+  public boolean contains(T item) {
+    return this.itemIndices.containsKey(item);
+  }
+
+  /**
+   * Returns the count of items in this union.
+   */
+  public int size() {
+    return this.itemIndices.size();
+  }
+
+  /**
+   * Returns the items of this union.
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> getItems() {
+    List<T> items = new ArrayList<T>(this.itemIndices.size());
+    for (int i = 0; i < this.usedLeafCount; i++) {
+      if (this.items [i] != null) {
+        items.add((T)this.items [i]);
+      }
+    }
+    return items;
+  }
+
+  /**
+   * Returns the union of the shapes of the items. The returned area is cached
+   * and shouldn't be modified.
+   */
+  public Area getArea() {
+    return getNodeArea(1);
+  }
+
+  private Area getNodeArea(int node) {
+    if (node >= this.capacity) {
+      Area itemArea = this.itemAreas [node - this.capacity];
+      return itemArea != null
+          ? itemArea
+          : this.emptyArea;
+    } else {
+      Area area = this.nodes [node];
+      if (area == null) {
+        Area leftArea = getNodeArea(2 * node);
+        Area rightArea = getNodeArea(2 * node + 1);
+        if (rightArea.isEmpty()) {
+          area = leftArea;
+        } else if (leftArea.isEmpty()) {
+          area = rightArea;
+        } else {
+          area = new Area(leftArea);
+          area.add(rightArea);
+        }
+        this.nodes [node] = area;
+      }
+      return area;
+    }
+  }
+
+  /**
+   * Clears the unions cached in the nodes between the item at the given index and the root.
+   */
+  private void invalidate(int index) {
+    // Once a node is cleared, its ancestors are cleared too
+    for (int node = (this.capacity + index) / 2; node >= 1 && this.nodes [node] != null; node /= 2) {
+      this.nodes [node] = null;
+    }
+  }
+
+  /**
+   * Rebuilds the tree with a capacity able to store the given count of items
+   * and sorts items along a Z-order curve.
+   */
+  @SuppressWarnings("unchecked")
+  private void rebuild(int itemCount) {
+    final List<T> items = new ArrayList<T>(this.itemIndices.size());
+    List<Area> itemAreas = new ArrayList<Area>(this.itemIndices.size());
+    Rectangle2D itemsBounds = null;
+    for (int i = 0; i < this.usedLeafCount; i++) {
+      if (this.items [i] != null) {
+        items.add((T)this.items [i]);
+        itemAreas.add(this.itemAreas [i]);
+        Rectangle2D bounds = this.itemAreas [i].getBounds2D();
+        if (itemsBounds == null) {
+          itemsBounds = bounds;
+        } else {
+          itemsBounds.add(bounds);
+        }
+      }
+    }
+
+    Integer [] sortedIndices = new Integer [items.size()];
+    if (items.size() > 1) {
+      final long [] codes = new long [items.size()];
+      for (int i = 0; i < codes.length; i++) {
+        Rectangle2D bounds = itemAreas.get(i).getBounds2D();
+        codes [i] = getZOrderCode(
+            getQuantizedCoordinate(bounds.getCenterX(), itemsBounds.getMinX(), itemsBounds.getWidth()),
+            getQuantizedCoordinate(bounds.getCenterY(), itemsBounds.getMinY(), itemsBounds.getHeight()));
+        sortedIndices [i] = i;
+      }
+      Arrays.sort(sortedIndices, new Comparator<Integer>() {
+          public int compare(Integer index1, Integer index2) {
+            return codes [index1] < codes [index2]
+                ? -1
+                : (codes [index1] == codes [index2] ? 0 : 1);
+          }
+        });
+    } else if (items.size() == 1) {
+      sortedIndices [0] = 0;
+    }
+
+    this.capacity = 1;
+    while (this.capacity < itemCount) {
+      this.capacity *= 2;
+    }
+    this.items = new Object [this.capacity];
+    this.itemAreas = new Area [this.capacity];
+    this.nodes = new Area [this.capacity];
+    this.itemIndices.clear();
+    for (int i = 0; i < sortedIndices.length; i++) {
+      T item = items.get(sortedIndices [i]);
+      this.items [i] = item;
+      this.itemAreas [i] = itemAreas.get(sortedIndices [i]);
+      this.itemIndices.put(item, i);
+    }
+    this.usedLeafCount = sortedIndices.length;
+    this.removedItemCount = 0;
+  }
+
+  private int getQuantizedCoordinate(double coordinate, double min, double length) {
+    return length > 0
+        ? (int)Math.min(0xFFFF, Math.max(0, (coordinate - min) / length * 0xFFFF))
+        : 0;
+  }
+
+  /**
+   * Returns the code of the point (x, y) on a Z-order curve, by interleaving the bits of its coordinates.
+   */
+  private long getZOrderCode(int x, int y) {
+    long code = 0;
+    for (int i = 0; i < 16; i++) {
+      code |= ((long)(x >> i & 1) << (2 * i)) | ((long)(y >> i & 1) << (2 * i + 1));
+    }
+    return code;
+  }
+}
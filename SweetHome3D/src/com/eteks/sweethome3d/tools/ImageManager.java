@@ -0,0 +1,240 @@
+/*
+ * ImageManager.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.tools;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import com.eteks.sweethome3d.model.Content;
+
+/**
+ * Singleton managing image decoding at the size they're displayed.
+ * Images are read with source subsampling when they're much larger than the requested size,
+ * then downscaled with successive bilinear halvings, which is both faster and smoother
+ * than reading images at full size and scaling them with <code>Image.SCALE_SMOOTH</code>.
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class ImageManager {
+  private static ImageManager instance;
+  // Executor used to decode images
+  private ExecutorService     imagesLoader;
+
+  private ImageManager() {
+  }
+
+  /**
+   * Returns an instance of this singleton.
+   */
+  public static ImageManager getInstance() {
+    if (instance == null) {
+      instance = new ImageManager();
+    }
+    return instance;
+  }
+
+  /**
+   * Shutdowns the multithreaded service that decodes images.
+   */
+  public void clear() {
+    if (this.imagesLoader != null) {
+      this.imagesLoader.shutdownNow();
+      this.imagesLoader = null;
+    }
+  }
+
+  /**
+   * Executes the given <code>task</code> in the pool of threads dedicated to image decoding.
+   * This pool contains as many threads as available processors, to avoid that many images
+   * being decoded at the same time compete for memory and CPU.
+   */
+  public synchronized void execute(Runnable task) {
+    if (this.imagesLoader == null) {
+      this.imagesLoader = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+    this.imagesLoader.execute(task);
+  }
+
+  /**
+   * Returns the image read from <code>content</code> at its original size,
+   * or <code>null</code> if no reader is able to decode it.
+   */
+  public BufferedImage readImage(Content content) throws IOException {
+    return readImage(content, new ImageSize() {
+        public int [] getSize(int sourceWidth, int sourceHeight) {
+          return new int [] {sourceWidth, sourceHeight};
+        }
+      });
+  }
+
+  /**
+   * Returns the image read from <code>content</code> and scaled at the given size,
+   * or <code>null</code> if no reader is able to decode it.
+   * @param width  the width of the returned image or -1 to compute it from <code>height</code>
+   *               and the ratio of the read image
+   * @param height the height of the returned image or -1 to compute it from <code>width</code>
+   *               and the ratio of the read image
+   */
+  public BufferedImage readImage(Content content, final int width, final int height) throws IOException {
+    return readImage(content, new ImageSize() {
+        public int [] getSize(int sourceWidth, int sourceHeight) {
+          if (width == -1 && height == -1) {
+            return new int [] {sourceWidth, sourceHeight};
+          } else if (width == -1) {
+            return new int [] {Math.max(1, Math.round((float)sourceWidth * height / sourceHeight)), height};
+          } else if (height == -1) {
+            return new int [] {width, Math.max(1, Math.round((float)sourceHeight * width / sourceWidth))};
+          } else {
+            return new int [] {width, height};
+          }
+        }
+      });
+  }
+
+  /**
+   * Returns the size of the image stored in <code>content</code> read from its header,
+   * or <code>null</code> if no reader is able to decode it.
+   */
+  public Dimension getImageSize(Content content) throws IOException {
+    InputStream contentStream = content.openStream();
+    try {
+      ImageInputStream imageStream = ImageIO.createImageInputStream(contentStream);
+      if (imageStream == null) {
+        return null;
+      }
+      try {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+        if (!readers.hasNext()) {
+          return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+          reader.setInput(imageStream, true, true);
+          return new Dimension(reader.getWidth(0), reader.getHeight(0));
+        } finally {
+          reader.dispose();
+        }
+      } finally {
+        imageStream.close();
+      }
+    } finally {
+      contentStream.close();
+    }
+  }
+
+  /**
+   * Returns the image read from <code>content</code> at the size computed by <code>imageSize</code>.
+   */
+  private BufferedImage readImage(Content content, ImageSize imageSize) throws IOException {
+    InputStream contentStream = content.openStream();
+    try {
+      return readImage(contentStream, imageSize);
+    } catch (ConcurrentModificationException ex) {
+      // Try to read the image once more,
+      // see unfixed Java bug http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6986863
+      contentStream.close();
+      contentStream = content.openStream();
+      return readImage(contentStream, imageSize);
+    } finally {
+      contentStream.close();
+    }
+  }
+
+  /**
+   * Returns the image read from <code>contentStream</code> at the size computed by <code>imageSize</code>.
+   */
+  private BufferedImage readImage(InputStream contentStream, ImageSize imageSize) throws IOException {
+    ImageInputStream imageStream = ImageIO.createImageInputStream(contentStream);
+    if (imageStream == null) {
+      return null;
+    }
+    try {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+      if (!readers.hasNext()) {
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(imageStream, true, true);
+        int sourceWidth = reader.getWidth(0);
+        int sourceHeight = reader.getHeight(0);
+        int [] size = imageSize.getSize(sourceWidth, sourceHeight);
+        ImageReadParam param = reader.getDefaultReadParam();
+        // Subsample source while keeping at least twice the requested size
+        // to let the final downscale smooth the result
+        int xSubsampling = Math.max(1, sourceWidth / (2 * size [0]));
+        int ySubsampling = Math.max(1, sourceHeight / (2 * size [1]));
+        if (xSubsampling > 1 || ySubsampling > 1) {
+          param.setSourceSubsampling(xSubsampling, ySubsampling, 0, 0);
+        }
+        BufferedImage image = reader.read(0, param);
+        return getScaledImage(image, size [0], size [1]);
+      } finally {
+        reader.dispose();
+      }
+    } finally {
+      imageStream.close();
+    }
+  }
+
+  /**
+   * Returns <code>image</code> scaled at the given size. Downscaling is performed by successive
+   * bilinear halvings to compute each pixel from all the pixels of the source image.
+   */
+  public BufferedImage getScaledImage(BufferedImage image, int width, int height) {
+    int imageType = image.getTransparency() == BufferedImage.OPAQUE
+        ? BufferedImage.TYPE_INT_RGB
+        : BufferedImage.TYPE_INT_ARGB;
+    int scaledWidth = image.getWidth();
+    int scaledHeight = image.getHeight();
+    while (scaledWidth != width || scaledHeight != height) {
+      scaledWidth = scaledWidth / 2 >= width  ? scaledWidth / 2  : width;
+      scaledHeight = scaledHeight / 2 >= height ? scaledHeight / 2 : height;
+      BufferedImage scaledImage = new BufferedImage(scaledWidth, scaledHeight, imageType);
+      Graphics2D g2D = (Graphics2D)scaledImage.getGraphics();
+      g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g2D.drawImage(image, 0, 0, scaledWidth, scaledHeight, null);
+      g2D.dispose();
+      image = scaledImage;
+    }
+    return image;
+  }
+
+  /**
+   * Computes the size of a read image from the size of the source image.
+   */
+  private static interface ImageSize {
+    public int [] getSize(int sourceWidth, int sourceHeight);
+  }
+}
@@ -0,0 +1,701 @@
+/*
+ * PolygonBoolean.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.tools;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boolean operations on sets of polygons, faster than the ones of <code>Area</code> class
+ * for polygons with many points or numerous polygons computed in a single batch.
+ * A set of polygons is a list of closed polygons described by the (x, y) coordinates
+ * of their points, interpreted with the non-zero winding rule: the points of holes
+ * must be ordered in the opposite direction of the polygon that surrounds them.
+ * Returned polygons follow this rule too.<br>
+ * Operations are computed with a sweep line that splits the plane in horizontal bands
+ * where edges don't cross each other.
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class PolygonBoolean {
+  /**
+   * The system property that enables the use of this class instead of <code>Area</code> class
+   * in the heaviest geometric computations.
+   */
+  public static final String USE_POLYGON_BOOLEAN_PROPERTY = "com.eteks.sweethome3d.usePolygonBoolean";
+
+  private enum Operation {UNION, INTERSECTION, DIFFERENCE}
+
+  private static final int BATCH_POLYGON_COUNT = 64;
+  private static final int MAXIMUM_CHECKED_POLYGON_LENGTH = 64;
+
+  private static final Comparator<Edge> BOTTOM_X_COMPARATOR = new Comparator<Edge>() {
+      public int compare(Edge edge1, Edge edge2) {
+        if (edge1.xBottom != edge2.xBottom) {
+          return edge1.xBottom < edge2.xBottom ? -1 : 1;
+        } else if (edge1.xTop != edge2.xTop) {
+          return edge1.xTop < edge2.xTop ? -1 : 1;
+        } else {
+          return 0;
+        }
+      }
+    };
+
+  private PolygonBoolean() {
+    // This class contains only static methods
+  }
+
+  /**
+   * Returns <code>true</code> if the system property {@link #USE_POLYGON_BOOLEAN_PROPERTY}
+   * is equal to <code>true</code>.
+   */
+  public static boolean isEnabled() {
+    return Boolean.getBoolean(USE_POLYGON_BOOLEAN_PROPERTY);
+  }
+
+  /**
+   * Returns the union of the given <code>polygons</code>, each polygon being considered
+   * as a distinct shape, whatever the order of its points.
+   */
+  public static List<float [][]> union(Collection<float [][]> polygons) {
+    List<float [][]> sortedPolygons = new ArrayList<float[][]>(polygons.size());
+    for (float [][] polygon : polygons) {
+      if (polygon.length > 2) {
+        sortedPolygons.add(polygon);
+      }
+    }
+    // Sort polygons along x axis to merge close polygons together
+    Collections.sort(sortedPolygons, new Comparator<float [][]>() {
+        public int compare(float [][] polygon1, float [][] polygon2) {
+          return Float.compare(polygon1 [0][0], polygon2 [0][0]);
+        }
+      });
+    return union(sortedPolygons, 0, sortedPolygons.size());
+  }
+
+  /**
+   * Returns the union of the polygons between <code>start</code> and <code>end</code> indices,
+   * computed by merging the union of the first half and the union of the second half
+   * when polygons are numerous, to avoid computing intersections of edges
+   * that will be inside the result.
+   */
+  private static List<float [][]> union(List<float [][]> polygons, int start, int end) {
+    if (end - start > BATCH_POLYGON_COUNT) {
+      int middle = (start + end) >>> 1;
+      return union(union(polygons, start, middle), union(polygons, middle, end));
+    } else {
+      List<Edge> edges = new ArrayList<Edge>();
+      for (int i = start; i < end; i++) {
+        float [][] polygon = polygons.get(i);
+        if (isSimple(polygon)) {
+          double area = getSignedArea(polygon);
+          if (area != 0) {
+            addEdges(edges, polygon, true, area > 0 ? 1 : -1);
+          }
+        } else {
+          // Replace a self-intersecting polygon by the polygons of its area
+          List<Edge> polygonEdges = new ArrayList<Edge>();
+          addEdges(polygonEdges, polygon, true, 1);
+          for (float [][] simplePolygon : computeOperation(polygonEdges, Operation.UNION)) {
+            addEdges(edges, simplePolygon, true, 1);
+          }
+        }
+      }
+      return computeOperation(edges, Operation.UNION);
+    }
+  }
+
+  /**
+   * Returns the union of the two given sets of polygons.
+   */
+  public static List<float [][]> union(List<float [][]> polygons1, List<float [][]> polygons2) {
+    return computeOperation(getEdges(polygons1, polygons2), Operation.UNION);
+  }
+
+  /**
+   * Returns the intersection of the two given sets of polygons.
+   */
+  public static List<float [][]> intersect(List<float [][]> polygons1, List<float [][]> polygons2) {
+    return computeOperation(getEdges(polygons1, polygons2), Operation.INTERSECTION);
+  }
+
+  /**
+   * Returns the second set of polygons subtracted from the first one.
+   */
+  public static List<float [][]> subtract(List<float [][]> polygons1, List<float [][]> polygons2) {
+    return computeOperation(getEdges(polygons1, polygons2), Operation.DIFFERENCE);
+  }
+
+  /**
+   * Returns the polygons of the given <code>shape</code>, its curves being flattened
+   * with the given <code>flatness</code>.
+   */
+  public static List<float [][]> getPolygons(Shape shape, float flatness) {
+    List<float [][]> polygons = new ArrayList<float[][]>();
+    List<float []> polygonPoints = new ArrayList<float[]>();
+    for (PathIterator it = shape.getPathIterator(null, flatness); !it.isDone(); it.next()) {
+      float [] point = new float [2];
+      switch (it.currentSegment(point)) {
+        case PathIterator.SEG_MOVETO :
+          addPolygon(polygons, polygonPoints);
+          polygonPoints.add(point);
+          break;
+        case PathIterator.SEG_LINETO :
+          polygonPoints.add(point);
+          break;
+        case PathIterator.SEG_CLOSE :
+          addPolygon(polygons, polygonPoints);
+          break;
+      }
+    }
+    addPolygon(polygons, polygonPoints);
+    return polygons;
+  }
+
+  private static void addPolygon(List<float [][]> polygons, List<float []> polygonPoints) {
+    if (polygonPoints.size() > 2) {
+      polygons.add(polygonPoints.toArray(new float [polygonPoints.size()][]));
+    }
+    polygonPoints.clear();
+  }
+
+  /**
+   * Returns the area matching the given set of <code>polygons</code>.
+   */
+  public static Area getArea(List<float [][]> polygons) {
+    GeneralPath path = new GeneralPath(GeneralPath.WIND_NON_ZERO);
+    for (float [][] polygon : polygons) {
+      path.moveTo(polygon [0][0], polygon [0][1]);
+      for (int i = 1; i < polygon.length; i++) {
+        path.lineTo(polygon [i][0], polygon [i][1]);
+      }
+      path.closePath();
+    }
+    return new Area(path);
+  }
+
+  /**
+   * Returns <code>true</code> if the edges of the given <code>polygon</code> don't cross each other.
+   * Polygons with too many points are considered as not simple to avoid a long check.
+   */
+  private static boolean isSimple(float [][] polygon) {
+    if (polygon.length > 3) {
+      if (polygon.length > MAXIMUM_CHECKED_POLYGON_LENGTH) {
+        return false;
+      }
+      for (int i = 0; i < polygon.length; i++) {
+        float [] point1 = polygon [i];
+        float [] point2 = polygon [(i + 1) % polygon.length];
+        for (int j = i + 2; j < polygon.length; j++) {
+          float [] point3 = polygon [j];
+          float [] point4 = polygon [(j + 1) % polygon.length];
+          if ((j + 1) % polygon.length != i
+              && getOrientation(point1, point2, point3) * getOrientation(point1, point2, point4) < 0
+              && getOrientation(point3, point4, point1) * getOrientation(point3, point4, point2) < 0) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the sign of the cross product of the vectors (point1, point2) and (point1, point3).
+   */
+  private static int getOrientation(float [] point1, float [] point2, float [] point3) {
+    double cross = ((double)point2 [0] - point1 [0]) * ((double)point3 [1] - point1 [1])
+        - ((double)point2 [1] - point1 [1]) * ((double)point3 [0] - point1 [0]);
+    return cross > 0 ? 1 : (cross < 0 ? -1 : 0);
+  }
+
+  /**
+   * Returns the signed area of the given <code>polygon</code>, positive if its points
+   * are ordered in the same direction as the points of the polygons returned by this class.
+   */
+  private static double getSignedArea(float [][] polygon) {
+    double area = 0;
+    for (int i = 0; i < polygon.length; i++) {
+      float [] point = polygon [i];
+      float [] nextPoint = polygon [(i + 1) % polygon.length];
+      area += (double)point [0] * nextPoint [1] - (double)nextPoint [0] * point [1];
+    }
+    return area / 2;
+  }
+
+  private static List<Edge> getEdges(List<float [][]> polygons1, List<float [][]> polygons2) {
+    List<Edge> edges = new ArrayList<Edge>();
+    for (float [][] polygon : polygons1) {
+      addEdges(edges, polygon, true, 1);
+    }
+    for (float [][] polygon : polygons2) {
+      addEdges(edges, polygon, false, 1);
+    }
+    return edges;
+  }
+
+  /**
+   * Adds to <code>edges</code> the non horizontal edges of the given <code>polygon</code>.
+   */
+  private static void addEdges(List<Edge> edges, float [][] polygon, boolean firstSet, int orientation) {
+    for (int i = 0; i < polygon.length; i++) {
+      float [] point = polygon [i];
+      float [] nextPoint = polygon [(i + 1) % polygon.length];
+      if (point [1] != nextPoint [1]) {
+        edges.add(new Edge(point, nextPoint, firstSet, orientation));
+      }
+    }
+  }
+
+  /**
+   * Returns the polygons resulting from the given operation applied to <code>edges</code>.
+   * The plane is swept from the smallest y to the greatest one, band by band, each band
+   * being delimited by the ordinates of edge ends and of edge intersections. In each band,
+   * edges are sorted along x axis and the winding numbers of each set of polygons are
+   * accumulated to find which edges border the result. Borders along band limits are
+   * deduced from the parts of the result in the bands below and above each limit.
+   */
+  private static List<float [][]> computeOperation(List<Edge> edges, Operation operation) {
+    if (edges.isEmpty()) {
+      return new ArrayList<float[][]>();
+    }
+    Collections.sort(edges, new Comparator<Edge>() {
+        public int compare(Edge edge1, Edge edge2) {
+          return Double.compare(edge1.y0, edge2.y0);
+        }
+      });
+    double [] ys = new double [edges.size() * 2];
+    double maxCoordinate = 1;
+    for (int i = 0; i < edges.size(); i++) {
+      Edge edge = edges.get(i);
+      ys [2 * i] = edge.y0;
+      ys [2 * i + 1] = edge.y1;
+      maxCoordinate = Math.max(maxCoordinate, Math.max(
+          Math.max(Math.abs(edge.x0), Math.abs(edge.x1)),
+          Math.max(Math.abs(edge.y0), Math.abs(edge.y1))));
+    }
+    Arrays.sort(ys);
+    int yCount = 0;
+    for (int i = 0; i < ys.length; i++) {
+      if (i == 0 || ys [i] != ys [yCount - 1]) {
+        ys [yCount++] = ys [i];
+      }
+    }
+    // Coordinates closer than this tolerance are considered as equal
+    double tolerance = maxCoordinate * 1E-9;
+
+    List<double []> segments = new ArrayList<double[]>();
+    Edge [] activeEdges = new Edge [16];
+    int activeEdgeCount = 0;
+    Band lowerBand = new Band();
+    Band band = new Band();
+    int edgeIndex = 0;
+    double yBottom = ys [0];
+    int nextYIndex = 1;
+    while (true) {
+      for ( ; edgeIndex < edges.size() && edges.get(edgeIndex).y0 == yBottom; edgeIndex++) {
+        Edge edge = edges.get(edgeIndex);
+        edge.xBottom = edge.x0;
+        if (activeEdgeCount == activeEdges.length) {
+          Edge [] newActiveEdges = new Edge [activeEdgeCount * 2];
+          System.arraycopy(activeEdges, 0, newActiveEdges, 0, activeEdgeCount);
+          activeEdges = newActiveEdges;
+        }
+        activeEdges [activeEdgeCount++] = edge;
+      }
+      if (activeEdgeCount == 0) {
+        band.length = 0;
+        addHorizontalSegments(lowerBand, band, yBottom, segments);
+        lowerBand.length = 0;
+        if (edgeIndex == edges.size()) {
+          break;
+        }
+        yBottom = edges.get(edgeIndex).y0;
+        while (ys [nextYIndex] <= yBottom) {
+          nextYIndex++;
+        }
+        continue;
+      }
+
+      double yTop = ys [nextYIndex];
+      for (int i = 0; i < activeEdgeCount; i++) {
+        activeEdges [i].xTop = activeEdges [i].getX(yTop);
+      }
+      sortEdges(activeEdges, activeEdgeCount);
+      // Search the lowest intersection between edges in the band
+      double yIntersection = yTop;
+      for (int i = 0; i < activeEdgeCount - 1; i++) {
+        Edge edge1 = activeEdges [i];
+        Edge edge2 = activeEdges [i + 1];
+        if (edge1.xTop > edge2.xTop + tolerance) {
+          double t = (edge2.xBottom - edge1.xBottom)
+              / ((edge1.xTop - edge1.xBottom) - (edge2.xTop - edge2.xBottom));
+          double y = yBottom + t * (yTop - yBottom);
+          if (y > yBottom && y < yIntersection) {
+            yIntersection = y;
+          }
+        }
+      }
+      if (yIntersection < yTop) {
+        yTop = yIntersection;
+        for (int i = 0; i < activeEdgeCount; i++) {
+          activeEdges [i].xTop = activeEdges [i].getX(yTop);
+        }
+        // Give the same abscissa to edges that meet at the intersection
+        if (snapTopCoordinates(activeEdges, activeEdgeCount, tolerance)) {
+          sortEdges(activeEdges, activeEdgeCount);
+        }
+      }
+
+      // Search edges that border the result in the band
+      band.ensureCapacity(activeEdgeCount);
+      band.length = 0;
+      int windingNumber1 = 0;
+      int windingNumber2 = 0;
+      boolean inside = false;
+      for (int i = 0; i < activeEdgeCount; ) {
+        Edge edge = activeEdges [i];
+        double xBottom = edge.xBottom;
+        double xTop = edge.xTop;
+        // Manage superimposed edges together
+        do {
+          windingNumber1 += activeEdges [i].winding1;
+          windingNumber2 += activeEdges [i].winding2;
+        } while (++i < activeEdgeCount
+                 && activeEdges [i].xBottom == xBottom
+                 && activeEdges [i].xTop == xTop);
+        boolean insideResult = isInside(operation, windingNumber1, windingNumber2);
+        if (insideResult != inside) {
+          inside = insideResult;
+          // Orient borders so that the result is on their left side
+          double [] segment = inside
+              ? new double [] {xTop + 0., yTop + 0., xBottom + 0., yBottom + 0.}
+              : new double [] {xBottom + 0., yBottom + 0., xTop + 0., yTop + 0.};
+          segments.add(segment);
+          band.xBottom [band.length] = xBottom;
+          band.xTop [band.length] = xTop;
+          band.edges [band.length] = edge;
+          band.segments [band.length++] = segment;
+        }
+      }
+      addHorizontalSegments(lowerBand, band, yBottom, segments);
+      Band swappedBand = lowerBand;
+      lowerBand = band;
+      band = swappedBand;
+
+      // Move to next band
+      int remainingEdgeCount = 0;
+      for (int i = 0; i < activeEdgeCount; i++) {
+        Edge edge = activeEdges [i];
+        if (edge.y1 > yTop) {
+          edge.xBottom = edge.xTop;
+          activeEdges [remainingEdgeCount++] = edge;
+        }
+      }
+      for (int i = remainingEdgeCount; i < activeEdgeCount; i++) {
+        activeEdges [i] = null;
+      }
+      activeEdgeCount = remainingEdgeCount;
+      yBottom = yTop;
+      if (ys [nextYIndex] == yTop) {
+        nextYIndex++;
+      }
+    }
+    return getPolygons(segments, tolerance);
+  }
+
+  /**
+   * Sorts the given edges in the order of their abscissa at the bottom then at the top of the band.
+   * As edges are almost sorted from one band to the next one, an insertion sort is used.
+   */
+  private static void sortEdges(Edge [] edges, int count) {
+    for (int i = 1; i < count; i++) {
+      Edge edge = edges [i];
+      int j = i - 1;
+      while (j >= 0 && BOTTOM_X_COMPARATOR.compare(edges [j], edge) > 0) {
+        edges [j + 1] = edges [j];
+        j--;
+      }
+      edges [j + 1] = edge;
+    }
+  }
+
+  /**
+   * Gives the same abscissa at the top of the band to sorted edges that are closer than
+   * <code>tolerance</code>.
+   * @return <code>true</code> if an abscissa was changed
+   */
+  private static boolean snapTopCoordinates(Edge [] edges, int count, double tolerance) {
+    boolean snapped = false;
+    for (int i = 0; i < count; ) {
+      int clusterEnd = i + 1;
+      double x = edges [i].xTop;
+      for ( ; clusterEnd < count && Math.abs(edges [clusterEnd].xTop - x) <= tolerance; clusterEnd++) {
+        if (edges [clusterEnd].xTop != x) {
+          edges [clusterEnd].xTop = x;
+          snapped = true;
+        }
+      }
+      i = clusterEnd;
+    }
+    return snapped;
+  }
+
+  private static boolean isInside(Operation operation, int windingNumber1, int windingNumber2) {
+    switch (operation) {
+      case INTERSECTION :
+        return windingNumber1 != 0 && windingNumber2 != 0;
+      case DIFFERENCE :
+        return windingNumber1 != 0 && windingNumber2 == 0;
+      default :
+        return windingNumber1 != 0 || windingNumber2 != 0;
+    }
+  }
+
+  /**
+   * Adds to <code>segments</code> the horizontal borders at ordinate <code>y</code>
+   * between the parts of the result in the band below and in the band above,
+   * and joins the borders of an edge that continues alone from one band to the other.
+   */
+  private static void addHorizontalSegments(Band lowerBand, Band upperBand,
+                                            double y, List<double []> segments) {
+    boolean insideLower = false;
+    boolean insideUpper = false;
+    double previousX = Double.NEGATIVE_INFINITY;
+    for (int i = 0, j = 0; i < lowerBand.length || j < upperBand.length; ) {
+      boolean lower = j == upperBand.length
+          || i < lowerBand.length && lowerBand.xTop [i] <= upperBand.xBottom [j];
+      double x = lower
+          ? lowerBand.xTop [i]
+          : upperBand.xBottom [j];
+      if (x > previousX) {
+        if (insideLower && !insideUpper) {
+          segments.add(new double [] {x + 0., y + 0., previousX + 0., y + 0.});
+        } else if (insideUpper && !insideLower) {
+          segments.add(new double [] {previousX + 0., y + 0., x + 0., y + 0.});
+        }
+        previousX = x;
+      }
+      if (lower
+          && j < upperBand.length
+          && i % 2 == j % 2
+          && lowerBand.edges [i] == upperBand.edges [j]
+          && upperBand.xBottom [j] == x
+          && (i + 1 == lowerBand.length || lowerBand.xTop [i + 1] != x)
+          && (j + 1 == upperBand.length || upperBand.xBottom [j + 1] != x)
+          && (i == 0 || lowerBand.xTop [i - 1] != x)
+          && (j == 0 || upperBand.xBottom [j - 1] != x)) {
+        // No other border passes at (x, y), replace the border of the edge
+        // in the upper band by the extended border of the lower band
+        double [] lowerSegment = lowerBand.segments [i++];
+        double [] upperSegment = upperBand.segments [j++];
+        if (i % 2 == 1) {
+          lowerSegment [0] = upperSegment [0];
+          lowerSegment [1] = upperSegment [1];
+        } else {
+          lowerSegment [2] = upperSegment [2];
+          lowerSegment [3] = upperSegment [3];
+        }
+        upperSegment [0] = Double.NaN;
+        upperBand.segments [j - 1] = lowerSegment;
+        insideLower = !insideLower;
+        insideUpper = !insideUpper;
+      } else if (lower) {
+        insideLower = !insideLower;
+        i++;
+      } else {
+        insideUpper = !insideUpper;
+        j++;
+      }
+    }
+  }
+
+  /**
+   * Returns the polygons built by joining the given oriented <code>segments</code>.
+   */
+  private static List<float [][]> getPolygons(List<double []> segments, double tolerance) {
+    Map<Point2D, List<double []>> segmentsAtStart = new HashMap<Point2D, List<double[]>>(segments.size() * 2);
+    for (double [] segment : segments) {
+      if (Double.isNaN(segment [0])) {
+        // Ignore segments replaced by joined segments
+        continue;
+      }
+      Point2D start = new Point2D.Double(segment [0], segment [1]);
+      List<double []> startingSegments = segmentsAtStart.get(start);
+      if (startingSegments == null) {
+        startingSegments = new ArrayList<double[]>(2);
+        segmentsAtStart.put(start, startingSegments);
+      }
+      startingSegments.add(segment);
+    }
+
+    List<float [][]> polygons = new ArrayList<float[][]>();
+    List<double []> polygonPoints = new ArrayList<double[]>();
+    Point2D.Double end = new Point2D.Double();
+    for (double [] firstSegment : segments) {
+      end.setLocation(firstSegment [0], firstSegment [1]);
+      if (!Double.isNaN(firstSegment [0])
+          && segmentsAtStart.get(end).remove(firstSegment)) {
+        polygonPoints.clear();
+        polygonPoints.add(new double [] {firstSegment [0], firstSegment [1]});
+        double [] segment = firstSegment;
+        boolean closed = true;
+        while (segment [2] != firstSegment [0]
+            || segment [3] != firstSegment [1]) {
+          polygonPoints.add(new double [] {segment [2], segment [3]});
+          end.setLocation(segment [2], segment [3]);
+          List<double []> startingSegments = segmentsAtStart.get(end);
+          if (startingSegments == null || startingSegments.isEmpty()) {
+            // Shouldn't happen
+            closed = false;
+            break;
+          }
+          segment = startingSegments.remove(startingSegments.size() - 1);
+        }
+        if (closed) {
+          float [][] polygon = getSimplifiedPolygon(polygonPoints, tolerance);
+          if (polygon != null) {
+            polygons.add(polygon);
+          }
+        }
+      }
+    }
+    return polygons;
+  }
+
+  /**
+   * Returns the points of the given polygon without aligned points,
+   * or <code>null</code> if the polygon is empty.
+   */
+  private static float [][] getSimplifiedPolygon(List<double []> points, double tolerance) {
+    boolean removed;
+    do {
+      removed = false;
+      for (int i = 0; i < points.size() && points.size() > 2; ) {
+        double [] previousPoint = points.get((i + points.size() - 1) % points.size());
+        double [] point = points.get(i);
+        double [] nextPoint = points.get((i + 1) % points.size());
+        double cross = (point [0] - previousPoint [0]) * (nextPoint [1] - point [1])
+            - (point [1] - previousPoint [1]) * (nextPoint [0] - point [0]);
+        double dx = nextPoint [0] - previousPoint [0];
+        double dy = nextPoint [1] - previousPoint [1];
+        if (cross * cross <= tolerance * tolerance * (dx * dx + dy * dy)) {
+          points.remove(i);
+          removed = true;
+        } else {
+          i++;
+        }
+      }
+    } while (removed && points.size() > 2);
+
+    List<float []> polygonPoints = new ArrayList<float[]>(points.size());
+    for (double [] point : points) {
+      float [] polygonPoint = {(float)point [0], (float)point [1]};
+      if (polygonPoints.isEmpty()
+          || polygonPoint [0] != polygonPoints.get(polygonPoints.size() - 1) [0]
+          || polygonPoint [1] != polygonPoints.get(polygonPoints.size() - 1) [1]) {
+        polygonPoints.add(polygonPoint);
+      }
+    }
+    if (polygonPoints.size() > 1
+        && polygonPoints.get(0) [0] == polygonPoints.get(polygonPoints.size() - 1) [0]
+        && polygonPoints.get(0) [1] == polygonPoints.get(polygonPoints.size() - 1) [1]) {
+      polygonPoints.remove(polygonPoints.size() - 1);
+    }
+    return polygonPoints.size() > 2
+        ? polygonPoints.toArray(new float [polygonPoints.size()][])
+        : null;
+  }
+
+  /**
+   * The borders of the result found in a band.
+   */
+  private static class Band {
+    private double []   xBottom  = new double [0];
+    private double []   xTop     = new double [0];
+    private Edge []     edges    = new Edge [0];
+    private double [][] segments = new double [0][];
+    private int         length;
+
+    public void ensureCapacity(int capacity) {
+      if (this.xBottom.length < capacity) {
+        this.xBottom = new double [capacity];
+        this.xTop = new double [capacity];
+        this.edges = new Edge [capacity];
+        this.segments = new double [capacity][];
+      }
+    }
+  }
+
+  /**
+   * A non horizontal edge of a polygon, which first point is the lowest one.
+   */
+  private static class Edge {
+    private final double x0;
+    private final double y0;
+    private final double x1;
+    private final double y1;
+    private final int    winding1;
+    private final int    winding2;
+    // Abscissas at the bottom and the top of the current band
+    private double       xBottom;
+    private double       xTop;
+
+    public Edge(float [] point, float [] nextPoint, boolean firstSet, int orientation) {
+      int winding;
+      if (point [1] < nextPoint [1]) {
+        this.x0 = point [0];
+        this.y0 = point [1];
+        this.x1 = nextPoint [0];
+        this.y1 = nextPoint [1];
+        winding = orientation;
+      } else {
+        this.x0 = nextPoint [0];
+        this.y0 = nextPoint [1];
+        this.x1 = point [0];
+        this.y1 = point [1];
+        winding = -orientation;
+      }
+      this.winding1 = firstSet ? winding : 0;
+      this.winding2 = firstSet ? 0 : winding;
+    }
+
+    public double getX(double y) {
+      if (y == this.y1) {
+        return this.x1;
+      } else if (y == this.y0) {
+        return this.x0;
+      } else {
+        return this.x0 + (this.x1 - this.x0) * (y - this.y0) / (this.y1 - this.y0);
+      }
+    }
+  }
+}
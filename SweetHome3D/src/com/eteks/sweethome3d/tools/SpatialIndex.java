@@ -0,0 +1,208 @@
+/*
+ * SpatialIndex.java 19 oct. 2026
+ *
+ * Sweet Home 3D, Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.eteks.sweethome3d.tools;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid storing items according to their bounds in plan,
+ * able to return quickly the items which bounds intersect a given rectangle.
+ * Items are compared with their identity.
+ * @param <T> the type of indexed items
+ * @author Emmanuel Puybaret
+ * @since 5.5
+ */
+public class SpatialIndex<T> {
+  // Items that overlap more cells than this count are stored apart
+  private static final int MAXIMUM_CELL_COUNT_PER_ITEM = 256;
+
+  private final float                  cellSize;
+  private final Map<Long, List<T>>     cells;
+  private final Map<T, Rectangle2D>    itemsBounds;
+  private final Map<T, Boolean>        largeItems;
+
+  /**
+   * Creates an empty index which cells have the given size in cm.
+   */
+  public SpatialIndex(float cellSize) {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("Cell size must be positive");
+    }
+    this.cellSize = cellSize;
+    this.cells = new HashMap<Long, List<T>>();
+    this.itemsBounds = new IdentityHashMap<T, Rectangle2D>();
+    this.largeItems = new IdentityHashMap<T, Boolean>();
+  }
+
+  /**
+   * Adds the given <code>item</code> to this index or updates its <code>bounds</code>
+   * if it's already indexed.
+   */
+  public void add(T item, Rectangle2D bounds) {
+    if (this.itemsBounds.containsKey(item)) {
+      remove(item);
+    }
+    bounds = (Rectangle2D)bounds.clone();
+    this.itemsBounds.put(item, bounds);
+    int [] cellRange = getCellRange(bounds);
+    if (((long)cellRange [2] - cellRange [0] + 1) * ((long)cellRange [3] - cellRange [1] + 1) > MAXIMUM_CELL_COUNT_PER_ITEM) {
+      this.largeItems.put(item, Boolean.TRUE);
+    } else {
+      for (int i = cellRange [0]; i <= cellRange [2]; i++) {
+        for (int j = cellRange [1]; j <= cellRange [3]; j++) {
+          Long key = getCellKey(i, j);
+          List<T> cellItems = this.cells.get(key);
+          if (cellItems == null) {
+            cellItems = new ArrayList<T>(4);
+            this.cells.put(key, cellItems);
+          }
+          cellItems.add(item);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes the given <code>item</code> from this index.
+   * @return <code>true</code> if the item was indexed
+   */
+  public boolean remove(T item) {
+    Rectangle2D bounds = this.itemsBounds.remove(item);
+    if (bounds == null) {
+      return false;
+    } else if (this.largeItems.remove(item) == null) {
+      int [] cellRange = getCellRange(bounds);
+      for (int i = cellRange [0]; i <= cellRange [2]; i++) {
+        for (int j = cellRange [1]; j <= cellRange [3]; j++) {
+          Long key = getCellKey(i, j);
+          List<T> cellItems = this.cells.get(key);
+          if (cellItems != null) {
+            for (int k = cellItems.size() - 1; k >= 0; k--) {
+              if (cellItems.get(k) == item) {
+                cellItems.remove(k);
+                break;
+              }
+            }
+            if (cellItems.isEmpty()) {
+              this.cells.remove(key);
+            }
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns <code>true</code> if the given <code>item</code> is indexed.
+   */
+  public boolean contains(T item) {
+    return this.itemsBounds.containsKey(item);
+  }
+
+  /**
+   * Returns the bounds of the given indexed <code>item</code> or <code>null</code>.
+   */
+  public Rectangle2D getBounds(T item) {
+    Rectangle2D bounds = this.itemsBounds.get(item);
+    return bounds != null
+        ? (Rectangle2D)bounds.clone()
+        : null;
+  }
+
+  /**
+   * Returns the count of indexed items.
+   */
+  public int size() {
+    return this.itemsBounds.size();
+  }
+
+  /**
+   * Removes all the items of this index.
+   */
+  public void clear() {
+    this.cells.clear();
+    this.itemsBounds.clear();
+    this.largeItems.clear();
+  }
+
+  /**
+   * Returns the items which bounds intersect or touch the given rectangle.
+   * Returned items are unique but their order is undetermined.
+   */
+  public List<T> getItemsIntersecting(Rectangle2D rectangle) {
+    Map<T, Boolean> items = new IdentityHashMap<T, Boolean>();
+    int [] cellRange = getCellRange(rectangle);
+    if (((long)cellRange [2] - cellRange [0] + 1) * ((long)cellRange [3] - cellRange [1] + 1) > this.cells.size()) {
+      // Less cells than the ones overlapped by rectangle
+      for (List<T> cellItems : this.cells.values()) {
+        addItemsIntersecting(cellItems, rectangle, items);
+      }
+    } else {
+      for (int i = cellRange [0]; i <= cellRange [2]; i++) {
+        for (int j = cellRange [1]; j <= cellRange [3]; j++) {
+          List<T> cellItems = this.cells.get(getCellKey(i, j));
+          if (cellItems != null) {
+            addItemsIntersecting(cellItems, rectangle, items);
+          }
+        }
+      }
+    }
+    addItemsIntersecting(this.largeItems.keySet(), rectangle, items);
+    return new ArrayList<T>(items.keySet());
+  }
+
+  /**
+   * Adds to <code>intersectingItems</code> the items which bounds intersect <code>rectangle</code>.
+   */
+  private void addItemsIntersecting(Iterable<T> items, Rectangle2D rectangle, Map<T, Boolean> intersectingItems) {
+    for (T item : items) {
+      Rectangle2D bounds = this.itemsBounds.get(item);
+      // Accept touching bounds to include degenerated items like horizontal or vertical lines
+      if (bounds.getMinX() <= rectangle.getMaxX()
+          && bounds.getMaxX() >= rectangle.getMinX()
+          && bounds.getMinY() <= rectangle.getMaxY()
+          && bounds.getMaxY() >= rectangle.getMinY()) {
+        intersectingItems.put(item, Boolean.TRUE);
+      }
+    }
+  }
+
+  /**
+   * Returns the indices of the first and last cells overlapped by the given rectangle.
+   */
+  private int [] getCellRange(Rectangle2D rectangle) {
+    return new int [] {getCellIndex(rectangle.getMinX()), getCellIndex(rectangle.getMinY()),
+                       getCellIndex(rectangle.getMaxX()), getCellIndex(rectangle.getMaxY())};
+  }
+
+  private int getCellIndex(double coordinate) {
+    return (int)Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, Math.floor(coordinate / this.cellSize)));
+  }
+
+  private Long getCellKey(int i, int j) {
+    return ((long)i << 32) | (j & 0xFFFFFFFFL);
+  }
+}
@@ -1390,7 +1390,14 @@ public class FurnitureController implements Controller {
     float margin = Math.min(piece.getWidth(), piece.getDepth()) * 0.05f;
     HomePieceOfFurniture highestSurroundingPiece = null;
     float highestElevation = Float.MIN_VALUE;
-    for (HomePieceOfFurniture homePiece : getFurnitureInSameGroup(piece)) {
+    List<HomePieceOfFurniture> homeFurniture = this.home.getFurniture();
+    List<HomePieceOfFurniture> furniture = getFurnitureInSameGroup(piece, homeFurniture);
+    if (furniture == null 
+        || furniture == homeFurniture) {
+      // Search only among home furniture close to piece
+      furniture = getHomeFurnitureAround(piecePoints, margin);
+    }
+    for (HomePieceOfFurniture homePiece : furniture) {
       if (homePiece != piece 
           && !ignoredFurniture.contains(homePiece)
           && isPieceOfFurnitureVisibleAtSelectedLevel(homePiece)
@@ -1415,6 +1422,17 @@ public class FurnitureController implements Controller {
     return highestSurroundingPiece;
   }
   
+  /**
+   * Returns the furniture of home which may intersect the rectangle surrounding 
+   * the given <code>points</code> enlarged by <code>margin</code>. 
+   * This implementation returns all home furniture, and may be overridden 
+   * to search pieces faster. 
+   * @since 5.5
+   */
+  protected List<HomePieceOfFurniture> getHomeFurnitureAround(float [][] points, float margin) {
+    return this.home.getFurniture();
+  }
+
   /**
    * Returns the furniture list of the given <code>piece</code> which belongs to same group
    * or home furniture if it doesn't belong to home furniture.
@@ -2435,7 +2435,8 @@ public class HomeController implements Controller {
   }
   
   /**
-   * Controls the export of the 3D view of current home to an OBJ file.
+   * Controls the export of the 3D view of current home to an OBJ file, 
+   * or to a GLB file if the view supports it.
    */
   public void exportToOBJ() {
     final String objName = getView().showExportToOBJDialog(this.home.getName());    
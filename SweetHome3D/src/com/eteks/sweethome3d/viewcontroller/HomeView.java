@@ -264,6 +264,8 @@ public interface HomeView extends View {
   
   /**
    * Exports the 3D home objects to a given OBJ file.
+   * Implementations may export to other 3D formats depending on the extension of <code>objFile</code>,
+   * like binary glTF for files with a .glb extension.
    * Caution !!! This method may be called from a threaded task.  
    */
   public abstract void exportToOBJ(String objFile) throws RecorderException;
@@ -31,14 +31,17 @@ import java.awt.geom.Rectangle2D;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import javax.swing.undo.AbstractUndoableEdit;
@@ -73,6 +76,8 @@ import com.eteks.sweethome3d.model.SelectionListener;
 import com.eteks.sweethome3d.model.TextStyle;
 import com.eteks.sweethome3d.model.UserPreferences;
 import com.eteks.sweethome3d.model.Wall;
+import com.eteks.sweethome3d.tools.AreaUnion;
+import com.eteks.sweethome3d.tools.SpatialIndex;
 
 /**
  * A MVC controller for the plan view.
@@ -120,6 +125,7 @@ public class PlanController extends FurnitureController implements Controller {
   private static final int PIXEL_MARGIN           = 4;
   private static final int INDICATOR_PIXEL_MARGIN = 5;
   private static final int WALL_ENDS_PIXEL_MARGIN = 2;
+  private static final float ITEMS_INDEX_CELL_SIZE = 100;
 
   private final Home                  home;
   private final UserPreferences       preferences;
@@ -180,11 +186,16 @@ public class PlanController extends FurnitureController implements Controller {
   private boolean                         magnetismToggledLastMousePress;
   private float                           xLastMouseMove;
   private float                           yLastMouseMove;
-  private Area                            wallsAreaCache;
-  private Area                            wallsIncludingBaseboardsAreaCache;
+  private AreaUnion<Wall>                 wallsAreaCache;
+  private AreaUnion<Wall>                 wallsIncludingBaseboardsAreaCache;
   private Area                            insideWallsAreaCache;
   private List<GeneralPath>               roomPathsCache;
+  private SpatialIndex<GeneralPath>       roomPathsIndexCache;
   private Map<HomePieceOfFurniture, Area> furnitureSidesCache;
+  private SpatialIndex<Selectable>        itemsIndexCache;
+  private Map<Selectable, Boolean>        updatedIndexedItems;
+  private Map<Selectable, Integer>        indexedItemsOrderCache;
+  private PropertyChangeListener          indexedItemChangeListener;
   private List<Selectable>                draggedItems;
 
   /**
@@ -208,6 +219,7 @@ public class PlanController extends FurnitureController implements Controller {
     this.undoSupport = undoSupport;
     this.propertyChangeSupport = new PropertyChangeSupport(this);
     this.furnitureSidesCache = new Hashtable<HomePieceOfFurniture, Area>();
+    this.updatedIndexedItems = new IdentityHashMap<Selectable, Boolean>();
     // Initialize states
     this.selectionState = new SelectionState();
     this.selectionMoveState = new SelectionMoveState();
@@ -1705,9 +1717,12 @@ public class PlanController extends FurnitureController implements Controller {
               || Wall.Property.HEIGHT_AT_END.name().equals(propertyName)
               || Wall.Property.LEFT_SIDE_BASEBOARD.name().equals(propertyName)
               || Wall.Property.RIGHT_SIDE_BASEBOARD.name().equals(propertyName)) {
-            resetAreaCache();
-            // Unselect unreachable wall
             Wall wall = (Wall)ev.getSource();
+            updateAreaCache(wall);
+            if (ev.getOldValue() instanceof Wall) {
+              updateJoinedWallInAreaCache((Wall)ev.getOldValue());
+            }
+            // Unselect unreachable wall
             if (!wall.isAtLevel(home.getSelectedLevel())) {
               List<Selectable> selectedItems = new ArrayList<Selectable>(home.getSelectedItems());
               if (selectedItems.remove(wall)) {
@@ -1724,10 +1739,11 @@ public class PlanController extends FurnitureController implements Controller {
         public void collectionChanged(CollectionEvent<Wall> ev) {
           if (ev.getType() == CollectionEvent.Type.ADD) {
             ev.getItem().addPropertyChangeListener(wallChangeListener);
+            updateAreaCache(ev.getItem());
           } else if (ev.getType() == CollectionEvent.Type.DELETE) {
             ev.getItem().removePropertyChangeListener(wallChangeListener);
+            removeFromAreaCache(ev.getItem());
           }
-          resetAreaCache();
         }
       });
     // Add listener to update furnitureBordersCache when walls change
@@ -1756,6 +1772,36 @@ public class PlanController extends FurnitureController implements Controller {
         }
       });
     
+    // Add listeners to keep up to date the index of items searched at a given location
+    this.indexedItemChangeListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent ev) {
+          Selectable item = (Selectable)ev.getSource();
+          updateIndexedItem(item);
+          if (item instanceof Wall) {
+            // Points of joined walls depend on the modified wall
+            Wall wall = (Wall)item;
+            updateIndexedItem(wall.getWallAtStart());
+            updateIndexedItem(wall.getWallAtEnd());
+            if (ev.getOldValue() instanceof Wall) {
+              updateIndexedItem((Wall)ev.getOldValue());
+            }
+          }
+        }
+      };
+    for (Selectable item : getIndexableItems()) {
+      addIndexedItemListener(item);
+    }
+    this.home.addLabelsListener(new IndexedItemsListener<Label>());
+    this.home.addDimensionLinesListener(new IndexedItemsListener<DimensionLine>());
+    this.home.addPolylinesListener(new IndexedItemsListener<Polyline>());
+    this.home.addFurnitureListener(new IndexedItemsListener<HomePieceOfFurniture>());
+    this.home.addWallsListener(new IndexedItemsListener<Wall>());
+    this.home.addRoomsListener(new IndexedItemsListener<Room>());
+    // Texts bounds depend on unit and default font
+    UserPreferencesChangeListener preferencesListener = new UserPreferencesChangeListener(this);
+    this.preferences.addPropertyChangeListener(UserPreferences.Property.UNIT, preferencesListener);
+    this.preferences.addPropertyChangeListener(UserPreferences.Property.DEFAULT_FONT_NAME, preferencesListener);
+    
     this.home.addPropertyChangeListener(Home.Property.SELECTED_LEVEL, new PropertyChangeListener() {
         public void propertyChange(PropertyChangeEvent ev) {
           resetAreaCache();
@@ -1772,8 +1818,332 @@ public class PlanController extends FurnitureController implements Controller {
   private void resetAreaCache() {
     wallsAreaCache = null;
     wallsIncludingBaseboardsAreaCache = null;
+    resetRoomPathsCache();
+  }
+
+  private void resetRoomPathsCache() {
     insideWallsAreaCache = null;
     roomPathsCache = null;
+    roomPathsIndexCache = null;
+  }
+
+  /**
+   * Updates the shape of the given home <code>wall</code> and of its joined walls 
+   * in the walls area caches.
+   */
+  private void updateAreaCache(Wall wall) {
+    Level selectedLevel = this.home.getSelectedLevel();
+    if (this.wallsAreaCache != null) {
+      if (wall.isAtLevel(selectedLevel)) {
+        this.wallsAreaCache.add(wall, getPath(wall.getPoints(false)));
+      } else {
+        this.wallsAreaCache.remove(wall);
+      }
+    }
+    if (this.wallsIncludingBaseboardsAreaCache != null) {
+      if (wall.isAtLevel(selectedLevel)) {
+        this.wallsIncludingBaseboardsAreaCache.add(wall, getPath(wall.getPoints(true)));
+      } else {
+        this.wallsIncludingBaseboardsAreaCache.remove(wall);
+      }
+    }
+    // Points of joined walls depend on the given wall
+    updateJoinedWallInAreaCache(wall.getWallAtStart());
+    updateJoinedWallInAreaCache(wall.getWallAtEnd());
+    resetRoomPathsCache();
+  }
+
+  /**
+   * Removes the given <code>wall</code> from the walls area caches.
+   */
+  private void removeFromAreaCache(Wall wall) {
+    if (this.wallsAreaCache != null) {
+      this.wallsAreaCache.remove(wall);
+    }
+    if (this.wallsIncludingBaseboardsAreaCache != null) {
+      this.wallsIncludingBaseboardsAreaCache.remove(wall);
+    }
+    updateJoinedWallInAreaCache(wall.getWallAtStart());
+    updateJoinedWallInAreaCache(wall.getWallAtEnd());
+    resetRoomPathsCache();
+  }
+
+  /**
+   * Updates the shape of the given joined <code>wall</code> in the walls area caches 
+   * if it belongs to them.
+   */
+  private void updateJoinedWallInAreaCache(Wall wall) {
+    if (wall != null) {
+      if (this.wallsAreaCache != null
+          && this.wallsAreaCache.contains(wall)) {
+        this.wallsAreaCache.add(wall, getPath(wall.getPoints(false)));
+      }
+      if (this.wallsIncludingBaseboardsAreaCache != null
+          && this.wallsIncludingBaseboardsAreaCache.contains(wall)) {
+        this.wallsIncludingBaseboardsAreaCache.add(wall, getPath(wall.getPoints(true)));
+      }
+    }
+  }
+  
+  /**
+   * Collection listener keeping up to date the index of home items.
+   */
+  private class IndexedItemsListener<T extends Selectable> implements CollectionListener<T> {
+    public void collectionChanged(CollectionEvent<T> ev) {
+      T item = ev.getItem();
+      indexedItemsOrderCache = null;
+      if (ev.getType() == CollectionEvent.Type.ADD) {
+        addIndexedItemListener(item);
+        updateIndexedItem(item);
+      } else if (ev.getType() == CollectionEvent.Type.DELETE) {
+        removeIndexedItemListener(item);
+        if (itemsIndexCache != null) {
+          itemsIndexCache.remove(item);
+          updatedIndexedItems.remove(item);
+        }
+      }
+    }
+  }
+
+  /**
+   * Preferences property listener bound to this controller with a weak reference to avoid
+   * strong link between preferences and this controller.  
+   */
+  private static class UserPreferencesChangeListener implements PropertyChangeListener {
+    private WeakReference<PlanController> planController;
+
+    public UserPreferencesChangeListener(PlanController planController) {
+      this.planController = new WeakReference<PlanController>(planController);
+    }
+    
+    public void propertyChange(PropertyChangeEvent ev) {
+      // If controller was garbage collected, remove this listener from preferences
+      PlanController planController = this.planController.get();
+      if (planController == null) {
+        ((UserPreferences)ev.getSource()).removePropertyChangeListener(
+            UserPreferences.Property.valueOf(ev.getPropertyName()), this);
+      } else {
+        planController.itemsIndexCache = null;
+      }
+    }
+  }
+
+  /**
+   * Returns the home items stored in the index of items.
+   */
+  private List<Selectable> getIndexableItems() {
+    List<Selectable> items = new ArrayList<Selectable>();
+    items.addAll(this.home.getLabels());
+    items.addAll(this.home.getDimensionLines());
+    items.addAll(this.home.getPolylines());
+    items.addAll(this.home.getFurniture());
+    items.addAll(this.home.getWalls());
+    items.addAll(this.home.getRooms());
+    return items;
+  }
+
+  private void addIndexedItemListener(Selectable item) {
+    if (item instanceof Label) {
+      ((Label)item).addPropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof DimensionLine) {
+      ((DimensionLine)item).addPropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof Polyline) {
+      ((Polyline)item).addPropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof HomePieceOfFurniture) {
+      ((HomePieceOfFurniture)item).addPropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof Wall) {
+      ((Wall)item).addPropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof Room) {
+      ((Room)item).addPropertyChangeListener(this.indexedItemChangeListener);
+    }
+  }
+
+  private void removeIndexedItemListener(Selectable item) {
+    if (item instanceof Label) {
+      ((Label)item).removePropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof DimensionLine) {
+      ((DimensionLine)item).removePropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof Polyline) {
+      ((Polyline)item).removePropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof HomePieceOfFurniture) {
+      ((HomePieceOfFurniture)item).removePropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof Wall) {
+      ((Wall)item).removePropertyChangeListener(this.indexedItemChangeListener);
+    } else if (item instanceof Room) {
+      ((Room)item).removePropertyChangeListener(this.indexedItemChangeListener);
+    }
+  }
+
+  /**
+   * Marks the given <code>item</code> as modified to update its bounds 
+   * in the index of items once it's requested.
+   */
+  private void updateIndexedItem(Selectable item) {
+    if (item != null
+        && this.itemsIndexCache != null) {
+      this.updatedIndexedItems.put(item, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Returns the index of home items built from their bounds including their texts.
+   */
+  private SpatialIndex<Selectable> getItemsIndex() {
+    if (this.itemsIndexCache == null) {
+      this.itemsIndexCache = new SpatialIndex<Selectable>(ITEMS_INDEX_CELL_SIZE);
+      this.updatedIndexedItems.clear();
+      for (Selectable item : getIndexableItems()) {
+        indexItem(item);
+      }
+    } else if (!this.updatedIndexedItems.isEmpty()) {
+      for (Selectable item : this.updatedIndexedItems.keySet()) {
+        indexItem(item);
+      }
+      this.updatedIndexedItems.clear();
+    }
+    return this.itemsIndexCache;
+  }
+
+  private void indexItem(Selectable item) {
+    Rectangle2D bounds = getIndexedItemBounds(item);
+    if (bounds != null) {
+      this.itemsIndexCache.add(item, bounds);
+    } else {
+      this.itemsIndexCache.remove(item);
+    }
+  }
+
+  /**
+   * Returns the bounds of the given <code>item</code> and its texts that may be
+   * drawn outside of its shape, or <code>null</code> if it has no point.
+   */
+  private Rectangle2D getIndexedItemBounds(Selectable item) {
+    Rectangle2D bounds = null;
+    if (item instanceof Wall) {
+      bounds = addPointsToBounds(((Wall)item).getPoints(true), bounds);
+    } else {
+      bounds = addPointsToBounds(item.getPoints(), bounds);
+    }
+    if (item instanceof Polyline
+        && bounds != null) {
+      Polyline polyline = (Polyline)item;
+      // Mitered joins may go beyond points up to the default miter limit of 10 
+      // and curved polylines beyond their points
+      double extension = polyline.getThickness() / 2 * 10 
+          + (polyline.getJoinStyle() == Polyline.JoinStyle.CURVED
+                ? Math.hypot(bounds.getWidth(), bounds.getHeight()) / 3 
+                : 0);
+      bounds.setRect(bounds.getX() - extension, bounds.getY() - extension, 
+          bounds.getWidth() + 2 * extension, bounds.getHeight() + 2 * extension);
+    } else if (item instanceof Label) {
+      Label label = (Label)item;
+      bounds = addTextToBounds(label, label.getText(), label.getStyle(), 
+          label.getX(), label.getY(), label.getAngle(), bounds);
+    } else if (item instanceof HomePieceOfFurniture) {
+      HomePieceOfFurniture piece = (HomePieceOfFurniture)item;
+      if (piece.getName() != null
+          && piece.isNameVisible()) {
+        bounds = addTextToBounds(piece, piece.getName(), piece.getNameStyle(), 
+            piece.getX() + piece.getNameXOffset(), piece.getY() + piece.getNameYOffset(), 
+            piece.getNameAngle(), bounds);
+      }
+    } else if (item instanceof Room) {
+      Room room = (Room)item;
+      if (room.getPoints().length > 0) {
+        if (room.getName() != null) {
+          bounds = addTextToBounds(room, room.getName(), room.getNameStyle(), 
+              room.getXCenter() + room.getNameXOffset(), room.getYCenter() + room.getNameYOffset(), 
+              room.getNameAngle(), bounds);
+        }
+        if (room.isAreaVisible()) {
+          String areaText = this.preferences.getLengthUnit().getAreaFormatWithUnit().format(room.getArea());
+          bounds = addTextToBounds(room, areaText, room.getAreaStyle(), 
+              room.getXCenter() + room.getAreaXOffset(), room.getYCenter() + room.getAreaYOffset(), 
+              room.getAreaAngle(), bounds);
+        }
+      }
+    }
+    return bounds;
+  }
+
+  private Rectangle2D addPointsToBounds(float [][] points, Rectangle2D bounds) {
+    for (float [] point : points) {
+      if (bounds == null) {
+        bounds = new Rectangle2D.Float(point [0], point [1], 0, 0);
+      } else {
+        bounds.add(point [0], point [1]);
+      }
+    }
+    return bounds;
+  }
+
+  private Rectangle2D addTextToBounds(Selectable item, String text, TextStyle textStyle, 
+                                      float xText, float yText, float textAngle, Rectangle2D bounds) {
+    PlanView planView = getView();
+    if (planView != null) {
+      bounds = addPointsToBounds(planView.getTextBounds(text, getItemTextStyle(item, textStyle), 
+          xText, yText, textAngle), bounds);
+    }
+    return bounds;
+  }
+
+  /**
+   * Returns the indexed home items which bounds including their texts 
+   * intersect the given rectangle, in the same order as {@link #getIndexableItems()}.
+   */
+  private List<Selectable> getIndexedItemsIntersecting(float x0, float y0, float x1, float y1) {
+    Rectangle2D rectangle = new Rectangle2D.Float(x0, y0, 0, 0);
+    rectangle.add(x1, y1);
+    List<Selectable> items = getItemsIndex().getItemsIntersecting(rectangle);
+    if (items.size() > 1) {
+      if (this.indexedItemsOrderCache == null) {
+        this.indexedItemsOrderCache = new IdentityHashMap<Selectable, Integer>();
+        for (Selectable item : getIndexableItems()) {
+          this.indexedItemsOrderCache.put(item, this.indexedItemsOrderCache.size());
+        }
+      }
+      final Map<Selectable, Integer> itemsOrder = this.indexedItemsOrderCache;
+      Collections.sort(items, new Comparator<Selectable>() {
+          public int compare(Selectable item1, Selectable item2) {
+            return itemsOrder.get(item1) - itemsOrder.get(item2);
+          }
+        });
+    }
+    return items;
+  }
+
+  /**
+   * Returns the items of the given class among <code>items</code>, in the same order.
+   */
+  private <T extends Selectable> List<T> getItemsOfClass(List<Selectable> items, Class<T> itemClass) {
+    List<T> itemsOfClass = new ArrayList<T>();
+    for (Selectable item : items) {
+      if (itemClass.isInstance(item)) {
+        itemsOfClass.add(itemClass.cast(item));
+      }
+    }
+    return itemsOfClass;
+  }
+
+  /**
+   * Returns the home items of the given class which bounds intersect 
+   * the given rectangle, in the same order as in home.
+   */
+  private <T extends Selectable> List<T> getItemsIntersecting(Class<T> itemClass, Rectangle2D rectangle) {
+    return getItemsOfClass(getIndexedItemsIntersecting((float)rectangle.getMinX(), (float)rectangle.getMinY(), 
+        (float)rectangle.getMaxX(), (float)rectangle.getMaxY()), itemClass);
+  }
+
+  /**
+   * Returns the furniture of home which may intersect the rectangle surrounding 
+   * the given <code>points</code> enlarged by <code>margin</code>. 
+   */
+  @Override
+  protected List<HomePieceOfFurniture> getHomeFurnitureAround(float [][] points, float margin) {
+    Rectangle2D bounds = addPointsToBounds(points, null);
+    bounds.setRect(bounds.getX() - margin, bounds.getY() - margin, 
+        bounds.getWidth() + 2 * margin, bounds.getHeight() + 2 * margin);
+    return getItemsIntersecting(HomePieceOfFurniture.class, bounds);
   }
   
   /**
@@ -1841,13 +2211,12 @@ public class PlanController extends FurnitureController implements Controller {
     
     final boolean includeBaseboards = !piece.isDoorOrWindow()
         && piece.getElevation() == 0;
-    Area wallsArea = getWallsArea(includeBaseboards);
-    Collection<Wall> walls = this.home.getWalls();
     
     Wall referenceWall = null;
     if (forceOrientation
         || !piece.isDoorOrWindow()) {
       // Search if point (x, y) is contained in home walls with no margin
+      List<Wall> walls = getItemsIntersecting(Wall.class, new Rectangle2D.Float(x, y, 0, 0));
       for (Wall wall : walls) {
         if (wall.isAtLevel(selectedLevel) 
             && isLevelNullOrViewable(wall.getLevel())
@@ -1877,7 +2246,7 @@ public class PlanController extends FurnitureController implements Controller {
           piece.getX() - piece.getWidth() / 2 - margin, piece.getY() - piece.getDepth() / 2 - margin, 
           piece.getWidth() + 2 * margin, piece.getDepth() + 2 * margin, piece.getAngle()));
       float intersectionWithReferenceWallSurface = 0;
-      for (Wall wall : walls) {
+      for (Wall wall : getItemsIntersecting(Wall.class, pieceAreaWithMargin.getBounds2D())) {
         if (wall.isAtLevel(selectedLevel) 
             && isLevelNullOrViewable(wall.getLevel())
             && wall.getStartPointToEndPointDistance() > 0) {
@@ -2021,9 +2390,10 @@ public class PlanController extends FurnitureController implements Controller {
               || Line2D.relativeCCW(referenceWall.getXStart(), referenceWall.getYStart(), 
                     referenceWall.getXEnd(), referenceWall.getYEnd(), x, y) > 0)) {
         // Search if piece intersects some other walls and avoid it intersects the closest one 
-        Area wallsAreaIntersection = new Area(wallsArea);
         Area adjustedPieceArea = new Area(getRotatedRectangle(xPiece - halfWidth, 
                 yPiece - halfDepth, piece.getWidth(), piece.getDepth(), pieceAngle));
+        Area wallsArea = getWallsAreaIntersecting(adjustedPieceArea.getBounds2D(), includeBaseboards);
+        Area wallsAreaIntersection = new Area(wallsArea);
         wallsAreaIntersection.subtract(new Area(getPath(wallPoints)));
         wallsAreaIntersection.intersect(adjustedPieceArea);
         if (!wallsAreaIntersection.isEmpty()) {
@@ -2155,8 +2525,10 @@ public class PlanController extends FurnitureController implements Controller {
     List<DimensionLine> dimensionLines = new ArrayList<DimensionLine>();
     float [] wallEndPointJoinedToPieceLeftPoint = null;
     float [] wallEndPointJoinedToPieceRightPoint = null;
-    // Search among room paths which segment includes pieceLeftPoint and pieceRightPoint
-    List<GeneralPath> roomPaths = getRoomPathsFromWalls();
+    // Search among room paths around piece which segment includes pieceLeftPoint and pieceRightPoint
+    Rectangle2D pieceSidePointsBounds = new Rectangle2D.Float(pieceLeftPoint [0], pieceLeftPoint [1], 0, 0);
+    pieceSidePointsBounds.add(pieceRightPoint [0], pieceRightPoint [1]);
+    List<GeneralPath> roomPaths = getRoomPathsFromWallsIntersecting(pieceSidePointsBounds);
     for (int i = 0; 
          i < roomPaths.size()
          && wallEndPointJoinedToPieceLeftPoint == null 
@@ -2354,7 +2726,10 @@ public class PlanController extends FurnitureController implements Controller {
     Area intersectionWithReferencePieceArea = null;
     float intersectionWithReferencePieceSurface = 0;
     float [][] referencePiecePoints = null;
-    for (HomePieceOfFurniture homePiece : this.home.getFurniture()) {
+    Rectangle2D pieceBoundsWithMargin = pieceArea.getBounds2D();
+    pieceBoundsWithMargin.setRect(pieceBoundsWithMargin.getX() - margin, pieceBoundsWithMargin.getY() - margin, 
+        pieceBoundsWithMargin.getWidth() + 2 * margin, pieceBoundsWithMargin.getHeight() + 2 * margin);
+    for (HomePieceOfFurniture homePiece : getItemsIntersecting(HomePieceOfFurniture.class, pieceBoundsWithMargin)) {
       float homePieceElevation = homePiece.getGroundElevation();
       if (homePiece != piece 
           && isPieceOfFurnitureVisibleAtSelectedLevel(homePiece)
@@ -3404,7 +3779,9 @@ public class PlanController extends FurnitureController implements Controller {
     
     boolean basePlanLocked = this.home.isBasePlanLocked();
     Level selectedLevel = this.home.getSelectedLevel();
-    for (Label label : this.home.getLabels()) {
+    // Check only the items which bounds are close to (x, y)
+    List<Selectable> indexedItems = getIndexedItemsIntersecting(x - margin, y - margin, x + margin, y + margin);
+    for (Label label : getItemsOfClass(indexedItems, Label.class)) {
       if ((!basePlanLocked 
             || !isItemPartOfBasePlan(label)) 
           && isLevelNullOrViewable(label.getLevel())
@@ -3419,7 +3796,7 @@ public class PlanController extends FurnitureController implements Controller {
       }
     }    
     
-    for (DimensionLine dimensionLine : this.home.getDimensionLines()) {
+    for (DimensionLine dimensionLine : getItemsOfClass(indexedItems, DimensionLine.class)) {
       if ((!basePlanLocked 
             || !isItemPartOfBasePlan(dimensionLine))
           && isLevelNullOrViewable(dimensionLine.getLevel())
@@ -3432,7 +3809,7 @@ public class PlanController extends FurnitureController implements Controller {
       }
     }    
     
-    List<Polyline> polylines = this.home.getPolylines();
+    List<Polyline> polylines = getItemsOfClass(indexedItems, Polyline.class);
     // Search in home polylines in reverse order to give priority to last drawn polyline
     for (int i = polylines.size() - 1; i >= 0; i--) {
       Polyline polyline = polylines.get(i);
@@ -3448,7 +3825,7 @@ public class PlanController extends FurnitureController implements Controller {
       }
     }    
     
-    List<HomePieceOfFurniture> furniture = this.home.getFurniture();
+    List<HomePieceOfFurniture> furniture = getItemsOfClass(indexedItems, HomePieceOfFurniture.class);
     // Search in home furniture in reverse order to give priority to last drawn piece
     // at highest elevation in case it covers an other piece
     List<HomePieceOfFurniture> foundFurniture = new ArrayList<HomePieceOfFurniture>();
@@ -3546,7 +3923,7 @@ public class PlanController extends FurnitureController implements Controller {
           }
         });
       items.addAll(foundFurniture);
-      for (Wall wall : this.home.getWalls()) {
+      for (Wall wall : getItemsOfClass(indexedItems, Wall.class)) {
         if ((!basePlanLocked 
               || !isItemPartOfBasePlan(wall))
             && isLevelNullOrViewable(wall.getLevel())
@@ -3559,7 +3936,7 @@ public class PlanController extends FurnitureController implements Controller {
         }
       }    
 
-      List<Room> rooms = this.home.getRooms();
+      List<Room> rooms = getItemsOfClass(indexedItems, Room.class);
       // Search in home rooms in reverse order to give priority to last drawn room
       // at highest elevation in case it covers an other piece
       Room foundRoom = null;
@@ -3633,13 +4010,34 @@ public class PlanController extends FurnitureController implements Controller {
   protected List<Selectable> getSelectableItemsIntersectingRectangle(float x0, float y0, float x1, float y1) {
     List<Selectable> items = new ArrayList<Selectable>();
     boolean basePlanLocked = this.home.isBasePlanLocked();
-    for (Selectable item : getVisibleItemsAtSelectedLevel()) {
-      if ((!basePlanLocked 
+    List<Selectable> indexedItems = getIndexedItemsIntersecting(x0, y0, x1, y1);
+    // Check only the indexed items in the order of selectable viewable items of home
+    List<Selectable> checkedItems = new ArrayList<Selectable>(indexedItems.size() + 1);
+    checkedItems.addAll(getItemsOfClass(indexedItems, Wall.class));
+    checkedItems.addAll(getItemsOfClass(indexedItems, Room.class));
+    checkedItems.addAll(getItemsOfClass(indexedItems, DimensionLine.class));
+    checkedItems.addAll(getItemsOfClass(indexedItems, Polyline.class));
+    checkedItems.addAll(getItemsOfClass(indexedItems, Label.class));
+    checkedItems.addAll(getItemsOfClass(indexedItems, HomePieceOfFurniture.class));
+    Level selectedLevel = this.home.getSelectedLevel();
+    for (Selectable item : checkedItems) {
+      if ((item instanceof HomePieceOfFurniture
+            ? isPieceOfFurnitureVisibleAtSelectedLevel((HomePieceOfFurniture)item)
+            : isLevelNullOrViewable(((Elevatable)item).getLevel())
+                && ((Elevatable)item).isAtLevel(selectedLevel))
+          && (!basePlanLocked 
             || !isItemPartOfBasePlan(item))
           && item.intersectsRectangle(x0, y0, x1, y1)) {
         items.add(item);
       }
     }
+    Compass compass = this.home.getCompass();
+    if (compass.isVisible()
+        && (!basePlanLocked 
+          || !isItemPartOfBasePlan(compass))
+        && compass.intersectsRectangle(x0, y0, x1, y1)) {
+      items.add(compass);
+    }
     ObserverCamera camera = this.home.getObserverCamera();
     if (camera != null && camera.intersectsRectangle(x0, y0, x1, y1)) {
       items.add(camera);
@@ -4212,7 +4610,7 @@ public class PlanController extends FurnitureController implements Controller {
         moveWallEndPoint(wall, 
             wall.getXEnd() + dx, wall.getYEnd() + dy,
             !items.contains(wall.getWallAtEnd()));
-        resetAreaCache();
+        updateAreaCache(wall);
         wall.addPropertyChangeListener(this.wallChangeListener);
       } else {
         item.move(dx, dy);
@@ -5840,6 +6238,33 @@ public class PlanController extends FurnitureController implements Controller {
     return this.roomPathsCache;
   }
 
+  /**
+   * Returns the room paths computed from walls which bounds intersect the given rectangle, 
+   * in the same order as the ones returned by {@link #getRoomPathsFromWalls()}.
+   */
+  private List<GeneralPath> getRoomPathsFromWallsIntersecting(Rectangle2D rectangle) {
+    List<GeneralPath> roomPaths = getRoomPathsFromWalls();
+    if (this.roomPathsIndexCache == null) {
+      this.roomPathsIndexCache = new SpatialIndex<GeneralPath>(ITEMS_INDEX_CELL_SIZE);
+      for (GeneralPath roomPath : roomPaths) {
+        this.roomPathsIndexCache.add(roomPath, roomPath.getBounds2D());
+      }
+    }
+    Map<GeneralPath, Boolean> roomPathsIntersecting = new IdentityHashMap<GeneralPath, Boolean>();
+    // Enlarge rectangle to take into account tolerance on points
+    for (GeneralPath roomPath : this.roomPathsIndexCache.getItemsIntersecting(new Rectangle2D.Double(
+        rectangle.getX() - 0.01, rectangle.getY() - 0.01, rectangle.getWidth() + 0.02, rectangle.getHeight() + 0.02))) {
+      roomPathsIntersecting.put(roomPath, Boolean.TRUE);
+    }
+    List<GeneralPath> sortedRoomPaths = new ArrayList<GeneralPath>(roomPathsIntersecting.size());
+    for (GeneralPath roomPath : roomPaths) {
+      if (roomPathsIntersecting.containsKey(roomPath)) {
+        sortedRoomPaths.add(roomPath);
+      }
+    }
+    return sortedRoomPaths;
+  }
+
   /**
    * Returns the paths described by the given <code>area</code>.
    */
@@ -5881,12 +6306,12 @@ public class PlanController extends FurnitureController implements Controller {
   private Area getWallsArea(boolean includeBaseboards) {
     if (!includeBaseboards && this.wallsAreaCache == null
         || includeBaseboards && this.wallsIncludingBaseboardsAreaCache == null) {
-      // Compute walls area
-      Area wallsArea = new Area();
+      // Compute walls area union, updated afterwards when walls change
+      AreaUnion<Wall> wallsArea = new AreaUnion<Wall>();
       Level selectedLevel = this.home.getSelectedLevel();
       for (Wall wall : this.home.getWalls()) {
         if (wall.isAtLevel(selectedLevel)) {
-          wallsArea.add(new Area(getPath(wall.getPoints(includeBaseboards))));
+          wallsArea.add(wall, getPath(wall.getPoints(includeBaseboards)));
         }
       }
       if (includeBaseboards) {
@@ -5896,10 +6321,25 @@ public class PlanController extends FurnitureController implements Controller {
       }
     }
     return includeBaseboards 
-        ? this.wallsIncludingBaseboardsAreaCache
-        : this.wallsAreaCache;
+        ? this.wallsIncludingBaseboardsAreaCache.getArea()
+        : this.wallsAreaCache.getArea();
   }
   
+  /**
+   * Returns the area covered by the walls at selected level which bounds 
+   * intersect the given rectangle.
+   */
+  private Area getWallsAreaIntersecting(Rectangle2D rectangle, boolean includeBaseboards) {
+    Area wallsArea = new Area();
+    Level selectedLevel = this.home.getSelectedLevel();
+    for (Wall wall : getItemsIntersecting(Wall.class, rectangle)) {
+      if (wall.isAtLevel(selectedLevel)) {
+        wallsArea.add(new Area(getPath(wall.getPoints(includeBaseboards))));
+      }
+    }
+    return wallsArea;
+  }
+
   /**
    * Returns the shape matching the coordinates in <code>points</code> array.
    */
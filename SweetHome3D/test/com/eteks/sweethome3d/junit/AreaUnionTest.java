@@ -0,0 +1,82 @@
+/*
+ * AreaUnionTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.tools.AreaUnion;
+
+/**
+ * Tests {@link AreaUnion} class.
+ * @author Emmanuel Puybaret
+ */
+public class AreaUnionTest extends TestCase {
+  /**
+   * Checks the union of shapes added, updated and removed at random
+   * is equal to the union computed with <code>Area</code> class.
+   */
+  public void testAreaUnion() {
+    Random random = new Random(0);
+    AreaUnion<Object> union = new AreaUnion<Object>();
+    assertTrue("Union not empty", union.getArea().isEmpty());
+    Map<Object, Rectangle> rectangles = new IdentityHashMap<Object, Rectangle>();
+    List<Object> items = new ArrayList<Object>();
+    for (int i = 0; i < 1000; i++) {
+      int action = random.nextInt(4);
+      if (action == 0 && !items.isEmpty()) {
+        // Remove an item
+        Object item = items.remove(random.nextInt(items.size()));
+        rectangles.remove(item);
+        assertTrue("Item not removed", union.remove(item));
+        assertFalse("Item still in union", union.contains(item));
+      } else {
+        Object item;
+        if (action == 1 && !items.isEmpty()) {
+          // Update an item
+          item = items.get(random.nextInt(items.size()));
+        } else {
+          item = new Object();
+          items.add(item);
+        }
+        Rectangle rectangle = new Rectangle(random.nextInt(1000), random.nextInt(1000),
+            1 + random.nextInt(100), 1 + random.nextInt(100));
+        rectangles.put(item, rectangle);
+        union.add(item, rectangle);
+      }
+      assertEquals("Wrong size", items.size(), union.size());
+      if (i % 50 == 0) {
+        Area area = new Area();
+        for (Rectangle rectangle : rectangles.values()) {
+          area.add(new Area(rectangle));
+        }
+        assertTrue("Wrong union at step " + i, area.equals(union.getArea()));
+      }
+    }
+    assertEquals("Wrong items count", items.size(), union.getItems().size());
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * GLBWriterTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import javax.media.j3d.Appearance;
+import javax.media.j3d.Geometry;
+import javax.media.j3d.Material;
+import javax.media.j3d.PolygonAttributes;
+import javax.media.j3d.Shape3D;
+import javax.media.j3d.Transform3D;
+import javax.media.j3d.TransformGroup;
+import javax.media.j3d.TriangleArray;
+import javax.vecmath.Vector3d;
+import javax.vecmath.Vector3f;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.j3d.GLBWriter;
+import com.sun.j3d.utils.geometry.Box;
+import com.sun.j3d.utils.image.TextureLoader;
+
+/**
+ * Tests {@link GLBWriter} class.
+ * @author Emmanuel Puybaret
+ */
+public class GLBWriterTest extends TestCase {
+  /**
+   * Checks the structure of a GLB file and that shapes sharing the same geometry
+   * reference the same mesh.
+   */
+  public void testGLBWriter() throws IOException {
+    Box box = new Box(0.5f, 0.5f, 0.5f, Box.GENERATE_NORMALS | Box.GENERATE_TEXTURE_COORDS, null);
+    Geometry geometry = box.getShape(Box.FRONT).getGeometry();
+    Appearance appearance = new Appearance();
+    appearance.setMaterial(new Material());
+    appearance.setTexture(new TextureLoader(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB)).getTexture());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GLBWriter writer = new GLBWriter(out, "Test");
+    for (int i = 0; i < 3; i++) {
+      Transform3D translation = new Transform3D();
+      translation.setTranslation(new Vector3f(i * 100, 0, 0));
+      TransformGroup translationGroup = new TransformGroup(translation);
+      translationGroup.addChild(new Shape3D(geometry, appearance));
+      writer.writeNode(translationGroup, "node" + i);
+    }
+    writer.writeNode(box, "box");
+    writer.close();
+
+    ByteBuffer glb = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals("Wrong magic", 0x46546C67, glb.getInt());
+    assertEquals("Wrong version", 2, glb.getInt());
+    assertEquals("Wrong length", glb.capacity(), glb.getInt());
+    int jsonLength = glb.getInt();
+    assertEquals("Wrong first chunk", 0x4E4F534A, glb.getInt());
+    assertEquals("Unaligned chunk", 0, jsonLength % 4);
+    String json = new String(out.toByteArray(), 20, jsonLength, "UTF-8");
+    glb.position(20 + jsonLength);
+    int binLength = glb.getInt();
+    assertEquals("Wrong second chunk", 0x004E4942, glb.getInt());
+    assertEquals("Wrong file end", glb.capacity(), glb.position() + binLength);
+
+    assertTrue("No texture image", json.contains("\"mimeType\":\"image/png\""));
+    // 3 nodes sharing the same geometry + 6 box faces + 4 named nodes + 1 root node
+    assertEquals("Wrong mesh count", 1 + 6, getOccurrenceCount(json, "\"primitives\""));
+    assertEquals("Wrong mesh reference count", 3 + 6, getOccurrenceCount(json, "\"mesh\""));
+    assertEquals("Wrong names count", 4, getOccurrenceCount(json, "\"name\":\"node")
+        + getOccurrenceCount(json, "\"name\":\"box\""));
+  }
+
+  /**
+   * Checks that a mirrored shape displayed with front faces culled and flipped normals, 
+   * as mirrored pieces are, gets the same triangles and normals as the not mirrored one, 
+   * glTF viewers reversing themselves the faces of nodes with a mirroring matrix.
+   */
+  public void testGLBWriterMirroredShape() throws IOException {
+    TriangleArray triangle = new TriangleArray(3, TriangleArray.COORDINATES | TriangleArray.NORMALS);
+    triangle.setCoordinates(0, new float [] {0, 0, 0, 1, 0, 0, 0, 1, 0});
+    triangle.setNormals(0, new float [] {0, 0, 1, 0, 0, 1, 0, 0, 1});
+
+    byte [] glb = writeTriangle(triangle, PolygonAttributes.CULL_BACK, false, new Transform3D());
+    Transform3D mirror = new Transform3D();
+    mirror.setScale(new Vector3d(-1, 1, 1));
+    byte [] mirroredGlb = writeTriangle(triangle, PolygonAttributes.CULL_FRONT, true, mirror);
+    assertTrue("Mirrored triangle not mirrored", new String(mirroredGlb, "UTF-8").contains("\"matrix\":[-1.0,"));
+    assertTrue("Mirrored triangle reversed", Arrays.equals(getBinaryChunk(glb), getBinaryChunk(mirroredGlb)));
+    
+    // Check front faces culled without mirroring are still reversed
+    byte [] culledGlb = writeTriangle(triangle, PolygonAttributes.CULL_FRONT, true, new Transform3D());
+    assertFalse("Triangle not reversed", Arrays.equals(getBinaryChunk(glb), getBinaryChunk(culledGlb)));
+  }
+
+  private byte [] writeTriangle(TriangleArray triangle, int cullFace, boolean backFaceNormalFlip,
+                                Transform3D transform) throws IOException {
+    Appearance appearance = new Appearance();
+    PolygonAttributes polygonAttributes = new PolygonAttributes();
+    polygonAttributes.setCullFace(cullFace);
+    polygonAttributes.setBackFaceNormalFlip(backFaceNormalFlip);
+    appearance.setPolygonAttributes(polygonAttributes);
+    TransformGroup transformGroup = new TransformGroup(transform);
+    transformGroup.addChild(new Shape3D(triangle, appearance));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GLBWriter writer = new GLBWriter(out, "Test");
+    writer.writeNode(transformGroup, "triangle");
+    writer.close();
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the content of the binary chunk of the given GLB file.
+   */
+  private byte [] getBinaryChunk(byte [] glb) {
+    ByteBuffer buffer = ByteBuffer.wrap(glb).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.position(20 + buffer.getInt(12));
+    byte [] chunk = new byte [buffer.getInt()];
+    buffer.getInt();
+    buffer.get(chunk);
+    return chunk;
+  }
+
+  private int getOccurrenceCount(String text, String searchedText) {
+    int count = 0;
+    for (int index = text.indexOf(searchedText); index >= 0; index = text.indexOf(searchedText, index + 1)) {
+      count++;
+    }
+    return count;
+  }
+}
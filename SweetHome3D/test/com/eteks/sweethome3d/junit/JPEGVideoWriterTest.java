@@ -0,0 +1,115 @@
+/*
+ * JPEGVideoWriterTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.swing.JPEGVideoWriter;
+
+/**
+ * Tests {@link JPEGVideoWriter} class.
+ * @author Emmanuel Puybaret
+ */
+public class JPEGVideoWriterTest extends TestCase {
+  /**
+   * Checks the structure of a movie file written with JPEG frames
+   * and that its frames can be read back.
+   */
+  public void testJPEGVideoWriter() throws IOException {
+    File file = File.createTempFile("video", ".mov");
+    try {
+      int frameCount = 5;
+      JPEGVideoWriter writer = new JPEGVideoWriter(file, 64, 48, 25);
+      BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+      for (int i = 0; i < frameCount; i++) {
+        // Reuse the same image to check the writer copies it
+        Graphics graphics = image.getGraphics();
+        graphics.setColor(new Color(i * 50, 0, 0));
+        graphics.fillRect(0, 0, 64, 48);
+        graphics.dispose();
+        writer.writeFrame(image);
+      }
+      writer.close();
+      assertEquals("Wrong frame count", frameCount, writer.getFrameCount());
+
+      RandomAccessFile movie = new RandomAccessFile(file, "r");
+      try {
+        // Check top level atoms cover the whole file
+        assertEquals("Wrong first atom", "ftyp", readAtomType(movie, 0));
+        long mdatOffset = movie.readInt();
+        assertEquals("Wrong second atom", "mdat", readAtomType(movie, mdatOffset));
+        assertEquals("Wrong mdat size", 1, movie.readInt());
+        movie.seek(mdatOffset + 8);
+        long moovOffset = mdatOffset + movie.readLong();
+        assertEquals("Wrong third atom", "moov", readAtomType(movie, moovOffset));
+        assertEquals("Wrong file size", movie.length(), moovOffset + movie.readInt());
+
+        // Check each frame referenced in sample tables is a JPEG image
+        byte [] moov = new byte [(int)(movie.length() - moovOffset)];
+        movie.seek(moovOffset);
+        movie.readFully(moov);
+        int stszIndex = new String(moov, "ISO-8859-1").indexOf("stsz");
+        int stcoIndex = new String(moov, "ISO-8859-1").indexOf("stco");
+        assertTrue("No sample tables", stszIndex > 0 && stcoIndex > 0);
+        assertEquals("Wrong sample count", frameCount, readInt(moov, stszIndex + 12));
+        assertEquals("Wrong chunk count", frameCount, readInt(moov, stcoIndex + 8));
+        for (int i = 0; i < frameCount; i++) {
+          int frameSize = readInt(moov, stszIndex + 16 + 4 * i);
+          int frameOffset = readInt(moov, stcoIndex + 12 + 4 * i);
+          byte [] frameData = new byte [frameSize];
+          movie.seek(frameOffset);
+          movie.readFully(frameData);
+          BufferedImage frame = ImageIO.read(new ByteArrayInputStream(frameData));
+          assertEquals("Wrong frame width", 64, frame.getWidth());
+          assertEquals("Wrong frame height", 48, frame.getHeight());
+          int red = (frame.getRGB(32, 24) >> 16) & 0xFF;
+          assertTrue("Wrong frame " + i + " color", Math.abs(red - i * 50) < 8);
+        }
+      } finally {
+        movie.close();
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  private String readAtomType(RandomAccessFile file, long offset) throws IOException {
+    file.seek(offset + 4);
+    byte [] type = new byte [4];
+    file.readFully(type);
+    file.seek(offset);
+    return new String(type, "ISO-8859-1");
+  }
+
+  private int readInt(byte [] data, int index) {
+    return ((data [index] & 0xFF) << 24) | ((data [index + 1] & 0xFF) << 16)
+        | ((data [index + 2] & 0xFF) << 8) | (data [index + 3] & 0xFF);
+  }
+}
@@ -19,15 +19,25 @@
  */
 package com.eteks.sweethome3d.junit;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import javax.media.j3d.Appearance;
+import javax.media.j3d.PolygonAttributes;
+import javax.media.j3d.Shape3D;
 import javax.media.j3d.Transform3D;
 import javax.media.j3d.TransformGroup;
+import javax.media.j3d.TriangleArray;
 import javax.vecmath.Vector3f;
 
 import junit.framework.TestCase;
@@ -81,6 +91,210 @@ public class OBJWriterTest extends TestCase {
     }
   }
   
+  /**
+   * Tests that nodes written with several threads describe the same faces
+   * as the ones written with one thread.
+   */
+  public void testParallelOBJWriter() throws IOException {
+    File sequentialFile = File.createTempFile("sequential", ".obj");
+    File parallelFile = File.createTempFile("parallel", ".obj");
+    try {
+      for (File file : new File [] {sequentialFile, parallelFile}) {
+        OBJWriter writer = new OBJWriter(file, null, -1);
+        if (file == parallelFile) {
+          writer.setThreadCount(4);
+        }
+        for (int i = 0; i < 20; i++) {
+          Transform3D translation = new Transform3D();
+          translation.setTranslation(new Vector3f(i, 0, i % 3));
+          TransformGroup translationGroup = new TransformGroup(translation);
+          translationGroup.addChild(i % 2 == 0 
+              ? new Box(0.5f, i, 1, Box.GENERATE_NORMALS | Box.GENERATE_TEXTURE_COORDS, null) 
+              : new Sphere(0.5f, Sphere.GENERATE_NORMALS | Sphere.GENERATE_TEXTURE_COORDS, 10 + i));
+          writer.writeNode(translationGroup, "node" + i);
+        }
+        writer.close();
+      }
+      assertEquals("Different faces", getFaces(sequentialFile), getFaces(parallelFile));
+    } finally {
+      for (File file : new File [] {sequentialFile, parallelFile}) {
+        file.delete();
+        new File(file.getParent(), file.getName().replace(".obj", ".mtl")).delete();
+      }
+    }
+  }
+
+  /**
+   * Tests that elements of identical nodes written with several threads are shared
+   * as with one thread.
+   */
+  public void testParallelOBJWriterSharedElements() throws IOException {
+    File sequentialFile = File.createTempFile("sequential", ".obj");
+    File parallelFile = File.createTempFile("parallel", ".obj");
+    try {
+      for (File file : new File [] {sequentialFile, parallelFile}) {
+        OBJWriter writer = new OBJWriter(file, null, -1);
+        if (file == parallelFile) {
+          writer.setThreadCount(4);
+        }
+        // Write two identical pieces
+        for (int i = 0; i < 2; i++) {
+          writer.writeNode(new Box(0.5f, 1, 1, Box.GENERATE_NORMALS | Box.GENERATE_TEXTURE_COORDS, null), "piece" + i);
+        }
+        writer.close();
+      }
+      Map<String, Integer> sequentialElementCounts = getElementCounts(sequentialFile);
+      assertEquals("Wrong vertex count", Integer.valueOf(8), sequentialElementCounts.get("v"));
+      assertEquals("Different element counts", sequentialElementCounts, getElementCounts(parallelFile));
+      assertEquals("Different faces", getFaces(sequentialFile), getFaces(parallelFile));
+    } finally {
+      for (File file : new File [] {sequentialFile, parallelFile}) {
+        file.delete();
+        new File(file.getParent(), file.getName().replace(".obj", ".mtl")).delete();
+      }
+    }
+  }
+
+  /**
+   * Returns the count of vertices, texture coordinates, normals and faces in the given OBJ file.
+   */
+  private Map<String, Integer> getElementCounts(File objFile) throws IOException {
+    Map<String, Integer> elementCounts = new HashMap<String, Integer>();
+    for (String element : new String [] {"v", "vt", "vn", "f"}) {
+      elementCounts.put(element, 0);
+    }
+    BufferedReader in = new BufferedReader(new FileReader(objFile));
+    try {
+      for (String line; (line = in.readLine()) != null; ) {
+        String element = line.substring(0, Math.max(0, line.indexOf(' ')));
+        if (elementCounts.containsKey(element)) {
+          elementCounts.put(element, elementCounts.get(element) + 1);
+        }
+      }
+    } finally {
+      in.close();
+    }
+    return elementCounts;
+  }
+
+  /**
+   * Tests that vertices with close coordinates are written once when deduplication is enabled.
+   */
+  public void testOBJWriterDeduplication() throws IOException {
+    List<String> exactFaces = null;
+    for (int fractionDigits : new int [] {-1, 3}) {
+      File objFile = File.createTempFile("deduplication", ".obj");
+      try {
+        OBJWriter writer = new OBJWriter(objFile, null, -1);
+        writer.setDeduplicationFractionDigits(fractionDigits);
+        writer.writeNode(new Box());
+        Transform3D translation = new Transform3D();
+        translation.setTranslation(new Vector3f(0.00001f, 0, 0));
+        TransformGroup translationGroup = new TransformGroup(translation);
+        translationGroup.addChild(new Box());
+        writer.writeNode(translationGroup);
+        writer.close();
+        
+        List<String> faces = getFaces(objFile);
+        int vertexCount = 0;
+        BufferedReader in = new BufferedReader(new FileReader(objFile));
+        for (String line; (line = in.readLine()) != null; ) {
+          if (line.startsWith("v ")) {
+            vertexCount++;
+          }
+        }
+        in.close();
+        assertEquals("Wrong vertex count", fractionDigits < 0 ? 16 : 8, vertexCount);
+        if (exactFaces == null) {
+          exactFaces = faces;
+        } else {
+          assertEquals("Wrong face count", exactFaces.size(), faces.size());
+        }
+      } finally {
+        objFile.delete();
+        new File(objFile.getParent(), objFile.getName().replace(".obj", ".mtl")).delete();
+      }
+    }
+  }
+
+  /**
+   * Tests that normals with -0 and 0 coordinates are written once.
+   */
+  public void testOBJWriterNegativeZeroDeduplication() throws IOException {
+    File objFile = File.createTempFile("deduplication", ".obj");
+    try {
+      OBJWriter writer = new OBJWriter(objFile, null, -1);
+      // Opposite normal (-0, -0, -1) of a two sided triangle  
+      writer.writeNode(getTriangle(1, PolygonAttributes.CULL_NONE));
+      writer.writeNode(getTriangle(-1, PolygonAttributes.CULL_BACK));
+      writer.close();
+      
+      int normalCount = 0;
+      BufferedReader in = new BufferedReader(new FileReader(objFile));
+      for (String line; (line = in.readLine()) != null; ) {
+        if (line.startsWith("vn ")) {
+          normalCount++;
+        }
+      }
+      in.close();
+      assertEquals("Wrong normal count", 2, normalCount);
+    } finally {
+      objFile.delete();
+      new File(objFile.getParent(), objFile.getName().replace(".obj", ".mtl")).delete();
+    }
+  }
+
+  /**
+   * Returns a shape containing a triangle with a normal equal to (0, 0, <code>normalZ</code>).
+   */
+  private Shape3D getTriangle(float normalZ, int cullFace) {
+    TriangleArray triangle = new TriangleArray(3, TriangleArray.COORDINATES | TriangleArray.NORMALS);
+    triangle.setCoordinates(0, new float [] {0, 0, 0, 1, 0, 0, 0, 1, 0});
+    triangle.setNormals(0, new float [] {0, 0, normalZ, 0, 0, normalZ, 0, 0, normalZ});
+    Appearance appearance = new Appearance();
+    appearance.setPolygonAttributes(new PolygonAttributes(PolygonAttributes.POLYGON_FILL, cullFace, 0));
+    return new Shape3D(triangle, appearance);
+  }
+
+  /**
+   * Returns the group names and the faces of the given OBJ file, each face described
+   * by the coordinates of its vertices, texture coordinates and normals.
+   */
+  private List<String> getFaces(File objFile) throws IOException {
+    Map<String, List<String>> elements = new HashMap<String, List<String>>();
+    for (String element : new String [] {"v", "vt", "vn"}) {
+      elements.put(element, new ArrayList<String>());
+    }
+    List<String> faces = new ArrayList<String>();
+    BufferedReader in = new BufferedReader(new FileReader(objFile));
+    try {
+      for (String line; (line = in.readLine()) != null; ) {
+        String [] tokens = line.split(" ");
+        if (elements.containsKey(tokens [0])) {
+          elements.get(tokens [0]).add(line.substring(tokens [0].length()));
+        } else if ("g".equals(tokens [0]) || "usemtl".equals(tokens [0])) {
+          faces.add(line);
+        } else if ("f".equals(tokens [0])) {
+          StringBuilder face = new StringBuilder("f");
+          for (int i = 1; i < tokens.length; i++) {
+            String [] indices = tokens [i].split("/");
+            face.append(" " + elements.get("v").get(Integer.parseInt(indices [0]) - 1));
+            if (indices.length > 1 && indices [1].length() > 0) {
+              face.append(" /" + elements.get("vt").get(Integer.parseInt(indices [1]) - 1));
+            }
+            if (indices.length > 2) {
+              face.append(" /" + elements.get("vn").get(Integer.parseInt(indices [2]) - 1));
+            }
+          }
+          faces.add(face.toString());
+        }
+      }
+    } finally {
+      in.close();
+    }
+    return faces;
+  }
+
   /**
    * Tests home export to OBJ format.
    */
@@ -103,6 +103,8 @@ public class PackageDependenciesTest extends TestCase {
     // and Swing components and Java 3D use are isolated in sweetHome3DSwing
     sweetHome3DTools.dependsUpon(sweetHome3DModel);
     sweetHome3DTools.dependsUpon(eio);
+    sweetHome3DTools.dependsUpon(imageio);
+    sweetHome3DTools.dependsUpon(imageioStream);
     
     sweetHome3DViewController.dependsUpon(sweetHome3DModel);
     sweetHome3DViewController.dependsUpon(sweetHome3DTools);
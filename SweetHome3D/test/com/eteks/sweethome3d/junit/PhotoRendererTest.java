@@ -0,0 +1,229 @@
+/*
+ * PhotoRendererTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.EventQueue;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.io.DefaultUserPreferences;
+import com.eteks.sweethome3d.j3d.PhotoRenderer;
+import com.eteks.sweethome3d.model.Camera;
+import com.eteks.sweethome3d.model.Home;
+import com.eteks.sweethome3d.model.HomePieceOfFurniture;
+import com.eteks.sweethome3d.model.PieceOfFurniture;
+import com.eteks.sweethome3d.model.UserPreferences;
+import com.eteks.sweethome3d.model.Wall;
+import com.eteks.sweethome3d.tools.OperatingSystem;
+
+/**
+ * Tests {@link PhotoRenderer} checkpoints and shared geometries.
+ * @author Emmanuel Puybaret
+ */
+public class PhotoRendererTest extends TestCase {
+  private static final int IMAGE_WIDTH  = 128;
+  private static final int IMAGE_HEIGHT = 96;
+  private static final int BUCKET_SIZE  = 16;
+
+  /**
+   * Checks that an interrupted rendering is resumed from its checkpoint file,
+   * and that the checkpoint of a different scene or bucket size is ignored.
+   */
+  public void testCheckpoint() throws IOException, InterruptedException, InvocationTargetException {
+    Home home = new Home();
+    home.addWall(new Wall(0, 0, 500, 0, 10, 250));
+    PhotoRenderer renderer = new PhotoRenderer(home, PhotoRenderer.Quality.HIGH);
+    renderer.setThreadCount(1);
+    renderer.setBucketSize(BUCKET_SIZE);
+    int bucketCount = (IMAGE_WIDTH / BUCKET_SIZE) * (IMAGE_HEIGHT / BUCKET_SIZE);
+    File checkpointFile = OperatingSystem.createTemporaryFile("checkpoint", ".sh3c");
+    checkpointFile.delete();
+    try {
+      Camera camera = home.getCamera();
+      // Write checkpoint
+      int renderedBucketCount = renderAndStop(renderer, camera, checkpointFile);
+      assertTrue("No checkpoint file", checkpointFile.exists());
+      assertTrue("Rendering not stopped", renderedBucketCount < bucketCount);
+
+      // Resume rendering
+      renderedBucketCount = render(renderer, camera, checkpointFile);
+      assertTrue("Rendering not resumed", renderedBucketCount < bucketCount);
+      assertFalse("Checkpoint file not deleted", checkpointFile.exists());
+
+      // Check a checkpoint of another scene is ignored
+      renderAndStop(renderer, camera, checkpointFile);
+      assertTrue("No checkpoint file", checkpointFile.exists());
+      Camera otherCamera = camera.clone();
+      otherCamera.setX(camera.getX() + 100);
+      assertEquals("Checkpoint of other scene not ignored",
+          bucketCount, render(renderer, otherCamera, checkpointFile));
+      assertFalse("Checkpoint file not deleted", checkpointFile.exists());
+
+      // Check a checkpoint with other bucket size is ignored
+      renderAndStop(renderer, camera, checkpointFile);
+      assertTrue("No checkpoint file", checkpointFile.exists());
+      renderer.setBucketSize(BUCKET_SIZE * 2);
+      assertEquals("Checkpoint with other bucket size not ignored",
+          bucketCount / 4, render(renderer, camera, checkpointFile));
+      assertFalse("Checkpoint file not deleted", checkpointFile.exists());
+    } finally {
+      renderer.dispose();
+      checkpointFile.delete();
+    }
+  }
+
+  /**
+   * Checks that inverted bucket orders are accepted and used with checkpoints.
+   */
+  public void testBucketOrder() throws IOException, InterruptedException, InvocationTargetException {
+    Home home = new Home();
+    home.addWall(new Wall(0, 0, 500, 0, 10, 250));
+    PhotoRenderer renderer = new PhotoRenderer(home, PhotoRenderer.Quality.LOW);
+    File checkpointFile = OperatingSystem.createTemporaryFile("checkpoint", ".sh3c");
+    checkpointFile.delete();
+    try {
+      for (String bucketOrder : new String [] {"unknown", "reverse", "inverse unknown"}) {
+        try {
+          renderer.setBucketOrder(bucketOrder);
+          fail("Bucket order " + bucketOrder + " accepted");
+        } catch (IllegalArgumentException ex) {
+          // Expected exception
+        }
+      }
+      renderer.setBucketOrder("inverse hilbert");
+      assertEquals("Wrong bucket order", "inverse hilbert", renderer.getBucketOrder());
+      renderer.setThreadCount(1);
+      renderer.setBucketSize(BUCKET_SIZE);
+      assertEquals("Not all buckets rendered", (IMAGE_WIDTH / BUCKET_SIZE) * (IMAGE_HEIGHT / BUCKET_SIZE), 
+          render(renderer, home.getCamera(), checkpointFile));
+    } finally {
+      renderer.dispose();
+      checkpointFile.delete();
+    }
+  }
+
+  /**
+   * Checks that the geometries shared by identical pieces are removed from the renderer
+   * only once the last piece using them is deleted.
+   */
+  public void testSharedGeometries() throws IOException, NoSuchFieldException, IllegalAccessException {
+    UserPreferences preferences = new DefaultUserPreferences();
+    PieceOfFurniture catalogPiece = preferences.getFurnitureCatalog().getCategory(0).getPieceOfFurniture(0);
+    Home home = new Home();
+    HomePieceOfFurniture piece1 = new HomePieceOfFurniture(catalogPiece);
+    HomePieceOfFurniture piece2 = new HomePieceOfFurniture(catalogPiece);
+    piece2.setX(200);
+    home.addPieceOfFurniture(piece1);
+    home.addPieceOfFurniture(piece2);
+    PhotoRenderer renderer = new PhotoRenderer(home, PhotoRenderer.Quality.LOW);
+    try {
+      Map<?, ?> sharedGeometries = (Map<?, ?>)TestUtilities.getField(renderer, "sharedGeometries");
+      int sharedGeometryCount = sharedGeometries.size();
+      assertTrue("No shared geometry", sharedGeometryCount > 0);
+      BufferedImage image = new BufferedImage(8, 6, BufferedImage.TYPE_INT_ARGB);
+
+      // Update a piece
+      piece1.setX(100);
+      renderer.render(image, home.getCamera(), Arrays.asList(piece1), null);
+      assertEquals("Wrong shared geometry count after update", sharedGeometryCount, sharedGeometries.size());
+      // Delete pieces one after the other
+      home.deletePieceOfFurniture(piece1);
+      renderer.render(image, home.getCamera(), Arrays.asList(piece1), null);
+      assertEquals("Shared geometries of existing piece removed", sharedGeometryCount, sharedGeometries.size());
+      home.deletePieceOfFurniture(piece2);
+      renderer.render(image, home.getCamera(), Arrays.asList(piece2), null);
+      assertEquals("Shared geometries of deleted pieces not removed", 0, sharedGeometries.size());
+    } finally {
+      renderer.dispose();
+    }
+  }
+
+  /**
+   * Renders an image and returns the count of computed buckets.
+   */
+  private int render(PhotoRenderer renderer, Camera camera, File checkpointFile)
+      throws IOException, InterruptedException, InvocationTargetException {
+    BucketsObserver observer = new BucketsObserver(null);
+    renderer.render(new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_ARGB),
+        camera, null, checkpointFile, observer);
+    return observer.getRenderedBucketCount();
+  }
+
+  /**
+   * Renders an image stopped once its first bucket is computed,
+   * and returns the count of computed buckets.
+   */
+  private int renderAndStop(PhotoRenderer renderer, Camera camera, File checkpointFile)
+      throws IOException, InterruptedException, InvocationTargetException {
+    BucketsObserver observer = new BucketsObserver(renderer);
+    renderer.render(new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_ARGB),
+        camera, null, checkpointFile, observer);
+    // Clear interrupted state of the rendering thread
+    Thread.interrupted();
+    return observer.getRenderedBucketCount();
+  }
+
+  /**
+   * An observer counting the computed buckets, notified once when a bucket is prepared
+   * and once when it's updated.
+   */
+  private static class BucketsObserver implements ImageObserver {
+    private final PhotoRenderer  stoppedRenderer;
+    private final Set<Rectangle> preparedBuckets = new HashSet<Rectangle>();
+    private final Set<Rectangle> updatedBuckets = new HashSet<Rectangle>();
+
+    public BucketsObserver(PhotoRenderer stoppedRenderer) {
+      this.stoppedRenderer = stoppedRenderer;
+    }
+
+    public boolean imageUpdate(Image image, int flags, int x, int y, int width, int height) {
+      if ((flags & ImageObserver.SOMEBITS) != 0) {
+        Rectangle bucket = new Rectangle(x, y, width, height);
+        if (!this.preparedBuckets.add(bucket)
+            && this.updatedBuckets.add(bucket)
+            && this.stoppedRenderer != null) {
+          // Stop rendering once a bucket is saved in checkpoint
+          this.stoppedRenderer.stop();
+        }
+      }
+      return true;
+    }
+
+    public int getRenderedBucketCount() throws InterruptedException, InvocationTargetException {
+      // Wait for notifications posted in event dispatch thread
+      EventQueue.invokeAndWait(new Runnable() {
+          public void run() {
+          }
+        });
+      return this.updatedBuckets.size();
+    }
+  }
+}
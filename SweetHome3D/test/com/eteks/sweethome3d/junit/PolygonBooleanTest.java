@@ -0,0 +1,176 @@
+/*
+ * PolygonBooleanTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.tools.PolygonBoolean;
+
+/**
+ * Tests {@link PolygonBoolean} class against <code>Area</code> class.
+ * @author Emmanuel Puybaret
+ */
+public class PolygonBooleanTest extends TestCase {
+  /**
+   * Checks the union of random polygons.
+   */
+  public void testUnion() {
+    Random random = new Random(0);
+    for (int test = 0; test < 20; test++) {
+      List<float [][]> polygons = new ArrayList<float[][]>();
+      Area area = new Area();
+      for (int i = 0, n = 1 + random.nextInt(100); i < n; i++) {
+        float [][] polygon = new float [3 + random.nextInt(4)][];
+        float x = random.nextFloat() * 1000;
+        float y = random.nextFloat() * 1000;
+        for (int j = 0; j < polygon.length; j++) {
+          if (test % 2 == 0) {
+            // Build a random polygon that may intersect itself
+            polygon [j] = new float [] {x + random.nextFloat() * 200, y + random.nextFloat() * 200};
+          } else {
+            // Use integer coordinates to get superimposed points and edges
+            int [][] square = {{0, 0}, {1, 0}, {1, 1}, {0, 1}};
+            polygon = new float [random.nextBoolean() ? 3 : 4][];
+            int size = 100 * (1 + random.nextInt(2));
+            for (int k = 0; k < polygon.length; k++) {
+              polygon [k] = new float [] {(int)x / 100 * 100 + square [k][0] * size, (int)y / 100 * 100 + square [k][1] * size};
+            }
+            break;
+          }
+        }
+        polygons.add(polygon);
+        area.add(PolygonBoolean.getArea(Collections.singletonList(polygon)));
+      }
+      assertSameArea(area, PolygonBoolean.union(polygons));
+    }
+  }
+
+  /**
+   * Checks the union, the intersection and the difference of sets of polygons with holes.
+   */
+  public void testOperations() {
+    Random random = new Random(1);
+    for (int test = 0; test < 20; test++) {
+      Area area1 = getRandomArea(random);
+      Area area2 = getRandomArea(random);
+      List<float [][]> polygons1 = PolygonBoolean.getPolygons(area1, 0.1f);
+      List<float [][]> polygons2 = PolygonBoolean.getPolygons(area2, 0.1f);
+      // Compare with the flattened areas
+      area1 = PolygonBoolean.getArea(polygons1);
+      area2 = PolygonBoolean.getArea(polygons2);
+
+      Area union = new Area(area1);
+      union.add(area2);
+      assertSameArea(union, PolygonBoolean.union(polygons1, polygons2));
+      Area intersection = new Area(area1);
+      intersection.intersect(area2);
+      assertSameArea(intersection, PolygonBoolean.intersect(polygons1, polygons2));
+      Area difference = new Area(area1);
+      difference.subtract(area2);
+      assertSameArea(difference, PolygonBoolean.subtract(polygons1, polygons2));
+    }
+  }
+
+  /**
+   * Checks the union of adjacent squares is a square without intermediate points.
+   */
+  public void testAdjacentSquares() {
+    List<float [][]> squares = new ArrayList<float[][]>();
+    for (int i = 0; i < 10; i++) {
+      for (int j = 0; j < 10; j++) {
+        squares.add(new float [][] {{i * 10, j * 10}, {i * 10 + 10, j * 10}, {i * 10 + 10, j * 10 + 10}, {i * 10, j * 10 + 10}});
+      }
+    }
+    List<float [][]> union = PolygonBoolean.union(squares);
+    assertEquals("Wrong polygon count", 1, union.size());
+    assertEquals("Wrong point count", 4, union.get(0).length);
+    assertEquals("Wrong area", 10000, getArea(PolygonBoolean.getArea(union)), 1E-3);
+  }
+
+  private Area getRandomArea(Random random) {
+    Area area = new Area();
+    for (int i = 0, n = 1 + random.nextInt(10); i < n; i++) {
+      float x = random.nextFloat() * 1000;
+      float y = random.nextFloat() * 1000;
+      float width = 10 + random.nextFloat() * 300;
+      float height = 10 + random.nextFloat() * 300;
+      Area shapeArea = new Area(random.nextBoolean()
+          ? new Rectangle2D.Float(x, y, width, height)
+          : new Ellipse2D.Float(x, y, width, height));
+      shapeArea.transform(AffineTransform.getRotateInstance(random.nextFloat() * Math.PI, x, y));
+      if (random.nextInt(4) == 0) {
+        area.subtract(shapeArea);
+      } else {
+        area.add(shapeArea);
+      }
+    }
+    return area;
+  }
+
+  /**
+   * Checks the given <code>polygons</code> match <code>area</code>.
+   */
+  private void assertSameArea(Area area, List<float [][]> polygons) {
+    Area polygonsArea = PolygonBoolean.getArea(polygons);
+    Area xor = new Area(area);
+    xor.exclusiveOr(polygonsArea);
+    assertEquals("Wrong area", getArea(area), getArea(polygonsArea), 1E-2 + getArea(area) * 1E-5);
+    assertTrue("Different areas", getArea(xor) < 1E-2 + getArea(area) * 1E-5);
+  }
+
+  /**
+   * Returns the surface of the given <code>area</code>.
+   */
+  private double getArea(Area area) {
+    double surface = 0;
+    double [] point = new double [6];
+    double xStart = 0;
+    double yStart = 0;
+    double xPrevious = 0;
+    double yPrevious = 0;
+    for (PathIterator it = area.getPathIterator(null); !it.isDone(); it.next()) {
+      switch (it.currentSegment(point)) {
+        case PathIterator.SEG_MOVETO :
+          xStart = xPrevious = point [0];
+          yStart = yPrevious = point [1];
+          break;
+        case PathIterator.SEG_LINETO :
+          surface += xPrevious * point [1] - point [0] * yPrevious;
+          xPrevious = point [0];
+          yPrevious = point [1];
+          break;
+        case PathIterator.SEG_CLOSE :
+          surface += xPrevious * yStart - xStart * yPrevious;
+          break;
+      }
+    }
+    return Math.abs(surface / 2);
+  }
+}
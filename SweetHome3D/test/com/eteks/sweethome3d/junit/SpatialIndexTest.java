@@ -0,0 +1,94 @@
+/*
+ * SpatialIndexTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.tools.SpatialIndex;
+
+/**
+ * Tests {@link SpatialIndex} class.
+ * @author Emmanuel Puybaret
+ */
+public class SpatialIndexTest extends TestCase {
+  /**
+   * Checks that the items returned by the index are the ones found with a linear search.
+   */
+  public void testSpatialIndex() {
+    Random random = new Random(0);
+    SpatialIndex<String> index = new SpatialIndex<String>(100);
+    List<String> items = new ArrayList<String>();
+    List<Rectangle2D> itemsBounds = new ArrayList<Rectangle2D>();
+    for (int i = 0; i < 500; i++) {
+      String item = "item" + i;
+      // Add some very large items and degenerated ones
+      float width = i % 50 == 0 ? 100000 : (i % 7 == 0 ? 0 : random.nextFloat() * 500);
+      Rectangle2D bounds = new Rectangle2D.Float(random.nextFloat() * 5000 - 2500,
+          random.nextFloat() * 5000 - 2500, width, random.nextFloat() * 300);
+      index.add(item, bounds);
+      items.add(item);
+      itemsBounds.add(bounds);
+    }
+    // Move and remove some items
+    for (int i = 0; i < items.size(); i += 3) {
+      Rectangle2D bounds = new Rectangle2D.Float(random.nextFloat() * 5000 - 2500,
+          random.nextFloat() * 5000 - 2500, random.nextFloat() * 200, random.nextFloat() * 200);
+      index.add(items.get(i), bounds);
+      itemsBounds.set(i, bounds);
+    }
+    for (int i = items.size() - 1; i >= 0; i -= 5) {
+      assertTrue("Item not removed", index.remove(items.get(i)));
+      assertFalse("Item removed twice", index.remove(items.get(i)));
+      items.remove(i);
+      itemsBounds.remove(i);
+    }
+    assertEquals("Wrong size", items.size(), index.size());
+
+    for (int i = 0; i < 200; i++) {
+      Rectangle2D rectangle = new Rectangle2D.Float(random.nextFloat() * 6000 - 3000,
+          random.nextFloat() * 6000 - 3000, random.nextFloat() * (i % 10 == 0 ? 10000 : 300), random.nextFloat() * 300);
+      Set<String> expectedItems = new HashSet<String>();
+      for (int j = 0; j < items.size(); j++) {
+        Rectangle2D bounds = itemsBounds.get(j);
+        if (bounds.getMinX() <= rectangle.getMaxX()
+            && bounds.getMaxX() >= rectangle.getMinX()
+            && bounds.getMinY() <= rectangle.getMaxY()
+            && bounds.getMaxY() >= rectangle.getMinY()) {
+          expectedItems.add(items.get(j));
+        }
+      }
+      List<String> foundItems = index.getItemsIntersecting(rectangle);
+      assertEquals("Duplicated items", foundItems.size(), new HashSet<String>(foundItems).size());
+      assertEquals("Wrong items", expectedItems, new HashSet<String>(foundItems));
+    }
+
+    index.clear();
+    assertEquals("Index not empty", 0, index.size());
+    assertTrue("Items found in empty index",
+        index.getItemsIntersecting(new Rectangle2D.Float(-10000, -10000, 20000, 20000)).isEmpty());
+  }
+}
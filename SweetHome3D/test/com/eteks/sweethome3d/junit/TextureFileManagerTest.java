@@ -0,0 +1,82 @@
+/*
+ * TextureFileManagerTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.j3d.TextureFileManager;
+
+/**
+ * Tests {@link TextureFileManager} class.
+ * @author Emmanuel Puybaret
+ */
+public class TextureFileManagerTest extends TestCase {
+  /**
+   * Checks that images with the same content share the same file, 
+   * and that unused files are deleted according to the maximum size.
+   */
+  public void testTextureFileManager() throws IOException {
+    TextureFileManager manager = TextureFileManager.getInstance();
+    long maximumUnusedFilesSize = manager.getMaximumUnusedFilesSize();
+    try {
+      BufferedImage image1 = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+      BufferedImage image2 = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+      BufferedImage image3 = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+      image1.setRGB(1, 1, 0xFF0000);
+      image2.setRGB(1, 1, 0xFF0000);
+      image3.setRGB(1, 1, 0x00FF00);
+      
+      String path1 = manager.acquireFile(image1, 1);
+      String path2 = manager.acquireFile(image2, 1);
+      String path3 = manager.acquireFile(image3, 1);
+      String transparentPath = manager.acquireFile(image1, 0.5f);
+      assertEquals("Images with same content not shared", path1, path2);
+      assertFalse("Different images shared", path1.equals(path3));
+      assertFalse("Different opacities shared", path1.equals(transparentPath));
+      BufferedImage readImage = ImageIO.read(new File(path1));
+      assertEquals("Wrong exported pixel", 0xFF0000, readImage.getRGB(1, 1) & 0xFFFFFF);
+      
+      // Release files and check they are kept while they're smaller than the maximum size 
+      manager.releaseFile(path1);
+      manager.releaseFile(path3);
+      manager.releaseFile(transparentPath);
+      manager.setMaximumUnusedFilesSize(1 << 20);
+      assertTrue("Used file deleted", new File(path1).exists());
+      assertTrue("Unused file deleted", new File(path3).exists());
+      assertEquals("Unused file not reused", path3, manager.acquireFile(image3, 1));
+      manager.releaseFile(path3);
+      
+      manager.setMaximumUnusedFilesSize(0);
+      assertTrue("Used file deleted", new File(path1).exists());
+      assertFalse("Unused file not deleted", new File(path3).exists());
+      assertFalse("Unused file not deleted", new File(transparentPath).exists());
+      manager.releaseFile(path2);
+      assertFalse("Released file not deleted", new File(path1).exists());
+    } finally {
+      manager.setMaximumUnusedFilesSize(maximumUnusedFilesSize);
+    }
+  }
+}
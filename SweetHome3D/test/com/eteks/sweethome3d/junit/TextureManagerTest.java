@@ -0,0 +1,126 @@
+/*
+ * TextureManagerTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+import javax.media.j3d.Texture;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.j3d.TextureManager;
+import com.eteks.sweethome3d.tools.OperatingSystem;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * Tests {@link TextureManager} size limits.
+ * @author Emmanuel Puybaret
+ */
+public class TextureManagerTest extends TestCase {
+  /**
+   * Checks that images larger than the maximum texture size are downscaled.
+   */
+  public void testMaximumTextureSize() throws IOException {
+    TextureManager textureManager = TextureManager.getInstance();
+    int maximumTextureSize = textureManager.getMaximumTextureSize();
+    long textureMemoryBudget = textureManager.getTextureMemoryBudget();
+    try {
+      textureManager.clear();
+      textureManager.setTextureMemoryBudget(0);
+      textureManager.setMaximumTextureSize(128);
+      Texture texture = loadTexture(createImageContent(512, 256, Color.RED));
+      assertEquals("Wrong texture width", 128, texture.getWidth());
+      assertEquals("Wrong texture height", 64, texture.getHeight());
+      texture = loadTexture(createImageContent(64, 32, Color.GREEN));
+      assertEquals("Small texture resized", 64, texture.getWidth());
+      assertEquals("Small texture resized", 32, texture.getHeight());
+    } finally {
+      textureManager.setMaximumTextureSize(maximumTextureSize);
+      textureManager.setTextureMemoryBudget(textureMemoryBudget);
+      textureManager.clear();
+    }
+  }
+
+  /**
+   * Checks that textures are downscaled once the texture memory budget is reached.
+   */
+  public void testTextureMemoryBudget() throws IOException {
+    TextureManager textureManager = TextureManager.getInstance();
+    int maximumTextureSize = textureManager.getMaximumTextureSize();
+    long textureMemoryBudget = textureManager.getTextureMemoryBudget();
+    try {
+      textureManager.clear();
+      textureManager.setMaximumTextureSize(0);
+      long budget = 300 * 1024;
+      textureManager.setTextureMemoryBudget(budget);
+      // Keep references to textures to avoid their garbage collection
+      Texture texture1 = loadTexture(createImageContent(256, 256, Color.RED));
+      assertEquals("Texture in budget resized", 256, texture1.getWidth());
+      long usage = textureManager.getTextureMemoryUsage();
+      assertEquals("Wrong memory usage", 256 * 256 * 4, usage);
+
+      // Second texture should be downscaled to fit in the remaining 37 KB
+      Texture texture2 = loadTexture(createImageContent(256, 256, Color.GREEN));
+      assertTrue("Texture out of budget not resized", texture2.getWidth() < 256);
+      assertEquals("Wrong texture ratio", texture2.getWidth(), texture2.getHeight());
+      assertTrue("Texture memory budget exceeded", textureManager.getTextureMemoryUsage() <= budget);
+
+      // Once budget is reached, textures should be read at minimum size
+      Texture texture3 = loadTexture(createImageContent(256, 256, Color.BLUE));
+      assertTrue("Texture out of budget too large", texture3.getWidth() <= 64);
+      assertEquals("Wrong memory usage", usage + getMemorySize(texture2) + getMemorySize(texture3),
+          textureManager.getTextureMemoryUsage());
+    } finally {
+      textureManager.setMaximumTextureSize(maximumTextureSize);
+      textureManager.setTextureMemoryBudget(textureMemoryBudget);
+      textureManager.clear();
+    }
+  }
+
+  private Texture loadTexture(URLContent content) {
+    final Texture [] loadedTexture = new Texture [1];
+    TextureManager.getInstance().loadTexture(content, true, new TextureManager.TextureObserver() {
+        public void textureUpdated(Texture texture) {
+          loadedTexture [0] = texture;
+        }
+      });
+    return loadedTexture [0];
+  }
+
+  private long getMemorySize(Texture texture) {
+    return 4L * texture.getWidth() * texture.getHeight();
+  }
+
+  private URLContent createImageContent(int width, int height, Color color) throws IOException {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2D = image.createGraphics();
+    g2D.setColor(color);
+    g2D.fillRect(0, 0, width, height);
+    g2D.dispose();
+    File file = OperatingSystem.createTemporaryFile("texture", ".png");
+    ImageIO.write(image, "png", file);
+    return new URLContent(file.toURI().toURL());
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * TopViewIconFileManagerTest.java 19 oct. 2026
+ *
+ * Copyright (c) 2026 Emmanuel PUYBARET / eTeks <info@eteks.com>. All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package com.eteks.sweethome3d.junit;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import com.eteks.sweethome3d.swing.TopViewIconFileManager;
+import com.eteks.sweethome3d.tools.OperatingSystem;
+import com.eteks.sweethome3d.tools.URLContent;
+
+/**
+ * Tests {@link TopViewIconFileManager} class.
+ * @author Emmanuel Puybaret
+ */
+public class TopViewIconFileManagerTest extends TestCase {
+  /**
+   * Checks that stored images are read back in next sessions and that
+   * the least recently used files are deleted according to the maximum size.
+   */
+  public void testTopViewIconFileManager() throws IOException {
+    TopViewIconFileManager manager = TopViewIconFileManager.getInstance();
+    File folder = manager.getFolder();
+    long maximumSize = manager.getMaximumSize();
+    File testFolder = OperatingSystem.createTemporaryFile("icons", "");
+    testFolder.delete();
+    try {
+      manager.setFolder(testFolder);
+      manager.setMaximumSize(1 << 20);
+      BufferedImage image1 = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+      BufferedImage image2 = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+      image1.setRGB(1, 1, 0xFFFF0000);
+      image2.setRGB(1, 1, 0xFF00FF00);
+      assertNull("Unknown image found", manager.getImage("key1"));
+      manager.putImage("key1", image1);
+      manager.putImage("key2", image2);
+      assertEquals("Wrong stored pixel", 0xFFFF0000, manager.getImage("key1").getRGB(1, 1));
+
+      // Simulate a new session
+      manager.setFolder(testFolder);
+      assertEquals("Wrong stored pixel", 0xFF00FF00, manager.getImage("key2").getRGB(1, 1));
+      assertEquals("Wrong file count", 2, testFolder.listFiles().length);
+
+      // Reduce maximum size to keep only one file, key2 being the most recently used one
+      manager.setMaximumSize(testFolder.listFiles() [0].length());
+      assertNull("Least recently used image not deleted", manager.getImage("key1"));
+      assertNotNull("Most recently used image deleted", manager.getImage("key2"));
+      assertEquals("Wrong file count", 1, testFolder.listFiles().length);
+      manager.clear();
+      assertEquals("Files not deleted", 0, testFolder.listFiles().length);
+    } finally {
+      manager.setFolder(folder);
+      manager.setMaximumSize(maximumSize);
+      testFolder.delete();
+    }
+  }
+
+  /**
+   * Checks the digest of contents stored in zip files depends on the entries of their directory
+   * for multi part contents, and only on their own data for contents stored at zip root.
+   */
+  public void testContentDigest() throws IOException {
+    TopViewIconFileManager manager = TopViewIconFileManager.getInstance();
+    File zipFile1 = createZipFile(new String [] {"a/model.obj", "a/texture.png", "b/model.obj", "0", "Home.xml"},
+                                  new String [] {"o 1", "png 1", "o 2", "o 3", "<home/>"});
+    File zipFile2 = createZipFile(new String [] {"c/model.obj", "c/texture.png"},
+                                  new String [] {"o 2", "png 2"});
+    File zipFile3 = createZipFile(new String [] {"b/model.obj", "a/model.obj", "a/texture.png", "1", "Home.xml"},
+                                  new String [] {"o 2", "o 1", "png 1", "o 3", "<home name='other'/>"});
+    File zipFile4 = createZipFile(new String [] {"5/model.obj", "5/texture.png"},
+                                  new String [] {"o 1", "png 1"});
+    String digestA1 = manager.getContentDigest(getZipEntryContent(zipFile1, "a/model.obj"));
+    String digestB1 = manager.getContentDigest(getZipEntryContent(zipFile1, "b/model.obj"));
+    String digestC2 = manager.getContentDigest(getZipEntryContent(zipFile2, "c/model.obj"));
+    String digestA3 = manager.getContentDigest(getZipEntryContent(zipFile3, "a/model.obj"));
+    assertEquals("Same contents with different digests", digestA1, digestA3);
+    assertFalse("Different contents with same digest", digestA1.equals(digestB1));
+    assertFalse("Contents with different textures with same digest", digestB1.equals(digestC2));
+    // Check a renamed directory doesn't change digest
+    assertEquals("Same contents in renamed directory with different digests", 
+        digestA1, manager.getContentDigest(getZipEntryContent(zipFile4, "5/model.obj")));
+    // Check root entries digest doesn't depend on other entries
+    String rootDigest1 = manager.getContentDigest(getZipEntryContent(zipFile1, "0"));
+    String rootDigest3 = manager.getContentDigest(getZipEntryContent(zipFile3, "1"));
+    assertEquals("Same root entries with different digests", rootDigest1, rootDigest3);
+    assertFalse("Different root entries with same digest", rootDigest1.equals(
+        manager.getContentDigest(getZipEntryContent(zipFile3, "Home.xml"))));
+  }
+
+  private File createZipFile(String [] entryNames, String [] entryContents) throws IOException {
+    File file = OperatingSystem.createTemporaryFile("content", ".zip");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+    for (int i = 0; i < entryNames.length; i++) {
+      out.putNextEntry(new ZipEntry(entryNames [i]));
+      out.write(entryContents [i].getBytes("UTF-8"));
+      out.closeEntry();
+    }
+    out.close();
+    return file;
+  }
+
+  private URLContent getZipEntryContent(File zipFile, String entryName) throws IOException {
+    return new URLContent(new URL("jar:" + zipFile.toURI().toURL() + "!/" + entryName));
+  }
+}